@@ -0,0 +1,7 @@
+package com.mcon152.recipeshare.cache;
+
+/**
+ * Hit/miss counters of one second-level cache region since startup. {@code entries} is the
+ * number of cached entries, or -1 if the provider does not report it.
+ */
+public record CacheRegionStats(String region, long hits, long misses, long puts, long entries, double hitRatio) {}
@@ -0,0 +1,25 @@
+package com.mcon152.recipeshare.cache;
+
+import org.hibernate.cache.spi.RegionFactory;
+
+import java.util.List;
+
+/** Names of the Hibernate second-level cache regions, shared by the entity mappings and the config. */
+public final class CacheRegions {
+
+    private CacheRegions() {}
+
+    /** The whole Recipe hierarchy (single table, so one region). */
+    public static final String RECIPES = "recipes";
+    /** The Recipe.tags collection, i.e. the tag ids per recipe. */
+    public static final String RECIPE_TAGS = "recipe-tags";
+    public static final String TAGS = "tags";
+    public static final String APP_USERS = "app-users";
+
+    public static final List<String> ENTITY_REGIONS = List.of(RECIPES, RECIPE_TAGS, TAGS, APP_USERS);
+
+    /** Cached query results, e.g. of TagRepository.findByName. */
+    public static final String QUERY_RESULTS = RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME;
+    /** Last write time per table, used to invalidate cached query results. */
+    public static final String UPDATE_TIMESTAMPS = RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME;
+}
@@ -0,0 +1,41 @@
+package com.mcon152.recipeshare.cache;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/** Reads the second-level and query cache counters from Hibernate's statistics. */
+@Service
+public class CacheStatsService {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    public CacheStatsService(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    /** One entry per cache region, sorted by name; empty if statistics are disabled. */
+    public List<CacheRegionStats> regionStats() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        if (!statistics.isStatisticsEnabled()) return List.of();
+
+        String[] regions = statistics.getSecondLevelCacheRegionNames();
+        Arrays.sort(regions);
+        List<CacheRegionStats> out = new ArrayList<>(regions.length);
+        for (String region : regions) {
+            CacheRegionStatistics counters = statistics.getCacheRegionStatistics(region);
+            if (counters == null) continue;
+            long hits = counters.getHitCount();
+            long misses = counters.getMissCount();
+            out.add(new CacheRegionStats(region, hits, misses, counters.getPutCount(),
+                    counters.getElementCountInMemory(), hits + misses == 0 ? 0 : (double) hits / (hits + misses)));
+        }
+        return out;
+    }
+}
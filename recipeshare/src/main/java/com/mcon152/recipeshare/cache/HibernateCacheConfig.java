@@ -0,0 +1,67 @@
+package com.mcon152.recipeshare.cache;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.time.Duration;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+/**
+ * Second-level and query cache for Hibernate, backed by Caffeine (W-TinyLFU eviction) through its
+ * JCache provider. Every region is created here with the configured bound and time-to-live, and
+ * Hibernate is told to fail on any region not created here, so nothing is ever cached unbounded
+ * by accident. The update-timestamps region is the exception: Hibernate relies on it to invalidate
+ * query results, so it must never evict.
+ */
+@Configuration
+public class HibernateCacheConfig {
+
+    @Value("${recipeshare.cache.entity.max-size:10000}")
+    private long entityMaxSize;
+
+    @Value("${recipeshare.cache.entity.ttl:30m}")
+    private Duration entityTtl;
+
+    @Value("${recipeshare.cache.query.max-size:1000}")
+    private long queryMaxSize;
+
+    @Value("${recipeshare.cache.query.ttl:10m}")
+    private Duration queryTtl;
+
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager() {
+        // A private URI so that several application contexts in one JVM (tests) get separate managers
+        CacheManager manager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(URI.create("recipeshare-" + UUID.randomUUID()), getClass().getClassLoader());
+        for (String region : CacheRegions.ENTITY_REGIONS) {
+            manager.createCache(region, bounded(entityMaxSize, entityTtl));
+        }
+        manager.createCache(CacheRegions.QUERY_RESULTS, bounded(queryMaxSize, queryTtl));
+        CaffeineConfiguration<Object, Object> timestamps = new CaffeineConfiguration<>();
+        timestamps.setStatisticsEnabled(true);
+        manager.createCache(CacheRegions.UPDATE_TIMESTAMPS, timestamps);
+        return manager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer hibernateCacheManagerCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+    }
+
+    private static CaffeineConfiguration<Object, Object> bounded(long maxSize, Duration ttl) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setMaximumSize(OptionalLong.of(maxSize));
+        configuration.setExpireAfterWrite(OptionalLong.of(ttl.toNanos()));
+        configuration.setStatisticsEnabled(true);
+        return configuration;
+    }
+}
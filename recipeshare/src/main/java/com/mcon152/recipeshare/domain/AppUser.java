@@ -2,12 +2,21 @@ package com.mcon152.recipeshare.domain;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.mcon152.recipeshare.cache.CacheRegions;
+import com.mcon152.recipeshare.web.RecipeJsonCacheListener;
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.Table;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.util.Objects;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheRegions.APP_USERS)
+@EntityListeners(RecipeJsonCacheListener.class)
 @Table(name = "app_users")
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler", "password", "username", "createdAt", "updatedAt"})
 public class AppUser extends BaseEntity {
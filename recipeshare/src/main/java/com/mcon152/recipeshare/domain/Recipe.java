@@ -1,14 +1,22 @@
 package com.mcon152.recipeshare.domain;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.mcon152.recipeshare.cache.CacheRegions;
 import jakarta.persistence.*;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import com.mcon152.recipeshare.web.RecipeRequest;
 import java.util.HashSet;
 import java.util.Set;
 
 @Entity
-@Table(name = "recipes")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheRegions.RECIPES)
+@Table(name = "recipes", indexes = {
+        @Index(name = "idx_recipes_updated_at_id", columnList = "updated_at, id")
+})
 @Inheritance(strategy = InheritanceType.SINGLE_TABLE)
 @DiscriminatorColumn(name = "recipe_type", discriminatorType = DiscriminatorType.STRING, columnDefinition = "VARCHAR(31) DEFAULT 'BASIC'")
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
@@ -35,10 +43,13 @@ public abstract class Recipe extends BaseEntity {
     private AppUser author;
 
     @ManyToMany(cascade = {CascadeType.PERSIST, CascadeType.MERGE}, fetch = FetchType.EAGER)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheRegions.RECIPE_TAGS)
+    @BatchSize(size = 100) // one select for the tags of a whole page (max page size)
     @JoinTable(
         name = "recipe_tags",
         joinColumns = @JoinColumn(name = "recipe_id"),
-        inverseJoinColumns = @JoinColumn(name = "tag_id")
+        inverseJoinColumns = @JoinColumn(name = "tag_id"),
+        indexes = @Index(name = "idx_recipe_tags_tag_id", columnList = "tag_id")
     )
     private Set<Tag> tags = new HashSet<>();
 
@@ -131,6 +142,11 @@ public abstract class Recipe extends BaseEntity {
         }
     }
 
-    // Read-only access to discriminator value
-    public String getRecipeType() { return recipeType; }
+    // Read-only access to discriminator value. The column is only populated when the row is read
+    // back, so fall back to the subclass' @DiscriminatorValue for new or cached instances.
+    public String getRecipeType() {
+        if (recipeType != null) return recipeType;
+        DiscriminatorValue discriminator = getClass().getAnnotation(DiscriminatorValue.class);
+        return discriminator != null ? discriminator.value() : "BASIC";
+    }
 }
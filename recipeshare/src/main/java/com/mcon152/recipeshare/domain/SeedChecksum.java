@@ -0,0 +1,62 @@
+package com.mcon152.recipeshare.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+
+/**
+ * Content hash of one record of a seed file and the row it was loaded into, so that a changed
+ * seed file only needs its added, changed and removed records applied. The row with the key
+ * {@link #FILE_KEY} holds the hash of the whole file.
+ */
+@Entity
+@Table(name = "seed_checksums", uniqueConstraints = @UniqueConstraint(columnNames = {"seed", "record_key"}))
+public class SeedChecksum extends BaseEntity {
+
+    /** Record key of the whole-file hash. */
+    public static final String FILE_KEY = "";
+
+    // The seed file, e.g. data/recipes.json
+    @Column(nullable = false, length = 100)
+    private String seed;
+
+    // Natural key of the record within the file, e.g. the username
+    @Column(name = "record_key", nullable = false)
+    private String recordKey;
+
+    // Hex-encoded SHA-256
+    @Column(nullable = false, length = 64)
+    private String checksum;
+
+    // Id of the row the record was loaded into; null for the whole-file hash
+    private Long entityId;
+
+    // Number of the last synchronisation that found the record in the file; records it did not
+    // find are the ones removed from the file
+    private Long lastRun;
+
+    public SeedChecksum() {}
+
+    public SeedChecksum(String seed, String recordKey, String checksum, Long entityId) {
+        this.seed = seed;
+        this.recordKey = recordKey;
+        this.checksum = checksum;
+        this.entityId = entityId;
+    }
+
+    public String getSeed() { return seed; }
+    public void setSeed(String seed) { this.seed = seed; }
+
+    public String getRecordKey() { return recordKey; }
+    public void setRecordKey(String recordKey) { this.recordKey = recordKey; }
+
+    public String getChecksum() { return checksum; }
+    public void setChecksum(String checksum) { this.checksum = checksum; }
+
+    public Long getEntityId() { return entityId; }
+    public void setEntityId(Long entityId) { this.entityId = entityId; }
+
+    public Long getLastRun() { return lastRun; }
+    public void setLastRun(Long lastRun) { this.lastRun = lastRun; }
+}
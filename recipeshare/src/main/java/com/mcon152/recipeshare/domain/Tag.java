@@ -2,14 +2,26 @@ package com.mcon152.recipeshare.domain;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.mcon152.recipeshare.cache.CacheRegions;
+import com.mcon152.recipeshare.search.TagIndexListener;
+import com.mcon152.recipeshare.web.RecipeJsonCacheListener;
 import jakarta.persistence.*;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.util.HashSet;
 import java.util.Objects;
 import java.util.Set;
 
 @Entity
-@Table(name = "tags")
-@JsonIgnoreProperties({"hibernateLazyInitializer", "handler", "recipes", "description", "id", "createdAt", "updatedAt"})
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheRegions.TAGS)
+@BatchSize(size = 100) // tags of cached tag collections are fetched together, not one by one
+@EntityListeners({TagIndexListener.class, RecipeJsonCacheListener.class})
+@Table(name = "tags", indexes = {
+        @Index(name = "idx_tags_name_lower", columnList = "name_lower")
+})
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler", "recipes", "description", "id", "createdAt", "updatedAt", "nameLower"})
 public class Tag extends BaseEntity {
 
     @Column(nullable = false, unique = true, length = 50)
@@ -19,6 +31,11 @@ public class Tag extends BaseEntity {
     @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
     private String description;
 
+    // Lower-cased copy of name computed by the database, so case-insensitive lookups can use an index
+    @Column(name = "name_lower", length = 50, insertable = false, updatable = false,
+            columnDefinition = "VARCHAR(50) GENERATED ALWAYS AS (LOWER(name))")
+    private String nameLower;
+
     @ManyToMany(mappedBy = "tags")
     private Set<Recipe> recipes = new HashSet<>();
 
@@ -49,6 +66,10 @@ public class Tag extends BaseEntity {
         this.name = name;
     }
 
+    public String getNameLower() {
+        return nameLower;
+    }
+
     public String getDescription() {
         return description;
     }
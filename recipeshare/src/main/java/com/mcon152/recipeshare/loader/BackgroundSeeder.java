@@ -0,0 +1,82 @@
+package com.mcon152.recipeshare.loader;
+
+import com.mcon152.recipeshare.search.RecipeIndexer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Loads the sample data after startup when {@code recipeshare.seed.background=true}, so the time
+ * until the application takes requests does not depend on the size of the seed files. As at
+ * startup, a configured {@linkplain SnapshotDataLoader snapshot} is loaded first, then users, then
+ * recipes, and the search indexes, which were built when the application became ready, are
+ * rebuilt once recipes were added. Progress is published through {@link SeedProgress}; once the
+ * data is ready, a configured {@linkplain SnapshotExporter snapshot export} is written.
+ */
+@Component
+public class BackgroundSeeder {
+
+    private static final Logger logger = LoggerFactory.getLogger(BackgroundSeeder.class);
+
+    private final SnapshotDataLoader snapshotLoader;
+    private final SnapshotExporter snapshotExporter;
+    private final UserDataLoader userLoader;
+    private final RecipeDataLoader recipeLoader;
+    private final RecipeIndexer indexer;
+    private final SeedProgress progress;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "data-seed");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public BackgroundSeeder(SnapshotDataLoader snapshotLoader, SnapshotExporter snapshotExporter,
+                            UserDataLoader userLoader, RecipeDataLoader recipeLoader,
+                            RecipeIndexer indexer, SeedProgress progress) {
+        this.snapshotLoader = snapshotLoader;
+        this.snapshotExporter = snapshotExporter;
+        this.userLoader = userLoader;
+        this.recipeLoader = recipeLoader;
+        this.indexer = indexer;
+        this.progress = progress;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!progress.isBackground()) return;
+        logger.info("Loading sample data in the background");
+        executor.execute(this::seed);
+    }
+
+    void seed() {
+        progress.start();
+        try {
+            progress.phase("snapshot");
+            int snapshotRecipes = snapshotLoader.seed();
+            progress.phase("users");
+            userLoader.seed();
+            progress.phase("recipes");
+            if (recipeLoader.seed() + snapshotRecipes > 0) {
+                progress.phase("indexes");
+                indexer.rebuild();
+            }
+            progress.ready();
+            logger.info("Sample data ready after {} ms", progress.status().elapsedMillis());
+            snapshotExporter.export();
+        } catch (RuntimeException e) {
+            logger.error("Loading sample data failed: {}", e.getMessage(), e);
+            progress.fail(e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,72 @@
+package com.mcon152.recipeshare.loader;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads the values of a JSON array, or a sequence of whitespace-separated values (NDJSON), one
+ * at a time with a streaming {@link JsonParser}; only the value being returned is held in memory.
+ * Which of the two the input is is decided by its first token.
+ * <p>
+ * Malformed JSON cannot be resynchronised, so a syntax error ends the input: {@link #next()} and
+ * {@link #hasNext()} throw an {@link UncheckedIOException}.
+ */
+public class JsonRecordReader implements Iterator<JsonNode>, Closeable {
+
+    private final JsonParser parser;
+    private boolean started;
+    private boolean array;
+    private JsonToken current;
+
+    public JsonRecordReader(JsonParser parser) {
+        this.parser = parser;
+    }
+
+    @Override
+    public boolean hasNext() {
+        try {
+            if (current == null) advance();
+            return current != null && current != JsonToken.END_ARRAY;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public JsonNode next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        try {
+            JsonNode value = parser.readValueAsTree();
+            current = null;
+            return value;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void advance() throws IOException {
+        current = parser.nextToken();
+        if (!started) {
+            started = true;
+            if (current == JsonToken.START_ARRAY) {
+                array = true;
+                current = parser.nextToken();
+            }
+        }
+        if (current == null && array) {
+            throw new IOException("Unexpected end of input inside the array");
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        parser.close();
+    }
+}
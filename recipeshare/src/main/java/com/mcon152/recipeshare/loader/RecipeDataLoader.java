@@ -1,164 +1,366 @@
 package com.mcon152.recipeshare.loader;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.mcon152.recipeshare.domain.*;
-import com.mcon152.recipeshare.repository.AppUserRepository;
+import com.mcon152.recipeshare.domain.Recipe;
+import com.mcon152.recipeshare.domain.SeedChecksum;
 import com.mcon152.recipeshare.repository.RecipeRepository;
-import com.mcon152.recipeshare.repository.TagRepository;
+import com.mcon152.recipeshare.repository.RecipeTitle;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.core.annotation.Order;
 import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.IOException;
 import java.io.InputStream;
-import java.util.*;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 /**
  * Loads sample recipes from JSON file into the database on application startup.
  * Runs after UserDataLoader to ensure user references are valid.
+ * <p>
+ * The database is kept in sync with the file through its {@link SeedManifest}: an unchanged file
+ * costs one checksum lookup, otherwise only records that were added, changed or removed since
+ * the last start are applied. Records are keyed by title (the n-th repetition of a title by
+ * {@code "title #n"}), so a changed title counts as one removed and one added record.
+ * <p>
+ * The file is streamed once, in chunks of {@code recipeshare.import.chunk-size} records. Each
+ * chunk's checksums are looked up by key, and its added and changed records have their authors and
+ * tags resolved by {@link RecipeImporter} with one query each (creating the missing tags) and are
+ * written in one transaction and persistence context, together with their checksums. Every record
+ * of the chunk is then stamped with the number of the run, so the removed records are those left
+ * with an older stamp, found and deleted a chunk at a time: memory use is bounded by the chunk size
+ * however large the file or the manifest.
+ * With {@code recipeshare.seed.background=true} it is run by {@link BackgroundSeeder} instead.
  */
 @Component
 @Order(2)
 public class RecipeDataLoader implements CommandLineRunner {
 
     private static final Logger logger = LoggerFactory.getLogger(RecipeDataLoader.class);
+    static final String RECIPES_FILE = "data/recipes.json";
+
     private final RecipeRepository recipeRepository;
-    private final AppUserRepository userRepository;
-    private final TagRepository tagRepository;
+    private final RecipeImporter importer;
+    private final SeedManifest manifest;
     private final ObjectMapper objectMapper;
+    private final SeedProgress progress;
+    private final TransactionTemplate transactions;
 
-    // Cache to store tags during loading to avoid duplicate creation
-    private final Map<String, Tag> tagCache = new HashMap<>();
+    @Value("${recipeshare.import.chunk-size:500}")
+    private int chunkSize = 500;
 
     public RecipeDataLoader(RecipeRepository recipeRepository,
-                           AppUserRepository userRepository,
-                           TagRepository tagRepository,
-                           ObjectMapper objectMapper) {
+                           RecipeImporter importer,
+                           SeedManifest manifest,
+                           ObjectMapper objectMapper,
+                           SeedProgress progress,
+                           PlatformTransactionManager transactionManager) {
         this.recipeRepository = recipeRepository;
-        this.userRepository = userRepository;
-        this.tagRepository = tagRepository;
+        this.importer = importer;
+        this.manifest = manifest;
         this.objectMapper = objectMapper;
+        this.progress = progress;
+        this.transactions = new TransactionTemplate(transactionManager);
     }
 
-    @Override
-    public void run(String... args) {
-        if (recipeRepository.count() > 0) {
-            logger.info("Recipes already exist in database. Skipping data load.");
-            return;
+    /** What one synchronisation did. */
+    record Sync(int added, int changed, int removed, List<RecipeImporter.RecordError> errors) {
+        static final Sync UNCHANGED = new Sync(0, 0, 0, List.of());
+
+        int changes() {
+            return added + changed + removed;
         }
+    }
 
-        logger.info("Loading sample recipes from JSON...");
+    @Override
+    public void run(String... args) {
+        if (progress.isBackground()) return;
+        seed();
+    }
 
+    /** Applies the changes of the seed file; returns how many recipes were added, changed or removed. */
+    int seed() {
         try {
-            // Clear cache before loading
-            tagCache.clear();
-
-            // Load existing tags into cache first
-            tagRepository.findAll().forEach(tag -> tagCache.put(tag.getName(), tag));
-
-            List<Recipe> recipes = loadRecipesFromJson();
-            recipeRepository.saveAll(recipes);
-            logger.info("Successfully loaded {} recipes", recipes.size());
-
-            recipes.forEach(recipe ->
-                logger.debug("Loaded recipe: {} (type: {}, tags: {})",
-                    recipe.getTitle(),
-                    recipe.getRecipeType(),
-                    recipe.getTags().size())
-            );
+            long start = System.nanoTime();
+            Sync sync = sync(RECIPES_FILE, new ClassPathResource(RECIPES_FILE));
+            if (sync == Sync.UNCHANGED) {
+                logger.info("Sample recipes are up to date. Skipping data load.");
+                return 0;
+            }
+            logger.info("Synchronized sample recipes in {} ms: {} added, {} changed, {} removed, {} failed",
+                    (System.nanoTime() - start) / 1_000_000, sync.added(), sync.changed(), sync.removed(),
+                    sync.errors().size());
+            return sync.changes();
         } catch (Exception e) {
             logger.error("Failed to load recipes from JSON: {}", e.getMessage(), e);
+            return 0;
         }
     }
 
-    private List<Recipe> loadRecipesFromJson() throws Exception {
-        ClassPathResource resource = new ClassPathResource("data/recipes.json");
-        List<Recipe> recipes = new ArrayList<>();
+    /**
+     * Brings the recipes loaded from {@code resource} up to date with it. {@code seed} names the
+     * file in the manifest. Records that fail are logged and, having no checksum, retried on the
+     * next sync: the file is only marked current once all of its records were loaded.
+     */
+    Sync sync(String seed, Resource resource) throws IOException {
+        String fileChecksum = SeedManifest.checksum(resource);
+        if (manifest.isCurrent(seed, fileChecksum)) return Sync.UNCHANGED;
 
-        try (InputStream inputStream = resource.getInputStream()) {
-            JsonNode rootNode = objectMapper.readTree(inputStream);
+        long run = manifest.nextRun(seed);
+        // Recipes loaded before checksums were recorded are matched to their records by title
+        boolean adopt = !manifest.hasRecords(seed) && recipeRepository.count() > 0;
 
-            if (rootNode.isArray()) {
-                for (JsonNode recipeNode : rootNode) {
-                    Recipe recipe = parseRecipe(recipeNode);
-                    if (recipe != null) {
-                        recipes.add(recipe);
-                    }
-                }
+        Writer writer = new Writer(seed, run, adopt);
+        List<RecipeImporter.RecordError> errors = read(resource, writer::add);
+        writer.flush();
+        errors.addAll(writer.errors);
+        int removed = removeStale(seed, run);
+
+        // A file with failed records is not current, so they are retried on the next start
+        if (errors.isEmpty()) manifest.markCurrent(seed, fileChecksum);
+        errors.forEach(error -> logger.error("Failed to load recipe {}: {}", error.index(), error.error()));
+        return new Sync(writer.added, writer.changed, removed, errors);
+    }
+
+    /** Removes the recipes whose records {@code run} did not find in the file, a chunk at a time. */
+    private int removeStale(String seed, long run) {
+        int removed = 0;
+        List<SeedChecksum> stale;
+        do {
+            stale = manifest.stale(seed, run, chunkSize);
+            if (!stale.isEmpty()) remove(stale);
+            removed += stale.size();
+        } while (stale.size() == chunkSize);
+        return removed;
+    }
+
+    private void remove(List<SeedChecksum> records) {
+        transactions.executeWithoutResult(status -> {
+            for (SeedChecksum record : records) {
+                if (record.getEntityId() != null) recipeRepository.deleteRecipeById(record.getEntityId());
             }
+            manifest.remove(records);
+        });
+        progress.recipesLoaded(records.size());
+    }
+
+    /** A valid record of the file and the checksum of its JSON. */
+    private record Parsed(long index, String checksum, RecipeRecord record) {}
+
+    /** A record with its key in the manifest. */
+    private record Keyed(String key, Parsed parsed) {}
+
+    /**
+     * Collects the records into chunks, looks up the chunk's checksums by key, writes the added
+     * and changed records and stamps every record of the chunk with the run.
+     */
+    private final class Writer {
+        private final String seed;
+        private final long run;
+        private final boolean adopt;
+        private final List<Parsed> chunk = new ArrayList<>(chunkSize);
+        // Occurrences so far of the titles that repeat; the first occurrence of any other title
+        // is recognised by its checksum having been stamped by this run
+        private final Map<String, Integer> repeatedTitles = new HashMap<>();
+        // Titles whose first record failed as a new one, so it has no checksum to stamp
+        private final Set<String> failedTitles = new HashSet<>();
+        private final List<RecipeImporter.RecordError> errors = new ArrayList<>();
+        private int added;
+        private int changed;
+
+        Writer(String seed, long run, boolean adopt) {
+            this.seed = seed;
+            this.run = run;
+            this.adopt = adopt;
         }
 
-        return recipes;
-    }
+        void add(Parsed parsed) {
+            chunk.add(parsed);
+            if (chunk.size() == chunkSize) flush();
+        }
 
-    private Recipe parseRecipe(JsonNode node) {
-        try {
-            String type = node.has("type") ? node.get("type").asText().toUpperCase() : "BASIC";
-            String title = node.get("title").asText();
-            String description = node.has("description") ? node.get("description").asText() : "";
-            String ingredients = node.get("ingredients").asText();
-            String instructions = node.get("instructions").asText();
-            Integer servings = node.has("servings") ? node.get("servings").asInt() : 1;
-
-            // Create recipe based on type
-            Recipe recipe = createRecipeByType(type, title, description, ingredients, instructions, servings);
-
-            // Set author if provided
-            if (node.has("authorUsername")) {
-                String authorUsername = node.get("authorUsername").asText();
-                userRepository.findByUsername(authorUsername).ifPresent(recipe::setAuthor);
+        void flush() {
+            if (chunk.isEmpty()) return;
+            // The first occurrence of a title is keyed by the title itself, so one lookup finds
+            // both whether it was seen in an earlier chunk and most of the chunk's checksums
+            Set<String> titles = new HashSet<>();
+            chunk.forEach(parsed -> titles.add(parsed.record().title()));
+            Map<String, SeedChecksum> known = manifest.records(seed, titles);
+            List<Keyed> keyed = keys(known);
+            known.putAll(manifest.records(seed, keyed.stream()
+                    .map(Keyed::key)
+                    .filter(key -> !titles.contains(key))
+                    .toList()));
+
+            List<Keyed> addedChunk = new ArrayList<>();
+            List<Keyed> changedChunk = new ArrayList<>();
+            Set<String> usernames = new HashSet<>();
+            Set<String> tagNames = new HashSet<>();
+            for (Keyed record : keyed) {
+                SeedChecksum previous = known.get(record.key());
+                if (previous != null && previous.getChecksum().equals(record.parsed().checksum())) continue;
+                (previous == null ? addedChunk : changedChunk).add(record);
+                RecipeImporter.collectNames(record.parsed().record(), usernames, tagNames);
+            }
+            if (!addedChunk.isEmpty() || !changedChunk.isEmpty()) {
+                RecipeImporter.References references = importer.resolve(usernames, tagNames);
+                writeAdded(addedChunk, references);
+                writeChanged(changedChunk, known, references);
             }
+            transactions.executeWithoutResult(status ->
+                    manifest.stamp(seed, keyed.stream().map(Keyed::key).toList(), run));
+            chunk.clear();
+        }
+
+        /** Keys the chunk's records by title, the n-th repetition of a title by {@code "title #n"}. */
+        private List<Keyed> keys(Map<String, SeedChecksum> known) {
+            Map<String, Integer> occurrences = new HashMap<>();
+            List<Keyed> keyed = new ArrayList<>(chunk.size());
+            for (Parsed parsed : chunk) {
+                String title = parsed.record().title();
+                Integer before = occurrences.get(title);
+                int occurrence = (before != null ? before : earlierOccurrences(title, known)) + 1;
+                occurrences.put(title, occurrence);
+                keyed.add(new Keyed(occurrence == 1 ? title : title + " #" + occurrence, parsed));
+            }
+            occurrences.forEach((title, count) -> {
+                if (count > 1) repeatedTitles.put(title, count);
+            });
+            return keyed;
+        }
+
+        /** How often the title occurred in earlier chunks. */
+        private int earlierOccurrences(String title, Map<String, SeedChecksum> known) {
+            Integer repeated = repeatedTitles.get(title);
+            if (repeated != null) return repeated;
+            SeedChecksum first = known.get(title);
+            boolean seen = (first != null && Long.valueOf(run).equals(first.getLastRun())) || failedTitles.contains(title);
+            return seen ? 1 : 0;
+        }
+
+        private void writeAdded(List<Keyed> records, RecipeImporter.References references) {
+            if (records.isEmpty()) return;
+            List<Keyed> created = adopt ? adoptExisting(records) : records;
+            RecipeImporter.Result result = importer.seed(entries(created), references, recordChecksums(created, Map.of()));
+            added += result.imported();
+            Map<Long, Keyed> byIndex = byIndex(created);
+            result.errors().stream()
+                    .map(error -> byIndex.get(error.index()))
+                    .filter(record -> record.key().equals(record.parsed().record().title()))
+                    .forEach(record -> failedTitles.add(record.key()));
+            done(result);
+        }
+
+        private void writeChanged(List<Keyed> records, Map<String, SeedChecksum> known,
+                                  RecipeImporter.References references) {
+            if (records.isEmpty()) return;
+            Map<Long, Long> recipeIds = new HashMap<>();
+            records.forEach(record -> recipeIds.put(record.parsed().index(), known.get(record.key()).getEntityId()));
+            RecipeImporter.Result result = importer.replace(entries(records), recipeIds, references,
+                    recordChecksums(records, known));
+            changed += result.imported();
+            done(result);
+        }
+
+        private void done(RecipeImporter.Result result) {
+            progress.recipesLoaded(result.imported());
+            errors.addAll(result.errors());
+        }
 
-            // Add tags if provided
-            if (node.has("tags")) {
-                JsonNode tagsNode = node.get("tags");
-                if (tagsNode.isArray()) {
-                    for (JsonNode tagNode : tagsNode) {
-                        String tagName = tagNode.asText();
-                        Tag tag = findOrCreateTag(tagName);
-                        recipe.addTag(tag);
-                    }
+        /** Records the checksums of the records that match an existing recipe; returns the others. */
+        private List<Keyed> adoptExisting(List<Keyed> records) {
+            List<RecipeTitle> candidates = recipeRepository.findTitles(
+                    records.stream().map(record -> record.parsed().record().title()).toList());
+            // Recipes that earlier records were loaded into or adopted by are taken
+            Set<Long> taken = manifest.loaded(seed, candidates.stream().map(RecipeTitle::id).toList());
+            Map<String, Deque<Long>> idsByTitle = new HashMap<>();
+            candidates.stream()
+                    .filter(recipe -> !taken.contains(recipe.id()))
+                    .forEach(recipe -> idsByTitle.computeIfAbsent(recipe.title(), title -> new ArrayDeque<>()).add(recipe.id()));
+
+            Map<Keyed, Long> matches = new HashMap<>();
+            List<Keyed> rest = new ArrayList<>();
+            for (Keyed record : records) {
+                Deque<Long> ids = idsByTitle.get(record.parsed().record().title());
+                if (ids == null || ids.isEmpty()) {
+                    rest.add(record);
+                } else {
+                    matches.put(record, ids.poll());
                 }
             }
+            if (!matches.isEmpty()) {
+                transactions.executeWithoutResult(status -> matches.forEach((record, id) ->
+                        manifest.put(seed, record.key(), record.parsed().checksum(), id, null)));
+            }
+            return rest;
+        }
 
-            return recipe;
+        private List<RecipeImporter.Entry> entries(List<Keyed> records) {
+            return records.stream().map(record -> new RecipeImporter.Entry(record.parsed().index(), record.parsed().record())).toList();
+        }
 
-        } catch (Exception e) {
-            logger.error("Failed to parse recipe: {}", e.getMessage());
-            return null;
+        private Map<Long, Keyed> byIndex(List<Keyed> records) {
+            Map<Long, Keyed> byIndex = new HashMap<>();
+            records.forEach(record -> byIndex.put(record.parsed().index(), record));
+            return byIndex;
         }
-    }
 
-    private Recipe createRecipeByType(String type, String title, String description,
-                                     String ingredients, String instructions, Integer servings) {
-        return switch (type) {
-            case "VEGETARIAN" -> new VegetarianRecipe(null, title, description, ingredients, instructions, servings);
-            case "DESSERT" -> new DessertRecipe(null, title, description, ingredients, instructions, servings);
-            case "DAIRY" -> new DairyRecipe(null, title, description, ingredients, instructions, servings);
-            default -> new BasicRecipe(null, title, description, ingredients, instructions, servings);
-        };
+        private BiConsumer<RecipeImporter.Entry, Recipe> recordChecksums(List<Keyed> records, Map<String, SeedChecksum> known) {
+            Map<Long, Keyed> byIndex = byIndex(records);
+            return (entry, recipe) -> {
+                Keyed record = byIndex.get(entry.index());
+                manifest.put(seed, record.key(), record.parsed().checksum(), recipe.getId(), known.get(record.key()));
+            };
+        }
     }
 
-    private Tag findOrCreateTag(String tagName) {
-        // Check cache first
-        if (tagCache.containsKey(tagName)) {
-            return tagCache.get(tagName);
+    /** Hands every valid record to {@code action}; returns the invalid ones. */
+    private List<RecipeImporter.RecordError> read(Resource resource, Consumer<Parsed> action) throws IOException {
+        List<RecipeImporter.RecordError> invalid = new ArrayList<>();
+        try (InputStream inputStream = resource.getInputStream();
+             JsonRecordReader reader = new JsonRecordReader(objectMapper.getFactory().createParser(inputStream))) {
+            long index = 0;
+            while (reader.hasNext()) {
+                JsonNode node = reader.next();
+                long current = index++;
+                RecipeRecord record;
+                try {
+                    record = RecipeRecord.from(node, objectMapper);
+                } catch (IllegalArgumentException e) {
+                    invalid.add(new RecipeImporter.RecordError(current, e.getMessage()));
+                    continue;
+                }
+                action.accept(new Parsed(current, checksum(node), record));
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
         }
+        return invalid;
+    }
 
-        // Check database
-        Optional<Tag> existingTag = tagRepository.findByName(tagName);
-        if (existingTag.isPresent()) {
-            Tag tag = existingTag.get();
-            tagCache.put(tagName, tag);
-            return tag;
+    private String checksum(JsonNode node) {
+        try {
+            return SeedManifest.checksum(objectMapper.writeValueAsBytes(node));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize a parsed record", e);
         }
-
-        // Create new tag and add to cache
-        Tag newTag = new Tag(tagName);
-        tagCache.put(tagName, newTag);
-        return newTag;
     }
 }
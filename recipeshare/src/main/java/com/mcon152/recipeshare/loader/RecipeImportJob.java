@@ -0,0 +1,97 @@
+package com.mcon152.recipeshare.loader;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Progress of one upload being imported by {@link RecipeImportJobs}. Updated by the import thread
+ * and read by status requests; {@link #status()} takes a consistent-enough snapshot without
+ * blocking the import.
+ */
+public class RecipeImportJob {
+
+    public enum State { QUEUED, RUNNING, COMPLETED, FAILED }
+
+    private final String id;
+    private final int maxErrors;
+    private final Instant submittedAt = Instant.now();
+    private final AtomicLong read = new AtomicLong();
+    private final AtomicLong imported = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final List<RecipeImporter.RecordError> errors = new ArrayList<>();
+    private volatile State state = State.QUEUED;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile String message;
+
+    RecipeImportJob(String id, int maxErrors) {
+        this.id = id;
+        this.maxErrors = maxErrors;
+    }
+
+    public String getId() { return id; }
+    public State getState() { return state; }
+
+    /** Whether the job has COMPLETED or FAILED. */
+    public boolean isFinished() {
+        State current = state;
+        return current == State.COMPLETED || current == State.FAILED;
+    }
+
+    void start() {
+        startedAt = Instant.now();
+        state = State.RUNNING;
+    }
+
+    void recordRead() {
+        read.incrementAndGet();
+    }
+
+    void recordInvalid(RecipeImporter.RecordError error) {
+        failed.incrementAndGet();
+        keep(List.of(error));
+    }
+
+    void recordWritten(RecipeImporter.Result result) {
+        imported.addAndGet(result.imported());
+        failed.addAndGet(result.errors().size());
+        keep(result.errors());
+    }
+
+    private synchronized void keep(List<RecipeImporter.RecordError> more) {
+        for (RecipeImporter.RecordError error : more) {
+            if (errors.size() >= maxErrors) return;
+            errors.add(error);
+        }
+    }
+
+    void complete() {
+        finishedAt = Instant.now();
+        state = State.COMPLETED;
+    }
+
+    /** Ends the job early; records imported before the failure stay imported. */
+    void fail(String message) {
+        this.message = message;
+        finishedAt = Instant.now();
+        state = State.FAILED;
+    }
+
+    public RecipeImportStatus status() {
+        Instant started = startedAt;
+        Instant finished = finishedAt;
+        long elapsedMillis = started == null ? 0
+                : Duration.between(started, finished != null ? finished : Instant.now()).toMillis();
+        long recordsRead = read.get();
+        double perSecond = elapsedMillis == 0 ? 0 : recordsRead * 1000.0 / elapsedMillis;
+        List<RecipeImporter.RecordError> firstErrors;
+        synchronized (this) {
+            firstErrors = List.copyOf(errors);
+        }
+        return new RecipeImportStatus(id, state, recordsRead, imported.get(), failed.get(),
+                submittedAt, started, finished, elapsedMillis, Math.round(perSecond), message, firstErrors);
+    }
+}
@@ -0,0 +1,240 @@
+package com.mcon152.recipeshare.loader;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Runs recipe imports in the background, one at a time.
+ * <p>
+ * An upload first {@linkplain #reserve() reserves} a place: the running import plus at most
+ * {@code recipeshare.import.queue-size} waiting ones, further uploads are rejected before any of
+ * their bytes are read. The import thread then reads the upload itself, as it goes, with
+ * {@link JsonRecordReader} and hands {@code recipeshare.import.chunk-size} records at a time to
+ * {@link RecipeImporter}, reading the next chunk only once the previous one is written, so the
+ * heap holds one chunk and nothing is spooled to disk whatever the size of the upload; a slow
+ * database slows the upload down. Uploads larger than {@code recipeshare.import.max-bytes} fail.
+ * Records that are not valid recipes fail on their own; malformed JSON ends the job. Jobs are
+ * kept in submission order; once there are more than {@code recipeshare.import.retained-jobs},
+ * the oldest finished ones are dropped, so a queued or running job is always found and a finished
+ * one stays queryable until newer ones push it out.
+ */
+@Component
+public class RecipeImportJobs {
+
+    private static final Logger logger = LoggerFactory.getLogger(RecipeImportJobs.class);
+
+    private final RecipeImporter importer;
+    private final ObjectMapper objectMapper;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "recipe-import");
+        thread.setDaemon(true);
+        return thread;
+    });
+    /** The running import and the waiting ones. */
+    private final Semaphore places;
+    /** Guarded by itself. */
+    private final Map<String, RecipeImportJob> jobs = new LinkedHashMap<>();
+    private final long retainedJobs;
+    private final long maxBytes;
+
+    @Value("${recipeshare.import.chunk-size:500}")
+    private int chunkSize = 500;
+
+    @Value("${recipeshare.import.max-errors:100}")
+    private int maxErrors = 100;
+
+    public RecipeImportJobs(RecipeImporter importer, ObjectMapper objectMapper,
+                            @Value("${recipeshare.import.queue-size:4}") int queueSize,
+                            @Value("${recipeshare.import.retained-jobs:100}") long retainedJobs,
+                            @Value("${recipeshare.import.max-bytes:1073741824}") long maxBytes) {
+        this.importer = importer;
+        this.objectMapper = objectMapper;
+        this.places = new Semaphore(queueSize + 1);
+        this.retainedJobs = retainedJobs;
+        this.maxBytes = maxBytes;
+    }
+
+    /** Largest upload accepted, in bytes. */
+    public long maxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * Reserves a place for an upload and registers its job as QUEUED. The place is given back
+     * when the job ends, or by {@link #abandon} if it is never started.
+     *
+     * @throws RejectedExecutionException if the running import and the queue take every place
+     */
+    public RecipeImportJob reserve() {
+        if (!places.tryAcquire()) throw new RejectedExecutionException("Import queue is full");
+        RecipeImportJob job = new RecipeImportJob(UUID.randomUUID().toString(), maxErrors);
+        register(job);
+        return job;
+    }
+
+    /**
+     * Queues the import of a {@linkplain #reserve() reserved} job. The import thread reads
+     * {@code upload} while importing it and calls {@code onFinished} once the job has ended,
+     * successfully or not.
+     */
+    public void start(RecipeImportJob job, InputStream upload, Runnable onFinished) {
+        try {
+            executor.execute(() -> {
+                try {
+                    run(job, upload);
+                } finally {
+                    places.release();
+                    onFinished.run();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            abandon(job, "Import could not be started");
+            onFinished.run();
+        }
+    }
+
+    /** Fails a {@linkplain #reserve() reserved} job that is not going to be started. */
+    public void abandon(RecipeImportJob job, String message) {
+        job.fail(message);
+        places.release();
+        evictFinished();
+    }
+
+    public Optional<RecipeImportJob> find(String id) {
+        synchronized (jobs) {
+            return Optional.ofNullable(jobs.get(id));
+        }
+    }
+
+    private void register(RecipeImportJob job) {
+        synchronized (jobs) {
+            jobs.put(job.getId(), job);
+            evictFinished();
+        }
+    }
+
+    /** Drops the oldest finished jobs beyond the retained number; unfinished jobs are never dropped. */
+    private void evictFinished() {
+        synchronized (jobs) {
+            Iterator<RecipeImportJob> oldestFirst = jobs.values().iterator();
+            while (jobs.size() > retainedJobs && oldestFirst.hasNext()) {
+                if (oldestFirst.next().isFinished()) oldestFirst.remove();
+            }
+        }
+    }
+
+    private void run(RecipeImportJob job, InputStream upload) {
+        job.start();
+        logger.info("Import {} started", job.getId());
+        try (InputStream in = new BufferedInputStream(new LimitedInputStream(upload, maxBytes));
+             JsonRecordReader reader = new JsonRecordReader(objectMapper.getFactory().createParser(in))) {
+            List<RecipeImporter.Entry> chunk = new ArrayList<>(chunkSize);
+            long index = 0;
+            while (reader.hasNext()) {
+                JsonNode node = reader.next();
+                job.recordRead();
+                try {
+                    chunk.add(new RecipeImporter.Entry(index, RecipeRecord.from(node, objectMapper)));
+                } catch (IllegalArgumentException e) {
+                    job.recordInvalid(new RecipeImporter.RecordError(index, e.getMessage()));
+                }
+                index++;
+                if (chunk.size() == chunkSize) {
+                    job.recordWritten(importer.write(chunk));
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
+            job.recordWritten(importer.write(chunk));
+            job.complete();
+        } catch (UncheckedIOException e) {
+            job.fail(describe(e.getCause()));
+        } catch (IOException | RuntimeException e) {
+            job.fail(describe(e));
+        }
+        evictFinished();
+        RecipeImportStatus status = job.status();
+        logger.info("Import {} {}: {} imported, {} failed in {} ms", job.getId(), status.state(),
+                status.imported(), status.failed(), status.elapsedMillis());
+    }
+
+    private static String describe(Exception e) {
+        if (e instanceof UploadTooLargeException) return e.getMessage();
+        if (e instanceof JsonProcessingException json) {
+            return json.getLocation() == null ? "Malformed JSON: " + json.getOriginalMessage()
+                    : "Malformed JSON at line " + json.getLocation().getLineNr() + ": " + json.getOriginalMessage();
+        }
+        logger.error("Import failed", e);
+        return "Import failed: " + e.getMessage();
+    }
+
+    private static final class UploadTooLargeException extends IOException {
+        UploadTooLargeException(long maxBytes) {
+            super("Upload is larger than " + maxBytes + " bytes");
+        }
+    }
+
+    /** Fails the read that goes past {@code maxBytes}. */
+    private static final class LimitedInputStream extends FilterInputStream {
+        private final long maxBytes;
+        private long count;
+
+        LimitedInputStream(InputStream in, long maxBytes) {
+            super(in);
+            this.maxBytes = maxBytes;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) counted(1);
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) counted(n);
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            counted(skipped);
+            return skipped;
+        }
+
+        private void counted(long n) throws IOException {
+            count += n;
+            if (count > maxBytes) throw new UploadTooLargeException(maxBytes);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,15 @@
+package com.mcon152.recipeshare.loader;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Snapshot of a {@link RecipeImportJob}. {@code read} counts the records parsed so far, each of
+ * which ends up {@code imported} or {@code failed} once its chunk is written; {@code errors} holds
+ * the first failures only. {@code message} explains a job that FAILED as a whole.
+ */
+public record RecipeImportStatus(String id, RecipeImportJob.State state, long read, long imported, long failed,
+                                 Instant submittedAt, Instant startedAt, Instant finishedAt,
+                                 long elapsedMillis, long recordsPerSecond, String message,
+                                 List<RecipeImporter.RecordError> errors) {
+}
@@ -0,0 +1,273 @@
+package com.mcon152.recipeshare.loader;
+
+import com.mcon152.recipeshare.domain.AppUser;
+import com.mcon152.recipeshare.domain.Recipe;
+import com.mcon152.recipeshare.domain.Tag;
+import com.mcon152.recipeshare.repository.AppUserRepository;
+import com.mcon152.recipeshare.repository.RecipeRepository;
+import com.mcon152.recipeshare.repository.TagRepository;
+import com.mcon152.recipeshare.search.RecipeIndexer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Writes chunks of {@link RecipeRecord}s, one transaction per chunk.
+ * <p>
+ * Authors and tags are referenced by name, so they are first {@linkplain #resolve resolved} to ids
+ * with one query each, creating the tags that do not exist yet; callers may resolve a whole input
+ * up front or chunk by chunk. The resolved entities are then in the second-level cache, so a chunk
+ * picks them up without further queries, and its recipes go out as JDBC batches on commit. Each
+ * transaction has its own persistence context, so memory use is bounded by the chunk size however
+ * many chunks are written.
+ * <p>
+ * If a chunk fails, its records are retried one per transaction, so a bad record only fails
+ * itself. An author that does not exist is left empty, as it always was for the seed data.
+ */
+@Component
+public class RecipeImporter {
+
+    private static final Logger logger = LoggerFactory.getLogger(RecipeImporter.class);
+
+    /** A record and its position in the input, counted from 0. */
+    public record Entry(long index, RecipeRecord record) {}
+
+    /** Why the record at {@code index} was not imported. */
+    public record RecordError(long index, String error) {}
+
+    public record Result(int imported, List<RecordError> errors) {}
+
+    /** Ids of existing authors by username and of tags by name. */
+    public record References(Map<String, Long> authorIds, Map<String, Long> tagIds) {}
+
+    private final RecipeRepository recipeRepository;
+    private final AppUserRepository userRepository;
+    private final TagRepository tagRepository;
+    private final RecipeIndexer indexer;
+    private final TransactionTemplate transactions;
+
+    public RecipeImporter(RecipeRepository recipeRepository, AppUserRepository userRepository,
+                          TagRepository tagRepository, RecipeIndexer indexer,
+                          PlatformTransactionManager transactionManager) {
+        this.recipeRepository = recipeRepository;
+        this.userRepository = userRepository;
+        this.tagRepository = tagRepository;
+        this.indexer = indexer;
+        this.transactions = new TransactionTemplate(transactionManager);
+    }
+
+    /** The usernames and tag names the records refer to, for {@link #resolve}. */
+    public static void collectNames(RecipeRecord record, Set<String> usernames, Set<String> tagNames) {
+        if (record.authorUsername() != null) usernames.add(record.authorUsername());
+        tagNames.addAll(tagNames(record));
+    }
+
+    /**
+     * Looks up the authors and tags with one query each and creates the missing tags in one
+     * batch. Unknown usernames are left out of the result.
+     */
+    public References resolve(Set<String> usernames, Set<String> tagNames) {
+        Map<String, Long> authorIds = new HashMap<>();
+        if (!usernames.isEmpty()) {
+            userRepository.findByUsernameIn(usernames).forEach(user -> authorIds.put(user.getUsername(), user.getId()));
+        }
+        Map<String, Long> tagIds = new HashMap<>();
+        if (!tagNames.isEmpty()) {
+            tagRepository.findByNameIn(tagNames).forEach(tag -> tagIds.put(tag.getName(), tag.getId()));
+        }
+        List<String> missing = tagNames.stream().filter(name -> !tagIds.containsKey(name)).toList();
+        if (!missing.isEmpty()) {
+            createTags(missing, tagIds);
+        }
+        return new References(Map.copyOf(authorIds), Map.copyOf(tagIds));
+    }
+
+    private void createTags(List<String> names, Map<String, Long> tagIds) {
+        try {
+            List<Tag> created = transactions.execute(status -> tagRepository.saveAll(names.stream().map(Tag::new).toList()));
+            created.forEach(tag -> tagIds.put(tag.getName(), tag.getId()));
+        } catch (DataIntegrityViolationException e) {
+            // Another writer created some of them meanwhile: create the rest one by one
+            logger.debug("Creating {} tags failed, retrying one by one: {}", names.size(), e.getMessage());
+            for (String name : names) {
+                try {
+                    Tag created = transactions.execute(status -> tagRepository.save(new Tag(name)));
+                    tagIds.put(name, created.getId());
+                } catch (DataIntegrityViolationException single) {
+                    tagRepository.findByName(name).ifPresent(existing -> tagIds.put(name, existing.getId()));
+                }
+            }
+        }
+    }
+
+    /**
+     * Resolves the chunk's authors and tags, imports the records, which must already be
+     * {@linkplain RecipeRecord#validate() valid}, and indexes them once committed.
+     */
+    public Result write(List<Entry> entries) {
+        if (entries.isEmpty()) return new Result(0, List.of());
+        Set<String> usernames = new HashSet<>();
+        Set<String> tagNames = new HashSet<>();
+        entries.forEach(entry -> collectNames(entry.record(), usernames, tagNames));
+        References references = resolve(usernames, tagNames);
+        return write(entries, true, chunk -> create(chunk, references));
+    }
+
+    /**
+     * Imports valid records whose authors and tags have been resolved already, without indexing
+     * them: for seeding, which is followed by a rebuild of the indexes. {@code onWritten} is called
+     * in the transaction that wrote a record, with the recipe it was written to.
+     */
+    public Result seed(List<Entry> entries, References references, BiConsumer<Entry, Recipe> onWritten) {
+        return write(entries, false, chunk -> published(chunk, create(chunk, references), onWritten));
+    }
+
+    /**
+     * Replaces the content, author and tags of existing recipes with their records, like
+     * {@link #seed}; {@code recipeIds} maps each entry's index to the recipe it replaces. A recipe
+     * that no longer exists, or whose record has another type, is replaced by a new one, so the
+     * recipe passed to {@code onWritten} may have a new id.
+     */
+    public Result replace(List<Entry> entries, Map<Long, Long> recipeIds, References references,
+                          BiConsumer<Entry, Recipe> onWritten) {
+        return write(entries, false, chunk -> published(chunk, replace(chunk, recipeIds, references), onWritten));
+    }
+
+    private static List<Recipe> published(List<Entry> entries, List<Recipe> recipes, BiConsumer<Entry, Recipe> onWritten) {
+        for (int i = 0; i < entries.size(); i++) {
+            onWritten.accept(entries.get(i), recipes.get(i));
+        }
+        return recipes;
+    }
+
+    /**
+     * Runs {@code save} for the whole chunk in one transaction, or for each entry if that fails,
+     * then indexes what was committed.
+     */
+    private Result write(List<Entry> entries, boolean index, Function<List<Entry>, List<Recipe>> save) {
+        if (entries.isEmpty()) return new Result(0, List.of());
+        List<Recipe> saved = new ArrayList<>(entries.size());
+        List<RecordError> errors = new ArrayList<>();
+        try {
+            saved.addAll(commit(entries, save));
+        } catch (RuntimeException e) {
+            if (entries.size() == 1) return new Result(0, List.of(failed(entries.get(0), e)));
+            logger.debug("Import chunk of {} failed, retrying its records one by one: {}", entries.size(), e.getMessage());
+            for (Entry entry : entries) {
+                try {
+                    saved.addAll(commit(List.of(entry), save));
+                } catch (RuntimeException single) {
+                    errors.add(failed(entry, single));
+                }
+            }
+        }
+        // Outside the retries: the records are committed, so indexing them must not write them again
+        if (index) saved.forEach(this::index);
+        return new Result(saved.size(), errors);
+    }
+
+    private List<Recipe> commit(List<Entry> entries, Function<List<Entry>, List<Recipe>> save) {
+        return transactions.execute(status -> save.apply(entries));
+    }
+
+    private void index(Recipe recipe) {
+        try {
+            indexer.onSaved(recipe);
+        } catch (RuntimeException e) {
+            logger.error("Imported recipe {} could not be indexed: {}", recipe.getId(), e.getMessage(), e);
+        }
+    }
+
+    private List<Recipe> create(List<Entry> entries, References references) {
+        Lookup lookup = new Lookup(references);
+        return recipeRepository.saveAll(entries.stream().map(entry -> lookup.newRecipe(entry.record())).toList());
+    }
+
+    private List<Recipe> replace(List<Entry> entries, Map<Long, Long> recipeIds, References references) {
+        Lookup lookup = new Lookup(references);
+        Map<Long, Recipe> existing = new HashMap<>();
+        recipeRepository.findAllById(entries.stream().map(entry -> recipeIds.get(entry.index())).toList())
+                .forEach(recipe -> existing.put(recipe.getId(), recipe));
+
+        List<Recipe> recipes = new ArrayList<>(entries.size());
+        for (Entry entry : entries) {
+            RecipeRecord record = entry.record();
+            Recipe recipe = existing.get(recipeIds.get(entry.index()));
+            if (recipe != null && recipe.getRecipeType().equals(record.recipeType())) {
+                record.applyTo(recipe);
+                recipe.setAuthor(lookup.author(record));
+                recipe.getTags().clear();
+                lookup.addTags(recipe, record);
+            } else {
+                // The discriminator cannot change, so a record that changed its type gets a new recipe
+                if (recipe != null) recipeRepository.delete(recipe);
+                recipe = recipeRepository.save(lookup.newRecipe(record));
+            }
+            recipes.add(recipe);
+        }
+        return recipes;
+    }
+
+    /** The authors and tags of one transaction, found by their resolved ids. */
+    private final class Lookup {
+        // Found by id, i.e. from the second-level cache, and managed so the recipes can refer to them
+        private final Map<Long, AppUser> authors = new HashMap<>();
+        private final Map<Long, Tag> tags = new HashMap<>();
+        private final References references;
+
+        Lookup(References references) {
+            this.references = references;
+        }
+
+        AppUser author(RecipeRecord record) {
+            Long authorId = record.authorUsername() == null ? null : references.authorIds().get(record.authorUsername());
+            return authorId == null ? null
+                    : authors.computeIfAbsent(authorId, id -> userRepository.findById(id).orElse(null));
+        }
+
+        void addTags(Recipe recipe, RecipeRecord record) {
+            for (String name : tagNames(record)) {
+                Long tagId = references.tagIds().get(name);
+                if (tagId == null) throw new IllegalStateException("Tag was not created: " + name);
+                // Owning side only: adding to Tag.recipes would load every recipe of the tag
+                recipe.getTags().add(tags.computeIfAbsent(tagId, id -> tagRepository.findById(id)
+                        .orElseThrow(() -> new IllegalStateException("Tag was deleted: " + name))));
+            }
+        }
+
+        Recipe newRecipe(RecipeRecord record) {
+            Recipe recipe = record.toRecipe(author(record));
+            addTags(recipe, record);
+            return recipe;
+        }
+    }
+
+    private static List<String> tagNames(RecipeRecord record) {
+        if (record.tags() == null) return List.of();
+        return record.tags().stream()
+                .filter(Objects::nonNull)
+                .map(String::trim)
+                .filter(name -> !name.isEmpty())
+                .distinct()
+                .toList();
+    }
+
+    private static RecordError failed(Entry entry, RuntimeException e) {
+        logger.debug("Import record {} failed: {}", entry.index(), e.getMessage());
+        return new RecordError(entry.index(), e instanceof DataIntegrityViolationException
+                ? "Rejected by a database constraint" : "Could not be written");
+    }
+}
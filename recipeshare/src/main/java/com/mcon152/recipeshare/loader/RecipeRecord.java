@@ -0,0 +1,87 @@
+package com.mcon152.recipeshare.loader;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mcon152.recipeshare.domain.AppUser;
+import com.mcon152.recipeshare.domain.BasicRecipe;
+import com.mcon152.recipeshare.domain.DairyRecipe;
+import com.mcon152.recipeshare.domain.DessertRecipe;
+import com.mcon152.recipeshare.domain.Recipe;
+import com.mcon152.recipeshare.domain.VegetarianRecipe;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * One recipe in the import format of {@code data/recipes.json}: the author is referenced by
+ * username and tags by name.
+ */
+public record RecipeRecord(String type, String title, String description, String ingredients,
+                           String instructions, Integer servings, String authorUsername, List<String> tags) {
+
+    /** Length of the tags.name column. */
+    static final int MAX_TAG_NAME_LENGTH = 50;
+
+    /**
+     * Converts and {@linkplain #validate() validates} one value of an import file.
+     *
+     * @throws IllegalArgumentException if the value is not a valid recipe record
+     */
+    public static RecipeRecord from(JsonNode node, ObjectMapper objectMapper) {
+        if (!node.isObject()) throw new IllegalArgumentException("Not a JSON object");
+        RecipeRecord record;
+        try {
+            record = objectMapper.treeToValue(node, RecipeRecord.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Invalid record: " + e.getOriginalMessage());
+        }
+        record.validate();
+        return record;
+    }
+
+    /** @throws IllegalArgumentException if a required field is missing */
+    public void validate() {
+        if (title == null || title.isBlank()) throw new IllegalArgumentException("Missing title");
+        if (ingredients == null) throw new IllegalArgumentException("Missing ingredients");
+        if (instructions == null) throw new IllegalArgumentException("Missing instructions");
+        // Checked here rather than left to the database: tags are created for many records at once
+        if (tags != null && tags.stream().anyMatch(tag -> tag != null && tag.trim().length() > MAX_TAG_NAME_LENGTH)) {
+            throw new IllegalArgumentException("Tag names are limited to " + MAX_TAG_NAME_LENGTH + " characters");
+        }
+    }
+
+    /** The type of recipe the record describes: its {@code type}, or BASIC if absent or unknown. */
+    public String recipeType() {
+        String kind = type != null ? type.trim().toUpperCase(Locale.ROOT) : "BASIC";
+        return switch (kind) {
+            case "VEGETARIAN", "DESSERT", "DAIRY" -> kind;
+            default -> "BASIC";
+        };
+    }
+
+    /**
+     * A new recipe of the record's {@linkplain #recipeType() type} with the given author; tags
+     * are added by the caller.
+     */
+    public Recipe toRecipe(AppUser author) {
+        Recipe recipe = switch (recipeType()) {
+            case "VEGETARIAN" -> new VegetarianRecipe();
+            case "DESSERT" -> new DessertRecipe();
+            case "DAIRY" -> new DairyRecipe();
+            default -> new BasicRecipe();
+        };
+        applyTo(recipe);
+        recipe.setAuthor(author);
+        return recipe;
+    }
+
+    /** Copies the record's content to the recipe; a missing description becomes "" and missing servings 1. */
+    public void applyTo(Recipe recipe) {
+        recipe.setTitle(title);
+        recipe.setDescription(description != null ? description : "");
+        recipe.setIngredients(ingredients);
+        recipe.setInstructions(instructions);
+        recipe.setServings(servings != null ? servings : 1);
+    }
+}
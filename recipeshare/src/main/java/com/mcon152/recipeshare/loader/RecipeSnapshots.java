@@ -0,0 +1,478 @@
+package com.mcon152.recipeshare.loader;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binary snapshots of the whole database (users, tags, recipes and the {@link SeedManifest}), for
+ * restoring a development database much faster than from the JSON seed files: rows are read and
+ * written with plain JDBC, without building entities, and the file is memory-mapped when loaded.
+ * <p>
+ * Layout, using the primitives of {@link SnapshotOutput}; every row starts with its id, version,
+ * creation and update time (microseconds since the epoch, UTC):
+ * <pre>
+ * "RSNP" version
+ * users:     count, then per user: row, username, password, display name
+ * tags:      count, then per tag: row, name, description
+ * recipes:   per recipe: 1, id minus the previous id, version, times, type, title, description,
+ *            ingredients, instructions, servings, author, tag count, tags; then 0
+ * checksums: count, then per checksum: row, seed, record key, checksum, entity id
+ * </pre>
+ * Users and tags are written first and referenced from recipes by their position (the author
+ * shifted by one so that 0 is none), and recipe types by their order of first use, where the next
+ * unused number introduces a new type followed by its name.
+ * <p>
+ * The export reads one consistent view of the database. A snapshot is only loaded into an empty
+ * database, in one transaction and with inserts sent in JDBC batches of
+ * {@code recipeshare.seed.snapshot-batch-size} rows; ids are kept, so callers must move the id
+ * sequences and clear the second-level cache afterwards (see {@link SnapshotDataLoader}).
+ */
+@Component
+public class RecipeSnapshots {
+
+    static final byte[] MAGIC = {'R', 'S', 'N', 'P'};
+    static final int VERSION = 1;
+    private static final int MORE = 1;
+    private static final int END = 0;
+
+    private static final String SELECT_USERS = "select id, version, created_at, updated_at, username, password, display_name " +
+            "from app_users order by id";
+    private static final String SELECT_TAGS = "select id, version, created_at, updated_at, name, description from tags order by id";
+    private static final String SELECT_RECIPES = "select id, version, created_at, updated_at, recipe_type, title, description, " +
+            "ingredients, instructions, servings, author_id from recipes order by id";
+    private static final String SELECT_RECIPE_TAGS = "select recipe_id, tag_id from recipe_tags where recipe_id between ? and ?";
+    private static final String SELECT_CHECKSUMS = "select id, version, created_at, updated_at, seed, record_key, checksum, entity_id " +
+            "from seed_checksums order by id";
+
+    private static final String INSERT_USER = "insert into app_users (id, version, created_at, updated_at, username, password, " +
+            "display_name) values (?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_TAG = "insert into tags (id, version, created_at, updated_at, name, description) " +
+            "values (?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_RECIPE = "insert into recipes (id, version, created_at, updated_at, recipe_type, title, " +
+            "description, ingredients, instructions, servings, author_id) values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_RECIPE_TAG = "insert into recipe_tags (recipe_id, tag_id) values (?, ?)";
+    private static final String INSERT_CHECKSUM = "insert into seed_checksums (id, version, created_at, updated_at, seed, " +
+            "record_key, checksum, entity_id) values (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final List<String> TABLES = List.of("app_users", "tags", "recipes", "seed_checksums");
+
+    /** Rows in a snapshot. */
+    public record Counts(int users, int tags, int recipes, int checksums) {}
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate transactions;
+    private final TransactionTemplate readTransactions;
+    private final int batchSize;
+
+    public RecipeSnapshots(JdbcTemplate jdbc, PlatformTransactionManager transactionManager,
+                           @Value("${recipeshare.seed.snapshot-batch-size:1000}") int batchSize) {
+        if (batchSize < 1) throw new IllegalArgumentException("Snapshot batch size must be positive: " + batchSize);
+        this.jdbc = jdbc;
+        this.transactions = new TransactionTemplate(transactionManager);
+        this.readTransactions = new TransactionTemplate(transactionManager);
+        this.readTransactions.setReadOnly(true);
+        this.readTransactions.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.batchSize = batchSize;
+    }
+
+    /** Whether there are no users, tags, recipes or seed checksums, so that a snapshot can be loaded. */
+    public boolean isDatabaseEmpty() {
+        return TABLES.stream().noneMatch(table ->
+                Boolean.TRUE.equals(jdbc.queryForObject("select exists(select 1 from " + table + ")", Boolean.class)));
+    }
+
+    /** Writes a snapshot of the database to {@code out}, which is flushed but not closed. */
+    public Counts export(OutputStream out) throws IOException {
+        try {
+            return readTransactions.execute(status -> {
+                try {
+                    SnapshotOutput output = new SnapshotOutput(out);
+                    Counts counts = write(output);
+                    output.flush();
+                    return counts;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Loads the snapshot in {@code file} into the empty database, all or nothing.
+     *
+     * @throws IllegalArgumentException if the file is not a valid snapshot
+     * @throws IllegalStateException if the database is not empty
+     */
+    public Counts load(Path file) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Snapshot is larger than 2 GB: " + file);
+            }
+            // The mapping stays valid after the channel is closed
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        return transactions.execute(status -> {
+            if (!isDatabaseEmpty()) throw new IllegalStateException("The database is not empty");
+            return jdbc.execute((ConnectionCallback<Counts>) connection -> read(new SnapshotInput(buffer), connection));
+        });
+    }
+
+    // ---- export
+
+    private Counts write(SnapshotOutput out) throws IOException {
+        out.writeBytes(MAGIC);
+        out.writeVarLong(VERSION);
+
+        Map<Long, Integer> userIndex = new HashMap<>();
+        section(out, SELECT_USERS, (rs, row) -> {
+            userIndex.put(rs.getLong("id"), userIndex.size());
+            writeRow(row, rs);
+            row.writeString(rs.getString("username"));
+            row.writeString(rs.getString("password"));
+            row.writeString(rs.getString("display_name"));
+        });
+
+        Map<Long, Integer> tagIndex = new HashMap<>();
+        section(out, SELECT_TAGS, (rs, row) -> {
+            tagIndex.put(rs.getLong("id"), tagIndex.size());
+            writeRow(row, rs);
+            row.writeString(rs.getString("name"));
+            row.writeString(rs.getString("description"));
+        });
+
+        int recipes = writeRecipes(out, userIndex, tagIndex);
+
+        int checksums = section(out, SELECT_CHECKSUMS, (rs, row) -> {
+            writeRow(row, rs);
+            row.writeString(rs.getString("seed"));
+            row.writeString(rs.getString("record_key"));
+            row.writeString(rs.getString("checksum"));
+            row.writeNullableLong(rs.getObject("entity_id", Long.class));
+        });
+        return new Counts(userIndex.size(), tagIndex.size(), recipes, checksums);
+    }
+
+    private interface RowHandler {
+        void handle(ResultSet rs) throws SQLException, IOException;
+    }
+
+    private interface RowWriter {
+        void write(ResultSet rs, SnapshotOutput row) throws SQLException, IOException;
+    }
+
+    /** Writes the row count of the query, then its rows. */
+    private int section(SnapshotOutput out, String sql, RowWriter writer) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        SnapshotOutput rows = new SnapshotOutput(bytes);
+        int[] count = {0};
+        query(sql, rs -> {
+            writer.write(rs, rows);
+            count[0]++;
+        });
+        rows.flush();
+        out.writeVarLong(count[0]);
+        out.writeBytes(bytes.toByteArray());
+        return count[0];
+    }
+
+    private record RecipeRow(long id, long version, LocalDateTime createdAt, LocalDateTime updatedAt, String type,
+                             String title, String description, String ingredients, String instructions,
+                             Integer servings, Long authorId) {}
+
+    /** Streams the recipes and writes them a chunk at a time, once the chunk's tags are known. */
+    private int writeRecipes(SnapshotOutput out, Map<Long, Integer> userIndex, Map<Long, Integer> tagIndex) throws IOException {
+        Map<String, Integer> typeIndex = new HashMap<>();
+        List<RecipeRow> chunk = new ArrayList<>(batchSize);
+        long[] state = {0, 0}; // previous id, recipes written
+        RecipeChunkWriter flush = () -> {
+            if (chunk.isEmpty()) return;
+            Map<Long, List<Long>> tagIds = new HashMap<>();
+            jdbc.query(SELECT_RECIPE_TAGS, rs -> {
+                tagIds.computeIfAbsent(rs.getLong("recipe_id"), id -> new ArrayList<>()).add(rs.getLong("tag_id"));
+            }, chunk.get(0).id(), chunk.get(chunk.size() - 1).id());
+            for (RecipeRow recipe : chunk) {
+                writeRecipe(out, recipe, recipe.id() - state[0], typeIndex, userIndex, tagIndex,
+                        tagIds.getOrDefault(recipe.id(), List.of()));
+                state[0] = recipe.id();
+            }
+            state[1] += chunk.size();
+            chunk.clear();
+        };
+        query(SELECT_RECIPES, rs -> {
+            chunk.add(new RecipeRow(rs.getLong("id"), rs.getLong("version"),
+                    rs.getObject("created_at", LocalDateTime.class), rs.getObject("updated_at", LocalDateTime.class),
+                    rs.getString("recipe_type"), rs.getString("title"), rs.getString("description"),
+                    rs.getString("ingredients"), rs.getString("instructions"),
+                    rs.getObject("servings", Integer.class), rs.getObject("author_id", Long.class)));
+            if (chunk.size() == batchSize) flush.write();
+        });
+        flush.write();
+        out.writeByte(END);
+        return Math.toIntExact(state[1]);
+    }
+
+    private interface RecipeChunkWriter {
+        void write() throws IOException;
+    }
+
+    private static void writeRecipe(SnapshotOutput out, RecipeRow recipe, long idDelta, Map<String, Integer> typeIndex,
+                                    Map<Long, Integer> userIndex, Map<Long, Integer> tagIndex,
+                                    List<Long> tagIds) throws IOException {
+        out.writeByte(MORE);
+        out.writeVarLong(idDelta);
+        out.writeVarLong(recipe.version());
+        out.writeNullableLong(micros(recipe.createdAt()));
+        out.writeNullableLong(micros(recipe.updatedAt()));
+        String type = recipe.type() != null ? recipe.type() : "BASIC";
+        Integer typeCode = typeIndex.get(type);
+        if (typeCode == null) {
+            out.writeVarLong(typeIndex.size());
+            out.writeString(type);
+            typeIndex.put(type, typeIndex.size());
+        } else {
+            out.writeVarLong(typeCode);
+        }
+        out.writeString(recipe.title());
+        out.writeString(recipe.description());
+        out.writeString(recipe.ingredients());
+        out.writeString(recipe.instructions());
+        out.writeNullableLong(recipe.servings() == null ? null : recipe.servings().longValue());
+        out.writeVarLong(recipe.authorId() == null ? 0 : indexOf(userIndex, recipe.authorId(), "user") + 1L);
+        out.writeVarLong(tagIds.size());
+        for (Long tagId : tagIds) {
+            out.writeVarLong(indexOf(tagIndex, tagId, "tag"));
+        }
+    }
+
+    private static int indexOf(Map<Long, Integer> index, long id, String kind) {
+        Integer position = index.get(id);
+        if (position == null) throw new IllegalStateException("Recipe refers to a " + kind + " outside the snapshot: " + id);
+        return position;
+    }
+
+    private static void writeRow(SnapshotOutput row, ResultSet rs) throws SQLException, IOException {
+        row.writeVarLong(rs.getLong("id"));
+        row.writeVarLong(rs.getLong("version"));
+        row.writeNullableLong(micros(rs.getObject("created_at", LocalDateTime.class)));
+        row.writeNullableLong(micros(rs.getObject("updated_at", LocalDateTime.class)));
+    }
+
+    /** Runs the query with a fetch size of one batch, so large tables are read through a cursor. */
+    private void query(String sql, RowHandler handler) throws IOException {
+        try {
+            jdbc.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(sql);
+                statement.setFetchSize(batchSize);
+                return statement;
+            }, rs -> {
+                try {
+                    handler.handle(rs);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    // ---- load
+
+    private Counts read(SnapshotInput in, Connection connection) throws SQLException {
+        if (!Arrays.equals(in.readBytes(MAGIC.length), MAGIC)) {
+            throw new IllegalArgumentException("Not a recipe snapshot");
+        }
+        long version = in.readVarLong();
+        if (version != VERSION) throw new IllegalArgumentException("Unsupported snapshot version " + version);
+
+        long[] userIds;
+        try (Batch users = new Batch(connection, INSERT_USER, batchSize)) {
+            userIds = new long[in.readVarInt()];
+            for (int i = 0; i < userIds.length; i++) {
+                PreparedStatement statement = users.statement();
+                userIds[i] = readRow(in, statement);
+                statement.setString(5, in.readString());
+                statement.setString(6, in.readString());
+                statement.setString(7, in.readString());
+                users.add();
+            }
+            users.flush();
+        }
+
+        long[] tagIds;
+        try (Batch tags = new Batch(connection, INSERT_TAG, batchSize)) {
+            tagIds = new long[in.readVarInt()];
+            for (int i = 0; i < tagIds.length; i++) {
+                PreparedStatement statement = tags.statement();
+                tagIds[i] = readRow(in, statement);
+                statement.setString(5, in.readString());
+                statement.setString(6, in.readString());
+                tags.add();
+            }
+            tags.flush();
+        }
+
+        int recipes = readRecipes(in, connection, userIds, tagIds);
+
+        int checksums;
+        try (Batch batch = new Batch(connection, INSERT_CHECKSUM, batchSize)) {
+            checksums = in.readVarInt();
+            for (int i = 0; i < checksums; i++) {
+                PreparedStatement statement = batch.statement();
+                readRow(in, statement);
+                statement.setString(5, in.readString());
+                statement.setString(6, in.readString());
+                statement.setString(7, in.readString());
+                setLong(statement, 8, in.readNullableLong());
+                batch.add();
+            }
+            batch.flush();
+        }
+        if (in.hasRemaining()) throw new IllegalArgumentException("Malformed snapshot: data after the last section");
+        return new Counts(userIds.length, tagIds.length, recipes, checksums);
+    }
+
+    private int readRecipes(SnapshotInput in, Connection connection, long[] userIds, long[] tagIds) throws SQLException {
+        List<String> types = new ArrayList<>();
+        int count = 0;
+        long id = 0;
+        // Links are only sent after their recipes, or the foreign key would reject them
+        try (Batch recipes = new Batch(connection, INSERT_RECIPE, batchSize);
+             Batch links = new Batch(connection, INSERT_RECIPE_TAG, Integer.MAX_VALUE)) {
+            int marker;
+            while ((marker = in.readByte()) == MORE) {
+                PreparedStatement statement = recipes.statement();
+                id += in.readVarLong();
+                statement.setLong(1, id);
+                statement.setLong(2, in.readVarLong());
+                setTime(statement, 3, in.readNullableLong());
+                setTime(statement, 4, in.readNullableLong());
+                int typeCode = in.readVarInt();
+                if (typeCode == types.size()) types.add(in.readString());
+                statement.setString(5, entry(types, typeCode, "type"));
+                statement.setString(6, in.readString());
+                statement.setString(7, in.readString());
+                statement.setString(8, in.readString());
+                statement.setString(9, in.readString());
+                Long servings = in.readNullableLong();
+                if (servings == null) statement.setNull(10, Types.INTEGER); else statement.setInt(10, servings.intValue());
+                int author = in.readVarInt();
+                setLong(statement, 11, author == 0 ? null : entry(userIds, author - 1, "user"));
+                int tagCount = in.readVarInt();
+                for (int i = 0; i < tagCount; i++) {
+                    links.statement().setLong(1, id);
+                    links.statement().setLong(2, entry(tagIds, in.readVarInt(), "tag"));
+                    links.add();
+                }
+                count++;
+                if (recipes.add()) links.flush();
+            }
+            if (marker != END) throw new IllegalArgumentException("Malformed snapshot: unexpected recipe marker " + marker);
+            recipes.flush();
+            links.flush();
+        }
+        return count;
+    }
+
+    private static <T> T entry(List<T> entries, int index, String kind) {
+        if (index >= entries.size()) throw new IllegalArgumentException("Malformed snapshot: unknown " + kind + " " + index);
+        return entries.get(index);
+    }
+
+    private static long entry(long[] entries, int index, String kind) {
+        if (index >= entries.length) throw new IllegalArgumentException("Malformed snapshot: unknown " + kind + " " + index);
+        return entries[index];
+    }
+
+    /** Binds id, version, creation and update time to the first four parameters; returns the id. */
+    private static long readRow(SnapshotInput in, PreparedStatement statement) throws SQLException {
+        long id = in.readVarLong();
+        statement.setLong(1, id);
+        statement.setLong(2, in.readVarLong());
+        setTime(statement, 3, in.readNullableLong());
+        setTime(statement, 4, in.readNullableLong());
+        return id;
+    }
+
+    private static void setLong(PreparedStatement statement, int index, Long value) throws SQLException {
+        if (value == null) statement.setNull(index, Types.BIGINT); else statement.setLong(index, value);
+    }
+
+    private static void setTime(PreparedStatement statement, int index, Long micros) throws SQLException {
+        if (micros == null) {
+            statement.setNull(index, Types.TIMESTAMP);
+        } else {
+            statement.setObject(index, LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                    (int) Math.floorMod(micros, 1_000_000L) * 1000, ZoneOffset.UTC));
+        }
+    }
+
+    private static Long micros(LocalDateTime time) {
+        if (time == null) return null;
+        return time.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + time.getNano() / 1000;
+    }
+
+    /** A prepared insert whose rows are sent every {@code size} rows and on {@link #flush()}. */
+    private static final class Batch implements AutoCloseable {
+        private final PreparedStatement statement;
+        private final int size;
+        private int pending;
+
+        Batch(Connection connection, String sql, int size) throws SQLException {
+            this.statement = connection.prepareStatement(sql);
+            this.size = size;
+        }
+
+        PreparedStatement statement() {
+            return statement;
+        }
+
+        /** Adds the bound row; returns whether the batch was sent. */
+        boolean add() throws SQLException {
+            statement.addBatch();
+            if (++pending < size) return false;
+            flush();
+            return true;
+        }
+
+        void flush() throws SQLException {
+            if (pending == 0) return;
+            statement.executeBatch();
+            pending = 0;
+        }
+
+        @Override
+        public void close() throws SQLException {
+            statement.close();
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.mcon152.recipeshare.loader;
+
+import com.mcon152.recipeshare.domain.SeedChecksum;
+import com.mcon152.recipeshare.repository.SeedChecksumRepository;
+import org.springframework.core.io.Resource;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The {@link SeedChecksum}s of the seed files: a hash of each file, so that an unchanged file is
+ * recognised with one lookup, and a hash of each record, so that a changed file only needs its
+ * added, changed and removed records applied.
+ * <p>
+ * Each synchronisation of a file is numbered, and stamps the records it finds in the file with
+ * its number, so the records removed from the file are found with a query instead of holding
+ * every record key in memory.
+ */
+@Component
+public class SeedManifest {
+
+    private final SeedChecksumRepository repository;
+
+    public SeedManifest(SeedChecksumRepository repository) {
+        this.repository = repository;
+    }
+
+    /** Hex-encoded SHA-256 of the content, read as a stream. */
+    public static String checksum(Resource resource) throws IOException {
+        MessageDigest digest = sha256();
+        try (InputStream in = new DigestInputStream(resource.getInputStream(), digest)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /** Hex-encoded SHA-256 of the bytes. */
+    public static String checksum(byte[] content) {
+        return HexFormat.of().formatHex(sha256().digest(content));
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /** Whether the file was last applied with this content. */
+    public boolean isCurrent(String seed, String fileChecksum) {
+        return repository.findBySeedAndRecordKey(seed, SeedChecksum.FILE_KEY)
+                .map(file -> file.getChecksum().equals(fileChecksum))
+                .orElse(false);
+    }
+
+    /** The record checksums of the file by record key, without the file's own. */
+    public Map<String, SeedChecksum> records(String seed) {
+        Map<String, SeedChecksum> records = new HashMap<>();
+        for (SeedChecksum checksum : repository.findBySeed(seed)) {
+            if (!checksum.getRecordKey().equals(SeedChecksum.FILE_KEY)) records.put(checksum.getRecordKey(), checksum);
+        }
+        return records;
+    }
+
+    /** The record checksums of the file with the given keys, by record key. */
+    public Map<String, SeedChecksum> records(String seed, Collection<String> keys) {
+        Map<String, SeedChecksum> records = new HashMap<>();
+        if (keys.isEmpty()) return records;
+        repository.findBySeedAndRecordKeyIn(seed, keys).forEach(checksum -> records.put(checksum.getRecordKey(), checksum));
+        return records;
+    }
+
+    /** Those of the given rows that a record of the file was loaded into. */
+    public Set<Long> loaded(String seed, Collection<Long> entityIds) {
+        if (entityIds.isEmpty()) return Set.of();
+        return new HashSet<>(repository.findEntityIds(seed, entityIds));
+    }
+
+    /** Whether any record of the file has a checksum. */
+    public boolean hasRecords(String seed) {
+        return repository.existsBySeedAndRecordKeyNot(seed, SeedChecksum.FILE_KEY);
+    }
+
+    /** The number of the next synchronisation of the file, higher than that of every earlier one. */
+    public long nextRun(String seed) {
+        return repository.findLastRun(seed) + 1;
+    }
+
+    /** Marks the records with these keys as found by {@code run}, within the caller's transaction. */
+    public void stamp(String seed, Collection<String> keys, long run) {
+        if (!keys.isEmpty()) repository.stamp(seed, keys, run);
+    }
+
+    /** Up to {@code limit} records that {@code run} did not find, i.e. that were removed from the file. */
+    public List<SeedChecksum> stale(String seed, long run, int limit) {
+        return repository.findStale(seed, run, Limit.of(limit));
+    }
+
+    /** Records that the file has been applied with this content. */
+    public void markCurrent(String seed, String fileChecksum) {
+        SeedChecksum file = repository.findBySeedAndRecordKey(seed, SeedChecksum.FILE_KEY)
+                .orElseGet(() -> new SeedChecksum(seed, SeedChecksum.FILE_KEY, fileChecksum, null));
+        file.setChecksum(fileChecksum);
+        repository.save(file);
+    }
+
+    /**
+     * Records the checksum of a record and the row it was written to, within the caller's
+     * transaction; {@code known} is the record's previous checksum, if any.
+     */
+    public void put(String seed, String key, String checksum, long entityId, SeedChecksum known) {
+        if (known == null) {
+            repository.save(new SeedChecksum(seed, key, checksum, entityId));
+        } else {
+            repository.updateChecksum(known.getId(), checksum, entityId);
+        }
+    }
+
+    /** Forgets the records, within the caller's transaction. */
+    public void remove(Collection<SeedChecksum> records) {
+        repository.deleteAllInBatch(records);
+    }
+}
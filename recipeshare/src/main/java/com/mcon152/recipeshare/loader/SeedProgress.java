@@ -0,0 +1,87 @@
+package com.mcon152.recipeshare.loader;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Where loading the sample data stands.
+ * <p>
+ * By default the data loaders run during startup, so the data is {@link State#READY} before the
+ * application is. With {@code recipeshare.seed.background=true} the application starts without
+ * waiting and {@link BackgroundSeeder} loads the data afterwards; until it is done,
+ * {@link #isDone()} is false and the endpoints that depend on the data answer 503.
+ */
+@Component
+public class SeedProgress {
+
+    public enum State { PENDING, LOADING, READY, FAILED }
+
+    /** Snapshot of the progress, for {@code GET /api/seed}. */
+    public record Status(State state, String phase, long usersLoaded, long recipesLoaded,
+                         Instant startedAt, Instant finishedAt, long elapsedMillis, String message) {}
+
+    private final boolean background;
+    private final AtomicLong usersLoaded = new AtomicLong();
+    private final AtomicLong recipesLoaded = new AtomicLong();
+    private volatile State state;
+    private volatile String phase;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile String message;
+
+    public SeedProgress(@Value("${recipeshare.seed.background:false}") boolean background) {
+        this.background = background;
+        this.state = background ? State.PENDING : State.READY;
+    }
+
+    public boolean isBackground() {
+        return background;
+    }
+
+    /** True once the data is loaded, or loading has failed and waiting would not help. */
+    public boolean isDone() {
+        State current = state;
+        return current == State.READY || current == State.FAILED;
+    }
+
+    void start() {
+        startedAt = Instant.now();
+        state = State.LOADING;
+    }
+
+    void phase(String phase) {
+        this.phase = phase;
+    }
+
+    void usersLoaded(long count) {
+        usersLoaded.addAndGet(count);
+    }
+
+    void recipesLoaded(long count) {
+        recipesLoaded.addAndGet(count);
+    }
+
+    void ready() {
+        phase = null;
+        finishedAt = Instant.now();
+        state = State.READY;
+    }
+
+    void fail(String message) {
+        this.message = message;
+        finishedAt = Instant.now();
+        state = State.FAILED;
+    }
+
+    public Status status() {
+        Instant started = startedAt;
+        Instant finished = finishedAt;
+        long elapsedMillis = started == null ? 0
+                : Duration.between(started, finished != null ? finished : Instant.now()).toMillis();
+        return new Status(state, phase, usersLoaded.get(), recipesLoaded.get(), started, finished, elapsedMillis, message);
+    }
+}
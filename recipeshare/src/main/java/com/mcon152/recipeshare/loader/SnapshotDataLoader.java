@@ -0,0 +1,80 @@
+package com.mcon152.recipeshare.loader;
+
+import com.mcon152.recipeshare.repository.IdSequences;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Loads a binary {@link RecipeSnapshots snapshot} into an empty database on application startup,
+ * before the JSON loaders, when {@code recipeshare.seed.snapshot} names a snapshot file (written
+ * by {@link SnapshotExporter}). The snapshot carries the seed checksums of the database it
+ * was taken from, so the JSON loaders then only apply what changed in the seed files since.
+ * With {@code recipeshare.seed.background=true} it is run by {@link BackgroundSeeder} instead.
+ */
+@Component
+@Order(0)
+public class SnapshotDataLoader implements CommandLineRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(SnapshotDataLoader.class);
+
+    private final RecipeSnapshots snapshots;
+    private final IdSequences idSequences;
+    private final EntityManagerFactory entityManagerFactory;
+    private final SeedProgress progress;
+
+    @Value("${recipeshare.seed.snapshot:}")
+    private String snapshot = "";
+
+    public SnapshotDataLoader(RecipeSnapshots snapshots, IdSequences idSequences,
+                              EntityManagerFactory entityManagerFactory, SeedProgress progress) {
+        this.snapshots = snapshots;
+        this.idSequences = idSequences;
+        this.entityManagerFactory = entityManagerFactory;
+        this.progress = progress;
+    }
+
+    @Override
+    public void run(String... args) {
+        if (progress.isBackground()) return;
+        seed();
+    }
+
+    /** Loads the configured snapshot unless the database has data; returns how many recipes were loaded. */
+    int seed() {
+        if (snapshot.isBlank()) return 0;
+        Path file = Path.of(snapshot);
+        if (!Files.isRegularFile(file)) {
+            logger.warn("Snapshot {} does not exist. Skipping snapshot load.", file);
+            return 0;
+        }
+        if (!snapshots.isDatabaseEmpty()) {
+            logger.info("Database already has data. Skipping snapshot load.");
+            return 0;
+        }
+
+        try {
+            long start = System.nanoTime();
+            RecipeSnapshots.Counts counts = snapshots.load(file);
+            // Rows were inserted with their ids and behind Hibernate's back
+            idSequences.catchUp();
+            entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+            progress.usersLoaded(counts.users());
+            progress.recipesLoaded(counts.recipes());
+            logger.info("Loaded snapshot {} in {} ms: {} users, {} tags, {} recipes", file,
+                    (System.nanoTime() - start) / 1_000_000, counts.users(), counts.tags(), counts.recipes());
+            return counts.recipes();
+        } catch (Exception e) {
+            logger.error("Failed to load snapshot {}: {}", file, e.getMessage(), e);
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.mcon152.recipeshare.loader;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Writes a binary {@link RecipeSnapshots snapshot} of the database to the file named by
+ * {@code recipeshare.seed.snapshot-export} once the sample data is loaded, for starting another
+ * instance with {@code recipeshare.seed.snapshot}. Off unless the property is set: the snapshot is
+ * a full copy of the database, user credentials included, so it is only written to a file the
+ * operator asked for and never served over HTTP. The file is written next to its final name and
+ * moved into place when complete. With {@code recipeshare.seed.background=true} it is run by
+ * {@link BackgroundSeeder} after the data is ready.
+ */
+@Component
+@Order(3)
+public class SnapshotExporter implements CommandLineRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(SnapshotExporter.class);
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final RecipeSnapshots snapshots;
+    private final SeedProgress progress;
+    private final String target;
+
+    public SnapshotExporter(RecipeSnapshots snapshots, SeedProgress progress,
+                            @Value("${recipeshare.seed.snapshot-export:}") String target) {
+        this.snapshots = snapshots;
+        this.progress = progress;
+        this.target = target;
+    }
+
+    @Override
+    public void run(String... args) {
+        if (progress.isBackground()) return;
+        export();
+    }
+
+    /** Exports the database to the configured file, if any; returns whether a snapshot was written. */
+    boolean export() {
+        if (target.isBlank()) return false;
+        Path file = Path.of(target).toAbsolutePath();
+        Path partial = file.resolveSibling(file.getFileName() + ".part");
+        try {
+            long start = System.nanoTime();
+            RecipeSnapshots.Counts counts;
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(partial), BUFFER_SIZE)) {
+                counts = snapshots.export(out);
+            }
+            Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING);
+            logger.info("Exported snapshot {} in {} ms: {} users, {} tags, {} recipes", file,
+                    (System.nanoTime() - start) / 1_000_000, counts.users(), counts.tags(), counts.recipes());
+            return true;
+        } catch (Exception e) {
+            logger.error("Failed to export snapshot {}: {}", file, e.getMessage(), e);
+            try {
+                Files.deleteIfExists(partial);
+            } catch (Exception ignored) {
+                // Nothing more to do; the error above is what matters
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.mcon152.recipeshare.loader;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads what {@link SnapshotOutput} wrote, straight from a (memory-mapped) buffer. Malformed or
+ * truncated input is reported as an {@link IllegalArgumentException}.
+ */
+final class SnapshotInput {
+
+    private final ByteBuffer buffer;
+    private byte[] scratch = new byte[256];
+
+    SnapshotInput(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    byte[] readBytes(int length) {
+        byte[] bytes = new byte[length];
+        get(bytes, length);
+        return bytes;
+    }
+
+    int readByte() {
+        try {
+            return buffer.get() & 0xFF;
+        } catch (BufferUnderflowException e) {
+            throw truncated();
+        }
+    }
+
+    long readVarLong() {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IllegalArgumentException("Malformed snapshot: varint longer than 64 bits");
+    }
+
+    int readVarInt() {
+        long value = readVarLong();
+        if (value < 0 || value > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Malformed snapshot: " + value + " is out of range");
+        }
+        return (int) value;
+    }
+
+    Long readNullableLong() {
+        long value = readVarLong();
+        if (value == 0) return null;
+        value--;
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    String readString() {
+        int length = readVarInt();
+        if (length == 0) return null;
+        length--;
+        if (length > scratch.length) scratch = new byte[Math.max(length, scratch.length * 2)];
+        get(scratch, length);
+        return new String(scratch, 0, length, StandardCharsets.UTF_8);
+    }
+
+    boolean hasRemaining() {
+        return buffer.hasRemaining();
+    }
+
+    private void get(byte[] target, int length) {
+        if (length > buffer.remaining()) throw truncated();
+        buffer.get(target, 0, length);
+    }
+
+    private static IllegalArgumentException truncated() {
+        return new IllegalArgumentException("Malformed snapshot: unexpected end of file");
+    }
+}
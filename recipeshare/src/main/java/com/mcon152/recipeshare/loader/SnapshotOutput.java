@@ -0,0 +1,55 @@
+package com.mcon152.recipeshare.loader;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes the primitives of the {@link RecipeSnapshots} format: unsigned varints (7 bits per byte,
+ * low bits first), nullable longs as zigzag varints shifted by one so that 0 is null, and strings
+ * as the varint length + 1 (0 for null) followed by their UTF-8 bytes.
+ */
+final class SnapshotOutput {
+
+    private final DataOutputStream out;
+
+    SnapshotOutput(OutputStream out) {
+        this.out = new DataOutputStream(out);
+    }
+
+    void writeBytes(byte[] bytes) throws IOException {
+        out.write(bytes);
+    }
+
+    void writeByte(int value) throws IOException {
+        out.writeByte(value);
+    }
+
+    void writeVarLong(long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    /** Any value but {@link Long#MIN_VALUE}, which would read back as null. */
+    void writeNullableLong(Long value) throws IOException {
+        writeVarLong(value == null ? 0 : ((value << 1) ^ (value >> 63)) + 1);
+    }
+
+    void writeString(String value) throws IOException {
+        if (value == null) {
+            writeVarLong(0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(bytes.length + 1L);
+        out.write(bytes);
+    }
+
+    void flush() throws IOException {
+        out.flush();
+    }
+}
@@ -1,65 +1,177 @@
 package com.mcon152.recipeshare.loader;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.mcon152.recipeshare.domain.AppUser;
+import com.mcon152.recipeshare.domain.SeedChecksum;
 import com.mcon152.recipeshare.repository.AppUserRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.core.annotation.Order;
 import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.Arrays;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Loads sample users from JSON file into the database on application startup.
  * This runs before RecipeDataLoader to ensure users exist when recipes reference them.
+ * <p>
+ * Like the recipes, the users are kept in sync with the file through the {@link SeedManifest},
+ * keyed by username: an unchanged file costs one checksum lookup, otherwise new users are created,
+ * changed ones updated and removed ones deleted, unless they still have recipes. The file is
+ * small, so it is read at once and applied in one transaction.
+ * With {@code recipeshare.seed.background=true} both are run by {@link BackgroundSeeder} instead.
  */
 @Component
 @Order(1)
 public class UserDataLoader implements CommandLineRunner {
 
     private static final Logger logger = LoggerFactory.getLogger(UserDataLoader.class);
+    static final String USERS_FILE = "data/users.json";
+
     private final AppUserRepository userRepository;
+    private final SeedManifest manifest;
     private final ObjectMapper objectMapper;
+    private final SeedProgress progress;
+    private final TransactionTemplate transactions;
 
-    public UserDataLoader(AppUserRepository userRepository, ObjectMapper objectMapper) {
+    public UserDataLoader(AppUserRepository userRepository, SeedManifest manifest, ObjectMapper objectMapper,
+                          SeedProgress progress, PlatformTransactionManager transactionManager) {
         this.userRepository = userRepository;
+        this.manifest = manifest;
         this.objectMapper = objectMapper;
+        this.progress = progress;
+        this.transactions = new TransactionTemplate(transactionManager);
     }
 
+    /** A user of the seed file and the checksum of its JSON. */
+    private record UserRecord(String username, String password, String displayName, String checksum) {}
+
+    /** The valid users of the seed file by username, and how many records were skipped as invalid. */
+    private record Users(Map<String, UserRecord> records, int skipped) {}
+
     @Override
     public void run(String... args) {
-        if (userRepository.count() > 0) {
-            logger.info("Users already exist in database. Skipping data load.");
-            return;
-        }
-
-        logger.info("Loading sample users from JSON...");
+        if (progress.isBackground()) return;
+        seed();
+    }
 
+    /** Applies the changes of the users file; returns how many users were added, changed or removed. */
+    int seed() {
         try {
-            List<AppUser> users = loadUsersFromJson();
-            userRepository.saveAll(users);
-            logger.info("Successfully loaded {} users", users.size());
-
-            users.forEach(user ->
-                logger.debug("Loaded user: {} ({})", user.getUsername(), user.getDisplayName())
-            );
+            return sync(USERS_FILE, new ClassPathResource(USERS_FILE));
         } catch (Exception e) {
             logger.error("Failed to load users from JSON: {}", e.getMessage(), e);
+            return 0;
         }
     }
 
-    private List<AppUser> loadUsersFromJson() throws Exception {
-        ClassPathResource resource = new ClassPathResource("data/users.json");
+    /** Brings the users loaded from {@code resource} up to date with it; {@code seed} names the file in the manifest. */
+    int sync(String seed, Resource resource) throws IOException {
+        String fileChecksum = SeedManifest.checksum(resource);
+        if (manifest.isCurrent(seed, fileChecksum)) {
+            logger.info("Sample users are up to date. Skipping data load.");
+            return 0;
+        }
+
+        Users users = read(resource);
+        Map<String, UserRecord> records = users.records();
+        Map<String, SeedChecksum> known = manifest.records(seed);
+        int written = transactions.execute(status -> write(seed, records, known));
+
+        int removed = 0;
+        for (SeedChecksum record : known.values()) {
+            if (records.containsKey(record.getRecordKey())) continue;
+            if (remove(record)) removed++;
+        }
+
+        // A file with skipped records is not current, so it is read again on the next start
+        if (users.skipped() == 0) manifest.markCurrent(seed, fileChecksum);
+        progress.usersLoaded(written + removed);
+        logger.info("Synchronized sample users: {} added or changed, {} removed", written, removed);
+        return written + removed;
+    }
 
-        try (InputStream inputStream = resource.getInputStream()) {
-            AppUser[] usersArray = objectMapper.readValue(inputStream, AppUser[].class);
-            return Arrays.asList(usersArray);
+    private int write(String seed, Map<String, UserRecord> records, Map<String, SeedChecksum> known) {
+        Map<String, AppUser> existing = new HashMap<>();
+        userRepository.findByUsernameIn(records.keySet()).forEach(user -> existing.put(user.getUsername(), user));
+
+        int written = 0;
+        for (UserRecord record : records.values()) {
+            SeedChecksum previous = known.get(record.username());
+            if (previous != null && previous.getChecksum().equals(record.checksum())) continue;
+            AppUser user = existing.get(record.username());
+            if (user == null) {
+                user = userRepository.save(new AppUser(record.username(), record.password(), record.displayName()));
+                written++;
+            } else if (previous != null) {
+                user.setPassword(record.password());
+                user.setDisplayName(record.displayName());
+                written++;
+            }
+            // An existing user without a checksum was loaded before checksums were recorded: adopt it as is
+            manifest.put(seed, record.username(), record.checksum(), user.getId(), previous);
+            logger.debug("Loaded user: {} ({})", user.getUsername(), user.getDisplayName());
+        }
+        return written;
+    }
+
+    /** Deletes a user that was removed from the file; returns false if it is kept because it has recipes. */
+    private boolean remove(SeedChecksum record) {
+        boolean deleted = true;
+        try {
+            transactions.executeWithoutResult(status -> {
+                if (record.getEntityId() != null) userRepository.deleteById(record.getEntityId());
+            });
+        } catch (DataIntegrityViolationException e) {
+            logger.info("Keeping user {}, which was removed from the seed file but still has recipes", record.getRecordKey());
+            deleted = false;
+        }
+        transactions.executeWithoutResult(status -> manifest.remove(List.of(record)));
+        return deleted;
+    }
+
+    private Users read(Resource resource) throws IOException {
+        Map<String, UserRecord> records = new LinkedHashMap<>();
+        int skipped = 0;
+        try (InputStream inputStream = resource.getInputStream();
+             JsonRecordReader reader = new JsonRecordReader(objectMapper.getFactory().createParser(inputStream))) {
+            while (reader.hasNext()) {
+                JsonNode node = reader.next();
+                String username = node.path("username").asText("").trim();
+                String password = node.path("password").asText("");
+                if (username.isEmpty() || password.isEmpty()) {
+                    logger.error("Skipping user without username or password: {}", username);
+                    skipped++;
+                    continue;
+                }
+                String displayName = node.hasNonNull("displayName") ? node.get("displayName").asText() : null;
+                records.put(username, new UserRecord(username, password, displayName, checksum(node)));
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return new Users(records, skipped);
+    }
+
+    private String checksum(JsonNode node) {
+        try {
+            return SeedManifest.checksum(objectMapper.writeValueAsBytes(node));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize a parsed record", e);
         }
     }
 }
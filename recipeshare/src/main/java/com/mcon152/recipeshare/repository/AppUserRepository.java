@@ -1,14 +1,23 @@
 package com.mcon152.recipeshare.repository;
 
 import com.mcon152.recipeshare.domain.AppUser;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface AppUserRepository extends JpaRepository<AppUser, Long> {
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"))
     Optional<AppUser> findByUsername(String username);
     boolean existsByUsername(String username);
+
+    // Authors of a whole import chunk at once
+    List<AppUser> findByUsernameIn(Collection<String> usernames);
 }
 
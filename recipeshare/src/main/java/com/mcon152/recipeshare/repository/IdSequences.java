@@ -0,0 +1,58 @@
+package com.mcon152.recipeshare.repository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.dialect.sequence.SequenceSupport;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.id.enhanced.DatabaseStructure;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Moves every entity id sequence past the ids already in its table. Databases created while ids
+ * were identity columns get their sequences from the schema update starting at 1, so without this
+ * the first insert would collide with an existing row. Runs once the schema is up to date and
+ * before the data loaders insert anything; on an up-to-date database it only reads.
+ * <p>
+ * With the pooled optimizer a sequence value {@code v} stands for the block of ids
+ * {@code (v - increment, v]}, so the sequence is restarted at {@code max(id) + increment}.
+ */
+@Component
+public class IdSequences {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdSequences.class);
+
+    private final SessionFactoryImplementor sessionFactory;
+    private final JdbcTemplate jdbc;
+
+    public IdSequences(EntityManagerFactory entityManagerFactory, JdbcTemplate jdbc) {
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        this.jdbc = jdbc;
+    }
+
+    @PostConstruct
+    public void catchUp() {
+        SequenceSupport sequences = sessionFactory.getJdbcServices().getDialect().getSequenceSupport();
+        sessionFactory.getMappingMetamodel().forEachEntityDescriptor(persister -> {
+            // Subclasses share the generator of their hierarchy's root
+            if (!persister.getEntityName().equals(persister.getRootEntityName())) return;
+            if (!(persister.getGenerator() instanceof SequenceStyleGenerator generator)) return;
+
+            DatabaseStructure structure = generator.getDatabaseStructure();
+            String sequence = structure.getPhysicalName().render();
+            String table = persister.getIdentifierTableMapping().getTableName();
+            Long maxId = jdbc.queryForObject(
+                    "select max(" + persister.getIdentifierColumnNames()[0] + ") from " + table, Long.class);
+            if (maxId == null) return;
+
+            Long next = jdbc.queryForObject(sequences.getSequenceNextValString(sequence), Long.class);
+            if (next != null && next - structure.getIncrementSize() >= maxId) return;
+            long restart = maxId + structure.getIncrementSize();
+            jdbc.execute("alter sequence " + sequence + " restart with " + restart);
+            logger.info("Restarted sequence {} at {}, past the largest id in {}", sequence, restart, table);
+        });
+    }
+}
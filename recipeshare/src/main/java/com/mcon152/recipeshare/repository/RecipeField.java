@@ -0,0 +1,67 @@
+package com.mcon152.recipeshare.repository;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Recipe properties a client can ask for with a sparse fieldset ({@code fields=title,servings}).
+ * Each field names its JSON property, which is the same as in the full recipe representation, and
+ * the JPQL expressions that read it, so only the requested columns are selected. {@link #TAGS} has
+ * no column of its own; tag names are read by a second query for the whole page.
+ */
+public enum RecipeField {
+    ID("id", "r.id"),
+    TITLE("title", "r.title"),
+    DESCRIPTION("description", "r.description"),
+    INGREDIENTS("ingredients", "r.ingredients"),
+    INSTRUCTIONS("instructions", "r.instructions"),
+    SERVINGS("servings", "r.servings"),
+    RECIPE_TYPE("recipeType", "r.recipeType"),
+    AUTHOR("author", "a.id", "a.displayName"),
+    TAGS("tags"),
+    CREATED_AT("createdAt", "r.createdAt"),
+    UPDATED_AT("updatedAt", "r.updatedAt");
+
+    private final String property;
+    private final List<String> paths;
+
+    RecipeField(String property, String... paths) {
+        this.property = property;
+        this.paths = List.of(paths);
+    }
+
+    public String property() {
+        return property;
+    }
+
+    List<String> paths() {
+        return paths;
+    }
+
+    /**
+     * Parses a comma separated list of property names such as {@code title,tags,recipeType}.
+     * {@link #ID} is always included, since clients need it to address the recipe.
+     *
+     * @throws IllegalArgumentException for an empty list or an unknown property
+     */
+    public static Set<RecipeField> parse(String fields) {
+        if (fields == null || fields.isBlank()) {
+            throw new IllegalArgumentException("No fields requested");
+        }
+        Set<RecipeField> out = EnumSet.of(ID);
+        for (String name : fields.split(",")) {
+            String trimmed = name.trim();
+            if (trimmed.isEmpty()) continue;
+            out.add(fromProperty(trimmed));
+        }
+        return out;
+    }
+
+    private static RecipeField fromProperty(String property) {
+        for (RecipeField field : values()) {
+            if (field.property.equals(property)) return field;
+        }
+        throw new IllegalArgumentException("Unknown field: " + property);
+    }
+}
@@ -0,0 +1,24 @@
+package com.mcon152.recipeshare.repository;
+
+import com.mcon152.recipeshare.domain.Recipe;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+
+/**
+ * Partial updates as one statement: only the columns a patch sets are written, guarded by the
+ * version the recipe was read at, without merging the entity.
+ */
+public interface RecipePatchRepository {
+
+    /**
+     * Writes the given fields of {@code patch} to {@code recipe}'s row with one
+     * {@code UPDATE ... WHERE id = ? AND version = ?}, which also increments the version and sets
+     * {@code updatedAt}, and evicts the recipe from the second-level cache. {@code recipe} is
+     * detached first, so changing it afterwards writes nothing. Returns 0 if the row no longer
+     * exists or is no longer at {@code recipe}'s version.
+     *
+     * @throws IllegalArgumentException for {@link RecipeField#TAGS} or another field without a column of the recipe row
+     */
+    int updateColumns(Recipe recipe, Recipe patch, Set<RecipeField> fields, LocalDateTime updatedAt);
+}
@@ -0,0 +1,72 @@
+package com.mcon152.recipeshare.repository;
+
+import com.mcon152.recipeshare.domain.Recipe;
+import jakarta.persistence.EntityManager;
+import org.hibernate.query.NativeQuery;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+class RecipePatchRepositoryImpl implements RecipePatchRepository {
+
+    // No entity maps this query space. Hibernate drops every region the statement's spaces touch,
+    // which for the recipes table is every cached recipe; only the patched one is evicted instead.
+    // No cached query reads the recipes table, so the query cache needs no invalidation.
+    private static final String QUERY_SPACE = "recipe_patch";
+
+    private final EntityManager entityManager;
+
+    RecipePatchRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public int updateColumns(Recipe recipe, Recipe patch, Set<RecipeField> fields, LocalDateTime updatedAt) {
+        Map<String, Object> columns = new LinkedHashMap<>();
+        for (RecipeField field : fields) {
+            switch (field) {
+                case TITLE -> columns.put("title", patch.getTitle());
+                case DESCRIPTION -> columns.put("description", patch.getDescription());
+                case INGREDIENTS -> columns.put("ingredients", patch.getIngredients());
+                case INSTRUCTIONS -> columns.put("instructions", patch.getInstructions());
+                case SERVINGS -> columns.put("servings", patch.getServings());
+                case AUTHOR -> columns.put("author_id", patch.getAuthor().getId());
+                default -> throw new IllegalArgumentException("Not a column of the recipe row: " + field);
+            }
+        }
+        StringBuilder sql = new StringBuilder("update recipes set ");
+        columns.keySet().forEach(column -> sql.append(column).append(" = :").append(column).append(", "));
+        sql.append("version = version + 1, updated_at = :updatedAt where id = :id and version = :version");
+
+        if (entityManager.contains(recipe)) entityManager.detach(recipe);
+        NativeQuery<?> query = entityManager.createNativeQuery(sql.toString()).unwrap(NativeQuery.class);
+        query.addSynchronizedQuerySpace(QUERY_SPACE);
+        columns.forEach(query::setParameter);
+        query.setParameter("updatedAt", updatedAt);
+        query.setParameter("id", recipe.getId());
+        query.setParameter("version", recipe.getVersion());
+        int updated = query.executeUpdate();
+        if (updated > 0) evict(recipe.getId());
+        return updated;
+    }
+
+    /**
+     * Evicts the recipe now, so this transaction reads the new row, and again after commit, in case
+     * a concurrent reader cached the old row in the meantime.
+     */
+    private void evict(long id) {
+        entityManager.getEntityManagerFactory().getCache().evict(Recipe.class, id);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    entityManager.getEntityManagerFactory().getCache().evict(Recipe.class, id);
+                }
+            });
+        }
+    }
+}
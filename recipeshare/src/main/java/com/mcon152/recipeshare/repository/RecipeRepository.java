@@ -1,9 +1,85 @@
 package com.mcon152.recipeshare.repository;
 
 import com.mcon152.recipeshare.domain.Recipe;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
-public interface RecipeRepository extends JpaRepository<Recipe, Long> {
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Read paths declare explicit fetch plans so that serializing their results never goes back to
+ * the database (open-in-view is off): the lazy {@code author} is always fetched in the same
+ * statement, and {@code tags} are either joined too or, for limited keyset pages where a
+ * collection join would force in-memory paging, loaded for the whole page by one batched select
+ * ({@code @BatchSize} on {@link Recipe#getTags()}).
+ * <p>
+ * List views that only need a few columns use the sparse fieldset reads of {@link RecipeRowRepository}
+ * together with {@link #findTagNames}, which skip entity loading altogether.
+ */
+public interface RecipeRepository extends JpaRepository<Recipe, Long>, RecipeRowRepository, RecipePatchRepository {
     // repository methods (default CRUD provided by JpaRepository)
-}
 
+    @Override
+    @EntityGraph(attributePaths = {"author", "tags"}, type = EntityGraph.EntityGraphType.LOAD)
+    Optional<Recipe> findById(Long id);
+
+    @Override
+    @EntityGraph(attributePaths = {"author", "tags"}, type = EntityGraph.EntityGraphType.LOAD)
+    List<Recipe> findAll();
+
+    @Override
+    @EntityGraph(attributePaths = {"author", "tags"}, type = EntityGraph.EntityGraphType.LOAD)
+    List<Recipe> findAllById(Iterable<Long> ids);
+
+    // Version lookup for conditional requests, without loading the entity
+    @Query("select new com.mcon152.recipeshare.repository.RecipeVersion(r.version, r.updatedAt) from Recipe r where r.id = :id")
+    Optional<RecipeVersion> findVersionById(@Param("id") long id);
+
+    // Delete without loading the entity: Hibernate removes the owned recipe_tags rows first, then the
+    // recipe; returns 0 if it does not exist. As a bulk statement it invalidates the recipe cache regions
+    @Modifying
+    @Query("delete from Recipe r where r.id = :id")
+    int deleteRecipeById(@Param("id") long id);
+
+    // Keyset pagination by primary key
+    @EntityGraph(attributePaths = "author", type = EntityGraph.EntityGraphType.LOAD)
+    List<Recipe> findAllByOrderByIdAsc(Limit limit);
+
+    @EntityGraph(attributePaths = "author", type = EntityGraph.EntityGraphType.LOAD)
+    List<Recipe> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    // Keyset pagination by last modification (backed by idx_recipes_updated_at_id)
+    @EntityGraph(attributePaths = "author", type = EntityGraph.EntityGraphType.LOAD)
+    List<Recipe> findAllByOrderByUpdatedAtAscIdAsc(Limit limit);
+
+    @EntityGraph(attributePaths = "author", type = EntityGraph.EntityGraphType.LOAD)
+    @Query("select r from Recipe r where r.updatedAt > :updatedAt or (r.updatedAt = :updatedAt and r.id > :id) " +
+            "order by r.updatedAt asc, r.id asc")
+    List<Recipe> findPageAfterUpdate(@Param("updatedAt") LocalDateTime updatedAt, @Param("id") long id, Limit limit);
+
+    // Tag lookups joined through recipe_tags (idx_recipe_tags_tag_id / idx_tags_name_lower), keyset paged by id
+    @EntityGraph(attributePaths = "author", type = EntityGraph.EntityGraphType.LOAD)
+    @Query("select r from Recipe r join r.tags t where t.nameLower = :nameLower and r.id > :afterId order by r.id asc")
+    List<Recipe> findByTagNameAfterId(@Param("nameLower") String nameLower, @Param("afterId") long afterId, Limit limit);
+
+    @EntityGraph(attributePaths = "author", type = EntityGraph.EntityGraphType.LOAD)
+    @Query("select r from Recipe r join r.tags t where t.id = :tagId and r.id > :afterId order by r.id asc")
+    List<Recipe> findByTagIdAfterId(@Param("tagId") long tagId, @Param("afterId") long afterId, Limit limit);
+
+    // Recipes by title, for adopting recipes seeded before seed checksums were recorded
+    @Query("select new com.mcon152.recipeshare.repository.RecipeTitle(r.id, r.title) " +
+            "from Recipe r where r.title in :titles order by r.id")
+    List<RecipeTitle> findTitles(@Param("titles") Collection<String> titles);
+
+    // Tag names of several recipes at once, for sparse fieldset rows
+    @Query("select new com.mcon152.recipeshare.repository.RecipeTagName(r.id, t.name) " +
+            "from Recipe r join r.tags t where r.id in :recipeIds order by r.id, t.name")
+    List<RecipeTagName> findTagNames(@Param("recipeIds") Collection<Long> recipeIds);
+}
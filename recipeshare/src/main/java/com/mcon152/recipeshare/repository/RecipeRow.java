@@ -0,0 +1,11 @@
+package com.mcon152.recipeshare.repository;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * A recipe read with a sparse fieldset. {@code fields} maps JSON property names to values in
+ * {@link RecipeField} order and is ready to be serialized; {@code id} and {@code updatedAt} are
+ * always read because keyset cursors are built from them.
+ */
+public record RecipeRow(long id, LocalDateTime updatedAt, Map<String, Object> fields) {}
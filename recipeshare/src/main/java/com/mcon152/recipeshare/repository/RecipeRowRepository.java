@@ -0,0 +1,29 @@
+package com.mcon152.recipeshare.repository;
+
+import org.springframework.data.domain.Limit;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Sparse fieldset reads, keyset paged like the entity queries of {@link RecipeRepository}. The
+ * select list is built from the requested {@link RecipeField}s, so large columns such as
+ * {@code ingredients} and {@code instructions} are not read unless asked for and no entities are
+ * materialized. {@link RecipeField#TAGS} is ignored here; see {@link RecipeRepository#findTagNames}.
+ */
+public interface RecipeRowRepository {
+
+    /** Rows ordered by id with {@code id > afterId}. */
+    List<RecipeRow> findRowsAfterId(Set<RecipeField> fields, long afterId, Limit limit);
+
+    /** Rows ordered by last modification, then id; {@code updatedAt == null} starts from the beginning. */
+    List<RecipeRow> findRowsAfterUpdate(Set<RecipeField> fields, LocalDateTime updatedAt, long afterId, Limit limit);
+
+    /**
+     * All rows ordered by id from a forward-only cursor reading {@code fetchSize} rows per round
+     * trip. Must be consumed and closed inside a transaction.
+     */
+    Stream<RecipeRow> streamRows(Set<RecipeField> fields, int fetchSize);
+}
@@ -0,0 +1,103 @@
+package com.mcon152.recipeshare.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+class RecipeRowRepositoryImpl implements RecipeRowRepository {
+
+    private final EntityManager entityManager;
+
+    RecipeRowRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public List<RecipeRow> findRowsAfterId(Set<RecipeField> fields, long afterId, Limit limit) {
+        TypedQuery<Object[]> query = entityManager.createQuery(
+                select(fields) + " where r.id > :afterId order by r.id asc", Object[].class);
+        query.setParameter("afterId", afterId);
+        return rows(fields, query, limit);
+    }
+
+    @Override
+    public List<RecipeRow> findRowsAfterUpdate(Set<RecipeField> fields, LocalDateTime updatedAt, long afterId, Limit limit) {
+        TypedQuery<Object[]> query;
+        if (updatedAt == null) {
+            query = entityManager.createQuery(select(fields) + " order by r.updatedAt asc, r.id asc", Object[].class);
+        } else {
+            query = entityManager.createQuery(select(fields)
+                    + " where r.updatedAt > :updatedAt or (r.updatedAt = :updatedAt and r.id > :afterId)"
+                    + " order by r.updatedAt asc, r.id asc", Object[].class);
+            query.setParameter("updatedAt", updatedAt);
+            query.setParameter("afterId", afterId);
+        }
+        return rows(fields, query, limit);
+    }
+
+    @Override
+    public Stream<RecipeRow> streamRows(Set<RecipeField> fields, int fetchSize) {
+        TypedQuery<Object[]> query = entityManager.createQuery(select(fields) + " order by r.id asc", Object[].class);
+        query.setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize);
+        query.setHint(HibernateHints.HINT_READ_ONLY, true);
+        return query.getResultStream().map(columns -> row(fields, columns));
+    }
+
+    /** Id and last modification first, then the columns of every requested field in enum order. */
+    private static String select(Set<RecipeField> fields) {
+        StringBuilder jpql = new StringBuilder("select r.id, r.updatedAt");
+        for (RecipeField field : fields) {
+            for (String path : field.paths()) {
+                jpql.append(", ").append(path);
+            }
+        }
+        jpql.append(" from Recipe r");
+        if (fields.contains(RecipeField.AUTHOR)) {
+            jpql.append(" left join r.author a");
+        }
+        return jpql.toString();
+    }
+
+    private static List<RecipeRow> rows(Set<RecipeField> fields, TypedQuery<Object[]> query, Limit limit) {
+        if (limit.isLimited()) {
+            query.setMaxResults(limit.max());
+        }
+        List<RecipeRow> rows = new ArrayList<>();
+        for (Object[] columns : query.getResultList()) {
+            rows.add(row(fields, columns));
+        }
+        return rows;
+    }
+
+    private static RecipeRow row(Set<RecipeField> fields, Object[] columns) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        int column = 2;
+        for (RecipeField field : fields) {
+            if (field == RecipeField.AUTHOR) {
+                values.put(field.property(), author(columns[column], columns[column + 1]));
+            } else if (field != RecipeField.TAGS) {
+                values.put(field.property(), columns[column]);
+            }
+            column += field.paths().size();
+        }
+        return new RecipeRow((Long) columns[0], (LocalDateTime) columns[1], values);
+    }
+
+    /** Same shape as a serialized {@code AppUser}, or null for a recipe without author. */
+    private static Map<String, Object> author(Object id, Object displayName) {
+        if (id == null) return null;
+        Map<String, Object> author = new LinkedHashMap<>();
+        author.put("id", id);
+        author.put("displayName", displayName);
+        return author;
+    }
+}
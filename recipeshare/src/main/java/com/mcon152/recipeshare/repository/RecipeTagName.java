@@ -0,0 +1,4 @@
+package com.mcon152.recipeshare.repository;
+
+/** Projection of one {@code recipe_tags} row to the recipe id and the tag's name. */
+public record RecipeTagName(Long recipeId, String name) {}
@@ -0,0 +1,4 @@
+package com.mcon152.recipeshare.repository;
+
+/** Projection of a recipe's id and title, for matching seed records to existing recipes. */
+public record RecipeTitle(Long id, String title) {}
@@ -0,0 +1,6 @@
+package com.mcon152.recipeshare.repository;
+
+import java.time.LocalDateTime;
+
+/** Projection of a recipe's optimistic lock version and last modification, for conditional requests. */
+public record RecipeVersion(Long version, LocalDateTime updatedAt) {}
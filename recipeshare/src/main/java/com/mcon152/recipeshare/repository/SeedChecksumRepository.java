@@ -0,0 +1,44 @@
+package com.mcon152.recipeshare.repository;
+
+import com.mcon152.recipeshare.domain.SeedChecksum;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface SeedChecksumRepository extends JpaRepository<SeedChecksum, Long> {
+    Optional<SeedChecksum> findBySeedAndRecordKey(String seed, String recordKey);
+
+    List<SeedChecksum> findBySeed(String seed);
+
+    List<SeedChecksum> findBySeedAndRecordKeyIn(String seed, Collection<String> recordKeys);
+
+    @Query("select c.entityId from SeedChecksum c where c.seed = :seed and c.entityId in :entityIds")
+    List<Long> findEntityIds(@Param("seed") String seed, @Param("entityIds") Collection<Long> entityIds);
+
+    boolean existsBySeedAndRecordKeyNot(String seed, String recordKey);
+
+    @Query("select coalesce(max(c.lastRun), 0) from SeedChecksum c where c.seed = :seed")
+    long findLastRun(@Param("seed") String seed);
+
+    @Modifying
+    @Query("update SeedChecksum c set c.lastRun = :run, c.version = c.version + 1 where c.seed = :seed and c.recordKey in :keys")
+    int stamp(@Param("seed") String seed, @Param("keys") Collection<String> keys, @Param("run") long run);
+
+    // Records that the given run did not stamp, without the whole-file hash
+    @Query("select c from SeedChecksum c where c.seed = :seed and c.recordKey <> '' " +
+            "and (c.lastRun is null or c.lastRun < :run) order by c.id")
+    List<SeedChecksum> findStale(@Param("seed") String seed, @Param("run") long run, Limit limit);
+
+    // Record a changed record without loading its row first
+    @Modifying
+    @Query("update SeedChecksum c set c.checksum = :checksum, c.entityId = :entityId, c.version = c.version + 1 where c.id = :id")
+    int updateChecksum(@Param("id") long id, @Param("checksum") String checksum, @Param("entityId") Long entityId);
+}
@@ -1,14 +1,23 @@
 package com.mcon152.recipeshare.repository;
 
 import com.mcon152.recipeshare.domain.Tag;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface TagRepository extends JpaRepository<Tag, Long> {
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"))
     Optional<Tag> findByName(String name);
     boolean existsByName(String name);
+
+    // Tags of a whole import chunk at once
+    List<Tag> findByNameIn(Collection<String> names);
 }
 
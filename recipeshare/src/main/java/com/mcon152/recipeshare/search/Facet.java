@@ -0,0 +1,75 @@
+package com.mcon152.recipeshare.search;
+
+import com.mcon152.recipeshare.domain.Recipe;
+import com.mcon152.recipeshare.domain.Tag;
+
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Dimensions the {@link FacetIndex} counts by. Each facet knows how to extract its value(s) from
+ * a recipe and how values are combined when several are selected as filters.
+ */
+public enum Facet {
+    /** Discriminator value: BASIC, VEGETARIAN, DESSERT or DAIRY. */
+    TYPE(false),
+    /** Lower-cased tag names. Selecting several tags narrows the result (AND). */
+    TAG(true),
+    /** Author id (labels are resolved separately). */
+    AUTHOR(false),
+    /** Servings bucket, see {@link #servingsBucket(Integer)}. */
+    SERVINGS(false);
+
+    private final boolean conjunctive;
+
+    Facet(boolean conjunctive) {
+        this.conjunctive = conjunctive;
+    }
+
+    /** Whether multiple selected values are AND-ed (true) or OR-ed (false). */
+    public boolean isConjunctive() {
+        return conjunctive;
+    }
+
+    /** Request parameter / JSON key for this facet, e.g. {@code servings}. */
+    public String paramName() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    public Set<String> valuesOf(Recipe recipe) {
+        return switch (this) {
+            case TYPE -> Set.of(recipe.getRecipeType());
+            case TAG -> recipe.getTags() == null ? Set.of() : recipe.getTags().stream()
+                    .map(Tag::getName)
+                    .filter(Objects::nonNull)
+                    .map(name -> name.toLowerCase(Locale.ROOT))
+                    .collect(Collectors.toSet());
+            // getId() on a lazy author proxy does not initialize it, so this is safe outside a session
+            case AUTHOR -> recipe.getAuthor() == null || recipe.getAuthor().getId() == null
+                    ? Set.of()
+                    : Set.of(String.valueOf(recipe.getAuthor().getId()));
+            case SERVINGS -> Set.of(servingsBucket(recipe.getServings()));
+        };
+    }
+
+    /** Normalizes a filter value the same way values are indexed. */
+    public String normalize(String value) {
+        String trimmed = value.trim();
+        return switch (this) {
+            case TYPE -> trimmed.toUpperCase(Locale.ROOT);
+            case TAG -> trimmed.toLowerCase(Locale.ROOT);
+            default -> trimmed;
+        };
+    }
+
+    /** Buckets shown in the UI: 1-2, 3-4, 5-8, 9+ and "unknown" for missing values. */
+    static String servingsBucket(Integer servings) {
+        if (servings == null || servings < 1) return "unknown";
+        if (servings <= 2) return "1-2";
+        if (servings <= 4) return "3-4";
+        if (servings <= 8) return "5-8";
+        return "9+";
+    }
+}
@@ -0,0 +1,169 @@
+package com.mcon152.recipeshare.search;
+
+import com.mcon152.recipeshare.domain.Recipe;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Per-value recipe id bitmaps for every {@link Facet}, so a filtered result and all of its facet
+ * counts come out of a handful of bitmap intersections instead of one GROUP BY per facet.
+ * <p>
+ * Counts are disjunctive: the counts for a facet are computed with every filter applied except
+ * that facet's own, so the UI can show how many results each alternative value would give.
+ * Conjunctive facets (tags) are counted against the full result instead.
+ */
+@Component
+public class FacetIndex implements RecipeIndex {
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Facet, Map<String, RoaringBitmap>> postings = new EnumMap<>(Facet.class);
+    private final Map<Integer, Map<Facet, Set<String>>> valuesByRecipe = new HashMap<>();
+    private final RoaringBitmap allRecipes = new RoaringBitmap();
+
+    public FacetIndex() {
+        for (Facet facet : Facet.values()) {
+            postings.put(facet, new HashMap<>());
+        }
+    }
+
+    /** Matching ids plus the counts per facet value, sorted by descending count. */
+    public record Result(RoaringBitmap matches, Map<Facet, List<Count>> counts) {}
+
+    public record Count(String value, long count) {}
+
+    @Override
+    public void index(Recipe recipe) {
+        int id = TagBitmapIndex.toIndexId(recipe.getId());
+        Map<Facet, Set<String>> values = new EnumMap<>(Facet.class);
+        for (Facet facet : Facet.values()) {
+            values.put(facet, facet.valuesOf(recipe));
+        }
+
+        lock.writeLock().lock();
+        try {
+            retract(id);
+            values.forEach((facet, facetValues) -> {
+                for (String value : facetValues) {
+                    postings.get(facet).computeIfAbsent(value, k -> new RoaringBitmap()).add(id);
+                }
+            });
+            valuesByRecipe.put(id, values);
+            allRecipes.add(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(long recipeId) {
+        int id = TagBitmapIndex.toIndexId(recipeId);
+        lock.writeLock().lock();
+        try {
+            retract(id);
+            allRecipes.remove(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            postings.values().forEach(Map::clear);
+            valuesByRecipe.clear();
+            allRecipes.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Applies the filters (values within a facet are OR-ed, or AND-ed for conjunctive facets;
+     * facets are AND-ed together) and counts every facet value.
+     *
+     * @param filters    selected values per facet; missing or empty lists mean "no filter"
+     * @param facetLimit maximum number of values returned per facet
+     */
+    public Result search(Map<Facet, List<String>> filters, int facetLimit) {
+        lock.readLock().lock();
+        try {
+            Map<Facet, RoaringBitmap> selections = new EnumMap<>(Facet.class);
+            filters.forEach((facet, values) -> {
+                if (values != null && !values.isEmpty()) {
+                    selections.put(facet, select(facet, values));
+                }
+            });
+
+            RoaringBitmap matches = intersect(selections, null);
+            Map<Facet, List<Count>> counts = new EnumMap<>(Facet.class);
+            for (Facet facet : Facet.values()) {
+                RoaringBitmap base = facet.isConjunctive() || !selections.containsKey(facet)
+                        ? matches
+                        : intersect(selections, facet);
+                counts.put(facet, count(facet, base, facetLimit));
+            }
+            return new Result(matches, counts);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private RoaringBitmap select(Facet facet, List<String> values) {
+        RoaringBitmap result = null;
+        for (String raw : values) {
+            RoaringBitmap bitmap = postings.get(facet).get(facet.normalize(raw));
+            if (bitmap == null) bitmap = new RoaringBitmap();
+            if (result == null) {
+                result = bitmap.clone();
+            } else if (facet.isConjunctive()) {
+                result.and(bitmap);
+            } else {
+                result.or(bitmap);
+            }
+        }
+        return result;
+    }
+
+    private RoaringBitmap intersect(Map<Facet, RoaringBitmap> selections, Facet excluded) {
+        RoaringBitmap result = allRecipes.clone();
+        selections.forEach((facet, bitmap) -> {
+            if (facet != excluded) result.and(bitmap);
+        });
+        return result;
+    }
+
+    private List<Count> count(Facet facet, RoaringBitmap base, int limit) {
+        List<Count> counts = new ArrayList<>();
+        postings.get(facet).forEach((value, bitmap) -> {
+            int n = RoaringBitmap.andCardinality(bitmap, base);
+            if (n > 0) counts.add(new Count(value, n));
+        });
+        counts.sort(Comparator.comparingLong(Count::count).reversed().thenComparing(Count::value));
+        return counts.size() > limit ? List.copyOf(counts.subList(0, limit)) : counts;
+    }
+
+    private void retract(int id) {
+        Map<Facet, Set<String>> previous = valuesByRecipe.remove(id);
+        if (previous == null) return;
+        previous.forEach((facet, values) -> {
+            Map<String, RoaringBitmap> facetPostings = postings.get(facet);
+            for (String value : values) {
+                RoaringBitmap bitmap = facetPostings.get(value);
+                if (bitmap == null) continue;
+                bitmap.remove(id);
+                if (bitmap.isEmpty()) facetPostings.remove(value);
+            }
+        });
+    }
+}
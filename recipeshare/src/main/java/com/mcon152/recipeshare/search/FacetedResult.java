@@ -0,0 +1,17 @@
+package com.mcon152.recipeshare.search;
+
+import com.mcon152.recipeshare.domain.Recipe;
+import com.mcon152.recipeshare.service.CursorPage;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One page of faceted search results together with the total match count and the counts per
+ * facet value, keyed by {@link Facet#paramName()}.
+ */
+public record FacetedResult(CursorPage<Recipe> page, long total, Map<String, List<FacetValue>> facets) {
+
+    /** A facet value with a display label (the author's display name, otherwise the value itself). */
+    public record FacetValue(String value, String label, long count) {}
+}
@@ -0,0 +1,250 @@
+package com.mcon152.recipeshare.search;
+
+import com.mcon152.recipeshare.domain.Recipe;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Inverted index over recipe title, description, ingredients and instructions, ranked with BM25.
+ * <p>
+ * Field boosts are folded into the term frequency (a simplified BM25F). Documents get an internal,
+ * monotonically increasing number on every (re)index, so postings stay append-only and sorted;
+ * replaced or removed documents are only marked deleted and skipped at query time until enough
+ * garbage accumulates to compact the postings in place.
+ */
+@Component
+public class FullTextIndex implements RecipeIndex {
+
+    static final float K1 = 1.2f;
+    static final float B = 0.75f;
+    static final float TITLE_BOOST = 3.0f;
+    static final float DESCRIPTION_BOOST = 1.5f;
+    static final float INGREDIENTS_BOOST = 1.0f;
+    static final float INSTRUCTIONS_BOOST = 0.5f;
+    private static final int MIN_GARBAGE_FOR_COMPACTION = 1024;
+
+    /** A ranked match: recipe id and BM25 score. */
+    public record Hit(long recipeId, float score) {}
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Postings> postings = new HashMap<>();
+    private final Map<Long, Integer> docByRecipe = new HashMap<>();
+    private final RoaringBitmap deleted = new RoaringBitmap();
+    private long[] recipeByDoc = new long[1024];
+    private float[] docLength = new float[1024];
+    private int nextDoc;
+    private double totalLength;
+
+    @Override
+    public void index(Recipe recipe) {
+        Map<String, Float> weightedFreqs = new HashMap<>();
+        float length = 0;
+        length += addField(weightedFreqs, recipe.getTitle(), TITLE_BOOST);
+        length += addField(weightedFreqs, recipe.getDescription(), DESCRIPTION_BOOST);
+        length += addField(weightedFreqs, recipe.getIngredients(), INGREDIENTS_BOOST);
+        length += addField(weightedFreqs, recipe.getInstructions(), INSTRUCTIONS_BOOST);
+
+        lock.writeLock().lock();
+        try {
+            markDeleted(recipe.getId());
+            int doc = nextDoc++;
+            ensureCapacity(doc + 1);
+            recipeByDoc[doc] = recipe.getId();
+            docLength[doc] = length;
+            totalLength += length;
+            docByRecipe.put(recipe.getId(), doc);
+            weightedFreqs.forEach((term, freq) -> postings.computeIfAbsent(term, t -> new Postings()).add(doc, freq));
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(long recipeId) {
+        lock.writeLock().lock();
+        try {
+            markDeleted(recipeId);
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            docByRecipe.clear();
+            deleted.clear();
+            nextDoc = 0;
+            totalLength = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Number of live (searchable) recipes. */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docByRecipe.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the {@code limit} best matches for the query, best first. Any query term may match
+     * (OR semantics); recipes matching more and rarer terms rank higher.
+     */
+    public List<Hit> search(String query, int limit) {
+        Set<String> terms = new LinkedHashSet<>(TextAnalyzer.terms(query));
+        if (terms.isEmpty() || limit <= 0) return List.of();
+
+        lock.readLock().lock();
+        try {
+            int liveDocs = docByRecipe.size();
+            if (liveDocs == 0) return List.of();
+            float avgLength = (float) (totalLength / liveDocs);
+
+            // Term-at-a-time accumulation into a sparse accumulator sized to the postings the query
+            // touches, so memory follows the query rather than the size of the index.
+            long touchedPostings = 0;
+            for (String term : terms) {
+                Postings list = postings.get(term);
+                if (list != null) touchedPostings += list.size;
+            }
+            if (touchedPostings == 0) return List.of();
+            SparseScores scores = new SparseScores((int) Math.min(touchedPostings, nextDoc));
+            boolean anyDeleted = !deleted.isEmpty();
+            for (String term : terms) {
+                Postings list = postings.get(term);
+                if (list == null) continue;
+                // Like Lucene, document frequency still counts deleted-but-not-compacted postings;
+                // compaction bounds that error and it saves a second pass over the list.
+                int df = Math.min(list.size, liveDocs);
+                float idf = (float) Math.log(1 + (liveDocs - df + 0.5) / (df + 0.5));
+                for (int i = 0; i < list.size; i++) {
+                    int doc = list.docs[i];
+                    if (anyDeleted && deleted.contains(doc)) continue;
+                    float tf = list.freqs[i];
+                    float norm = K1 * (1 - B + B * docLength[doc] / avgLength);
+                    scores.add(doc, idf * tf * (K1 + 1) / (tf + norm));
+                }
+            }
+
+            PriorityQueue<Hit> top = new PriorityQueue<>(limit + 1, (a, b) -> Float.compare(a.score(), b.score()));
+            for (int slot = 0; slot < scores.docs.length; slot++) {
+                int doc = scores.docs[slot];
+                if (doc < 0) continue;
+                float score = scores.values[slot];
+                if (top.size() < limit) {
+                    top.add(new Hit(recipeByDoc[doc], score));
+                } else if (score > top.peek().score()) {
+                    top.poll();
+                    top.add(new Hit(recipeByDoc[doc], score));
+                }
+            }
+            List<Hit> hits = new ArrayList<>(top);
+            hits.sort((a, b) -> Float.compare(b.score(), a.score()));
+            return hits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+
+    private static float addField(Map<String, Float> freqs, String text, float boost) {
+        List<String> terms = TextAnalyzer.terms(text);
+        for (String term : terms) {
+            freqs.merge(term, boost, Float::sum);
+        }
+        return terms.size() * boost;
+    }
+
+    private void markDeleted(long recipeId) {
+        Integer previous = docByRecipe.remove(recipeId);
+        if (previous != null) {
+            deleted.add(previous);
+            totalLength -= docLength[previous];
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > recipeByDoc.length) {
+            int newLength = Math.max(capacity, recipeByDoc.length * 2);
+            recipeByDoc = Arrays.copyOf(recipeByDoc, newLength);
+            docLength = Arrays.copyOf(docLength, newLength);
+        }
+    }
+
+    /**
+     * Renumbers live documents densely and drops deleted postings once at least a quarter of all
+     * document numbers are garbage.
+     */
+    private void compactIfNeeded() {
+        int garbage = deleted.getCardinality();
+        if (garbage < MIN_GARBAGE_FOR_COMPACTION || garbage * 4L < nextDoc) return;
+
+        int[] remap = new int[nextDoc];
+        int live = 0;
+        for (int doc = 0; doc < nextDoc; doc++) {
+            if (deleted.contains(doc)) {
+                remap[doc] = -1;
+            } else {
+                remap[doc] = live;
+                recipeByDoc[live] = recipeByDoc[doc];
+                docLength[live] = docLength[doc];
+                live++;
+            }
+        }
+        postings.values().removeIf(list -> list.remap(remap) == 0);
+        docByRecipe.replaceAll((recipeId, doc) -> remap[doc]);
+        deleted.clear();
+        nextDoc = live;
+    }
+
+    /** Append-only posting list with parallel primitive arrays, sorted by document number. */
+    private static final class Postings {
+        int[] docs = new int[4];
+        float[] freqs = new float[4];
+        int size;
+
+        void add(int doc, float freq) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                freqs = Arrays.copyOf(freqs, size * 2);
+            }
+            docs[size] = doc;
+            freqs[size] = freq;
+            size++;
+        }
+
+        /** Rewrites document numbers, dropping removed ones; returns the new size. */
+        int remap(int[] remap) {
+            int out = 0;
+            for (int i = 0; i < size; i++) {
+                int doc = remap[docs[i]];
+                if (doc < 0) continue;
+                docs[out] = doc;
+                freqs[out] = freqs[i];
+                out++;
+            }
+            size = out;
+            return size;
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.mcon152.recipeshare.search;
+
+import com.mcon152.recipeshare.domain.Recipe;
+import com.mcon152.recipeshare.domain.Tag;
+import com.mcon152.recipeshare.repository.TagRepository;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Typo-tolerant matching for recipe titles and tag names, e.g. "carbonarra" or "quinoa salid".
+ * <p>
+ * Title words go into a {@link TrigramDictionary} with a posting bitmap of recipe ids per word;
+ * every query word is expanded to the dictionary words within its edit budget and the expansions
+ * are intersected, so all query words must (fuzzily) occur in the title. Tag names are matched as
+ * a whole against a second dictionary that is fed by recipe writes and by {@link TagIndexListener}
+ * for tags inserted through {@link TagRepository}.
+ */
+@Component
+public class FuzzyIndex implements RecipeIndex {
+
+    /** A recipe whose title matches every query word; {@code edits} is the total edit distance. */
+    public record TitleMatch(long recipeId, int edits) {}
+
+    /** An existing tag name within the edit budget of the query. */
+    public record TagMatch(String name, int distance) {}
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final TagRepository tagRepository;
+
+    private final TrigramDictionary titleWords = new TrigramDictionary();
+    private final Map<String, RoaringBitmap> titlePostings = new HashMap<>();
+    private final Map<Integer, Set<String>> wordsByRecipe = new HashMap<>();
+
+    private final TrigramDictionary tagNames = new TrigramDictionary();
+    private final Map<Long, String> tagNameById = new HashMap<>();
+
+    public FuzzyIndex(TagRepository tagRepository) {
+        this.tagRepository = tagRepository;
+    }
+
+    @Override
+    public void index(Recipe recipe) {
+        int id = TagBitmapIndex.toIndexId(recipe.getId());
+        Set<String> words = new LinkedHashSet<>(TextAnalyzer.terms(recipe.getTitle()));
+
+        lock.writeLock().lock();
+        try {
+            retractTitle(id);
+            for (String word : words) {
+                titleWords.add(word);
+                titlePostings.computeIfAbsent(word, w -> new RoaringBitmap()).add(id);
+            }
+            wordsByRecipe.put(id, words);
+            if (recipe.getTags() != null) {
+                recipe.getTags().forEach(this::putTag);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(long recipeId) {
+        lock.writeLock().lock();
+        try {
+            retractTitle(TagBitmapIndex.toIndexId(recipeId));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Clears the title side; the tag vocabulary is reloaded separately by {@link #loadTags()}. */
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            titleWords.clear();
+            titlePostings.clear();
+            wordsByRecipe.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Tags can exist without recipes, so the tag vocabulary is loaded from its own table. */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadTags() {
+        List<Tag> tags = tagRepository.findAll();
+        lock.writeLock().lock();
+        try {
+            tagNames.clear();
+            tagNameById.clear();
+            tags.forEach(this::putTag);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Adds or renames a tag. */
+    public void indexTag(Tag tag) {
+        lock.writeLock().lock();
+        try {
+            putTag(tag);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeTag(Tag tag) {
+        if (tag.getId() == null) return;
+        lock.writeLock().lock();
+        try {
+            String previous = tagNameById.remove(tag.getId());
+            if (previous != null) tagNames.remove(previous);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Recipes whose title contains every query word within that word's edit budget
+     * ({@link TrigramDictionary#autoFuzziness}), fewest total edits first, then by id.
+     */
+    public List<TitleMatch> searchTitles(String query, int limit) {
+        Set<String> queryWords = new LinkedHashSet<>(TextAnalyzer.terms(query));
+        if (queryWords.isEmpty()) return List.of();
+
+        lock.readLock().lock();
+        try {
+            RoaringBitmap result = null;
+            Map<Integer, Integer> edits = new HashMap<>();
+            for (String queryWord : queryWords) {
+                // For each recipe keep the closest expansion of this query word
+                Map<Integer, Integer> best = new HashMap<>();
+                RoaringBitmap matches = new RoaringBitmap();
+                for (TrigramDictionary.Match match : titleWords.lookup(queryWord, TrigramDictionary.autoFuzziness(queryWord))) {
+                    RoaringBitmap recipes = titlePostings.get(match.term());
+                    if (recipes == null) continue;
+                    matches.or(recipes);
+                    recipes.forEach((int id) -> best.merge(id, match.distance(), Math::min));
+                }
+                result = result == null ? matches : RoaringBitmap.and(result, matches);
+                if (result.isEmpty()) return List.of();
+                best.forEach((id, distance) -> edits.merge(id, distance, Integer::sum));
+            }
+
+            List<TitleMatch> out = new ArrayList<>(result.getCardinality());
+            result.forEach((int id) -> out.add(new TitleMatch(id, edits.getOrDefault(id, 0))));
+            out.sort((a, b) -> a.edits() != b.edits()
+                    ? Integer.compare(a.edits(), b.edits())
+                    : Long.compare(a.recipeId(), b.recipeId()));
+            return out.size() > limit ? List.copyOf(out.subList(0, limit)) : out;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Tag names within the edit budget of the (whole) query, closest first. */
+    public List<TagMatch> searchTags(String query, int limit) {
+        if (query == null || query.isBlank()) return List.of();
+        String normalized = TextAnalyzer.fold(query.trim());
+        lock.readLock().lock();
+        try {
+            return tagNames.lookup(normalized, TrigramDictionary.autoFuzziness(normalized)).stream()
+                    .limit(limit)
+                    .map(match -> new TagMatch(match.term(), match.distance()))
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void putTag(Tag tag) {
+        if (tag.getId() == null || tag.getName() == null) return;
+        String name = TextAnalyzer.fold(tag.getName());
+        String previous = tagNameById.put(tag.getId(), name);
+        if (name.equals(previous)) return;
+        if (previous != null) tagNames.remove(previous);
+        tagNames.add(name);
+    }
+
+    private void retractTitle(int id) {
+        Set<String> previous = wordsByRecipe.remove(id);
+        if (previous == null) return;
+        for (String word : previous) {
+            titleWords.remove(word);
+            RoaringBitmap bitmap = titlePostings.get(word);
+            if (bitmap == null) continue;
+            bitmap.remove(id);
+            if (bitmap.isEmpty()) titlePostings.remove(word);
+        }
+    }
+}
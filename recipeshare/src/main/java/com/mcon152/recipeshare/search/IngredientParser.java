@@ -0,0 +1,78 @@
+package com.mcon152.recipeshare.search;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Turns the free-text ingredient list of a recipe ("400g spaghetti, 2 cloves garlic, 1/2 cup
+ * melted butter") into normalized ingredient names ("spaghetti", "garlic", "butter"): splits on
+ * commas, then drops quantities, units, preparation words and serving notes and singularizes
+ * what is left. Pantry items go through the same normalization so both sides compare equal.
+ */
+final class IngredientParser {
+
+    private IngredientParser() {}
+
+    private static final Set<String> UNITS = Set.of(
+            "g", "gram", "kg", "mg", "ml", "l", "liter", "litre", "dl", "cl", "oz", "ounce", "lb", "pound",
+            "cup", "tbsp", "tablespoon", "tsp", "teaspoon", "pinch", "dash", "clove", "can", "jar", "package",
+            "pkg", "packet", "bunch", "slice", "stick", "sprig", "handful", "piece", "head", "quart", "pint",
+            "stalk", "fillet", "drop", "bottle", "bag", "box", "container", "sheet");
+
+    private static final Set<String> DESCRIPTORS = Set.of(
+            "fresh", "freshly", "chopped", "minced", "diced", "sliced", "grated", "shredded", "melted",
+            "softened", "large", "medium", "small", "whole", "ground", "crushed", "finely", "roughly",
+            "thinly", "peeled", "cooked", "uncooked", "raw", "dried", "frozen", "ripe", "boneless",
+            "skinless", "optional", "leaf", "leaves", "about", "extra", "virgin", "room", "temperature",
+            "of", "a", "an", "the");
+
+    /** Trailing notes that say how an ingredient is used rather than what it is. */
+    private static final List<String> NOTES = List.of(" for serving", " to taste", " for garnish", " as needed");
+
+    /** Distinct normalized ingredient names in text order; empty for null or blank input. */
+    static List<String> parse(String ingredients) {
+        if (ingredients == null || ingredients.isBlank()) return List.of();
+        Set<String> out = new LinkedHashSet<>();
+        for (String item : ingredients.split("[,;\\n]")) {
+            String name = normalize(item);
+            if (!name.isEmpty()) out.add(name);
+        }
+        return List.copyOf(out);
+    }
+
+    /** Normalizes one ingredient or pantry item; returns "" if nothing but quantities is left. */
+    static String normalize(String item) {
+        if (item == null) return "";
+        String text = TextAnalyzer.fold(item).replaceAll("\\([^)]*\\)", " ");
+        for (String note : NOTES) {
+            int at = text.indexOf(note);
+            if (at >= 0) text = text.substring(0, at);
+        }
+
+        List<String> words = new ArrayList<>();
+        for (String token : text.split("[^\\p{L}\\p{N}/.]+")) {
+            String word = stripQuantity(token);
+            if (word.isEmpty()) continue;
+            String singular = TextAnalyzer.stem(word);
+            // Units only count as units in front of the name: "2 heads lettuce", not "lettuce head"
+            if (words.isEmpty() && (UNITS.contains(singular) || UNITS.contains(word))) continue;
+            if (DESCRIPTORS.contains(word) || DESCRIPTORS.contains(singular)) continue;
+            words.add(singular);
+        }
+        return String.join(" ", words);
+    }
+
+    /** Removes leading numbers, fractions and units glued to them ("400g", "1/2", "1.5kg"). */
+    private static String stripQuantity(String token) {
+        int i = 0;
+        while (i < token.length() && (Character.isDigit(token.charAt(i)) || token.charAt(i) == '/'
+                || token.charAt(i) == '.' || Character.getType(token.charAt(i)) == Character.OTHER_NUMBER)) {
+            i++;
+        }
+        String rest = token.substring(i).replace("/", "").replace(".", "");
+        if (i > 0 && UNITS.contains(rest)) return "";
+        return rest;
+    }
+}
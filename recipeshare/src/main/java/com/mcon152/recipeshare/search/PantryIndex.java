@@ -0,0 +1,192 @@
+package com.mcon152.recipeshare.search;
+
+import com.mcon152.recipeshare.domain.Recipe;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Ingredient to recipe inverted index for "what can I cook" queries.
+ * <p>
+ * Ingredient lists are parsed by {@link IngredientParser} once, when a recipe is indexed; queries
+ * only touch the posting bitmaps of the pantry's ingredients and count, per recipe, how many of
+ * its ingredients are covered, in a {@link SparseScores} accumulator; the page is selected with a
+ * bounded heap rather than by sorting every candidate. A pantry item covers an ingredient with the same name or one that
+ * ends with it, so "cheese" covers "feta cheese" and "pepper" covers "black pepper".
+ */
+@Component
+public class PantryIndex implements RecipeIndex {
+
+    /** A recipe with {@code missing} being the ingredients the pantry does not cover. */
+    public record Match(long recipeId, int matched, int total, List<String> missing) {}
+
+    /** Fewest missing first, then highest coverage, then by id. */
+    private static final Comparator<Match> RANKING = Comparator.comparingInt((Match m) -> m.total() - m.matched())
+            .thenComparing(Comparator.comparingDouble((Match m) -> (double) m.matched() / m.total()).reversed())
+            .thenComparingLong(Match::recipeId);
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, RoaringBitmap> postings = new HashMap<>();
+    /** Every word suffix of an ingredient name ("black pepper", "pepper") to the full names. */
+    private final Map<String, Set<String>> namesBySuffix = new HashMap<>();
+    private final Map<Integer, List<String>> ingredientsByRecipe = new HashMap<>();
+    /** Ingredient count by recipe index id, so ranking a candidate needs no map lookup. */
+    private int[] totals = new int[0];
+
+    @Override
+    public void index(Recipe recipe) {
+        int id = TagBitmapIndex.toIndexId(recipe.getId());
+        List<String> ingredients = IngredientParser.parse(recipe.getIngredients());
+
+        lock.writeLock().lock();
+        try {
+            retract(id);
+            if (ingredients.isEmpty()) return;
+            for (String ingredient : ingredients) {
+                RoaringBitmap recipes = postings.computeIfAbsent(ingredient, k -> new RoaringBitmap());
+                if (recipes.isEmpty()) {
+                    for (String suffix : suffixes(ingredient)) {
+                        namesBySuffix.computeIfAbsent(suffix, k -> new HashSet<>()).add(ingredient);
+                    }
+                }
+                recipes.add(id);
+            }
+            ingredientsByRecipe.put(id, ingredients);
+            if (id >= totals.length) totals = Arrays.copyOf(totals, Math.max(id + 1, totals.length * 2));
+            totals[id] = ingredients.size();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(long recipeId) {
+        lock.writeLock().lock();
+        try {
+            retract(TagBitmapIndex.toIndexId(recipeId));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            namesBySuffix.clear();
+            ingredientsByRecipe.clear();
+            totals = new int[0];
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Recipes sharing at least one ingredient with the pantry and missing at most
+     * {@code maxMissing} ingredients, fewest missing first, then highest coverage, then by id.
+     */
+    public List<Match> search(Collection<String> pantry, int maxMissing, int limit) {
+        Set<String> items = new HashSet<>();
+        for (String item : pantry) {
+            String name = IngredientParser.normalize(item);
+            if (!name.isEmpty()) items.add(name);
+        }
+        if (items.isEmpty() || limit <= 0) return List.of();
+
+        lock.readLock().lock();
+        try {
+            Set<String> covered = new HashSet<>();
+            for (String item : items) {
+                covered.addAll(namesBySuffix.getOrDefault(item, Set.of()));
+            }
+            // Counted in a sparse accumulator sized to the postings touched: a pantry with "salt"
+            // or "oil" covers nearly every recipe, so nothing is boxed per candidate
+            long touchedPostings = 0;
+            for (String ingredient : covered) {
+                touchedPostings += postings.get(ingredient).getLongCardinality();
+            }
+            if (touchedPostings == 0) return List.of();
+            SparseScores matchedByRecipe = new SparseScores((int) Math.min(touchedPostings, ingredientsByRecipe.size()));
+            for (String ingredient : covered) {
+                postings.get(ingredient).forEach((int id) -> matchedByRecipe.add(id, 1));
+            }
+
+            // Bounded top-k selection with the worst kept match at the head
+            PriorityQueue<Match> top = new PriorityQueue<>(limit + 1, RANKING.reversed());
+            for (int slot = 0; slot < matchedByRecipe.docs.length; slot++) {
+                int id = matchedByRecipe.docs[slot];
+                if (id < 0) continue;
+                int matched = (int) matchedByRecipe.values[slot];
+                int total = totals[id];
+                if (total - matched > maxMissing) continue;
+                if (top.size() == limit && !ranksBefore(id, matched, total, top.peek())) continue;
+                top.add(new Match(id, matched, total, null));
+                if (top.size() > limit) top.poll();
+            }
+            List<Match> candidates = new ArrayList<>(top);
+            candidates.sort(RANKING);
+
+            // Missing ingredient names are only worked out for the returned page
+            List<Match> out = new ArrayList<>(candidates.size());
+            for (Match candidate : candidates) {
+                List<String> missing = ingredientsByRecipe.get((int) candidate.recipeId()).stream()
+                        .filter(ingredient -> !covered.contains(ingredient))
+                        .toList();
+                out.add(new Match(candidate.recipeId(), candidate.matched(), candidate.total(), missing));
+            }
+            return out;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Whether the recipe ranks before {@code other} by {@link #RANKING}, without building a match for it. */
+    private static boolean ranksBefore(long recipeId, int matched, int total, Match other) {
+        int byMissing = Integer.compare(total - matched, other.total() - other.matched());
+        if (byMissing != 0) return byMissing < 0;
+        int byCoverage = Double.compare((double) other.matched() / other.total(), (double) matched / total);
+        if (byCoverage != 0) return byCoverage < 0;
+        return recipeId < other.recipeId();
+    }
+
+    private void retract(int id) {
+        List<String> previous = ingredientsByRecipe.remove(id);
+        if (previous == null) return;
+        totals[id] = 0;
+        for (String ingredient : previous) {
+            RoaringBitmap recipes = postings.get(ingredient);
+            if (recipes == null) continue;
+            recipes.remove(id);
+            if (!recipes.isEmpty()) continue;
+            postings.remove(ingredient);
+            for (String suffix : suffixes(ingredient)) {
+                Set<String> names = namesBySuffix.get(suffix);
+                if (names == null) continue;
+                names.remove(ingredient);
+                if (names.isEmpty()) namesBySuffix.remove(suffix);
+            }
+        }
+    }
+
+    private static List<String> suffixes(String ingredient) {
+        List<String> suffixes = new ArrayList<>();
+        suffixes.add(ingredient);
+        for (int i = ingredient.indexOf(' '); i >= 0; i = ingredient.indexOf(' ', i + 1)) {
+            suffixes.add(ingredient.substring(i + 1));
+        }
+        return suffixes;
+    }
+}
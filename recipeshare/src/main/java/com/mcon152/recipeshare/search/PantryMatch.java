@@ -0,0 +1,11 @@
+package com.mcon152.recipeshare.search;
+
+import com.mcon152.recipeshare.domain.Recipe;
+
+import java.util.List;
+
+/**
+ * A recipe found for a pantry: {@code matched} of its {@code total} ingredients are on hand and
+ * {@code missing} lists the normalized names of the rest.
+ */
+public record PantryMatch(Recipe recipe, int matched, int total, List<String> missing) {}
@@ -0,0 +1,240 @@
+package com.mcon152.recipeshare.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.Predicate;
+
+/**
+ * Immutable weighted prefix lookup: "top {@code k} entries whose key starts with a prefix".
+ * <p>
+ * The normalized texts of all entries are stored once, back to back, in a single {@code char[]}.
+ * Every entry is indexed under each of its words, so "carbo" also suggests "Spaghetti Carbonara":
+ * a key is only the offset of a word start into that array (and its entry), and the keys are
+ * sorted by the suffix they start, a suffix array restricted to word starts. All keys sharing a
+ * prefix then form a contiguous range found by two binary searches, and a max segment tree over
+ * the key weights yields the heaviest keys of that range in {@code O(k log n)} without scanning
+ * it, which keeps one-letter prefixes as cheap as long ones. An entry is returned at most once.
+ */
+final class PrefixSuggester {
+
+    static final PrefixSuggester EMPTY = new PrefixSuggester(Map.of());
+
+    /** A suggested entry with its popularity weight. */
+    record Entry(String text, int weight) {}
+
+    private final Entry[] entries;
+    // Normalized text of entry e is text[textStart[e] .. textStart[e + 1])
+    private final char[] text;
+    private final int[] textStart;
+    // Sorted keys, each the offset of a word start in the high and its entry in the low 32 bits
+    private final long[] keys;
+    private final int leaves;
+    private final int[] tree;
+
+    /**
+     * @param weights display text of every entry mapped to its weight; entries with equal
+     *                weights come out in key order
+     */
+    PrefixSuggester(Map<String, Integer> weights) {
+        entries = new Entry[weights.size()];
+        textStart = new int[weights.size() + 1];
+        StringBuilder all = new StringBuilder();
+        int keyCount = 0;
+        int e = 0;
+        for (Map.Entry<String, Integer> weight : weights.entrySet()) {
+            entries[e] = new Entry(weight.getKey(), weight.getValue());
+            String normalized = normalize(weight.getKey());
+            textStart[e] = all.length();
+            all.append(normalized);
+            for (int i = 0; i < normalized.length(); i++) {
+                if (isWordStart(normalized, 0, i)) keyCount++;
+            }
+            e++;
+        }
+        textStart[entries.length] = all.length();
+        keys = new long[keyCount];
+        int k = 0;
+        for (int entry = 0; entry < entries.length; entry++) {
+            for (int i = textStart[entry]; i < textStart[entry + 1]; i++) {
+                if (isWordStart(all, textStart[entry], i)) keys[k++] = (long) i << 32 | entry;
+            }
+        }
+        text = new char[all.length()];
+        all.getChars(0, all.length(), text, 0);
+        sort(keys, new long[keys.length], 0, keys.length);
+
+        int size = 1;
+        while (size < Math.max(1, keys.length)) size <<= 1;
+        leaves = size;
+        tree = new int[2 * size];
+        Arrays.fill(tree, Integer.MIN_VALUE);
+        for (int i = 0; i < keys.length; i++) {
+            tree[size + i] = entries[entryOf(keys[i])].weight();
+        }
+        for (int node = size - 1; node >= 1; node--) {
+            tree[node] = Math.max(tree[2 * node], tree[2 * node + 1]);
+        }
+    }
+
+    int size() {
+        return entries.length;
+    }
+
+    /** The {@code limit} heaviest distinct entries with a word starting with the prefix. */
+    List<Entry> suggest(String prefix, int limit) {
+        return suggest(prefix, limit, null);
+    }
+
+    /**
+     * Like {@link #suggest(String, int)}, passing over the entries whose normalized text
+     * {@code skip} accepts; {@code null} skips none.
+     */
+    List<Entry> suggest(String prefix, int limit, Predicate<String> skip) {
+        String normalized = normalize(prefix);
+        if (normalized.isEmpty() || limit <= 0 || keys.length == 0) return List.of();
+        int from = bound(normalized, false);
+        int to = bound(normalized, true);
+        if (from >= to) return List.of();
+
+        // Canonical segment tree nodes covering [from, to), then best-first expansion to leaves
+        PriorityQueue<Node> queue = new PriorityQueue<>((x, y) -> tree[x.index()] != tree[y.index()]
+                ? Integer.compare(tree[y.index()], tree[x.index()])
+                : Integer.compare(x.start(), y.start()));
+        cover(new Node(1, 0, leaves), from, to, queue);
+
+        List<Entry> out = new ArrayList<>(limit);
+        BitSet returned = new BitSet(entries.length);
+        while (!queue.isEmpty() && out.size() < limit) {
+            Node node = queue.poll();
+            if (node.index() >= leaves) {
+                int entry = entryOf(keys[node.start()]);
+                if (!returned.get(entry)) {
+                    returned.set(entry);
+                    if (skip == null || !skip.test(normalizedText(entry))) out.add(entries[entry]);
+                }
+            } else {
+                int half = node.span() / 2;
+                queue.add(new Node(2 * node.index(), node.start(), half));
+                queue.add(new Node(2 * node.index() + 1, node.start() + half, half));
+            }
+        }
+        return out;
+    }
+
+    /** A segment tree node and the key positions {@code [start, start + span)} it covers. */
+    private record Node(int index, int start, int span) {}
+
+    private static void cover(Node node, int from, int to, PriorityQueue<Node> queue) {
+        int end = node.start() + node.span();
+        if (node.start() >= to || end <= from) return;
+        if (from <= node.start() && end <= to) {
+            queue.add(node);
+            return;
+        }
+        int half = node.span() / 2;
+        cover(new Node(2 * node.index(), node.start(), half), from, to, queue);
+        cover(new Node(2 * node.index() + 1, node.start() + half, half), from, to, queue);
+    }
+
+    private static int offsetOf(long key) {
+        return (int) (key >>> 32);
+    }
+
+    private static int entryOf(long key) {
+        return (int) key;
+    }
+
+    private String normalizedText(int entry) {
+        return new String(text, textStart[entry], textStart[entry + 1] - textStart[entry]);
+    }
+
+    /**
+     * The first key that does not sort before the prefix, or with {@code after}, the first key
+     * after those starting with it.
+     */
+    private int bound(String prefix, boolean after) {
+        int lo = 0;
+        int hi = keys.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            int cmp = compareToPrefix(keys[mid], prefix);
+            if (cmp < 0 || after && cmp == 0) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    /** Negative, zero or positive as the key sorts before, starts with or sorts after the prefix. */
+    private int compareToPrefix(long key, String prefix) {
+        int offset = offsetOf(key);
+        int end = textStart[entryOf(key) + 1];
+        for (int i = 0; i < prefix.length(); i++) {
+            if (offset + i == end) return -1;
+            int diff = text[offset + i] - prefix.charAt(i);
+            if (diff != 0) return diff;
+        }
+        return 0;
+    }
+
+    /** Compares the suffixes two keys start, each ending with its entry's text. */
+    private int compareKeys(long a, long b) {
+        int i = offsetOf(a);
+        int j = offsetOf(b);
+        int endA = textStart[entryOf(a) + 1];
+        int endB = textStart[entryOf(b) + 1];
+        while (i < endA && j < endB) {
+            int diff = text[i++] - text[j++];
+            if (diff != 0) return diff;
+        }
+        return (endA - i) - (endB - j);
+    }
+
+    /** Merge sort of {@code keys[from, to)} by {@link #compareKeys}, without boxing. */
+    private void sort(long[] keys, long[] buffer, int from, int to) {
+        if (to - from < 2) return;
+        int mid = (from + to) >>> 1;
+        sort(keys, buffer, from, mid);
+        sort(keys, buffer, mid, to);
+        if (compareKeys(keys[mid - 1], keys[mid]) <= 0) return;
+        System.arraycopy(keys, from, buffer, from, to - from);
+        for (int i = from, left = from, right = mid; i < to; i++) {
+            keys[i] = right >= to || left < mid && compareKeys(buffer[left], buffer[right]) <= 0
+                    ? buffer[left++] : buffer[right++];
+        }
+    }
+
+    /** Folded text collapsed to single spaces, the form keys and prefixes are compared in. */
+    static String normalize(String text) {
+        if (text == null) return "";
+        StringBuilder out = new StringBuilder(text.length());
+        for (char c : TextAnalyzer.fold(text).toCharArray()) {
+            if (Character.isWhitespace(c)) {
+                if (!out.isEmpty() && out.charAt(out.length() - 1) != ' ') out.append(' ');
+            } else {
+                out.append(c);
+            }
+        }
+        int end = out.length();
+        if (end > 0 && out.charAt(end - 1) == ' ') out.setLength(end - 1);
+        return out.toString();
+    }
+
+    /** The normalized text and every suffix of it that starts a word, i.e. the keys of an entry. */
+    static List<String> keys(String text) {
+        String normalized = normalize(text);
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < normalized.length(); i++) {
+            if (isWordStart(normalized, 0, i)) keys.add(normalized.substring(i));
+        }
+        return keys;
+    }
+
+    /** Whether position {@code i} of a text starting at {@code start} begins a word. */
+    private static boolean isWordStart(CharSequence chars, int start, int i) {
+        return i == start || Character.isLetterOrDigit(chars.charAt(i)) && !Character.isLetterOrDigit(chars.charAt(i - 1));
+    }
+}
@@ -0,0 +1,22 @@
+package com.mcon152.recipeshare.search;
+
+import com.mcon152.recipeshare.domain.Recipe;
+
+/**
+ * An in-memory secondary index over recipes. Implementations are registered as Spring beans and
+ * kept current by {@link RecipeIndexer}, which forwards every write made through the service layer
+ * and rebuilds all indexes from the database on startup.
+ * <p>
+ * Implementations must be thread-safe: writes and queries arrive from concurrent request threads.
+ */
+public interface RecipeIndex {
+
+    /** Adds the recipe, or replaces everything previously indexed for the same id. */
+    void index(Recipe recipe);
+
+    /** Drops the recipe with the given id. Unknown ids are ignored. */
+    void remove(long recipeId);
+
+    /** Drops everything, e.g. before a full rebuild. */
+    void clear();
+}
@@ -0,0 +1,65 @@
+package com.mcon152.recipeshare.search;
+
+import com.mcon152.recipeshare.domain.Recipe;
+import com.mcon152.recipeshare.repository.RecipeRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Fans recipe writes out to every {@link RecipeIndex} bean and (re)builds them from the database.
+ * The initial build runs once the application is ready, i.e. after the data loaders have seeded
+ * the database, and walks the table in keyset pages so memory stays bounded.
+ */
+@Component
+public class RecipeIndexer {
+
+    private static final Logger logger = LoggerFactory.getLogger(RecipeIndexer.class);
+    static final int REBUILD_BATCH_SIZE = 500;
+
+    private final RecipeRepository repo;
+    private final List<RecipeIndex> indexes;
+
+    public RecipeIndexer(RecipeRepository repo, List<RecipeIndex> indexes) {
+        this.repo = repo;
+        this.indexes = indexes;
+    }
+
+    /** Called after a recipe was created or modified. */
+    public void onSaved(Recipe recipe) {
+        if (recipe == null || recipe.getId() == null) return;
+        for (RecipeIndex index : indexes) {
+            index.index(recipe);
+        }
+    }
+
+    /** Called after a recipe was deleted. */
+    public void onDeleted(long recipeId) {
+        for (RecipeIndex index : indexes) {
+            index.remove(recipeId);
+        }
+    }
+
+    // Synchronized: the data can be loaded in the background, which rebuilds again when done
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        long start = System.nanoTime();
+        indexes.forEach(RecipeIndex::clear);
+
+        int count = 0;
+        List<Recipe> batch = repo.findAllByOrderByIdAsc(Limit.of(REBUILD_BATCH_SIZE));
+        while (!batch.isEmpty()) {
+            batch.forEach(this::onSaved);
+            count += batch.size();
+            if (batch.size() < REBUILD_BATCH_SIZE) break;
+            batch = repo.findByIdGreaterThanOrderByIdAsc(batch.get(batch.size() - 1).getId(), Limit.of(REBUILD_BATCH_SIZE));
+        }
+        logger.info("Indexed {} recipes into {} indexes in {} ms",
+                count, indexes.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+}
@@ -0,0 +1,71 @@
+package com.mcon152.recipeshare.search;
+
+import com.mcon152.recipeshare.domain.Recipe;
+import com.mcon152.recipeshare.service.CursorPage;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Read-only queries answered from the in-memory {@link RecipeIndex} structures rather than SQL.
+ * Results are resolved to entities with a single primary-key lookup per page.
+ */
+public interface RecipeSearchService {
+
+    /**
+     * Recipes matching a boolean tag expression (see {@link TagQuery}), ordered by id and keyset
+     * paged with the same cursors as {@code GET /api/recipes}.
+     *
+     * @throws IllegalArgumentException if the expression or cursor is malformed
+     */
+    CursorPage<Recipe> findByTagQuery(String query, String cursor, Integer size);
+
+    /**
+     * Recipes matching the selected facet values plus live counts per type, tag, author and
+     * servings bucket, in one call. Values within a facet are OR-ed (tags: AND-ed), facets are AND-ed.
+     *
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    FacetedResult facetedSearch(Map<Facet, List<String>> filters, String cursor, Integer size);
+
+    /**
+     * Full-text search over title, description, ingredients and instructions, ranked by BM25,
+     * best match first. {@code size} is clamped like page sizes.
+     *
+     * @throws IllegalArgumentException if the query has no searchable terms
+     */
+    List<SearchHit> search(String query, Integer size);
+
+    /**
+     * Typo-tolerant title search: every query word must match a title word within 0, 1 or 2 edits
+     * depending on its length. Fewest edits first; the score is {@code 1 / (1 + edits)}.
+     *
+     * @throws IllegalArgumentException if the query has no searchable terms
+     */
+    List<SearchHit> fuzzySearch(String query, Integer size);
+
+    /** Existing tag names within a few edits of {@code query}, closest first. */
+    List<FuzzyIndex.TagMatch> fuzzyTags(String query, Integer size);
+
+    /**
+     * Autocomplete: the most popular titles and tag names with a word starting with
+     * {@code prefix}. Served from a periodically rebuilt snapshot, so it may briefly lag writes.
+     */
+    Suggestions suggest(String prefix, Integer size);
+
+    /**
+     * "What can I cook": recipes sharing at least one ingredient with the pantry and missing at
+     * most {@code maxMissing} ingredients, fewest missing first.
+     *
+     * @throws IllegalArgumentException if {@code maxMissing} is negative or no pantry item names
+     *                                  an ingredient
+     */
+    List<PantryMatch> findByPantry(List<String> pantry, int maxMissing, Integer size);
+
+    /**
+     * Recipes with the most similar ingredients and tags (estimated Jaccard similarity as the
+     * score), most similar first; empty if the recipe does not exist.
+     */
+    Optional<List<SearchHit>> findSimilar(long recipeId, Integer size);
+}
@@ -0,0 +1,209 @@
+package com.mcon152.recipeshare.search;
+
+import com.mcon152.recipeshare.domain.Recipe;
+import com.mcon152.recipeshare.repository.AppUserRepository;
+import com.mcon152.recipeshare.repository.RecipeRepository;
+import com.mcon152.recipeshare.service.CursorPage;
+import com.mcon152.recipeshare.service.RecipeCursor;
+import com.mcon152.recipeshare.service.RecipeSortOrder;
+import org.roaringbitmap.PeekableIntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+@Service
+public class RecipeSearchServiceImpl implements RecipeSearchService {
+
+    private final RecipeRepository repo;
+    private final AppUserRepository userRepo;
+    private final TagBitmapIndex tagIndex;
+    private final FacetIndex facetIndex;
+    private final FullTextIndex fullTextIndex;
+    private final FuzzyIndex fuzzyIndex;
+    private final SuggestIndex suggestIndex;
+    private final PantryIndex pantryIndex;
+    private final SimilarityIndex similarityIndex;
+
+    @Value("${recipeshare.pagination.default-size:20}")
+    private int defaultPageSize = 20;
+
+    @Value("${recipeshare.pagination.max-size:100}")
+    private int maxPageSize = 100;
+
+    @Value("${recipeshare.search.facet-limit:20}")
+    private int facetLimit = 20;
+
+    @Value("${recipeshare.search.suggest-size:10}")
+    private int defaultSuggestSize = 10;
+
+    public RecipeSearchServiceImpl(RecipeRepository repo, AppUserRepository userRepo,
+                                   TagBitmapIndex tagIndex, FacetIndex facetIndex, FullTextIndex fullTextIndex,
+                                   FuzzyIndex fuzzyIndex, SuggestIndex suggestIndex, PantryIndex pantryIndex,
+                                   SimilarityIndex similarityIndex) {
+        this.repo = repo;
+        this.userRepo = userRepo;
+        this.tagIndex = tagIndex;
+        this.facetIndex = facetIndex;
+        this.fullTextIndex = fullTextIndex;
+        this.fuzzyIndex = fuzzyIndex;
+        this.suggestIndex = suggestIndex;
+        this.pantryIndex = pantryIndex;
+        this.similarityIndex = similarityIndex;
+    }
+
+    @Override
+    public CursorPage<Recipe> findByTagQuery(String query, String cursor, Integer size) {
+        RoaringBitmap matches = tagIndex.query(TagQuery.parse(query));
+        return pageOf(matches, cursor, size);
+    }
+
+    @Override
+    public FacetedResult facetedSearch(Map<Facet, List<String>> filters, String cursor, Integer size) {
+        FacetIndex.Result result = facetIndex.search(filters, facetLimit);
+        CursorPage<Recipe> page = pageOf(result.matches(), cursor, size);
+
+        // Only author ids are indexed; resolve display names for the values actually returned
+        List<Long> authorIds = result.counts().get(Facet.AUTHOR).stream()
+                .map(count -> Long.valueOf(count.value()))
+                .toList();
+        Map<String, String> authorNames = authorIds.isEmpty() ? Map.of() : userRepo.findAllById(authorIds).stream()
+                .collect(Collectors.toMap(user -> String.valueOf(user.getId()),
+                        user -> user.getDisplayName() != null ? user.getDisplayName() : String.valueOf(user.getId()),
+                        (a, b) -> a));
+
+        Map<String, List<FacetedResult.FacetValue>> facets = new LinkedHashMap<>();
+        result.counts().forEach((facet, counts) -> facets.put(facet.paramName(), counts.stream()
+                .map(count -> new FacetedResult.FacetValue(count.value(),
+                        facet == Facet.AUTHOR ? authorNames.getOrDefault(count.value(), count.value()) : count.value(),
+                        count.count()))
+                .toList()));
+        return new FacetedResult(page, result.matches().getLongCardinality(), facets);
+    }
+
+    @Override
+    public List<SearchHit> search(String query, Integer size) {
+        requireTerms(query);
+        List<FullTextIndex.Hit> hits = fullTextIndex.search(query, pageSize(size));
+        return resolveHits(hits.stream().map(FullTextIndex.Hit::recipeId).toList(),
+                hits.stream().map(FullTextIndex.Hit::score).toList());
+    }
+
+    @Override
+    public List<SearchHit> fuzzySearch(String query, Integer size) {
+        requireTerms(query);
+        List<FuzzyIndex.TitleMatch> matches = fuzzyIndex.searchTitles(query, pageSize(size));
+        return resolveHits(matches.stream().map(FuzzyIndex.TitleMatch::recipeId).toList(),
+                matches.stream().map(match -> 1f / (1 + match.edits())).toList());
+    }
+
+    @Override
+    public List<FuzzyIndex.TagMatch> fuzzyTags(String query, Integer size) {
+        return fuzzyIndex.searchTags(query, pageSize(size));
+    }
+
+    @Override
+    public Suggestions suggest(String prefix, Integer size) {
+        if (prefix == null || prefix.isBlank()) return Suggestions.NONE;
+        int limit = size == null ? defaultSuggestSize : Math.max(1, Math.min(size, maxPageSize));
+        return suggestIndex.suggest(prefix, limit);
+    }
+
+    @Override
+    public List<PantryMatch> findByPantry(List<String> pantry, int maxMissing, Integer size) {
+        if (maxMissing < 0) {
+            throw new IllegalArgumentException("maxMissing must not be negative: " + maxMissing);
+        }
+        if (pantry == null || pantry.stream().allMatch(item -> IngredientParser.normalize(item).isEmpty())) {
+            throw new IllegalArgumentException("Pantry names no ingredients");
+        }
+        List<PantryIndex.Match> matches = pantryIndex.search(pantry, maxMissing, pageSize(size));
+        if (matches.isEmpty()) return List.of();
+
+        Map<Long, Recipe> byId = repo.findAllById(matches.stream().map(PantryIndex.Match::recipeId).toList()).stream()
+                .collect(Collectors.toMap(Recipe::getId, recipe -> recipe));
+        List<PantryMatch> results = new ArrayList<>(matches.size());
+        for (PantryIndex.Match match : matches) {
+            Recipe recipe = byId.get(match.recipeId());
+            if (recipe != null) {
+                results.add(new PantryMatch(recipe, match.matched(), match.total(), match.missing()));
+            }
+        }
+        return results;
+    }
+
+    @Override
+    public Optional<List<SearchHit>> findSimilar(long recipeId, Integer size) {
+        // Indexed recipes are known to exist; only recipes without ingredients or tags need a lookup
+        if (!similarityIndex.contains(recipeId)) {
+            return repo.existsById(recipeId) ? Optional.of(List.of()) : Optional.empty();
+        }
+        List<SimilarityIndex.Match> matches = similarityIndex.similarTo(recipeId, pageSize(size));
+        return Optional.of(resolveHits(matches.stream().map(SimilarityIndex.Match::recipeId).toList(),
+                matches.stream().map(SimilarityIndex.Match::similarity).toList()));
+    }
+
+    private static void requireTerms(String query) {
+        if (query == null || TextAnalyzer.terms(query).isEmpty()) {
+            throw new IllegalArgumentException("Search query has no searchable terms");
+        }
+    }
+
+    /** Loads ranked ids in one query, keeping rank order and skipping rows deleted meanwhile. */
+    private List<SearchHit> resolveHits(List<Long> ids, List<Float> scores) {
+        if (ids.isEmpty()) return List.of();
+        Map<Long, Recipe> byId = repo.findAllById(ids).stream()
+                .collect(Collectors.toMap(Recipe::getId, recipe -> recipe));
+        List<SearchHit> results = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            Recipe recipe = byId.get(ids.get(i));
+            if (recipe != null) results.add(new SearchHit(recipe, scores.get(i)));
+        }
+        return results;
+    }
+
+    private int pageSize(Integer size) {
+        return size == null ? defaultPageSize : Math.max(1, Math.min(size, maxPageSize));
+    }
+
+    /**
+     * Reads one id-ordered page out of a bitmap of matching ids: seeks past the cursor, takes
+     * {@code size + 1} ids to detect a following page and loads only that page from the database.
+     */
+    CursorPage<Recipe> pageOf(RoaringBitmap ids, String cursor, Integer size) {
+        int pageSize = pageSize(size);
+        long afterId = 0L;
+        if (cursor != null && !cursor.isBlank()) {
+            RecipeCursor after = RecipeCursor.decode(cursor);
+            if (after.order() != RecipeSortOrder.ID) {
+                throw new IllegalArgumentException("Cursor is not ordered by id: " + cursor);
+            }
+            afterId = after.id();
+        }
+
+        List<Long> pageIds = new ArrayList<>(pageSize + 1);
+        PeekableIntIterator it = ids.getIntIterator();
+        if (afterId > 0) {
+            it.advanceIfNeeded((int) Math.min(afterId + 1, Integer.MAX_VALUE));
+        }
+        while (it.hasNext() && pageIds.size() <= pageSize) {
+            int id = it.next();
+            if (id > afterId) pageIds.add((long) id);
+        }
+        boolean hasNext = pageIds.size() > pageSize;
+        if (hasNext) pageIds.remove(pageSize);
+        if (pageIds.isEmpty()) return new CursorPage<>(List.of(), null);
+
+        List<Recipe> items = new ArrayList<>(repo.findAllById(pageIds));
+        items.sort(Comparator.comparing(Recipe::getId));
+        String next = hasNext ? RecipeCursor.afterId(pageIds.get(pageIds.size() - 1)).encode() : null;
+        return new CursorPage<>(items, next);
+    }
+}
@@ -0,0 +1,7 @@
+package com.mcon152.recipeshare.search;
+
+import com.mcon152.recipeshare.domain.Recipe;
+
+/** A recipe returned by a ranked search together with its relevance score. */
+public record SearchHit(Recipe recipe, float score) {
+}
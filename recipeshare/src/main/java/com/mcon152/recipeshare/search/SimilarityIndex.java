@@ -0,0 +1,208 @@
+package com.mcon152.recipeshare.search;
+
+import com.mcon152.recipeshare.domain.Recipe;
+import com.mcon152.recipeshare.domain.Tag;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * "Recipes like this one" by overlap of ingredients and tags, without pairwise comparison.
+ * <p>
+ * Each recipe's feature set (parsed ingredient names and tag names) is reduced to a MinHash
+ * signature of {@value #SIGNATURE_SIZE} values; the fraction of equal positions in two signatures
+ * estimates the Jaccard similarity of the sets. Signatures are cut into {@value #BANDS} bands of
+ * {@value #ROWS} rows and every band is hashed into a bucket (locality-sensitive hashing), so only
+ * recipes sharing at least one bucket are compared. With these sizes pairs above roughly 0.4
+ * Jaccard are found with high probability.
+ * <p>
+ * Many recipes with the same few ingredients share all their buckets, so the candidates are capped:
+ * at most {@value #MAX_CANDIDATES_PER_BUCKET} from each bucket (the lowest ids) and
+ * {@value #MAX_CANDIDATES} in total, which bounds the work per request whatever the catalog looks
+ * like. Among that many near-duplicates the result is still a set of equally good matches.
+ */
+@Component
+public class SimilarityIndex implements RecipeIndex {
+
+    static final int BANDS = 32;
+    static final int ROWS = 4;
+    static final int SIGNATURE_SIZE = BANDS * ROWS;
+    static final int MAX_CANDIDATES_PER_BUCKET = 64;
+    static final int MAX_CANDIDATES = 512;
+    private static final long[] SEEDS = new SplittableRandom(0x5EEDL).longs(SIGNATURE_SIZE).toArray();
+
+    /** A similar recipe with its estimated Jaccard similarity. */
+    public record Match(long recipeId, float similarity) {}
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Integer, int[]> signatures = new HashMap<>();
+    private final Map<Long, RoaringBitmap> buckets = new HashMap<>();
+
+    @Override
+    public void index(Recipe recipe) {
+        int id = TagBitmapIndex.toIndexId(recipe.getId());
+        int[] signature = signature(features(recipe));
+
+        lock.writeLock().lock();
+        try {
+            retract(id);
+            if (signature == null) return;
+            signatures.put(id, signature);
+            for (int band = 0; band < BANDS; band++) {
+                buckets.computeIfAbsent(bucketKey(signature, band), k -> new RoaringBitmap()).add(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(long recipeId) {
+        lock.writeLock().lock();
+        try {
+            retract(TagBitmapIndex.toIndexId(recipeId));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            signatures.clear();
+            buckets.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Whether the recipe is indexed, i.e. it exists and has at least one ingredient or tag. */
+    public boolean contains(long recipeId) {
+        lock.readLock().lock();
+        try {
+            return signatures.containsKey(TagBitmapIndex.toIndexId(recipeId));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** The {@code limit} most similar other recipes, most similar first, then by id. */
+    public List<Match> similarTo(long recipeId, int limit) {
+        int id = TagBitmapIndex.toIndexId(recipeId);
+        lock.readLock().lock();
+        try {
+            int[] signature = signatures.get(id);
+            if (signature == null || limit <= 0) return List.of();
+
+            RoaringBitmap candidates = new RoaringBitmap();
+            for (int band = 0; band < BANDS && candidates.getCardinality() < MAX_CANDIDATES; band++) {
+                RoaringBitmap bucket = buckets.get(bucketKey(signature, band));
+                if (bucket == null) continue;
+                // One more than the cap, as the recipe itself is in every one of its buckets
+                candidates.or(bucket.getCardinality() <= MAX_CANDIDATES_PER_BUCKET + 1
+                        ? bucket : bucket.limit(MAX_CANDIDATES_PER_BUCKET + 1));
+            }
+            candidates.remove(id);
+            if (candidates.getCardinality() > MAX_CANDIDATES) candidates = candidates.limit(MAX_CANDIDATES);
+
+            PriorityQueue<Match> top = new PriorityQueue<>(limit + 1, (a, b) -> a.similarity() != b.similarity()
+                    ? Float.compare(a.similarity(), b.similarity())
+                    : Long.compare(b.recipeId(), a.recipeId()));
+            candidates.forEach((int other) -> {
+                top.add(new Match(other, estimate(signature, signatures.get(other))));
+                if (top.size() > limit) top.poll();
+            });
+            List<Match> out = new ArrayList<>(top);
+            out.sort(top.comparator().reversed());
+            return out;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Prefixed feature strings, so an ingredient and a tag with the same name stay distinct. */
+    static Set<String> features(Recipe recipe) {
+        Set<String> features = new LinkedHashSet<>();
+        for (String ingredient : IngredientParser.parse(recipe.getIngredients())) {
+            features.add("i:" + ingredient);
+        }
+        if (recipe.getTags() != null) {
+            for (Tag tag : recipe.getTags()) {
+                if (tag.getName() != null) features.add("t:" + TextAnalyzer.fold(tag.getName()));
+            }
+        }
+        return features;
+    }
+
+    /** MinHash signature of the set, or null for an empty set. */
+    static int[] signature(Set<String> features) {
+        if (features.isEmpty()) return null;
+        int[] signature = new int[SIGNATURE_SIZE];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+        for (String feature : features) {
+            long base = hash(feature);
+            for (int i = 0; i < SIGNATURE_SIZE; i++) {
+                int value = (int) (mix(base ^ SEEDS[i]) >>> 33);
+                if (value < signature[i]) signature[i] = value;
+            }
+        }
+        return signature;
+    }
+
+    static float estimate(int[] a, int[] b) {
+        int equal = 0;
+        for (int i = 0; i < SIGNATURE_SIZE; i++) {
+            if (a[i] == b[i]) equal++;
+        }
+        return (float) equal / SIGNATURE_SIZE;
+    }
+
+    private void retract(int id) {
+        int[] previous = signatures.remove(id);
+        if (previous == null) return;
+        for (int band = 0; band < BANDS; band++) {
+            long key = bucketKey(previous, band);
+            RoaringBitmap bucket = buckets.get(key);
+            if (bucket == null) continue;
+            bucket.remove(id);
+            if (bucket.isEmpty()) buckets.remove(key);
+        }
+    }
+
+    private static long bucketKey(int[] signature, int band) {
+        long h = band;
+        for (int row = band * ROWS; row < (band + 1) * ROWS; row++) {
+            h = mix(h * 31 + signature[row]);
+        }
+        return h;
+    }
+
+    /** 64-bit FNV-1a over the UTF-16 code units. */
+    private static long hash(String s) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < s.length(); i++) {
+            h ^= s.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+
+    /** SplitMix64 finalizer. */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,35 @@
+package com.mcon152.recipeshare.search;
+
+import java.util.Arrays;
+
+/**
+ * Per-query accumulator of values by non-negative int key (document number or index id), in an
+ * open-addressing table with linear probing, sized up front for at most {@code expected} keys at a
+ * load factor of one half; empty slots hold -1. Memory follows the postings a query touches
+ * rather than the size of the index, and no key or value is boxed.
+ */
+final class SparseScores {
+    final int[] docs;
+    final float[] values;
+    private final int mask;
+
+    SparseScores(int expected) {
+        int capacity = Integer.highestOneBit(Math.max(expected, 1) * 2 - 1) << 1;
+        docs = new int[capacity];
+        values = new float[capacity];
+        mask = capacity - 1;
+        Arrays.fill(docs, -1);
+    }
+
+    void add(int doc, float value) {
+        int slot = (doc * 0x9E3779B9) >>> 1 & mask;
+        while (docs[slot] != doc) {
+            if (docs[slot] < 0) {
+                docs[slot] = doc;
+                break;
+            }
+            slot = (slot + 1) & mask;
+        }
+        values[slot] += value;
+    }
+}
@@ -0,0 +1,231 @@
+package com.mcon152.recipeshare.search;
+
+import com.mcon152.recipeshare.domain.Recipe;
+import com.mcon152.recipeshare.domain.Tag;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Title and tag autocomplete served from immutable {@link PrefixSuggester} snapshots.
+ * <p>
+ * Writes only update the weight of each title and tag and schedule a rebuild; a background thread
+ * builds new suggesters (bursts of writes, such as the startup rebuild, are coalesced into one
+ * build) and publishes them with a single volatile write. Lookups read whatever snapshot is current
+ * and never take a lock, so they may lag a write by the rebuild delay.
+ * <p>
+ * A rebuild does not redo the whole catalogue for a few writes: the texts changed since the last
+ * full build go into a small delta suggester, which overrides their entries in the full one. Only
+ * once the delta outgrows {@code 1/DELTA_RATIO} of the full suggester is everything rebuilt, so
+ * steady writes cost rebuilds proportional to what changed.
+ */
+@Component
+public class SuggestIndex implements RecipeIndex {
+
+    // The delta may grow to this fraction of the full suggester, and at least MIN_DELTA entries
+    private static final int DELTA_RATIO = 16;
+    private static final int MIN_DELTA = 256;
+
+    private record Snapshot(Layers titles, Layers tags) {}
+
+    private final Map<Integer, String> titleByRecipe = new HashMap<>();
+    private final Map<Integer, Set<String>> tagsByRecipe = new HashMap<>();
+    private final Weights titleWeights = new Weights();
+    private final Weights tagWeights = new Weights();
+    private final Object buildLock = new Object();
+    private final AtomicBoolean rebuildScheduled = new AtomicBoolean();
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "suggest-rebuild");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile Snapshot snapshot = new Snapshot(Layers.EMPTY, Layers.EMPTY);
+
+    @Value("${recipeshare.search.suggest-rebuild-delay-ms:250}")
+    private long rebuildDelayMillis = 250;
+
+    @Override
+    public void index(Recipe recipe) {
+        int id = TagBitmapIndex.toIndexId(recipe.getId());
+        Set<String> tags = recipe.getTags() == null ? Set.of() : recipe.getTags().stream()
+                .map(Tag::getName)
+                .filter(name -> name != null && !name.isBlank())
+                .collect(Collectors.toUnmodifiableSet());
+        String title = recipe.getTitle() != null && !recipe.getTitle().isBlank() ? recipe.getTitle() : null;
+        synchronized (this) {
+            String oldTitle = title != null ? titleByRecipe.put(id, title) : titleByRecipe.remove(id);
+            titleWeights.remove(oldTitle);
+            titleWeights.add(title);
+            Set<String> oldTags = tagsByRecipe.put(id, tags);
+            if (oldTags != null) oldTags.forEach(tagWeights::remove);
+            tags.forEach(tagWeights::add);
+        }
+        scheduleRebuild();
+    }
+
+    @Override
+    public void remove(long recipeId) {
+        int id = TagBitmapIndex.toIndexId(recipeId);
+        synchronized (this) {
+            titleWeights.remove(titleByRecipe.remove(id));
+            Set<String> oldTags = tagsByRecipe.remove(id);
+            if (oldTags != null) oldTags.forEach(tagWeights::remove);
+        }
+        scheduleRebuild();
+    }
+
+    @Override
+    public void clear() {
+        synchronized (this) {
+            titleByRecipe.clear();
+            tagsByRecipe.clear();
+            titleWeights.clear();
+            tagWeights.clear();
+        }
+        scheduleRebuild();
+    }
+
+    /** Up to {@code limit} titles and {@code limit} tag names with a word starting with the prefix. */
+    public Suggestions suggest(String prefix, int limit) {
+        Snapshot current = snapshot;
+        return new Suggestions(toSuggestions(current.titles().suggest(prefix, limit)),
+                toSuggestions(current.tags().suggest(prefix, limit)));
+    }
+
+    /** Builds and publishes new suggesters from the current recipes right away. */
+    public void refresh() {
+        // Builds run one at a time so an older snapshot can never replace a newer one
+        synchronized (buildLock) {
+            rebuildScheduled.set(false);
+            Snapshot current = snapshot;
+            Build titles;
+            Build tags;
+            synchronized (this) {
+                titles = titleWeights.build(current.titles().full().size());
+                tags = tagWeights.build(current.tags().full().size());
+            }
+            snapshot = new Snapshot(titles.apply(current.titles()), tags.apply(current.tags()));
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void scheduleRebuild() {
+        if (rebuildScheduled.compareAndSet(false, true)) {
+            executor.schedule(this::refresh, rebuildDelayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private static List<Suggestions.Suggestion> toSuggestions(List<PrefixSuggester.Entry> entries) {
+        return entries.stream().map(entry -> new Suggestions.Suggestion(entry.text(), entry.weight())).toList();
+    }
+
+    /**
+     * A full suggester and a delta with the current weights of the texts changed since it was
+     * built; {@code changed} holds their normalized texts, whose entries in {@code full} are stale.
+     */
+    private record Layers(PrefixSuggester full, PrefixSuggester delta, Set<String> changed) {
+        static final Layers EMPTY = new Layers(PrefixSuggester.EMPTY, PrefixSuggester.EMPTY, Set.of());
+
+        List<PrefixSuggester.Entry> suggest(String prefix, int limit) {
+            if (changed.isEmpty()) return full.suggest(prefix, limit);
+            List<PrefixSuggester.Entry> fromFull = full.suggest(prefix, limit, changed::contains);
+            List<PrefixSuggester.Entry> fromDelta = delta.suggest(prefix, limit);
+            // Both come heaviest first and never share a text
+            List<PrefixSuggester.Entry> out = new ArrayList<>(limit);
+            int i = 0;
+            int j = 0;
+            while (out.size() < limit && (i < fromFull.size() || j < fromDelta.size())) {
+                boolean takeFull = j >= fromDelta.size()
+                        || i < fromFull.size() && fromFull.get(i).weight() >= fromDelta.get(j).weight();
+                out.add(takeFull ? fromFull.get(i++) : fromDelta.get(j++));
+            }
+            return out;
+        }
+    }
+
+    /** What to build from the weights: everything, or a delta over the current full suggester. */
+    private record Build(boolean full, Map<String, Integer> weights, Set<String> changed) {
+        Layers apply(Layers current) {
+            return full
+                    ? new Layers(new PrefixSuggester(weights), PrefixSuggester.EMPTY, Set.of())
+                    : new Layers(current.full(), new PrefixSuggester(weights), changed);
+        }
+    }
+
+    /**
+     * How many recipes have each title or tag, by normalized text. The first spelling counted is
+     * the one displayed, until no recipe has the text any more. Guarded by the enclosing index.
+     */
+    private static final class Weights {
+        private static final class Weight {
+            final String display;
+            int count;
+
+            Weight(String display) {
+                this.display = display;
+            }
+        }
+
+        private final Map<String, Weight> byText = new HashMap<>();
+        // Normalized texts whose weight changed since the last full build
+        private final Set<String> changed = new HashSet<>();
+
+        void add(String text) {
+            if (text == null) return;
+            String normalized = PrefixSuggester.normalize(text);
+            byText.computeIfAbsent(normalized, key -> new Weight(text)).count++;
+            changed.add(normalized);
+        }
+
+        void remove(String text) {
+            if (text == null) return;
+            String normalized = PrefixSuggester.normalize(text);
+            Weight weight = byText.get(normalized);
+            if (weight == null) return;
+            if (--weight.count == 0) byText.remove(normalized);
+            changed.add(normalized);
+        }
+
+        void clear() {
+            byText.clear();
+            changed.clear();
+        }
+
+        /**
+         * Copies what the next build needs: all weights once the changes outgrow the delta
+         * allowance for a full suggester of {@code fullSize} entries (or nothing is left, as after
+         * a clear), otherwise the changed ones.
+         */
+        Build build(int fullSize) {
+            if (changed.size() > Math.max(MIN_DELTA, fullSize / DELTA_RATIO) || byText.isEmpty()) {
+                Map<String, Integer> all = new LinkedHashMap<>();
+                byText.values().forEach(weight -> all.put(weight.display, weight.count));
+                changed.clear();
+                return new Build(true, all, Set.of());
+            }
+            Map<String, Integer> delta = new LinkedHashMap<>();
+            for (String normalized : changed) {
+                Weight weight = byText.get(normalized);
+                if (weight != null) delta.put(weight.display, weight.count);
+            }
+            return new Build(false, delta, Set.copyOf(changed));
+        }
+    }
+}
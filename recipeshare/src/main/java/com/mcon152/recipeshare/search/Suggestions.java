@@ -0,0 +1,15 @@
+package com.mcon152.recipeshare.search;
+
+import java.util.List;
+
+/** Autocomplete results for one prefix, heaviest first within each group. */
+public record Suggestions(List<Suggestion> titles, List<Suggestion> tags) {
+
+    public static final Suggestions NONE = new Suggestions(List.of(), List.of());
+
+    /**
+     * A suggested title or tag name. {@code weight} is its popularity: the number of recipes
+     * with that title or tag.
+     */
+    public record Suggestion(String text, int weight) {}
+}
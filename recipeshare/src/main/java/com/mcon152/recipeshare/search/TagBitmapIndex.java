@@ -0,0 +1,112 @@
+package com.mcon152.recipeshare.search;
+
+import com.mcon152.recipeshare.domain.Recipe;
+import com.mcon152.recipeshare.domain.Tag;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+/**
+ * Posting lists of recipe ids per tag, stored as Roaring bitmaps so boolean tag queries are
+ * answered by bitmap intersection/union in memory instead of SQL joins over recipe_tags.
+ * Tag names are keyed lower-cased, matching the case-insensitive lookups elsewhere.
+ */
+@Component
+public class TagBitmapIndex implements RecipeIndex {
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, RoaringBitmap> postings = new HashMap<>();
+    // Tags currently indexed per recipe, so re-indexing can retract stale postings
+    private final Map<Integer, Set<String>> tagsByRecipe = new HashMap<>();
+    private final RoaringBitmap allRecipes = new RoaringBitmap();
+
+    @Override
+    public void index(Recipe recipe) {
+        int id = toIndexId(recipe.getId());
+        Set<String> names = recipe.getTags() == null ? Set.of() : recipe.getTags().stream()
+                .map(Tag::getName)
+                .filter(name -> name != null && !name.isBlank())
+                .map(name -> name.toLowerCase(Locale.ROOT))
+                .collect(Collectors.toSet());
+
+        lock.writeLock().lock();
+        try {
+            retract(id);
+            for (String name : names) {
+                postings.computeIfAbsent(name, k -> new RoaringBitmap()).add(id);
+            }
+            tagsByRecipe.put(id, names);
+            allRecipes.add(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(long recipeId) {
+        int id = toIndexId(recipeId);
+        lock.writeLock().lock();
+        try {
+            retract(id);
+            allRecipes.remove(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            tagsByRecipe.clear();
+            allRecipes.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Evaluates a boolean tag query and returns the matching recipe ids (a private copy). */
+    public RoaringBitmap query(TagQuery query) {
+        lock.readLock().lock();
+        try {
+            return query.evaluate(postings::get, allRecipes);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Recipe ids carrying the given tag (case-insensitive); empty if the tag is unknown. */
+    public RoaringBitmap recipesWithTag(String tagName) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap bitmap = postings.get(tagName.toLowerCase(Locale.ROOT));
+            return bitmap == null ? new RoaringBitmap() : bitmap.clone();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void retract(int id) {
+        Set<String> previous = tagsByRecipe.remove(id);
+        if (previous == null) return;
+        for (String name : previous) {
+            RoaringBitmap bitmap = postings.get(name);
+            if (bitmap == null) continue;
+            bitmap.remove(id);
+            if (bitmap.isEmpty()) postings.remove(name);
+        }
+    }
+
+    /** Bitmaps hold 32-bit values; recipe ids are sequence generated and stay well below that. */
+    static int toIndexId(long recipeId) {
+        return Math.toIntExact(recipeId);
+    }
+}
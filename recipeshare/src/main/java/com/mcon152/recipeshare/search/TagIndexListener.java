@@ -0,0 +1,50 @@
+package com.mcon152.recipeshare.search;
+
+import com.mcon152.recipeshare.domain.Tag;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * JPA entity listener on {@link Tag} that keeps the tag vocabulary of {@link FuzzyIndex} in sync
+ * with every insert, rename and delete, including tags saved directly through the repository or
+ * cascaded from a recipe. Hibernate obtains it from the Spring container; the index is looked up
+ * lazily because listeners are created while the EntityManagerFactory is still being built.
+ * Changes reach the index only once their transaction commits, so a rollback leaves it untouched.
+ */
+public class TagIndexListener {
+
+    private final ObjectProvider<FuzzyIndex> fuzzyIndex;
+
+    public TagIndexListener(ObjectProvider<FuzzyIndex> fuzzyIndex) {
+        this.fuzzyIndex = fuzzyIndex;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void onSaved(Tag tag) {
+        afterCommit(() -> fuzzyIndex.ifAvailable(index -> index.indexTag(tag)));
+    }
+
+    @PostRemove
+    public void onRemoved(Tag tag) {
+        afterCommit(() -> fuzzyIndex.ifAvailable(index -> index.removeTag(tag)));
+    }
+
+    /** Runs the action after the current transaction commits, or right away outside of one. */
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
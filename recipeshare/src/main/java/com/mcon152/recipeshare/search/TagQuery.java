@@ -0,0 +1,218 @@
+package com.mcon152.recipeshare.search;
+
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+
+/**
+ * Parsed boolean tag expression such as {@code vegetarian AND quick AND NOT dessert}.
+ * <p>
+ * Grammar (operators are case-insensitive, adjacent terms are implicitly AND-ed):
+ * <pre>
+ *   expr   := term ( OR term )*
+ *   term   := factor ( [AND] factor )*
+ *   factor := NOT factor | '(' expr ')' | tag
+ *   tag    := word | "quoted name"
+ * </pre>
+ * Tag names are matched case-insensitively.
+ */
+public final class TagQuery {
+
+    private final Node root;
+
+    private TagQuery(Node root) {
+        this.root = root;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the expression is empty or malformed
+     */
+    public static TagQuery parse(String expression) {
+        if (expression == null || expression.isBlank()) {
+            throw new IllegalArgumentException("Empty tag query");
+        }
+        Parser parser = new Parser(tokenize(expression));
+        Node root = parser.expr();
+        if (parser.pos != parser.tokens.size()) {
+            throw new IllegalArgumentException("Unexpected '" + parser.tokens.get(parser.pos).text + "' in tag query");
+        }
+        return new TagQuery(root);
+    }
+
+    /**
+     * Evaluates the query. {@code postings} returns the (read-only) bitmap for a lower-cased tag
+     * name or {@code null} when the tag is unknown; {@code universe} holds every indexed id and is
+     * only used by NOT. The returned bitmap is always a fresh copy.
+     */
+    public RoaringBitmap evaluate(Function<String, RoaringBitmap> postings, RoaringBitmap universe) {
+        return root.eval(postings, universe);
+    }
+
+    @Override
+    public String toString() {
+        return root.toString();
+    }
+
+    // AST
+
+    private sealed interface Node permits TagNode, NotNode, AndNode, OrNode {
+        RoaringBitmap eval(Function<String, RoaringBitmap> postings, RoaringBitmap universe);
+    }
+
+    private record TagNode(String name) implements Node {
+        public RoaringBitmap eval(Function<String, RoaringBitmap> postings, RoaringBitmap universe) {
+            RoaringBitmap bitmap = postings.apply(name);
+            return bitmap == null ? new RoaringBitmap() : bitmap.clone();
+        }
+
+        public String toString() { return name; }
+    }
+
+    private record NotNode(Node operand) implements Node {
+        public RoaringBitmap eval(Function<String, RoaringBitmap> postings, RoaringBitmap universe) {
+            return RoaringBitmap.andNot(universe, operand.eval(postings, universe));
+        }
+
+        public String toString() { return "NOT " + operand; }
+    }
+
+    private record AndNode(List<Node> operands) implements Node {
+        public RoaringBitmap eval(Function<String, RoaringBitmap> postings, RoaringBitmap universe) {
+            // Intersect positive operands first (smallest result early), then subtract negated ones
+            // directly instead of materializing their complement.
+            RoaringBitmap result = null;
+            List<Node> negated = new ArrayList<>();
+            for (Node operand : operands) {
+                if (operand instanceof NotNode not) {
+                    negated.add(not.operand());
+                    continue;
+                }
+                RoaringBitmap bitmap = operand.eval(postings, universe);
+                if (result == null) result = bitmap;
+                else result.and(bitmap);
+                if (result.isEmpty()) return result;
+            }
+            if (result == null) result = universe.clone();
+            for (Node operand : negated) {
+                result.andNot(operand.eval(postings, universe));
+            }
+            return result;
+        }
+
+        public String toString() { return "(" + String.join(" AND ", operands.stream().map(Node::toString).toList()) + ")"; }
+    }
+
+    private record OrNode(List<Node> operands) implements Node {
+        public RoaringBitmap eval(Function<String, RoaringBitmap> postings, RoaringBitmap universe) {
+            RoaringBitmap result = new RoaringBitmap();
+            for (Node operand : operands) {
+                result.or(operand.eval(postings, universe));
+            }
+            return result;
+        }
+
+        public String toString() { return "(" + String.join(" OR ", operands.stream().map(Node::toString).toList()) + ")"; }
+    }
+
+    // Tokenizer / recursive-descent parser
+
+    private enum Kind { WORD, QUOTED, LPAREN, RPAREN }
+
+    private record Token(Kind kind, String text) {
+        boolean isKeyword(String keyword) {
+            return kind == Kind.WORD && text.equalsIgnoreCase(keyword);
+        }
+    }
+
+    private static List<Token> tokenize(String input) {
+        List<Token> tokens = new ArrayList<>();
+        int i = 0;
+        while (i < input.length()) {
+            char c = input.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '(') {
+                tokens.add(new Token(Kind.LPAREN, "("));
+                i++;
+            } else if (c == ')') {
+                tokens.add(new Token(Kind.RPAREN, ")"));
+                i++;
+            } else if (c == '"') {
+                int end = input.indexOf('"', i + 1);
+                if (end < 0) throw new IllegalArgumentException("Unterminated quote in tag query");
+                tokens.add(new Token(Kind.QUOTED, input.substring(i + 1, end)));
+                i = end + 1;
+            } else {
+                int start = i;
+                while (i < input.length() && !Character.isWhitespace(input.charAt(i))
+                        && "()\"".indexOf(input.charAt(i)) < 0) {
+                    i++;
+                }
+                tokens.add(new Token(Kind.WORD, input.substring(start, i)));
+            }
+        }
+        return tokens;
+    }
+
+    private static final class Parser {
+        private final List<Token> tokens;
+        private int pos;
+
+        Parser(List<Token> tokens) {
+            this.tokens = tokens;
+        }
+
+        Node expr() {
+            List<Node> operands = new ArrayList<>();
+            operands.add(term());
+            while (peekKeyword("OR")) {
+                pos++;
+                operands.add(term());
+            }
+            return operands.size() == 1 ? operands.get(0) : new OrNode(operands);
+        }
+
+        Node term() {
+            List<Node> operands = new ArrayList<>();
+            operands.add(factor());
+            while (pos < tokens.size()) {
+                if (peekKeyword("AND")) {
+                    pos++;
+                } else if (peekKeyword("OR") || tokens.get(pos).kind() == Kind.RPAREN) {
+                    break;
+                }
+                operands.add(factor());
+            }
+            return operands.size() == 1 ? operands.get(0) : new AndNode(operands);
+        }
+
+        Node factor() {
+            if (pos >= tokens.size()) {
+                throw new IllegalArgumentException("Unexpected end of tag query");
+            }
+            Token token = tokens.get(pos++);
+            if (token.isKeyword("NOT")) {
+                return new NotNode(factor());
+            }
+            if (token.kind() == Kind.LPAREN) {
+                Node inner = expr();
+                if (pos >= tokens.size() || tokens.get(pos).kind() != Kind.RPAREN) {
+                    throw new IllegalArgumentException("Missing ')' in tag query");
+                }
+                pos++;
+                return inner;
+            }
+            if (token.kind() == Kind.RPAREN || token.isKeyword("AND") || token.isKeyword("OR")) {
+                throw new IllegalArgumentException("Unexpected '" + token.text() + "' in tag query");
+            }
+            return new TagNode(token.text().toLowerCase(Locale.ROOT));
+        }
+
+        private boolean peekKeyword(String keyword) {
+            return pos < tokens.size() && tokens.get(pos).isKeyword(keyword);
+        }
+    }
+}
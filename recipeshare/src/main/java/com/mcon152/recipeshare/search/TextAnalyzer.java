@@ -0,0 +1,72 @@
+package com.mcon152.recipeshare.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Turns free text into index terms: Unicode-folds and lower-cases, splits on anything that is not
+ * a letter or digit, drops stop words and applies a light plural stemmer so "eggs" matches "egg".
+ * Indexing and querying must go through the same analyzer.
+ */
+public final class TextAnalyzer {
+
+    private TextAnalyzer() {}
+
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "an", "and", "are", "as", "at", "be", "but", "by", "for", "from", "if", "in", "into",
+            "is", "it", "of", "on", "or", "so", "such", "that", "the", "then", "there", "these", "they",
+            "this", "to", "until", "was", "will", "with");
+
+    /** Analyzed terms in text order (duplicates kept, so callers can count term frequency). */
+    public static List<String> terms(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null || text.isEmpty()) return terms;
+        String folded = fold(text);
+        int start = -1;
+        for (int i = 0; i <= folded.length(); i++) {
+            boolean wordChar = i < folded.length() && Character.isLetterOrDigit(folded.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                String term = normalizeTerm(folded.substring(start, i));
+                if (term != null) terms.add(term);
+                start = -1;
+            }
+        }
+        return terms;
+    }
+
+    /** Lower-cases and strips diacritics ("Crème brûlée" becomes "creme brulee"). */
+    public static String fold(String text) {
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        StringBuilder out = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) != Character.NON_SPACING_MARK) out.append(c);
+        }
+        return out.toString().toLowerCase(Locale.ROOT);
+    }
+
+    private static String normalizeTerm(String token) {
+        if (STOP_WORDS.contains(token)) return null;
+        if (token.length() < 2 && !Character.isDigit(token.charAt(0))) return null;
+        return stem(token);
+    }
+
+    /** Minimal plural stemmer; deliberately conservative to avoid conflating unrelated words. */
+    static String stem(String term) {
+        int n = term.length();
+        if (n <= 3 || Character.isDigit(term.charAt(n - 1))) return term;
+        if (term.endsWith("ies") && n > 4) return term.substring(0, n - 3) + "y";
+        if (term.endsWith("oes") || term.endsWith("ches") || term.endsWith("shes") || term.endsWith("xes")) {
+            return term.substring(0, n - 2);
+        }
+        if (term.endsWith("s") && !term.endsWith("ss") && !term.endsWith("us") && !term.endsWith("is")) {
+            return term.substring(0, n - 1);
+        }
+        return term;
+    }
+}
@@ -0,0 +1,237 @@
+package com.mcon152.recipeshare.search;
+
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A vocabulary of distinct terms with a character trigram index for typo-tolerant lookup.
+ * <p>
+ * Lookup first prunes candidates with the q-gram lemma (a term within {@code k} edits of the query
+ * shares at least {@code |grams(query)| - 3k} trigrams with it), then verifies the survivors with
+ * a banded Levenshtein distance that gives up as soon as {@code k} is exceeded. For queries of up
+ * to {@code 3k} letters that bound drops to zero (a one-letter typo in a three-letter word can
+ * leave no trigram in common), so candidates come from a deletion neighbourhood index instead:
+ * every term of up to {@value #SHORT_TERM_LENGTH} letters is indexed under each string left by
+ * deleting at most {@value #MAX_EDITS} of its characters, and a term within {@code k} edits of the
+ * query shares at least one such string with the query's own deletions. Terms are reference
+ * counted so the same word coming from several sources is kept until the last one goes away.
+ * <p>
+ * Not thread-safe; callers guard it with their own lock.
+ */
+final class TrigramDictionary {
+
+    /** A vocabulary term within the requested edit distance of the query. */
+    record Match(String term, int distance) {}
+
+    /** Most edits a lookup may allow, the most {@link #autoFuzziness} gives. */
+    static final int MAX_EDITS = 2;
+
+    /**
+     * Longest term in the deletion index: the trigram filter fails only for queries of up to
+     * {@code 3k} letters, and those only match terms of up to {@code 4k}.
+     */
+    static final int SHORT_TERM_LENGTH = 4 * MAX_EDITS;
+
+    private final Map<String, Integer> idByTerm = new HashMap<>();
+    private final List<String> terms = new ArrayList<>();
+    private final List<Integer> refCounts = new ArrayList<>();
+    private final List<Integer> freeIds = new ArrayList<>();
+    private final Map<String, RoaringBitmap> grams = new HashMap<>();
+    private final Map<String, RoaringBitmap> deletions = new HashMap<>();
+
+    /** Adds one reference to the term. */
+    void add(String term) {
+        Integer id = idByTerm.get(term);
+        if (id != null) {
+            refCounts.set(id, refCounts.get(id) + 1);
+            return;
+        }
+        if (freeIds.isEmpty()) {
+            id = terms.size();
+            terms.add(term);
+            refCounts.add(1);
+        } else {
+            id = freeIds.remove(freeIds.size() - 1);
+            terms.set(id, term);
+            refCounts.set(id, 1);
+        }
+        idByTerm.put(term, id);
+        for (String gram : trigrams(term)) {
+            grams.computeIfAbsent(gram, g -> new RoaringBitmap()).add(id);
+        }
+        if (term.length() <= SHORT_TERM_LENGTH) {
+            for (String deleted : deletes(term, MAX_EDITS)) {
+                deletions.computeIfAbsent(deleted, d -> new RoaringBitmap()).add(id);
+            }
+        }
+    }
+
+    /** Drops one reference; the term disappears from lookups with its last reference. */
+    void remove(String term) {
+        Integer id = idByTerm.get(term);
+        if (id == null) return;
+        int remaining = refCounts.get(id) - 1;
+        if (remaining > 0) {
+            refCounts.set(id, remaining);
+            return;
+        }
+        idByTerm.remove(term);
+        for (String gram : trigrams(term)) {
+            removeId(grams, gram, id);
+        }
+        if (term.length() <= SHORT_TERM_LENGTH) {
+            for (String deleted : deletes(term, MAX_EDITS)) {
+                removeId(deletions, deleted, id);
+            }
+        }
+        terms.set(id, null);
+        refCounts.set(id, 0);
+        freeIds.add(id);
+    }
+
+    void clear() {
+        idByTerm.clear();
+        terms.clear();
+        refCounts.clear();
+        freeIds.clear();
+        grams.clear();
+        deletions.clear();
+    }
+
+    int size() {
+        return idByTerm.size();
+    }
+
+    /**
+     * Terms within {@code maxEdits} of {@code query}, closest first.
+     *
+     * @throws IllegalArgumentException if more than {@link #MAX_EDITS} edits are allowed
+     */
+    List<Match> lookup(String query, int maxEdits) {
+        if (maxEdits <= 0) {
+            return idByTerm.containsKey(query) ? List.of(new Match(query, 0)) : List.of();
+        }
+        List<Match> matches = new ArrayList<>();
+        candidates(query, maxEdits).forEach((int id) -> verify(query, id, maxEdits, matches));
+        matches.sort(Comparator.comparingInt(Match::distance).thenComparing(Match::term));
+        return matches;
+    }
+
+    /** Ids of the terms that may be within {@code maxEdits} of {@code query}, to be verified. */
+    RoaringBitmap candidates(String query, int maxEdits) {
+        if (maxEdits > MAX_EDITS) {
+            throw new IllegalArgumentException("At most " + MAX_EDITS + " edits are supported, got " + maxEdits);
+        }
+        Set<String> queryGrams = trigrams(query);
+        int minShared = queryGrams.size() - 3 * maxEdits;
+        RoaringBitmap candidates = new RoaringBitmap();
+        if (minShared < 1) {
+            // Too short for the trigram filter: the query is at most 3k long, so its matches are indexed by deletion
+            for (String deleted : deletes(query, maxEdits)) {
+                RoaringBitmap bitmap = deletions.get(deleted);
+                if (bitmap != null) candidates.or(bitmap);
+            }
+        } else {
+            Map<Integer, Integer> shared = new HashMap<>();
+            for (String gram : queryGrams) {
+                RoaringBitmap bitmap = grams.get(gram);
+                if (bitmap == null) continue;
+                bitmap.forEach((int id) -> shared.merge(id, 1, Integer::sum));
+            }
+            shared.forEach((id, count) -> {
+                if (count >= minShared) candidates.add(id);
+            });
+        }
+        return candidates;
+    }
+
+    private void verify(String query, int id, int maxEdits, List<Match> matches) {
+        String term = terms.get(id);
+        if (Math.abs(term.length() - query.length()) > maxEdits) return;
+        int distance = boundedDistance(query, term, maxEdits);
+        if (distance <= maxEdits) matches.add(new Match(term, distance));
+    }
+
+    private static void removeId(Map<String, RoaringBitmap> index, String key, int id) {
+        RoaringBitmap bitmap = index.get(key);
+        if (bitmap == null) return;
+        bitmap.remove(id);
+        if (bitmap.isEmpty()) index.remove(key);
+    }
+
+    /** Default tolerance by query length, as in common search engines: 0, 1 or 2 edits. */
+    static int autoFuzziness(String term) {
+        if (term.length() <= 2) return 0;
+        return term.length() <= 5 ? 1 : 2;
+    }
+
+    /** Padded trigrams, e.g. "pie" gives {"^pi", "pie", "ie$"}. */
+    static Set<String> trigrams(String term) {
+        String padded = "^" + term + "$";
+        Set<String> out = new LinkedHashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            out.add(padded.substring(i, i + 3));
+        }
+        if (out.isEmpty()) out.add(padded);
+        return out;
+    }
+
+    /** The term and every string left by deleting up to {@code max} of its characters. */
+    static Set<String> deletes(String term, int max) {
+        Set<String> out = new HashSet<>();
+        out.add(term);
+        Set<String> level = Set.of(term);
+        for (int round = 0; round < max; round++) {
+            Set<String> next = new HashSet<>();
+            for (String variant : level) {
+                for (int i = 0; i < variant.length(); i++) {
+                    String deleted = variant.substring(0, i) + variant.substring(i + 1);
+                    if (out.add(deleted)) next.add(deleted);
+                }
+            }
+            level = next;
+        }
+        return out;
+    }
+
+    /**
+     * Levenshtein distance restricted to a diagonal band of width {@code 2 * max + 1}; returns
+     * {@code max + 1} as soon as the distance is known to exceed {@code max}.
+     */
+    static int boundedDistance(String a, String b, int max) {
+        int n = a.length();
+        int m = b.length();
+        if (Math.abs(n - m) > max) return max + 1;
+        int big = max + 1;
+        int[] prev = new int[m + 1];
+        int[] curr = new int[m + 1];
+        for (int j = 0; j <= m; j++) prev[j] = j <= max ? j : big;
+        for (int i = 1; i <= n; i++) {
+            int from = Math.max(1, i - max);
+            int to = Math.min(m, i + max);
+            curr[0] = i <= max ? i : big;
+            if (from > 1) curr[from - 1] = big;
+            int rowMin = curr[0];
+            for (int j = from; j <= to; j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(prev[j] + 1, curr[j - 1] + 1), prev[j - 1] + cost);
+                curr[j] = Math.min(value, big);
+                rowMin = Math.min(rowMin, curr[j]);
+            }
+            if (to < m) curr[to + 1] = big;
+            if (rowMin > max) return big;
+            int[] swap = prev;
+            prev = curr;
+            curr = swap;
+        }
+        return Math.min(prev[m], big);
+    }
+}
@@ -0,0 +1,13 @@
+package com.mcon152.recipeshare.service;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated result. {@code nextCursor} is {@code null} on the last page.
+ */
+public record CursorPage<T>(List<T> items, String nextCursor) {
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
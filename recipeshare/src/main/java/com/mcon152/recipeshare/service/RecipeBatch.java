@@ -0,0 +1,11 @@
+package com.mcon152.recipeshare.service;
+
+import com.mcon152.recipeshare.domain.Recipe;
+
+import java.util.List;
+
+/**
+ * Result of a multi-get: the recipes found, in the order their ids were requested, and the
+ * requested ids that do not exist.
+ */
+public record RecipeBatch(List<Recipe> items, List<Long> missing) {}
@@ -0,0 +1,25 @@
+package com.mcon152.recipeshare.service;
+
+import com.mcon152.recipeshare.domain.Recipe;
+
+/**
+ * One item of a bulk write: create {@code recipe}, replace the content of recipe {@code id} with
+ * it, or delete recipe {@code id}. {@code index} is the item's position in the request and is
+ * carried over to its {@link RecipeBulkResult}.
+ */
+public record RecipeBulkOperation(int index, Kind kind, Long id, Recipe recipe) {
+
+    public enum Kind { CREATE, UPDATE, DELETE }
+
+    public static RecipeBulkOperation create(int index, Recipe recipe) {
+        return new RecipeBulkOperation(index, Kind.CREATE, null, recipe);
+    }
+
+    public static RecipeBulkOperation update(int index, long id, Recipe recipe) {
+        return new RecipeBulkOperation(index, Kind.UPDATE, id, recipe);
+    }
+
+    public static RecipeBulkOperation delete(int index, long id) {
+        return new RecipeBulkOperation(index, Kind.DELETE, id, null);
+    }
+}
@@ -0,0 +1,29 @@
+package com.mcon152.recipeshare.service;
+
+/**
+ * Outcome of one bulk item. {@code id} is the recipe written (for a create: the new id), or the
+ * requested id if there was one; {@code error} is only set for failed items.
+ */
+public record RecipeBulkResult(int index, Long id, Outcome outcome, String error) {
+
+    public enum Outcome {
+        CREATED, UPDATED, DELETED,
+        /** Update or delete of a recipe that does not exist. */
+        NOT_FOUND,
+        /** Malformed item, or a record the database rejects (e.g. a value too long for its column). */
+        INVALID,
+        FAILED;
+
+        public boolean succeeded() {
+            return this == CREATED || this == UPDATED || this == DELETED;
+        }
+    }
+
+    public static RecipeBulkResult of(RecipeBulkOperation operation, Long id, Outcome outcome) {
+        return new RecipeBulkResult(operation.index(), id, outcome, null);
+    }
+
+    public static RecipeBulkResult invalid(int index, Long id, String error) {
+        return new RecipeBulkResult(index, id, Outcome.INVALID, error);
+    }
+}
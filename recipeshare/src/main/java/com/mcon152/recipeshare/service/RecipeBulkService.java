@@ -0,0 +1,173 @@
+package com.mcon152.recipeshare.service;
+
+import com.mcon152.recipeshare.domain.Recipe;
+import com.mcon152.recipeshare.repository.RecipeField;
+import com.mcon152.recipeshare.repository.RecipeRepository;
+import com.mcon152.recipeshare.search.RecipeIndexer;
+import com.mcon152.recipeshare.service.RecipeBulkResult.Outcome;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Bulk create, replace and delete for feed imports.
+ * <p>
+ * Operations are applied in order, {@code recipeshare.bulk.chunk-size} per transaction: the
+ * recipes a chunk updates are loaded with one query, and since ids come from pooled sequences the
+ * chunk's inserts and updates go out as JDBC batches on commit. If a chunk fails, its items are
+ * retried one per transaction, so a single bad record only fails itself. The search indexes and
+ * caches are updated for each chunk once it has committed, never for writes that were rolled back.
+ */
+@Service
+public class RecipeBulkService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RecipeBulkService.class);
+
+    private final RecipeRepository repo;
+    private final RecipeIndexer indexer;
+    private final RecipeChangeLog changeLog;
+    private final TransactionTemplate transactions;
+
+    @Value("${recipeshare.bulk.max-items:1000}")
+    private int maxItems = 1000;
+
+    @Value("${recipeshare.bulk.chunk-size:100}")
+    private int chunkSize = 100;
+
+    public RecipeBulkService(RecipeRepository repo, RecipeIndexer indexer, RecipeChangeLog changeLog,
+                             PlatformTransactionManager transactionManager) {
+        this.repo = repo;
+        this.indexer = indexer;
+        this.changeLog = changeLog;
+        this.transactions = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Applies the operations and returns one result per operation, in the same order.
+     *
+     * @throws IllegalArgumentException if no operations or more than the configured maximum are given
+     */
+    public List<RecipeBulkResult> apply(List<RecipeBulkOperation> operations) {
+        if (operations == null || operations.isEmpty()) {
+            throw new IllegalArgumentException("No operations given");
+        }
+        if (operations.size() > maxItems) {
+            throw new IllegalArgumentException("At most " + maxItems + " operations per request, got " + operations.size());
+        }
+        List<RecipeBulkResult> results = new ArrayList<>(operations.size());
+        for (int from = 0; from < operations.size(); from += chunkSize) {
+            results.addAll(applyChunk(operations.subList(from, Math.min(from + chunkSize, operations.size()))));
+        }
+        return results;
+    }
+
+    private List<RecipeBulkResult> applyChunk(List<RecipeBulkOperation> chunk) {
+        List<RecipeBulkResult> results = new ArrayList<>(chunk.size());
+        List<Written> written = new ArrayList<>(chunk.size());
+        try {
+            written.addAll(commit(chunk));
+        } catch (RuntimeException e) {
+            if (chunk.size() == 1) return List.of(failed(chunk.get(0), e));
+            logger.debug("Bulk chunk of {} failed, retrying its items one by one: {}", chunk.size(), e.getMessage());
+            for (RecipeBulkOperation operation : chunk) {
+                try {
+                    written.addAll(commit(List.of(operation)));
+                } catch (RuntimeException single) {
+                    results.add(failed(operation, single));
+                }
+            }
+        }
+        // Outside the retries: what committed stays committed, even if publishing it fails
+        for (Written w : written) {
+            publish(w);
+            Long id = w.recipe() != null ? w.recipe().getId() : w.operation().id();
+            results.add(RecipeBulkResult.of(w.operation(), id, w.outcome()));
+        }
+        results.sort(Comparator.comparingInt(RecipeBulkResult::index));
+        return results;
+    }
+
+    /**
+     * A write that went through in the transaction, to be published once it has committed;
+     * {@code fields} are those an update replaced.
+     */
+    private record Written(RecipeBulkOperation operation, Outcome outcome, Recipe recipe, Set<RecipeField> fields) {
+        Written(RecipeBulkOperation operation, Outcome outcome, Recipe recipe) {
+            this(operation, outcome, recipe, Set.of());
+        }
+    }
+
+    private List<Written> commit(List<RecipeBulkOperation> operations) {
+        return transactions.execute(status -> write(operations));
+    }
+
+    /** Updates the search indexes and change log for a committed write; failures are only logged. */
+    private void publish(Written w) {
+        try {
+            switch (w.outcome()) {
+                case CREATED -> indexer.onSaved(w.recipe());
+                case UPDATED -> {
+                    indexer.onSaved(w.recipe());
+                    if (w.recipe().getVersion() != null) {
+                        changeLog.record(w.recipe().getId(), w.recipe().getVersion(), w.fields());
+                    }
+                }
+                case DELETED -> indexer.onDeleted(w.operation().id());
+                default -> { }
+            }
+        } catch (RuntimeException e) {
+            logger.error("Bulk item {} was written but could not be indexed: {}", w.operation().index(), e.getMessage(), e);
+        }
+    }
+
+    private List<Written> write(List<RecipeBulkOperation> operations) {
+        List<Long> updateIds = operations.stream()
+                .filter(operation -> operation.kind() == RecipeBulkOperation.Kind.UPDATE)
+                .map(RecipeBulkOperation::id)
+                .toList();
+        Map<Long, Recipe> targets = new HashMap<>();
+        if (!updateIds.isEmpty()) {
+            repo.findAllById(updateIds).forEach(recipe -> targets.put(recipe.getId(), recipe));
+        }
+
+        List<Written> written = new ArrayList<>(operations.size());
+        for (RecipeBulkOperation operation : operations) {
+            written.add(switch (operation.kind()) {
+                case CREATE -> {
+                    // A retried item may carry the id and version of its rolled back first attempt
+                    Recipe recipe = operation.recipe();
+                    recipe.setId(null);
+                    recipe.setVersion(null);
+                    yield new Written(operation, Outcome.CREATED, repo.save(recipe));
+                }
+                case UPDATE -> {
+                    Recipe existing = targets.get(operation.id());
+                    if (existing == null) yield new Written(operation, Outcome.NOT_FOUND, null);
+                    Set<RecipeField> fields = RecipeServiceImpl.replace(existing, operation.recipe());
+                    yield new Written(operation, Outcome.UPDATED, existing, fields);
+                }
+                case DELETE -> new Written(operation,
+                        repo.deleteRecipeById(operation.id()) == 0 ? Outcome.NOT_FOUND : Outcome.DELETED, null);
+            });
+        }
+        return written;
+    }
+
+    private static RecipeBulkResult failed(RecipeBulkOperation operation, RuntimeException e) {
+        logger.debug("Bulk item {} failed: {}", operation.index(), e.getMessage());
+        return e instanceof DataIntegrityViolationException
+                ? RecipeBulkResult.invalid(operation.index(), operation.id(), "Rejected by a database constraint")
+                : new RecipeBulkResult(operation.index(), operation.id(), Outcome.FAILED, "Could not be written");
+    }
+}
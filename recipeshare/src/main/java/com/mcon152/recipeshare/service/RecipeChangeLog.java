@@ -0,0 +1,63 @@
+package com.mcon152.recipeshare.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mcon152.recipeshare.repository.RecipeField;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Which fields the recent versions of each recipe changed. A PATCH whose {@code If-Match} names an
+ * older version can still be applied when none of the fields it sets were changed since; this log
+ * answers that question without storing old row images.
+ * <p>
+ * Only the last {@value #VERSIONS_PER_RECIPE} versions of a bounded number of recipes are kept,
+ * and only changes made through {@link RecipeServiceImpl} are recorded. Any gap in the history is
+ * reported as unknown, which callers treat as a conflict, so a missing entry can never cause a
+ * lost update.
+ */
+@Component
+public class RecipeChangeLog {
+
+    static final int VERSIONS_PER_RECIPE = 16;
+
+    private final Cache<Long, TreeMap<Long, Set<RecipeField>>> changes;
+
+    public RecipeChangeLog(@Value("${recipeshare.concurrency.change-log-recipes:10000}") long maxRecipes) {
+        this.changes = Caffeine.newBuilder().maximumSize(maxRecipes).build();
+    }
+
+    /** Records that the update producing {@code version} set the given fields. */
+    public void record(long recipeId, long version, Set<RecipeField> fields) {
+        TreeMap<Long, Set<RecipeField>> versions = changes.get(recipeId, id -> new TreeMap<>());
+        synchronized (versions) {
+            versions.computeIfAbsent(version, v -> EnumSet.noneOf(RecipeField.class)).addAll(fields);
+            while (versions.size() > VERSIONS_PER_RECIPE) {
+                versions.pollFirstEntry();
+            }
+        }
+    }
+
+    /**
+     * The fields changed by the versions after {@code fromVersion} up to and including
+     * {@code toVersion}, or empty if any of those versions is not in the log.
+     */
+    public Optional<Set<RecipeField>> changedSince(long recipeId, long fromVersion, long toVersion) {
+        if (toVersion <= fromVersion) return Optional.of(Set.of());
+        TreeMap<Long, Set<RecipeField>> versions = changes.getIfPresent(recipeId);
+        if (versions == null) return Optional.empty();
+        synchronized (versions) {
+            Map<Long, Set<RecipeField>> range = versions.subMap(fromVersion, false, toVersion, true);
+            if (range.size() != toVersion - fromVersion) return Optional.empty();
+            Set<RecipeField> changed = EnumSet.noneOf(RecipeField.class);
+            range.values().forEach(changed::addAll);
+            return Optional.of(changed);
+        }
+    }
+}
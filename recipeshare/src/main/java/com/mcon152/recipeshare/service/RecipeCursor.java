@@ -0,0 +1,55 @@
+package com.mcon152.recipeshare.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Opaque keyset cursor used to page through recipes. A cursor remembers the sort order it was
+ * issued for and the key of the last row on the previous page, so the next page can be read with
+ * an index range scan ({@code WHERE key > ?}) instead of an OFFSET that grows with depth.
+ * <p>
+ * Clients only ever see the Base64url encoded form and must pass it back unchanged.
+ */
+public record RecipeCursor(RecipeSortOrder order, LocalDateTime updatedAt, long id) {
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    public static RecipeCursor afterId(long id) {
+        return new RecipeCursor(RecipeSortOrder.ID, null, id);
+    }
+
+    public static RecipeCursor afterUpdate(LocalDateTime updatedAt, long id) {
+        return new RecipeCursor(RecipeSortOrder.UPDATED_AT, updatedAt, id);
+    }
+
+    public String encode() {
+        String raw = order == RecipeSortOrder.UPDATED_AT
+                ? "u|" + updatedAt + "|" + id
+                : "i|" + id;
+        return ENCODER.encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a cursor previously produced by {@link #encode()}.
+     *
+     * @throws IllegalArgumentException if the value is not a cursor issued by this service
+     */
+    public static RecipeCursor decode(String encoded) {
+        try {
+            String raw = new String(DECODER.decode(encoded), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|");
+            if (parts.length == 2 && "i".equals(parts[0])) {
+                return afterId(Long.parseLong(parts[1]));
+            }
+            if (parts.length == 3 && "u".equals(parts[0])) {
+                return afterUpdate(LocalDateTime.parse(parts[1]), Long.parseLong(parts[2]));
+            }
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            // fall through to the common error below
+        }
+        throw new IllegalArgumentException("Invalid cursor: " + encoded);
+    }
+}
@@ -2,21 +2,78 @@ package com.mcon152.recipeshare.service;
 
 import com.mcon152.recipeshare.domain.Recipe;
 import com.mcon152.recipeshare.domain.Tag;
+import com.mcon152.recipeshare.repository.RecipeField;
+import com.mcon152.recipeshare.repository.RecipeVersion;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 
 public interface RecipeService {
     Recipe addRecipe(Recipe recipe);
     List<Recipe> getAllRecipes();
+
+    /**
+     * Keyset pagination over all recipes. Pass {@code null} as cursor for the first page; the
+     * cursor of a follow-up page determines its own sort order. {@code size} is clamped to the
+     * configured maximum, {@code null} selects the default page size.
+     */
+    CursorPage<Recipe> getRecipePage(RecipeSortOrder order, String cursor, Integer size);
+
+    /**
+     * Sparse fieldset variant of {@link #getRecipePage}: only the given fields are read, and
+     * each recipe is returned as a map of JSON property names to values.
+     */
+    CursorPage<Map<String, Object>> getRecipeFieldPage(Set<RecipeField> fields, RecipeSortOrder order, String cursor, Integer size);
     Optional<Recipe> getRecipeById(long id);
+
+    /**
+     * Hands every recipe, in id order, to {@code action} as a sparse fieldset map like
+     * {@link #getRecipeFieldPage}, without holding more than one chunk of them in memory.
+     */
+    void exportRecipeFields(Set<RecipeField> fields, Consumer<Map<String, Object>> action);
+
+    /** Version and last modification of the recipe, read without loading it; empty if it does not exist. */
+    Optional<RecipeVersion> getRecipeVersion(long id);
+
+    /**
+     * Loads several recipes with one query. Duplicate ids are resolved once; ids that do not exist
+     * are reported in {@link RecipeBatch#missing()}.
+     *
+     * @throws IllegalArgumentException if no ids or more than the configured maximum are given
+     */
+    RecipeBatch getRecipesByIds(List<Long> ids);
     boolean deleteRecipe(long id);
     Optional<Recipe> updateRecipe(long id, Recipe updatedRecipe);
     Optional<Recipe> patchRecipe(long id, Recipe partialRecipe);
 
+    /**
+     * Full update that only applies to the given version of the recipe ({@code null}: any).
+     *
+     * @throws org.springframework.dao.OptimisticLockingFailureException if the recipe is at another
+     *         version, or is changed concurrently before this update commits
+     */
+    Optional<Recipe> updateRecipe(long id, Recipe updatedRecipe, Long expectedVersion);
+
+    /**
+     * Partial update based on the given version of the recipe ({@code null}: any). If the recipe
+     * has moved on, the patch is still applied when the newer versions changed none of the fields
+     * it sets (see {@link RecipeChangeLog}).
+     *
+     * @throws org.springframework.dao.OptimisticLockingFailureException if newer versions changed
+     *         any of the patched fields or their changes are unknown, or on a concurrent commit
+     */
+    Optional<Recipe> patchRecipe(long id, Recipe partialRecipe, Long expectedVersion);
+
     // Tag-related operations
     Optional<Recipe> addTagToRecipe(long recipeId, Tag tag);
     Optional<Recipe> removeTagFromRecipe(long recipeId, Tag tag);
     List<Recipe> findRecipesByTag(String tagName);
     List<Recipe> findRecipesByTagId(long tagId);
+
+    /** Case-insensitive tag lookup, keyset paged by id like {@link #getRecipePage}. */
+    CursorPage<Recipe> findRecipesByTag(String tagName, String cursor, Integer size);
+    CursorPage<Recipe> findRecipesByTagId(long tagId, String cursor, Integer size);
 }
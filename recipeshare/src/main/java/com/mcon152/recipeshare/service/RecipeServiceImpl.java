@@ -2,26 +2,77 @@ package com.mcon152.recipeshare.service;
 
 import com.mcon152.recipeshare.domain.Recipe;
 import com.mcon152.recipeshare.domain.Tag;
+import com.mcon152.recipeshare.repository.RecipeField;
 import com.mcon152.recipeshare.repository.RecipeRepository;
+import com.mcon152.recipeshare.repository.RecipeRow;
+import com.mcon152.recipeshare.repository.RecipeTagName;
+import com.mcon152.recipeshare.repository.RecipeVersion;
+import com.mcon152.recipeshare.search.RecipeIndexer;
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
+/**
+ * Read-modify-write operations run in one transaction, so the entity returned to the controller is
+ * the one loaded with the repository's fetch plan and can be serialized after the session closes.
+ * <p>
+ * Concurrent edits are detected by the entity version ({@code @Version} on BaseEntity): a write
+ * based on a stale version fails with {@link OptimisticLockingFailureException}, either here when
+ * the caller passed the version it saw, or on commit when another transaction got there first.
+ */
 @Service
 public class RecipeServiceImpl implements RecipeService {
 
     private final RecipeRepository repo;
+    private final RecipeIndexer indexer;
+    private final RecipeChangeLog changeLog;
 
-    public RecipeServiceImpl(RecipeRepository repo) {
+    @Value("${recipeshare.pagination.default-size:20}")
+    private int defaultPageSize = 20;
+
+    @Value("${recipeshare.pagination.max-size:100}")
+    private int maxPageSize = 100;
+
+    @Value("${recipeshare.batch.max-ids:500}")
+    private int maxBatchIds = 500;
+
+    @Value("${recipeshare.export.chunk-size:500}")
+    private int exportChunkSize = 500;
+
+    public RecipeServiceImpl(RecipeRepository repo, RecipeIndexer indexer, RecipeChangeLog changeLog) {
         this.repo = repo;
+        this.indexer = indexer;
+        this.changeLog = changeLog;
     }
 
     @Override
     public Recipe addRecipe(Recipe recipe) {
         recipe.setId(null); // ensure new entity
-        return repo.save(recipe);
+        Recipe saved = repo.save(recipe);
+        indexer.onSaved(saved);
+        return saved;
     }
 
     @Override
@@ -30,99 +81,389 @@ public class RecipeServiceImpl implements RecipeService {
     }
 
     @Override
+    public CursorPage<Recipe> getRecipePage(RecipeSortOrder order, String cursor, Integer size) {
+        int pageSize = pageSize(size);
+        RecipeCursor after = decodeCursor(cursor);
+        RecipeSortOrder effectiveOrder = after != null ? after.order() : (order != null ? order : RecipeSortOrder.ID);
+
+        // Fetch one extra row to find out whether another page exists without a count query
+        Limit limit = Limit.of(pageSize + 1);
+        List<Recipe> rows = switch (effectiveOrder) {
+            case ID -> after == null
+                    ? repo.findAllByOrderByIdAsc(limit)
+                    : repo.findByIdGreaterThanOrderByIdAsc(after.id(), limit);
+            case UPDATED_AT -> after == null
+                    ? repo.findAllByOrderByUpdatedAtAscIdAsc(limit)
+                    : repo.findPageAfterUpdate(after.updatedAt(), after.id(), limit);
+        };
+        return toPage(rows, pageSize, effectiveOrder);
+    }
+
+    @Override
+    public CursorPage<Map<String, Object>> getRecipeFieldPage(Set<RecipeField> fields, RecipeSortOrder order,
+                                                              String cursor, Integer size) {
+        int pageSize = pageSize(size);
+        RecipeCursor after = decodeCursor(cursor);
+        RecipeSortOrder effectiveOrder = after != null ? after.order() : (order != null ? order : RecipeSortOrder.ID);
+
+        Limit limit = Limit.of(pageSize + 1);
+        List<RecipeRow> rows = switch (effectiveOrder) {
+            case ID -> repo.findRowsAfterId(fields, after == null ? 0L : after.id(), limit);
+            case UPDATED_AT -> after == null
+                    ? repo.findRowsAfterUpdate(fields, null, 0L, limit)
+                    : repo.findRowsAfterUpdate(fields, after.updatedAt(), after.id(), limit);
+        };
+        CursorPage<RecipeRow> page = toPage(rows, pageSize, effectiveOrder, RecipeRow::id, RecipeRow::updatedAt);
+        return new CursorPage<>(withTags(fields, page.items()), page.nextCursor());
+    }
+
+    /**
+     * Rows come from a forward-only cursor and their tag names are looked up per chunk of
+     * {@code recipeshare.export.chunk-size} rows. Neither query materializes entities, so the
+     * persistence context stays empty and memory stays flat however many recipes there are.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void exportRecipeFields(Set<RecipeField> fields, Consumer<Map<String, Object>> action) {
+        try (Stream<RecipeRow> rows = repo.streamRows(fields, exportChunkSize)) {
+            List<RecipeRow> chunk = new ArrayList<>(exportChunkSize);
+            for (Iterator<RecipeRow> it = rows.iterator(); it.hasNext(); ) {
+                chunk.add(it.next());
+                if (chunk.size() == exportChunkSize || !it.hasNext()) {
+                    withTags(fields, chunk).forEach(action);
+                    chunk.clear();
+                }
+            }
+        }
+    }
+
+    /** The rows' field maps, with tag names filled in by one query for all rows if requested. */
+    private List<Map<String, Object>> withTags(Set<RecipeField> fields, List<RecipeRow> rows) {
+        List<Map<String, Object>> out = new ArrayList<>(rows.size());
+        if (!fields.contains(RecipeField.TAGS) || rows.isEmpty()) {
+            rows.forEach(row -> out.add(row.fields()));
+            return out;
+        }
+        Map<Long, List<Map<String, String>>> tagsByRecipe = new HashMap<>();
+        for (RecipeTagName tag : repo.findTagNames(rows.stream().map(RecipeRow::id).toList())) {
+            tagsByRecipe.computeIfAbsent(tag.recipeId(), id -> new ArrayList<>()).add(Map.of("name", tag.name()));
+        }
+        for (RecipeRow row : rows) {
+            row.fields().put(RecipeField.TAGS.property(), tagsByRecipe.getOrDefault(row.id(), List.of()));
+            out.add(row.fields());
+        }
+        return out;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public Optional<Recipe> getRecipeById(long id) {
-        return repo.findById(id);
+        return findLoaded(id);
+    }
+
+    @Override
+    public Optional<RecipeVersion> getRecipeVersion(long id) {
+        return repo.findVersionById(id);
+    }
+
+    @Override
+    public RecipeBatch getRecipesByIds(List<Long> ids) {
+        Set<Long> requested = new LinkedHashSet<>(ids == null ? List.of() : ids);
+        requested.remove(null);
+        if (requested.isEmpty()) {
+            throw new IllegalArgumentException("No ids given");
+        }
+        if (requested.size() > maxBatchIds) {
+            throw new IllegalArgumentException("At most " + maxBatchIds + " ids per request, got " + requested.size());
+        }
+
+        Map<Long, Recipe> byId = new HashMap<>();
+        for (Recipe recipe : repo.findAllById(requested)) {
+            byId.put(recipe.getId(), recipe);
+        }
+        List<Recipe> items = new ArrayList<>(byId.size());
+        List<Long> missing = new ArrayList<>();
+        for (Long id : requested) {
+            Recipe recipe = byId.get(id);
+            if (recipe != null) items.add(recipe);
+            else missing.add(id);
+        }
+        return new RecipeBatch(items, missing);
     }
 
     @Override
+    @Transactional
     public boolean deleteRecipe(long id) {
-        if (repo.existsById(id)) {
-            repo.deleteById(id);
-            return true;
+        // The affected row count tells a missing recipe apart, no existence check needed
+        if (repo.deleteRecipeById(id) == 0) {
+            return false;
         }
-        return false;
+        afterCommit(() -> indexer.onDeleted(id));
+        return true;
     }
 
     @Override
+    @Transactional
     public Optional<Recipe> updateRecipe(long id, Recipe updatedRecipe) {
-        return repo.findById(id).map(existing -> {
-            // Preserve entity type (do not replace the DB row with a different subtype)
-            existing.setTitle(updatedRecipe.getTitle());
-            existing.setDescription(updatedRecipe.getDescription());
-            existing.setIngredients(updatedRecipe.getIngredients());
-            existing.setInstructions(updatedRecipe.getInstructions());
-            existing.setServings(updatedRecipe.getServings());
-
-            // Update author if provided
-            if (updatedRecipe.getAuthor() != null) {
-                existing.setAuthor(updatedRecipe.getAuthor());
-            }
+        return updateRecipe(id, updatedRecipe, null);
+    }
 
-            // Update tags if provided (replace all tags)
-            if (updatedRecipe.getTags() != null) {
-                existing.clearTags();
-                updatedRecipe.getTags().forEach(existing::addTag);
+    @Override
+    @Transactional
+    public Optional<Recipe> updateRecipe(long id, Recipe updatedRecipe, Long expectedVersion) {
+        return findLoaded(id).map(existing -> {
+            // A full replacement conflicts with any change the client has not seen
+            if (expectedVersion != null && !expectedVersion.equals(existing.getVersion())) {
+                throw conflict(id, expectedVersion, existing);
             }
+            Set<RecipeField> fields = replace(existing, updatedRecipe);
 
-            return repo.save(existing);
+            Recipe saved = repo.save(existing);
+            published(saved, fields);
+            return saved;
         });
     }
 
     @Override
+    @Transactional
     public Optional<Recipe> patchRecipe(long id, Recipe partialRecipe) {
-        return repo.findById(id).map(existing -> {
-            if (partialRecipe.getTitle() != null) existing.setTitle(partialRecipe.getTitle());
-            if (partialRecipe.getDescription() != null) existing.setDescription(partialRecipe.getDescription());
-            if (partialRecipe.getIngredients() != null) existing.setIngredients(partialRecipe.getIngredients());
-            if (partialRecipe.getInstructions() != null) existing.setInstructions(partialRecipe.getInstructions());
-            if (partialRecipe.getServings() != null) existing.setServings(partialRecipe.getServings());
-
-            // Patch author if provided
-            if (partialRecipe.getAuthor() != null) {
-                existing.setAuthor(partialRecipe.getAuthor());
+        return patchRecipe(id, partialRecipe, null);
+    }
+
+    @Override
+    @Transactional
+    public Optional<Recipe> patchRecipe(long id, Recipe partialRecipe, Long expectedVersion) {
+        return findLoaded(id).map(existing -> {
+            Set<RecipeField> fields = patchedFields(partialRecipe);
+            if (expectedVersion != null && !expectedVersion.equals(existing.getVersion())) {
+                // Merge onto the newer version if nothing this patch sets has changed since the client's version
+                boolean disjoint = existing.getVersion() != null && changeLog
+                        .changedSince(id, expectedVersion, existing.getVersion())
+                        .map(changed -> Collections.disjoint(changed, fields))
+                        .orElse(false);
+                if (!disjoint) throw conflict(id, expectedVersion, existing);
             }
 
-            // Patch tags if provided (replace all tags)
-            if (partialRecipe.getTags() != null && !partialRecipe.getTags().isEmpty()) {
-                existing.clearTags();
-                partialRecipe.getTags().forEach(existing::addTag);
+            if (fields.isEmpty()) return existing;
+            boolean newAuthor = partialRecipe.getAuthor() != null && partialRecipe.getAuthor().getId() == null;
+            if (fields.contains(RecipeField.TAGS) || newAuthor) {
+                // Tags live in the join table and an unsaved author has no id to write: both go through the entity
+                applyPatch(existing, partialRecipe);
+                if (fields.contains(RecipeField.TAGS)) {
+                    existing.clearTags();
+                    partialRecipe.getTags().forEach(existing::addTag);
+                    touch(existing);
+                }
+                Recipe saved = repo.save(existing);
+                published(saved, fields);
+                return saved;
             }
 
-            return repo.save(existing);
+            // One UPDATE of the patched columns, guarded by the version just read; the detached
+            // entity then gets the same changes for the response and the search indexes
+            LocalDateTime updatedAt = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+            if (repo.updateColumns(existing, partialRecipe, fields, updatedAt) == 0) {
+                throw new OptimisticLockingFailureException("Recipe " + id + " changed after version " + existing.getVersion());
+            }
+            applyPatch(existing, partialRecipe);
+            if (existing.getVersion() != null) existing.setVersion(existing.getVersion() + 1);
+            existing.setUpdatedAt(updatedAt);
+            published(existing, fields);
+            return existing;
         });
     }
 
+    /** Copies the non-null properties of a patch, author included. */
+    private static void applyPatch(Recipe existing, Recipe partial) {
+        if (partial.getTitle() != null) existing.setTitle(partial.getTitle());
+        if (partial.getDescription() != null) existing.setDescription(partial.getDescription());
+        if (partial.getIngredients() != null) existing.setIngredients(partial.getIngredients());
+        if (partial.getInstructions() != null) existing.setInstructions(partial.getInstructions());
+        if (partial.getServings() != null) existing.setServings(partial.getServings());
+        if (partial.getAuthor() != null) existing.setAuthor(partial.getAuthor());
+    }
+
+    /**
+     * Applies a full update, as by PUT and bulk updates, and returns the fields it replaced. The
+     * entity type is preserved: the DB row is not replaced with a different subtype.
+     */
+    static Set<RecipeField> replace(Recipe existing, Recipe updated) {
+        Set<RecipeField> fields = EnumSet.of(RecipeField.TITLE, RecipeField.DESCRIPTION,
+                RecipeField.INGREDIENTS, RecipeField.INSTRUCTIONS, RecipeField.SERVINGS);
+        existing.setTitle(updated.getTitle());
+        existing.setDescription(updated.getDescription());
+        existing.setIngredients(updated.getIngredients());
+        existing.setInstructions(updated.getInstructions());
+        existing.setServings(updated.getServings());
+
+        // Update author if provided
+        if (updated.getAuthor() != null) {
+            existing.setAuthor(updated.getAuthor());
+            fields.add(RecipeField.AUTHOR);
+        }
+
+        // Update tags if provided (replace all tags)
+        if (updated.getTags() != null) {
+            existing.clearTags();
+            updated.getTags().forEach(existing::addTag);
+            touch(existing);
+            fields.add(RecipeField.TAGS);
+        }
+        return fields;
+    }
+
+    /** The fields a patch sets, i.e. its non-null properties and a non-empty tag set. */
+    private static Set<RecipeField> patchedFields(Recipe partial) {
+        Set<RecipeField> fields = EnumSet.noneOf(RecipeField.class);
+        if (partial.getTitle() != null) fields.add(RecipeField.TITLE);
+        if (partial.getDescription() != null) fields.add(RecipeField.DESCRIPTION);
+        if (partial.getIngredients() != null) fields.add(RecipeField.INGREDIENTS);
+        if (partial.getInstructions() != null) fields.add(RecipeField.INSTRUCTIONS);
+        if (partial.getServings() != null) fields.add(RecipeField.SERVINGS);
+        if (partial.getAuthor() != null) fields.add(RecipeField.AUTHOR);
+        if (partial.getTags() != null && !partial.getTags().isEmpty()) fields.add(RecipeField.TAGS);
+        return fields;
+    }
+
+    private static OptimisticLockingFailureException conflict(long id, long expectedVersion, Recipe current) {
+        return new OptimisticLockingFailureException(
+                "Recipe " + id + " is at version " + current.getVersion() + ", not " + expectedVersion);
+    }
+
+    /**
+     * Publishes a saved recipe to the search indexes and caches and logs the fields behind its new
+     * version, once the transaction has committed: only then is the incremented version known and
+     * the change visible to other requests, and a rolled-back write is never published.
+     */
+    private void published(Recipe saved, Set<RecipeField> fields) {
+        afterCommit(() -> {
+            indexer.onSaved(saved);
+            if (saved.getVersion() != null) changeLog.record(saved.getId(), saved.getVersion(), fields);
+        });
+    }
+
+    /** Runs the action after the current transaction commits, or right away outside of one. */
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
     // Tag-related operations
 
     @Override
+    @Transactional
     public Optional<Recipe> addTagToRecipe(long recipeId, Tag tag) {
-        return repo.findById(recipeId).map(recipe -> {
+        return findLoaded(recipeId).map(recipe -> {
             recipe.addTag(tag);
-            return repo.save(recipe);
+            touch(recipe);
+            Recipe saved = repo.save(recipe);
+            published(saved, EnumSet.of(RecipeField.TAGS));
+            return saved;
         });
     }
 
     @Override
+    @Transactional
     public Optional<Recipe> removeTagFromRecipe(long recipeId, Tag tag) {
-        return repo.findById(recipeId).map(recipe -> {
+        return findLoaded(recipeId).map(recipe -> {
             recipe.removeTag(tag);
-            return repo.save(recipe);
+            touch(recipe);
+            Recipe saved = repo.save(recipe);
+            published(saved, EnumSet.of(RecipeField.TAGS));
+            return saved;
         });
     }
 
     @Override
     public List<Recipe> findRecipesByTag(String tagName) {
-        return repo.findAll().stream()
-                .filter(recipe -> recipe.getTags().stream()
-                        .anyMatch(tag -> tag.getName().equalsIgnoreCase(tagName)))
-                .collect(Collectors.toList());
+        if (tagName == null) return List.of();
+        return repo.findByTagNameAfterId(tagName.toLowerCase(Locale.ROOT), 0L, Limit.unlimited());
     }
 
     @Override
     public List<Recipe> findRecipesByTagId(long tagId) {
-        return repo.findAll().stream()
-                .filter(recipe -> recipe.getTags().stream()
-                        .anyMatch(tag -> tag.getId() != null && tag.getId().equals(tagId)))
-                .collect(Collectors.toList());
+        return repo.findByTagIdAfterId(tagId, 0L, Limit.unlimited());
+    }
+
+    @Override
+    public CursorPage<Recipe> findRecipesByTag(String tagName, String cursor, Integer size) {
+        if (tagName == null) return new CursorPage<>(List.of(), null);
+        int pageSize = pageSize(size);
+        long afterId = idCursor(cursor);
+        List<Recipe> rows = repo.findByTagNameAfterId(tagName.toLowerCase(Locale.ROOT), afterId, Limit.of(pageSize + 1));
+        return toPage(rows, pageSize, RecipeSortOrder.ID);
+    }
+
+    @Override
+    public CursorPage<Recipe> findRecipesByTagId(long tagId, String cursor, Integer size) {
+        int pageSize = pageSize(size);
+        long afterId = idCursor(cursor);
+        List<Recipe> rows = repo.findByTagIdAfterId(tagId, afterId, Limit.of(pageSize + 1));
+        return toPage(rows, pageSize, RecipeSortOrder.ID);
+    }
+
+    /**
+     * {@code findById} is answered from the second-level cache when possible, and a cache hit does
+     * not apply the repository's entity graph, so the lazy author is initialized here while the
+     * session is still open (itself usually from the app-users cache).
+     */
+    private Optional<Recipe> findLoaded(long id) {
+        Optional<Recipe> recipe = repo.findById(id);
+        recipe.ifPresent(r -> Hibernate.initialize(r.getAuthor()));
+        return recipe;
+    }
+
+    /**
+     * Tag changes only touch the join table; setting {@code updatedAt} makes the recipe row itself
+     * dirty, so {@code @UpdateTimestamp} and with it {@code Last-Modified} advance as well.
+     */
+    private static void touch(Recipe recipe) {
+        recipe.setUpdatedAt(LocalDateTime.now());
+    }
+
+    // Paging helpers
+
+    private int pageSize(Integer size) {
+        return size == null ? defaultPageSize : Math.max(1, Math.min(size, maxPageSize));
+    }
+
+    private static RecipeCursor decodeCursor(String cursor) {
+        return cursor != null && !cursor.isBlank() ? RecipeCursor.decode(cursor) : null;
+    }
+
+    /** Ids are always positive, so 0 means "from the start". Only id-ordered cursors are accepted. */
+    private static long idCursor(String cursor) {
+        RecipeCursor after = decodeCursor(cursor);
+        if (after == null) return 0L;
+        if (after.order() != RecipeSortOrder.ID) {
+            throw new IllegalArgumentException("Cursor is not ordered by id: " + cursor);
+        }
+        return after.id();
+    }
+
+    private static CursorPage<Recipe> toPage(List<Recipe> rows, int pageSize, RecipeSortOrder order) {
+        return toPage(rows, pageSize, order, Recipe::getId, Recipe::getUpdatedAt);
+    }
+
+    /** Trims the look-ahead row (if any) and builds the cursor that continues after the last item. */
+    private static <T> CursorPage<T> toPage(List<T> rows, int pageSize, RecipeSortOrder order,
+                                            Function<T, Long> id, Function<T, LocalDateTime> updatedAt) {
+        if (rows.size() <= pageSize) {
+            return new CursorPage<>(rows, null);
+        }
+        List<T> items = List.copyOf(rows.subList(0, pageSize));
+        T last = items.get(pageSize - 1);
+        RecipeCursor next = order == RecipeSortOrder.UPDATED_AT
+                ? RecipeCursor.afterUpdate(updatedAt.apply(last), id.apply(last))
+                : RecipeCursor.afterId(id.apply(last));
+        return new CursorPage<>(items, next.encode());
     }
 }
@@ -0,0 +1,25 @@
+package com.mcon152.recipeshare.service;
+
+/**
+ * Orders supported by keyset pagination. Each order is backed by an index so paging stays a
+ * bounded range scan.
+ */
+public enum RecipeSortOrder {
+    /** Ascending primary key (insertion order). */
+    ID,
+    /** Ascending last-modified time, ties broken by id. Lets clients sync changes since a cursor. */
+    UPDATED_AT;
+
+    /**
+     * Parses a request parameter such as {@code id} or {@code updatedAt}; {@code null} means {@link #ID}.
+     */
+    public static RecipeSortOrder fromParam(String value) {
+        if (value == null || value.isBlank()) return ID;
+        String normalized = value.trim().replace("_", "").toUpperCase();
+        return switch (normalized) {
+            case "ID" -> ID;
+            case "UPDATEDAT", "UPDATED" -> UPDATED_AT;
+            default -> throw new IllegalArgumentException("Unsupported sort: " + value);
+        };
+    }
+}
@@ -0,0 +1,29 @@
+package com.mcon152.recipeshare.web;
+
+import com.mcon152.recipeshare.cache.CacheRegionStats;
+import com.mcon152.recipeshare.cache.CacheStatsService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/cache")
+public class CacheStatsController {
+    private final CacheStatsService cacheStatsService;
+
+    public CacheStatsController(CacheStatsService cacheStatsService) {
+        this.cacheStatsService = cacheStatsService;
+    }
+
+    /**
+     * Hit/miss/put counters per second-level cache region (entities, the recipe-tags collection,
+     * query results and update timestamps). 200 OK.
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<List<CacheRegionStats>> stats() {
+        return ResponseEntity.ok(cacheStatsService.regionStats());
+    }
+}
@@ -0,0 +1,22 @@
+package com.mcon152.recipeshare.web;
+
+import com.mcon152.recipeshare.domain.Recipe;
+import com.mcon152.recipeshare.search.FacetedResult;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Response body of the faceted search endpoint: one page of recipes (paged like
+ * {@link PageResponse}), the total number of matches and the counts per facet value.
+ */
+public record FacetedSearchResponse(List<Recipe> items, String nextCursor, String next, long total,
+                                    Map<String, List<FacetedResult.FacetValue>> facets) {
+
+    static FacetedSearchResponse of(FacetedResult result) {
+        String nextCursor = result.page().nextCursor();
+        return new FacetedSearchResponse(result.page().items(), nextCursor,
+                nextCursor != null ? PageResponse.nextUrl(nextCursor) : null,
+                result.total(), result.facets());
+    }
+}
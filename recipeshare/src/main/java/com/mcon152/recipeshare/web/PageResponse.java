@@ -0,0 +1,38 @@
+package com.mcon152.recipeshare.web;
+
+import com.mcon152.recipeshare.service.CursorPage;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.util.List;
+
+/**
+ * Response body for keyset-paginated endpoints. {@code next} is the ready-to-follow URL of the
+ * following page (also sent as a {@code Link: rel="next"} header); both cursor fields are
+ * {@code null} on the last page.
+ */
+public record PageResponse<T>(List<T> items, String nextCursor, String next) {
+
+    /**
+     * 200 OK for a page of the current request, linking to the next page via {@link #nextUrl}.
+     * The cursor carries its own order, so {@code sort} is not repeated.
+     */
+    static <T> ResponseEntity<PageResponse<T>> ok(CursorPage<T> page) {
+        if (!page.hasNext()) {
+            return ResponseEntity.ok(new PageResponse<>(page.items(), null, null));
+        }
+        String next = nextUrl(page.nextCursor());
+        return ResponseEntity.ok()
+                .header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"")
+                .body(new PageResponse<>(page.items(), page.nextCursor(), next));
+    }
+
+    /** The current request URL with {@code cursor} replaced and {@code sort} dropped. */
+    static String nextUrl(String cursor) {
+        return ServletUriComponentsBuilder.fromCurrentRequest()
+                .replaceQueryParam("cursor", cursor)
+                .replaceQueryParam("sort")
+                .toUriString();
+    }
+}
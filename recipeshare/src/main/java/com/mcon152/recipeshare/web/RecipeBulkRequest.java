@@ -0,0 +1,42 @@
+package com.mcon152.recipeshare.web;
+
+import com.mcon152.recipeshare.domain.RecipeRegistry;
+import com.mcon152.recipeshare.service.RecipeBulkOperation;
+
+import java.util.Locale;
+
+/**
+ * One item of {@code POST /api/recipes/bulk}: {@code op} is {@code create} (with {@code recipe}),
+ * {@code update} (with {@code id} and {@code recipe}, replacing the recipe's content like PUT) or
+ * {@code delete} (with {@code id}).
+ */
+public record RecipeBulkRequest(String op, Long id, RecipeRequest recipe) {
+
+    /**
+     * The service operation for this item at position {@code index}.
+     *
+     * @throws IllegalArgumentException if the item is malformed
+     */
+    RecipeBulkOperation toOperation(int index) {
+        if (op == null) throw new IllegalArgumentException("Missing op");
+        return switch (op.trim().toLowerCase(Locale.ROOT)) {
+            case "create" -> {
+                if (id != null) throw new IllegalArgumentException("create takes no id");
+                yield RecipeBulkOperation.create(index, RecipeRegistry.createFromRequest(requireRecipe()));
+            }
+            case "update" -> RecipeBulkOperation.update(index, requireId(), RecipeRegistry.createFromRequest(requireRecipe()));
+            case "delete" -> RecipeBulkOperation.delete(index, requireId());
+            default -> throw new IllegalArgumentException("Unknown op: " + op);
+        };
+    }
+
+    private long requireId() {
+        if (id == null) throw new IllegalArgumentException(op + " needs an id");
+        return id;
+    }
+
+    private RecipeRequest requireRecipe() {
+        if (recipe == null) throw new IllegalArgumentException(op + " needs a recipe");
+        return recipe;
+    }
+}
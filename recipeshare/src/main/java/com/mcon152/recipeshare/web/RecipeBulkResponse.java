@@ -0,0 +1,14 @@
+package com.mcon152.recipeshare.web;
+
+import com.mcon152.recipeshare.service.RecipeBulkResult;
+
+import java.util.List;
+
+/** Body of a {@code POST /api/recipes/bulk} response: the counts and one result per item in request order. */
+public record RecipeBulkResponse(int succeeded, int failed, List<RecipeBulkResult> results) {
+
+    static RecipeBulkResponse of(List<RecipeBulkResult> results) {
+        int succeeded = (int) results.stream().filter(result -> result.outcome().succeeded()).count();
+        return new RecipeBulkResponse(succeeded, results.size() - succeeded, results);
+    }
+}
@@ -0,0 +1,54 @@
+package com.mcon152.recipeshare.web;
+
+import com.mcon152.recipeshare.domain.Recipe;
+import com.mcon152.recipeshare.search.RecipeIndex;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Version of the recipe collection as a whole, used to validate list responses without reading
+ * them. Registered as a {@link RecipeIndex}, so every write forwarded by the RecipeIndexer bumps
+ * the counter. Writes are only forwarded once they have committed: a list read never pairs the
+ * new ETag with the old rows, and a rolled-back write leaves the version alone. The counter
+ * lives in memory and restarts with the application; the ETag carries the start time so a
+ * restarted instance never confirms a list it did not produce.
+ */
+@Component
+public class RecipeCollectionVersion implements RecipeIndex {
+
+    private record Version(long counter, long modifiedMillis) {}
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicReference<Version> current = new AtomicReference<>(new Version(0, System.currentTimeMillis()));
+
+    /** Strong ETag of the current version, e.g. {@code "c-m1x2y3z4-17"}. */
+    public String etag() {
+        return "\"c-" + epoch + "-" + current.get().counter() + "\"";
+    }
+
+    /** Epoch milliseconds of the last write, or of the start if there was none. */
+    public long lastModified() {
+        return current.get().modifiedMillis();
+    }
+
+    @Override
+    public void index(Recipe recipe) {
+        bump();
+    }
+
+    @Override
+    public void remove(long recipeId) {
+        bump();
+    }
+
+    @Override
+    public void clear() {
+        bump();
+    }
+
+    private void bump() {
+        long now = System.currentTimeMillis();
+        current.updateAndGet(v -> new Version(v.counter() + 1, Math.max(now, v.modifiedMillis())));
+    }
+}
@@ -2,15 +2,31 @@ package com.mcon152.recipeshare.web;
 
 import com.mcon152.recipeshare.domain.Recipe;
 import com.mcon152.recipeshare.domain.RecipeRegistry;
+import com.mcon152.recipeshare.repository.RecipeField;
+import com.mcon152.recipeshare.repository.RecipeVersion;
+import com.mcon152.recipeshare.service.RecipeBulkOperation;
+import com.mcon152.recipeshare.service.RecipeBulkResult;
+import com.mcon152.recipeshare.service.RecipeBulkService;
 import com.mcon152.recipeshare.service.RecipeService;
+import com.mcon152.recipeshare.service.RecipeSortOrder;
 import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import org.slf4j.LoggerFactory;
 
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 
 
 @RestController
@@ -18,9 +34,22 @@ import java.util.List;
 public class RecipeController {
     Logger logger = LoggerFactory.getLogger(RecipeController.class);
     private final RecipeService recipeService;
+    private final RecipeJsonCache recipeJson;
+    private final RecipeCollectionVersion collectionVersion;
+    private final RecipeBulkService bulkService;
 
-    public RecipeController(RecipeService recipeService) {
+    @Value("${recipeshare.concurrency.require-if-match:false}")
+    private boolean requireIfMatch = false;
+
+    @Value("${recipeshare.bulk.max-items:1000}")
+    private int maxBulkItems = 1000;
+
+    public RecipeController(RecipeService recipeService, RecipeJsonCache recipeJson,
+                            RecipeCollectionVersion collectionVersion, RecipeBulkService bulkService) {
         this.recipeService = recipeService;
+        this.recipeJson = recipeJson;
+        this.collectionVersion = collectionVersion;
+        this.bulkService = bulkService;
     }
 
     /**
@@ -46,20 +75,168 @@ public class RecipeController {
     }
 
     /**
-     * Retrieve all recipes. 200 OK.
+     * Bulk create, replace and delete, e.g. {@code [{"op":"create","recipe":{...}},
+     * {"op":"update","id":7,"recipe":{...}}, {"op":"delete","id":8}]} (see {@link RecipeBulkRequest}).
+     * <p>
+     * 200 OK with one result per item in request order ({@link RecipeBulkResponse}), whether or
+     * not single items failed: a malformed item, a missing recipe or a record the database
+     * rejects only fails that item. An empty list or one longer than
+     * {@code recipeshare.bulk.max-items} yields 400 Bad Request.
+     */
+    @PostMapping("/bulk")
+    public ResponseEntity<RecipeBulkResponse> bulkWrite(@RequestBody List<RecipeBulkRequest> items) {
+        if (items == null || items.isEmpty() || items.size() > maxBulkItems) {
+            logger.debug("Rejected bulk request of {} items", items == null ? 0 : items.size());
+            return ResponseEntity.badRequest().build();
+        }
+        // Malformed items are answered here, the rest goes to the service in one call
+        List<RecipeBulkResult> results = new ArrayList<>();
+        List<RecipeBulkOperation> operations = new ArrayList<>();
+        for (int i = 0; i < items.size(); i++) {
+            RecipeBulkRequest item = items.get(i);
+            try {
+                if (item == null) throw new IllegalArgumentException("Missing item");
+                operations.add(item.toOperation(i));
+            } catch (IllegalArgumentException e) {
+                results.add(RecipeBulkResult.invalid(i, item != null ? item.id() : null, e.getMessage()));
+            }
+        }
+        if (!operations.isEmpty()) {
+            results.addAll(bulkService.apply(operations));
+        }
+        results.sort(Comparator.comparingInt(RecipeBulkResult::index));
+        return ResponseEntity.ok(RecipeBulkResponse.of(results));
+    }
+
+    /**
+     * Retrieve recipes, one keyset page at a time. 200 OK.
+     * <p>
+     * The response is a single page ({@link PageResponse}) of {@code size} recipes, or the
+     * default page size when {@code size} is omitted, with a {@code Link: rel="next"} header
+     * while more remain; {@code sort} may be {@code id} (default) or {@code updatedAt}. An invalid cursor or sort yields 400 Bad Request.
+     * Bodies are assembled from the pre-encoded JSON in {@link RecipeJsonCache}.
+     * <p>
+     * {@code fields} selects a sparse fieldset such as {@code title,servings,tags}: only those
+     * columns are read and returned (plus {@code id}); an unknown field yields 400 Bad Request.
+     * <p>
+     * {@code ids=3,1,2} turns the request into a multi-get, see {@link #getRecipesByIds}.
+     * <p>
+     * List responses carry the {@link RecipeCollectionVersion} as {@code ETag} and
+     * {@code Last-Modified}; a matching {@code If-None-Match} or {@code If-Modified-Since} is
+     * answered with 304 Not Modified before anything is read.
      */
     @GetMapping
-    public ResponseEntity<List<Recipe>> getAllRecipes() {
-        return ResponseEntity.ok(recipeService.getAllRecipes());
+    public ResponseEntity<?> getAllRecipes(@RequestParam(required = false) String cursor,
+                                           @RequestParam(required = false) Integer size,
+                                           @RequestParam(required = false) String sort,
+                                           @RequestParam(required = false) String fields,
+                                           @RequestParam(required = false) List<Long> ids,
+                                           WebRequest request) {
+        if (collectionNotModified(request)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+        }
+        if (ids != null) {
+            return getRecipesByIds(new RecipeIdsRequest(ids));
+        }
+        try {
+            if (fields != null) {
+                return getRecipeFields(RecipeField.parse(fields), cursor, size, sort);
+            }
+            return recipeJson.ok(recipeService.getRecipePage(RecipeSortOrder.fromParam(sort), cursor, size));
+        } catch (IllegalArgumentException e) {
+            logger.debug("Rejected page request: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    private ResponseEntity<?> getRecipeFields(Set<RecipeField> fields, String cursor, Integer size, String sort) {
+        return PageResponse.ok(recipeService.getRecipeFieldPage(fields, RecipeSortOrder.fromParam(sort), cursor, size));
+    }
+
+    /**
+     * Multi-get for long id lists. 200 OK with {@code {"items": [...], "missing": [...]}}: the
+     * recipes in request order, loaded with one query, and the ids that do not exist. An empty
+     * or oversized list yields 400 Bad Request.
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<byte[]> getRecipesByIds(@RequestBody RecipeIdsRequest request) {
+        try {
+            return recipeJson.ok(recipeService.getRecipesByIds(request.ids()));
+        } catch (IllegalArgumentException e) {
+            logger.debug("Rejected batch request: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Recipes carrying the given tag (case-insensitive). Paged like {@link #getAllRecipes} when
+     * {@code size} or {@code cursor} is given, otherwise returns the full list. 200 OK, or 304
+     * Not Modified like {@link #getAllRecipes}.
+     */
+    @GetMapping("/by-tag/{tagName}")
+    public ResponseEntity<byte[]> getRecipesByTag(@PathVariable String tagName,
+                                                  @RequestParam(required = false) String cursor,
+                                                  @RequestParam(required = false) Integer size,
+                                                  WebRequest request) {
+        if (collectionNotModified(request)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+        }
+        if (cursor == null && size == null) {
+            return recipeJson.ok(recipeService.findRecipesByTag(tagName));
+        }
+        try {
+            return recipeJson.ok(recipeService.findRecipesByTag(tagName, cursor, size));
+        } catch (IllegalArgumentException e) {
+            logger.debug("Rejected page request: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     /**
-     * Retrieve a recipe by id. 200 OK or 404 Not Found.
+     * Recipes carrying the tag with the given id. Paged when {@code size} or {@code cursor} is given.
+     * 200 OK, or 304 Not Modified like {@link #getAllRecipes}.
+     */
+    @GetMapping("/by-tag-id/{tagId}")
+    public ResponseEntity<byte[]> getRecipesByTagId(@PathVariable long tagId,
+                                                    @RequestParam(required = false) String cursor,
+                                                    @RequestParam(required = false) Integer size,
+                                                    WebRequest request) {
+        if (collectionNotModified(request)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+        }
+        if (cursor == null && size == null) {
+            return recipeJson.ok(recipeService.findRecipesByTagId(tagId));
+        }
+        try {
+            return recipeJson.ok(recipeService.findRecipesByTagId(tagId, cursor, size));
+        } catch (IllegalArgumentException e) {
+            logger.debug("Rejected page request: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Retrieve a recipe by id, written from its cached JSON with a strong {@code ETag} (see
+     * {@link RecipeETags}) and {@code Last-Modified}. 200 OK or 404 Not Found.
+     * <p>
+     * Conditional requests ({@code If-None-Match} / {@code If-Modified-Since}) are first checked
+     * against the recipe's version and {@code updatedAt} alone; if they still match, the answer is 304 Not
+     * Modified without loading or serializing the recipe.
      */
     @GetMapping("/{id}")
-    public ResponseEntity<Recipe> getRecipeById(@PathVariable long id) {
+    public ResponseEntity<byte[]> getRecipeById(@PathVariable long id, WebRequest request) {
+        if (isConditional(request)) {
+            Optional<RecipeVersion> current = recipeService.getRecipeVersion(id);
+            if (current.isEmpty()) {
+                return ResponseEntity.notFound().build();
+            }
+            String etag = RecipeETags.of(id, current.get().version());
+            if (etag != null && request.checkNotModified(etag, RecipeETags.lastModified(current.get().updatedAt()))) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+            }
+        }
         return recipeService.getRecipeById(id)
-                .map(ResponseEntity::ok)
+                .map(recipeJson::ok)
                 .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
@@ -79,24 +256,78 @@ public class RecipeController {
     }
 
     /**
-     * Replace a recipe (full update). 200 OK with updated entity or 404 Not Found.
+     * Replace a recipe (full update). 200 OK with the updated entity and its new {@code ETag},
+     * or 404 Not Found.
+     * <p>
+     * With {@code If-Match} the update only applies to that version of the recipe, otherwise the
+     * answer is 412 Precondition Failed with the current {@code ETag}. Without the header the
+     * update is unconditional (or rejected with 428 Precondition Required when
+     * {@code recipeshare.concurrency.require-if-match} is set); losing a race against a concurrent
+     * update then yields 409 Conflict.
      */
     @PutMapping("/{id}")
-    public ResponseEntity<Recipe> updateRecipe(@PathVariable long id, @RequestBody RecipeRequest updatedRequest) {
+    public ResponseEntity<Recipe> updateRecipe(@PathVariable long id, @RequestBody RecipeRequest updatedRequest,
+                                               @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         Recipe updatedRecipe = RecipeRegistry.createFromRequest(updatedRequest);
-        return recipeService.updateRecipe(id, updatedRecipe)
-                .map(ResponseEntity::ok)
-                .orElseGet(() -> ResponseEntity.notFound().build());
+        return write(id, ifMatch, expectedVersion -> expectedVersion == null
+                ? recipeService.updateRecipe(id, updatedRecipe)
+                : recipeService.updateRecipe(id, updatedRecipe, expectedVersion));
     }
 
     /**
-     * Partial update. 200 OK with updated entity or 404 Not Found.
+     * Partial update. 200 OK with the updated entity and its new {@code ETag}, or 404 Not Found.
+     * Preconditions work as for {@link #updateRecipe}, except that a stale {@code If-Match} is
+     * still accepted when the newer versions changed none of the fields this patch sets, so
+     * concurrent patches of different fields do not need a retry.
      */
     @PatchMapping("/{id}")
-    public ResponseEntity<Recipe> patchRecipe(@PathVariable long id, @RequestBody RecipeRequest partialRequest) {
+    public ResponseEntity<Recipe> patchRecipe(@PathVariable long id, @RequestBody RecipeRequest partialRequest,
+                                              @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         Recipe partialRecipe = RecipeRegistry.createFromRequest(partialRequest);
-        return recipeService.patchRecipe(id, partialRecipe)
-                .map(ResponseEntity::ok)
-                .orElseGet(() -> ResponseEntity.notFound().build());
+        return write(id, ifMatch, expectedVersion -> expectedVersion == null
+                ? recipeService.patchRecipe(id, partialRecipe)
+                : recipeService.patchRecipe(id, partialRecipe, expectedVersion));
+    }
+
+    /** Evaluates {@code If-Match} and runs the update with the version it names (null for none or "*"). */
+    private ResponseEntity<Recipe> write(long id, String ifMatch, Function<Long, Optional<Recipe>> update) {
+        if (ifMatch == null && requireIfMatch) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_REQUIRED).build();
+        }
+        Long expectedVersion = null;
+        if (ifMatch != null && !"*".equals(ifMatch.trim())) {
+            expectedVersion = RecipeETags.versionIn(id, ifMatch);
+            if (expectedVersion == null) return preconditionFailed(id);
+        }
+        try {
+            return update.apply(expectedVersion)
+                    .map(saved -> {
+                        String etag = RecipeETags.of(saved);
+                        return etag != null ? ResponseEntity.ok().eTag(etag).body(saved) : ResponseEntity.ok(saved);
+                    })
+                    .orElseGet(() -> ResponseEntity.notFound().build());
+        } catch (OptimisticLockingFailureException e) {
+            logger.debug("Rejected concurrent update of recipe {}: {}", id, e.getMessage());
+            return expectedVersion != null ? preconditionFailed(id) : ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+
+    /** 412 with the recipe's current ETag, so the client can re-read and retry. */
+    private ResponseEntity<Recipe> preconditionFailed(long id) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(HttpStatus.PRECONDITION_FAILED);
+        recipeService.getRecipeVersion(id)
+                .map(current -> RecipeETags.of(id, current.version()))
+                .ifPresent(response::eTag);
+        return response.build();
+    }
+
+    private static boolean isConditional(WebRequest request) {
+        return request.getHeader(HttpHeaders.IF_NONE_MATCH) != null
+                || request.getHeader(HttpHeaders.IF_MODIFIED_SINCE) != null;
+    }
+
+    /** Checks the request against the collection version; also sets its ETag and Last-Modified. */
+    private boolean collectionNotModified(WebRequest request) {
+        return request.checkNotModified(collectionVersion.etag(), collectionVersion.lastModified());
     }
 }
@@ -0,0 +1,49 @@
+package com.mcon152.recipeshare.web;
+
+import com.mcon152.recipeshare.domain.Recipe;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Validators of a single recipe. The strong ETag is derived from the id and the optimistic lock
+ * version, so it changes with every committed update and can be handed back in {@code If-Match}
+ * to make a PUT or PATCH conditional on that version; {@code Last-Modified} comes from
+ * {@code updatedAt}.
+ */
+final class RecipeETags {
+
+    private RecipeETags() {}
+
+    /** Strong ETag such as {@code "r42-v3"}, or null when the recipe has no version yet. */
+    static String of(long id, Long version) {
+        return version == null ? null : "\"r" + id + "-v" + version + "\"";
+    }
+
+    static String of(Recipe recipe) {
+        return recipe.getId() == null ? null : of(recipe.getId(), recipe.getVersion());
+    }
+
+    /** {@code updatedAt} as epoch milliseconds for {@code Last-Modified}, or -1 if unknown. */
+    static long lastModified(LocalDateTime updatedAt) {
+        return updatedAt == null ? -1 : updatedAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /**
+     * The version named by the first strong ETag of this recipe in an {@code If-Match} value
+     * (a comma separated list), or null if the list names none.
+     */
+    static Long versionIn(long id, String ifMatch) {
+        String prefix = "\"r" + id + "-v";
+        for (String etag : ifMatch.split(",")) {
+            String candidate = etag.trim();
+            if (!candidate.startsWith(prefix) || !candidate.endsWith("\"")) continue;
+            try {
+                return Long.parseLong(candidate.substring(prefix.length(), candidate.length() - 1));
+            } catch (NumberFormatException e) {
+                // not one of ours, try the next one
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,124 @@
+package com.mcon152.recipeshare.web;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mcon152.recipeshare.repository.RecipeField;
+import com.mcon152.recipeshare.service.RecipeService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Full catalog dumps for offline processing. Kept apart from {@link RecipeController}: responses
+ * are streamed while the database is read instead of being assembled first.
+ */
+@RestController
+@RequestMapping("/api/recipes")
+public class RecipeExportController {
+    Logger logger = LoggerFactory.getLogger(RecipeExportController.class);
+
+    static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final RecipeService recipeService;
+    private final ObjectMapper objectMapper;
+
+    public RecipeExportController(RecipeService recipeService, ObjectMapper objectMapper) {
+        this.recipeService = recipeService;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Every recipe as newline-delimited JSON, one object per line in id order, written while the
+     * rows are read from a database cursor (see {@link RecipeService#exportRecipeFields}), so
+     * memory use does not grow with the catalog. {@code fields} selects a sparse fieldset as on
+     * {@code GET /api/recipes}; by default all fields are exported, in the same shape as there.
+     * <p>
+     * Compressed with {@code Content-Encoding: gzip} unless the client does not accept it.
+     * 200 OK, or 400 Bad Request for an unknown field.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportRecipes(
+            @RequestParam(required = false) String fields,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        Set<RecipeField> selected;
+        try {
+            selected = fields == null ? EnumSet.allOf(RecipeField.class) : RecipeField.parse(fields);
+        } catch (IllegalArgumentException e) {
+            logger.debug("Rejected export request: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+
+        boolean gzip = acceptsGzip(acceptEncoding);
+        StreamingResponseBody body = out -> {
+            ExportGzip compressed = gzip ? new ExportGzip(out) : null;
+            OutputStream target = compressed != null ? compressed : out;
+            try {
+                try (JsonGenerator generator = objectMapper.getFactory().createGenerator(target)) {
+                    generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                    recipeService.exportRecipeFields(selected, row -> writeLine(generator, row));
+                } catch (UncheckedIOException e) {
+                    throw e.getCause();
+                }
+                if (compressed != null) compressed.finish();
+            } finally {
+                // Also when the client went away mid-export, or the Deflater holds native memory until GC
+                if (compressed != null) compressed.release();
+            }
+        };
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(NDJSON)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        return response.body(body);
+    }
+
+    private static void writeLine(JsonGenerator generator, Object row) {
+        try {
+            generator.writeObject(row);
+            generator.writeRaw('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Gzip stream whose deflater can be released without closing the response stream underneath. */
+    private static final class ExportGzip extends GZIPOutputStream {
+        ExportGzip(OutputStream out) throws IOException {
+            super(out, BUFFER_SIZE);
+        }
+
+        void release() {
+            def.end();
+        }
+    }
+
+    /** Gzip unless the header is present and lists neither {@code gzip} nor {@code *}, or refuses it with q=0. */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) return true;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            String name = parts[0].trim();
+            if (!name.equalsIgnoreCase("gzip") && !name.equals("*")) continue;
+            boolean refused = parts.length > 1 && parts[1].trim().replace(" ", "").matches("q=0(\\.0*)?");
+            return !refused;
+        }
+        return false;
+    }
+}
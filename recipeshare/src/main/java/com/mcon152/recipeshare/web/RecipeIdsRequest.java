@@ -0,0 +1,6 @@
+package com.mcon152.recipeshare.web;
+
+import java.util.List;
+
+/** Body of {@code POST /api/recipes/batch}, for id lists too long for a query string. */
+public record RecipeIdsRequest(List<Long> ids) {}
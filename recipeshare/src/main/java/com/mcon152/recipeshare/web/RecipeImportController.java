@@ -0,0 +1,142 @@
+package com.mcon152.recipeshare.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mcon152.recipeshare.loader.RecipeImportJob;
+import com.mcon152.recipeshare.loader.RecipeImportJobs;
+import com.mcon152.recipeshare.loader.RecipeImportStatus;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Background imports of large recipe files, in the format of {@code data/recipes.json} (see
+ * {@link com.mcon152.recipeshare.loader.RecipeRecord}) either as one JSON array or as NDJSON,
+ * one recipe per line. Kept apart from {@link RecipeController}: the upload is not bound to
+ * objects but handed to {@link RecipeImportJobs} as a stream, which the import thread reads while
+ * it imports. The request is put in asynchronous mode, so no request thread waits for the upload.
+ */
+@RestController
+@RequestMapping("/api/recipes/import")
+public class RecipeImportController {
+    Logger logger = LoggerFactory.getLogger(RecipeImportController.class);
+
+    private final RecipeImportJobs importJobs;
+    private final ObjectMapper objectMapper;
+
+    @Value("${recipeshare.import.upload-timeout-ms:3600000}")
+    private long uploadTimeoutMillis = 3_600_000;
+
+    public RecipeImportController(RecipeImportJobs importJobs, ObjectMapper objectMapper) {
+        this.importJobs = importJobs;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Start an import of the request body.
+     * Returns 202 Accepted with the job's status and a Location header to poll it as soon as the
+     * job is queued; the body is read afterwards, by the import. 413 Payload Too Large if the
+     * declared length exceeds {@code recipeshare.import.max-bytes} (a longer body without one fails
+     * the job), or 503 Service Unavailable if too many imports are already waiting.
+     */
+    @PostMapping
+    public void startImport(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (request.getContentLengthLong() > importJobs.maxBytes()) {
+            logger.debug("Rejected import of {} bytes", request.getContentLengthLong());
+            response.setStatus(HttpStatus.PAYLOAD_TOO_LARGE.value());
+            return;
+        }
+        RecipeImportJob job;
+        try {
+            job = importJobs.reserve();
+        } catch (RejectedExecutionException e) {
+            logger.debug("Rejected import: {}", e.getMessage());
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            return;
+        }
+
+        AsyncContext async = request.startAsync();
+        async.setTimeout(uploadTimeoutMillis);
+        Runnable complete = completeOnce(async);
+        InputStream upload;
+        try {
+            upload = request.getInputStream();
+            URI location = ServletUriComponentsBuilder
+                    .fromRequest(request)
+                    .path("/{id}")
+                    .buildAndExpand(job.getId())
+                    .toUri();
+            response.setStatus(HttpStatus.ACCEPTED.value());
+            response.setHeader(HttpHeaders.LOCATION, location.toString());
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getOutputStream().write(objectMapper.writeValueAsBytes(job.status()));
+            response.flushBuffer();
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Could not answer import upload: {}", e.getMessage());
+            importJobs.abandon(job, "Upload could not be received");
+            complete.run();
+            return;
+        }
+        importJobs.start(job, upload, complete);
+    }
+
+    /** Completes the request once, whether the import ends it or the upload timed out or broke. */
+    private static Runnable completeOnce(AsyncContext async) {
+        AtomicBoolean completed = new AtomicBoolean();
+        Runnable complete = () -> {
+            if (completed.compareAndSet(false, true)) async.complete();
+        };
+        async.addListener(new AsyncListener() {
+            @Override
+            public void onComplete(AsyncEvent event) {
+                completed.set(true);
+            }
+
+            @Override
+            public void onTimeout(AsyncEvent event) {
+                complete.run();
+            }
+
+            @Override
+            public void onError(AsyncEvent event) {
+                complete.run();
+            }
+
+            @Override
+            public void onStartAsync(AsyncEvent event) {
+            }
+        });
+        return complete;
+    }
+
+    /**
+     * Progress of an import: records read, imported and failed so far, throughput and the first
+     * errors. 200 OK, or 404 Not Found for an unknown or expired job.
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<RecipeImportStatus> getImport(@PathVariable String id) {
+        return importJobs.find(id)
+                .map(job -> ResponseEntity.ok(job.status()))
+                .orElse(ResponseEntity.notFound().build());
+    }
+}
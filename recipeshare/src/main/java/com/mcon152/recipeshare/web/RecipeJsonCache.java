@@ -0,0 +1,176 @@
+package com.mcon152.recipeshare.web;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mcon152.recipeshare.domain.Recipe;
+import com.mcon152.recipeshare.domain.Tag;
+import com.mcon152.recipeshare.search.RecipeIndex;
+import com.mcon152.recipeshare.service.CursorPage;
+import com.mcon152.recipeshare.service.RecipeBatch;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Encoded JSON of each recipe, so hot recipes are serialized once rather than on every request.
+ * <p>
+ * Entries are keyed by id and remember the {@code updatedAt} they were encoded from; a recipe
+ * with a different timestamp is re-encoded. Tag changes do not always bump {@code updatedAt}, so
+ * the cache is also registered as a {@link RecipeIndex}: every write that RecipeServiceImpl
+ * forwards through the RecipeIndexer evicts the entry. The JSON also embeds the author's display
+ * name and the tag names, which change without touching the recipe; entries remember the author
+ * and tag ids they were encoded with, and {@link RecipeJsonCacheListener} evicts the entries that
+ * reference a user or tag when it is updated or deleted. Lists are built by concatenating the
+ * cached bytes. Bounded by total encoded size.
+ */
+@Component
+public class RecipeJsonCache implements RecipeIndex {
+
+    private static final byte[] ITEMS = "{\"items\":".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] NEXT_CURSOR = ",\"nextCursor\":".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] NEXT = ",\"next\":".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] MISSING = ",\"missing\":".getBytes(StandardCharsets.UTF_8);
+
+    private record Entry(LocalDateTime updatedAt, byte[] json, Long authorId, long[] tagIds) {
+
+        boolean hasTag(long tagId) {
+            for (long id : tagIds) {
+                if (id == tagId) return true;
+            }
+            return false;
+        }
+    }
+
+    private final ObjectMapper objectMapper;
+    private final Cache<Long, Entry> cache;
+
+    public RecipeJsonCache(ObjectMapper objectMapper,
+                           @Value("${recipeshare.json-cache.max-bytes:67108864}") long maxBytes) {
+        this.objectMapper = objectMapper;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((Long id, Entry entry) -> entry.json().length)
+                .build();
+    }
+
+    /** The recipe's JSON, from the cache when it was encoded from the same version. */
+    public byte[] json(Recipe recipe) {
+        if (recipe.getId() == null || recipe.getUpdatedAt() == null) return encode(recipe);
+        Entry entry = cache.getIfPresent(recipe.getId());
+        if (entry != null && Objects.equals(entry.updatedAt(), recipe.getUpdatedAt())) {
+            return entry.json();
+        }
+        byte[] json = encode(recipe);
+        Long authorId = recipe.getAuthor() != null ? recipe.getAuthor().getId() : null;
+        long[] tagIds = recipe.getTags() == null ? new long[0] : recipe.getTags().stream()
+                .map(Tag::getId)
+                .filter(Objects::nonNull)
+                .mapToLong(Long::longValue)
+                .toArray();
+        cache.put(recipe.getId(), new Entry(recipe.getUpdatedAt(), json, authorId, tagIds));
+        return json;
+    }
+
+    /** A JSON array of the recipes. */
+    public byte[] array(List<Recipe> recipes) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(recipes.size() * 512 + 2);
+        writeArray(out, recipes);
+        return out.toByteArray();
+    }
+
+    /** 200 OK with a single recipe and its {@code ETag} and {@code Last-Modified} (see {@link RecipeETags}). */
+    ResponseEntity<byte[]> ok(Recipe recipe) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON);
+        String etag = RecipeETags.of(recipe);
+        if (etag != null) {
+            response.eTag(etag).lastModified(RecipeETags.lastModified(recipe.getUpdatedAt()));
+        }
+        return response.body(json(recipe));
+    }
+
+    /** 200 OK with a JSON array of recipes. */
+    ResponseEntity<byte[]> ok(List<Recipe> recipes) {
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(array(recipes));
+    }
+
+    /** 200 OK with the same body and {@code Link} header as {@link PageResponse#ok}. */
+    ResponseEntity<byte[]> ok(CursorPage<Recipe> page) {
+        String next = page.hasNext() ? PageResponse.nextUrl(page.nextCursor()) : null;
+        ByteArrayOutputStream out = new ByteArrayOutputStream(page.items().size() * 512 + 256);
+        out.writeBytes(ITEMS);
+        writeArray(out, page.items());
+        out.writeBytes(NEXT_CURSOR);
+        out.writeBytes(encode(page.hasNext() ? page.nextCursor() : null));
+        out.writeBytes(NEXT);
+        out.writeBytes(encode(next));
+        out.write('}');
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON);
+        if (next != null) response.header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+        return response.body(out.toByteArray());
+    }
+
+    /** 200 OK with {@code {"items": [...], "missing": [...]}} for a multi-get. */
+    ResponseEntity<byte[]> ok(RecipeBatch batch) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(batch.items().size() * 512 + 64);
+        out.writeBytes(ITEMS);
+        writeArray(out, batch.items());
+        out.writeBytes(MISSING);
+        out.writeBytes(encode(batch.missing()));
+        out.write('}');
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(out.toByteArray());
+    }
+
+    @Override
+    public void index(Recipe recipe) {
+        cache.invalidate(recipe.getId());
+    }
+
+    @Override
+    public void remove(long recipeId) {
+        cache.invalidate(recipeId);
+    }
+
+    @Override
+    public void clear() {
+        cache.invalidateAll();
+    }
+
+    /** Evicts the recipes by this author; user changes are rare, so this scans the cache. */
+    public void evictAuthor(long userId) {
+        cache.asMap().values().removeIf(entry -> entry.authorId() != null && entry.authorId() == userId);
+    }
+
+    /** Evicts the recipes with this tag; tag changes are rare, so this scans the cache. */
+    public void evictTag(long tagId) {
+        cache.asMap().values().removeIf(entry -> entry.hasTag(tagId));
+    }
+
+    private void writeArray(ByteArrayOutputStream out, List<Recipe> recipes) {
+        out.write('[');
+        for (int i = 0; i < recipes.size(); i++) {
+            if (i > 0) out.write(',');
+            out.writeBytes(json(recipes.get(i)));
+        }
+        out.write(']');
+    }
+
+    private byte[] encode(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.mcon152.recipeshare.web;
+
+import com.mcon152.recipeshare.domain.AppUser;
+import com.mcon152.recipeshare.domain.Tag;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * JPA entity listener on {@link AppUser} and {@link Tag} that evicts the cached JSON of every
+ * recipe embedding a renamed or deleted author or tag (see {@link RecipeJsonCache}). Eviction
+ * waits for the transaction to commit, so a concurrent read cannot re-cache the old name after it.
+ * Inserts need no listener: a new user or tag is not yet part of any cached recipe.
+ */
+public class RecipeJsonCacheListener {
+
+    private final ObjectProvider<RecipeJsonCache> recipeJson;
+
+    public RecipeJsonCacheListener(ObjectProvider<RecipeJsonCache> recipeJson) {
+        this.recipeJson = recipeJson;
+    }
+
+    @PostUpdate
+    @PostRemove
+    public void onChanged(Object entity) {
+        if (entity instanceof AppUser user && user.getId() != null) {
+            long id = user.getId();
+            afterCommit(() -> recipeJson.ifAvailable(cache -> cache.evictAuthor(id)));
+        } else if (entity instanceof Tag tag && tag.getId() != null) {
+            long id = tag.getId();
+            afterCommit(() -> recipeJson.ifAvailable(cache -> cache.evictTag(id)));
+        }
+    }
+
+    /** Runs the action after the current transaction commits, or right away outside of one. */
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
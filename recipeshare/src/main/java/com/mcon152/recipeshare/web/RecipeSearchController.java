@@ -0,0 +1,133 @@
+package com.mcon152.recipeshare.web;
+
+import com.mcon152.recipeshare.domain.Recipe;
+import com.mcon152.recipeshare.search.Facet;
+import com.mcon152.recipeshare.search.FuzzyIndex;
+import com.mcon152.recipeshare.search.PantryMatch;
+import com.mcon152.recipeshare.search.RecipeSearchService;
+import com.mcon152.recipeshare.search.SearchHit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Search endpoints backed by the in-memory recipe indexes. Kept apart from {@link RecipeController},
+ * which stays a plain CRUD controller over the database.
+ */
+@RestController
+@RequestMapping("/api/recipes")
+public class RecipeSearchController {
+    Logger logger = LoggerFactory.getLogger(RecipeSearchController.class);
+    private final RecipeSearchService searchService;
+
+    public RecipeSearchController(RecipeSearchService searchService) {
+        this.searchService = searchService;
+    }
+
+    /**
+     * Full-text search, e.g. {@code ?q=creamy pasta}, ranked by BM25 over title, description,
+     * ingredients and instructions. With {@code fuzzy=true} it is a typo-tolerant title search
+     * instead ({@code ?q=carbonarra&fuzzy=true}). Returns at most {@code size} hits, best first.
+     * 200 OK or 400 Bad Request if the query has no searchable terms.
+     */
+    @GetMapping("/search")
+    public ResponseEntity<List<SearchHit>> search(@RequestParam String q,
+                                                  @RequestParam(defaultValue = "false") boolean fuzzy,
+                                                  @RequestParam(required = false) Integer size) {
+        try {
+            return ResponseEntity.ok(fuzzy ? searchService.fuzzySearch(q, size) : searchService.search(q, size));
+        } catch (IllegalArgumentException e) {
+            logger.debug("Rejected search '{}': {}", q, e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Typo-tolerant tag name lookup, e.g. {@code ?q=vegitarian}, closest names first. 200 OK.
+     */
+    @GetMapping("/search/tags")
+    public ResponseEntity<List<FuzzyIndex.TagMatch>> searchTags(@RequestParam String q,
+                                                                @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(searchService.fuzzyTags(q, size));
+    }
+
+    /**
+     * "What can I cook", e.g. {@code ?have=spaghetti,eggs,pancetta&maxMissing=2}: recipes that can
+     * be made from the pantry with at most {@code maxMissing} extra ingredients, fewest missing
+     * first. 200 OK or 400 Bad Request for a negative limit or a pantry without ingredients.
+     */
+    @GetMapping("/pantry")
+    public ResponseEntity<List<PantryMatch>> findByPantry(@RequestParam List<String> have,
+                                                          @RequestParam(defaultValue = "2") int maxMissing,
+                                                          @RequestParam(required = false) Integer size) {
+        try {
+            return ResponseEntity.ok(searchService.findByPantry(have, maxMissing, size));
+        } catch (IllegalArgumentException e) {
+            logger.debug("Rejected pantry search {}: {}", have, e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * "Recipes like this one" by ingredient and tag overlap, most similar first; the score is the
+     * estimated Jaccard similarity. 200 OK or 404 Not Found if the recipe does not exist.
+     */
+    @GetMapping("/{id}/similar")
+    public ResponseEntity<List<SearchHit>> findSimilar(@PathVariable long id,
+                                                       @RequestParam(required = false) Integer size) {
+        return searchService.findSimilar(id, size)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Boolean tag filter, e.g. {@code ?q=vegetarian AND quick AND NOT dessert}. Supports AND, OR,
+     * NOT and parentheses. Always paged (see {@link PageResponse}). 200 OK or 400 Bad Request
+     * for a malformed expression or cursor.
+     */
+    @GetMapping("/tag-query")
+    public ResponseEntity<PageResponse<Recipe>> findByTagQuery(@RequestParam String q,
+                                                               @RequestParam(required = false) String cursor,
+                                                               @RequestParam(required = false) Integer size) {
+        try {
+            return PageResponse.ok(searchService.findByTagQuery(q, cursor, size));
+        } catch (IllegalArgumentException e) {
+            logger.debug("Rejected tag query '{}': {}", q, e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Faceted search: filters by any of {@code type}, {@code tag}, {@code author} (id) and
+     * {@code servings} (bucket such as {@code 3-4}), each repeatable, and returns one page of
+     * matches with counts for every facet. 200 OK or 400 Bad Request for a malformed cursor.
+     */
+    @GetMapping("/facets")
+    public ResponseEntity<FacetedSearchResponse> facetedSearch(@RequestParam(required = false) List<String> type,
+                                                               @RequestParam(required = false) List<String> tag,
+                                                               @RequestParam(required = false) List<String> author,
+                                                               @RequestParam(required = false) List<String> servings,
+                                                               @RequestParam(required = false) String cursor,
+                                                               @RequestParam(required = false) Integer size) {
+        Map<Facet, List<String>> filters = new EnumMap<>(Facet.class);
+        if (type != null) filters.put(Facet.TYPE, type);
+        if (tag != null) filters.put(Facet.TAG, tag);
+        if (author != null) filters.put(Facet.AUTHOR, author);
+        if (servings != null) filters.put(Facet.SERVINGS, servings);
+        try {
+            return ResponseEntity.ok(FacetedSearchResponse.of(searchService.facetedSearch(filters, cursor, size)));
+        } catch (IllegalArgumentException e) {
+            logger.debug("Rejected faceted search: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+}
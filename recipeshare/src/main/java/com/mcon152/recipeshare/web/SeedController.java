@@ -0,0 +1,27 @@
+package com.mcon152.recipeshare.web;
+
+import com.mcon152.recipeshare.loader.SeedProgress;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/seed")
+public class SeedController {
+
+    private final SeedProgress seedProgress;
+
+    public SeedController(SeedProgress seedProgress) {
+        this.seedProgress = seedProgress;
+    }
+
+    /**
+     * Whether the sample data is loaded: state, current phase, users and recipes loaded so far
+     * and elapsed time. Not held back by {@link SeedGateInterceptor}. 200 OK.
+     */
+    @GetMapping
+    public ResponseEntity<SeedProgress.Status> status() {
+        return ResponseEntity.ok(seedProgress.status());
+    }
+}
@@ -0,0 +1,33 @@
+package com.mcon152.recipeshare.web;
+
+import com.mcon152.recipeshare.loader.SeedProgress;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Answers 503 Service Unavailable with a {@code Retry-After} header while the sample data is
+ * still being loaded in the background, so clients do not see a partial catalog or search
+ * results from indexes that are about to be rebuilt. Registered by {@link WebConfig} for the
+ * endpoints that read or write recipes; everything else is served right away.
+ */
+class SeedGateInterceptor implements HandlerInterceptor {
+
+    static final String RETRY_AFTER_SECONDS = "5";
+
+    private final SeedProgress seedProgress;
+
+    SeedGateInterceptor(SeedProgress seedProgress) {
+        this.seedProgress = seedProgress;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (seedProgress.isDone()) return true;
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS);
+        return false;
+    }
+}
@@ -0,0 +1,32 @@
+package com.mcon152.recipeshare.web;
+
+import com.mcon152.recipeshare.search.RecipeSearchService;
+import com.mcon152.recipeshare.search.Suggestions;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Search-box autocomplete, called on every keystroke, so it is answered purely from memory.
+ */
+@RestController
+@RequestMapping("/api/suggest")
+public class SuggestController {
+    private final RecipeSearchService searchService;
+
+    public SuggestController(RecipeSearchService searchService) {
+        this.searchService = searchService;
+    }
+
+    /**
+     * Titles and tag names with a word starting with {@code q}, e.g. {@code ?q=carbo}, most
+     * popular first. An empty prefix gives empty lists. 200 OK.
+     */
+    @GetMapping
+    public ResponseEntity<Suggestions> suggest(@RequestParam(defaultValue = "") String q,
+                                               @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(searchService.suggest(q, size));
+    }
+}
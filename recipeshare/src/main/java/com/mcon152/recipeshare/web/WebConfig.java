@@ -0,0 +1,22 @@
+package com.mcon152.recipeshare.web;
+
+import com.mcon152.recipeshare.loader.SeedProgress;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+    private final SeedProgress seedProgress;
+
+    public WebConfig(SeedProgress seedProgress) {
+        this.seedProgress = seedProgress;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        // Recipes, search and suggestions depend on the sample data and the indexes built from it
+        registry.addInterceptor(new SeedGateInterceptor(seedProgress))
+                .addPathPatterns("/api/recipes", "/api/recipes/**", "/api/suggest", "/api/suggest/**");
+    }
+}
@@ -0,0 +1,97 @@
+package com.mcon152.recipeshare.cache;
+
+import com.mcon152.recipeshare.domain.BasicRecipe;
+import com.mcon152.recipeshare.domain.Recipe;
+import com.mcon152.recipeshare.domain.Tag;
+import com.mcon152.recipeshare.repository.TagRepository;
+import com.mcon152.recipeshare.service.RecipeService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs against the real H2 database: every repository call outside a transaction opens its own
+ * session, so repeated reads can only be served by the second-level cache.
+ */
+@SpringBootTest
+@DisplayName("Second-level cache")
+class SecondLevelCacheTest {
+
+    @Autowired
+    private RecipeService recipeService;
+
+    @Autowired
+    private TagRepository tagRepository;
+
+    @Autowired
+    private CacheStatsService cacheStatsService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    private long hits(String region) {
+        return statistics.getCacheRegionStatistics(region).getHitCount();
+    }
+
+    @Test
+    @DisplayName("repeated reads hit the cache and writes through the service are never served stale")
+    void entityCache() {
+        Recipe saved = recipeService.addRecipe(new BasicRecipe(null, "Cache Soup", "d", "water", "boil", 2));
+        long id = saved.getId();
+        recipeService.getRecipeById(id);
+
+        long before = hits(CacheRegions.RECIPES);
+        assertEquals("Cache Soup", recipeService.getRecipeById(id).orElseThrow().getTitle());
+        assertTrue(hits(CacheRegions.RECIPES) > before);
+
+        Recipe patch = new BasicRecipe();
+        patch.setTitle("Cached Stew");
+        recipeService.patchRecipe(id, patch);
+        assertEquals("Cached Stew", recipeService.getRecipeById(id).orElseThrow().getTitle());
+
+        recipeService.updateRecipe(id, new BasicRecipe(null, "Cached Broth", "d", "water", "boil", 2));
+        assertEquals("Cached Broth", recipeService.getRecipeById(id).orElseThrow().getTitle());
+
+        recipeService.addTagToRecipe(id, new Tag("cache-test"));
+        assertEquals(1, recipeService.getRecipeById(id).orElseThrow().getTags().size());
+
+        assertTrue(recipeService.deleteRecipe(id));
+        assertTrue(recipeService.getRecipeById(id).isEmpty());
+    }
+
+    @Test
+    @DisplayName("findByName results come from the query cache until the tags table changes")
+    void queryCache() {
+        tagRepository.save(new Tag("query-cache-test"));
+        tagRepository.findByName("query-cache-test");
+
+        long before = statistics.getQueryCacheHitCount();
+        assertTrue(tagRepository.findByName("query-cache-test").isPresent());
+        assertTrue(statistics.getQueryCacheHitCount() > before);
+
+        Tag tag = tagRepository.findByName("query-cache-test").orElseThrow();
+        tagRepository.delete(tag);
+        assertTrue(tagRepository.findByName("query-cache-test").isEmpty());
+    }
+
+    @Test
+    @DisplayName("stats list every configured region")
+    void stats() {
+        assertTrue(cacheStatsService.regionStats().stream().map(CacheRegionStats::region).toList()
+                .containsAll(CacheRegions.ENTITY_REGIONS));
+    }
+}
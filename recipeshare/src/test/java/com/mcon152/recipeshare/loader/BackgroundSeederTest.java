@@ -0,0 +1,42 @@
+package com.mcon152.recipeshare.loader;
+
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/** Loading the sample data after startup, with the gated endpoints opening once it is done. */
+@SpringBootTest(properties = "recipeshare.seed.background=true")
+@AutoConfigureMockMvc
+@DisplayName("Background seeding")
+class BackgroundSeederTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    @DisplayName("the data gets ready and the recipe endpoints open")
+    void becomesReady() throws Exception {
+        long deadline = System.currentTimeMillis() + 30_000;
+        String state;
+        do {
+            assertTrue(System.currentTimeMillis() < deadline, "sample data not ready in time");
+            Thread.sleep(20);
+            String status = mockMvc.perform(get("/api/seed"))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            state = JsonPath.read(status, "$.state");
+        } while (!state.equals("READY") && !state.equals("FAILED"));
+
+        assertEquals("READY", state);
+        mockMvc.perform(get("/api/recipes")).andExpect(status().isOk());
+        mockMvc.perform(get("/api/suggest").param("q", "a")).andExpect(status().isOk());
+    }
+}
@@ -0,0 +1,162 @@
+package com.mcon152.recipeshare.loader;
+
+import com.mcon152.recipeshare.domain.AppUser;
+import com.mcon152.recipeshare.domain.Recipe;
+import com.mcon152.recipeshare.domain.Tag;
+import com.mcon152.recipeshare.repository.AppUserRepository;
+import com.mcon152.recipeshare.repository.RecipeRepository;
+import com.mcon152.recipeshare.repository.RecipeTitle;
+import com.mcon152.recipeshare.repository.TagRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.data.domain.Limit;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Seeding from a recipes file and keeping it in sync, with chunks of ten recipes. */
+@SpringBootTest(properties = "recipeshare.import.chunk-size=10")
+@DisplayName("Recipe data loader")
+class RecipeDataLoaderTest {
+
+    private static final int RECIPES = 40;
+
+    @Autowired
+    private RecipeDataLoader loader;
+
+    @Autowired
+    private RecipeRepository recipeRepository;
+
+    @Autowired
+    private AppUserRepository userRepository;
+
+    @Autowired
+    private TagRepository tagRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    @DisplayName("authors and tags are resolved once per chunk, not per recipe")
+    void batchedResolution() throws Exception {
+        String run = UUID.randomUUID().toString().substring(0, 8);
+        AppUser author = userRepository.save(new AppUser("seed-" + run, "pw", "Seeder"));
+        tagRepository.save(new Tag("seed-" + run + "-old"));
+
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < RECIPES; i++) {
+            json.append("{\"type\":\"VEGETARIAN\",\"title\":\"Seeded ").append(run).append(' ').append(i)
+                    .append("\",\"ingredients\":\"i\",\"instructions\":\"n\",\"authorUsername\":\"seed-").append(run)
+                    .append("\",\"tags\":[\"seed-").append(run).append("-old\",\"seed-").append(run).append('-').append(i % 3)
+                    .append("\"]},");
+        }
+        json.append("{\"title\":\"No ingredients\"}]");
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        RecipeDataLoader.Sync sync = loader.sync("test/" + run, resource(json.toString()));
+
+        assertEquals(RECIPES, sync.added());
+        assertEquals(List.of(new RecipeImporter.RecordError(RECIPES, "Missing ingredients")), sync.errors());
+        // A few manifest reads and writes, a batch of new tags, then per chunk of ten a checksum
+        // lookup, one query each for authors and tags, a title query to adopt recipes of the shared
+        // database, one batch each for recipes, their tag links and their checksums and a stamp of
+        // the checksums, plus a few sequence calls; no lookups per recipe
+        assertTrue(statistics.getPrepareStatementCount() <= 44, "statements: " + statistics.getPrepareStatementCount());
+
+        List<Recipe> seeded = recipeRepository.findByIdGreaterThanOrderByIdAsc(0L, Limit.unlimited()).stream()
+                .filter(recipe -> recipe.getTitle().startsWith("Seeded " + run))
+                .toList();
+        assertEquals(RECIPES, seeded.size());
+        Recipe first = recipeRepository.findById(seeded.get(0).getId()).orElseThrow();
+        assertEquals("VEGETARIAN", first.getRecipeType());
+        assertEquals(author.getId(), first.getAuthor().getId());
+        assertEquals(2, first.getTags().size());
+        assertEquals(4, tagRepository.findByNameIn(List.of("seed-" + run + "-old", "seed-" + run + "-0",
+                "seed-" + run + "-1", "seed-" + run + "-2")).size());
+
+        // The failed record keeps the file from being marked current, so it is retried
+        assertEquals(new RecipeDataLoader.Sync(0, 0, 0, sync.errors()),
+                loader.sync("test/" + run, resource(json.toString())));
+    }
+
+    @Test
+    @DisplayName("repeated titles keep their keys across chunks, so only changed and removed repeats are applied")
+    void repeatedTitles() throws Exception {
+        String run = UUID.randomUUID().toString().substring(0, 8);
+        String seed = "test/" + run;
+        assertEquals(25, loader.sync(seed, resource(repeats(run, 25, -1))).added());
+
+        RecipeDataLoader.Sync sync = loader.sync(seed, resource(repeats(run, 22, 17)));
+
+        assertEquals(new RecipeDataLoader.Sync(0, 1, 3, List.of()), sync);
+        List<RecipeTitle> recipes = recipeRepository.findTitles(List.of(run + " Soup"));
+        assertEquals(22, recipes.size());
+        assertEquals(1, recipes.stream()
+                .filter(recipe -> recipeRepository.findById(recipe.id()).orElseThrow().getIngredients().equals("b"))
+                .count());
+    }
+
+    /** {@code count} recipes of the same title, the one at {@code changed} with other ingredients. */
+    private static String repeats(String run, int count, int changed) {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < count; i++) {
+            if (i > 0) json.append(',');
+            json.append(recipe(run, "Soup", "BASIC", i == changed ? "b" : "a"));
+        }
+        return json.append(']').toString();
+    }
+
+    @Test
+    @DisplayName("an unchanged file is skipped and a changed one only applies its changed records")
+    void incrementalSync() throws Exception {
+        String run = UUID.randomUUID().toString().substring(0, 8);
+        String seed = "test/" + run;
+        String first = "[" + recipe(run, "Kept", "BASIC", "a") + "," + recipe(run, "Changed", "BASIC", "a") + ","
+                + recipe(run, "Retyped", "BASIC", "a") + "," + recipe(run, "Removed", "BASIC", "a") + "]";
+        assertEquals(4, loader.sync(seed, resource(first)).added());
+        long kept = recipeId(run, "Kept");
+        long changed = recipeId(run, "Changed");
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        assertSame(RecipeDataLoader.Sync.UNCHANGED, loader.sync(seed, resource(first)));
+        assertEquals(1, statistics.getPrepareStatementCount());
+
+        String second = "[" + recipe(run, "Kept", "BASIC", "a") + "," + recipe(run, "Changed", "BASIC", "b") + ","
+                + recipe(run, "Retyped", "DESSERT", "a") + "," + recipe(run, "Added", "BASIC", "a") + "]";
+        RecipeDataLoader.Sync sync = loader.sync(seed, resource(second));
+
+        assertEquals(new RecipeDataLoader.Sync(1, 2, 1, List.of()), sync);
+        assertEquals(kept, recipeId(run, "Kept"));
+        assertEquals(changed, recipeId(run, "Changed"));
+        assertEquals("b", recipeRepository.findById(changed).orElseThrow().getIngredients());
+        assertEquals("DESSERT", recipeRepository.findById(recipeId(run, "Retyped")).orElseThrow().getRecipeType());
+        assertTrue(recipeRepository.findTitles(List.of(run + " Removed")).isEmpty());
+        assertSame(RecipeDataLoader.Sync.UNCHANGED, loader.sync(seed, resource(second)));
+    }
+
+    private static String recipe(String run, String title, String type, String ingredients) {
+        return "{\"type\":\"" + type + "\",\"title\":\"" + run + " " + title + "\",\"ingredients\":\""
+                + ingredients + "\",\"instructions\":\"n\",\"tags\":[\"" + run + "\"]}";
+    }
+
+    private long recipeId(String run, String title) {
+        List<RecipeTitle> recipes = recipeRepository.findTitles(List.of(run + " " + title));
+        assertEquals(1, recipes.size());
+        return recipes.get(0).id();
+    }
+
+    private static ByteArrayResource resource(String json) {
+        return new ByteArrayResource(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
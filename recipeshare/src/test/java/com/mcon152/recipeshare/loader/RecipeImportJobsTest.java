@@ -0,0 +1,105 @@
+package com.mcon152.recipeshare.loader;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/** Which uploads are taken and which import jobs stay queryable. */
+@DisplayName("RecipeImportJobs")
+class RecipeImportJobsTest {
+
+    private static final String ONE_RECIPE = "[{\"title\":\"t\",\"ingredients\":\"i\",\"instructions\":\"n\"}]";
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private RecipeImportJobs jobs;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        jobs.shutdown();
+    }
+
+    private RecipeImportJob submit(String body) {
+        RecipeImportJob job = jobs.reserve();
+        jobs.start(job, new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), () -> { });
+        return job;
+    }
+
+    private static void awaitFinished(RecipeImportJob job) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!job.isFinished()) {
+            assertTrue(System.currentTimeMillis() < deadline, "job did not finish");
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    @DisplayName("only finished jobs are dropped, oldest first")
+    void retention() throws Exception {
+        RecipeImporter importer = mock(RecipeImporter.class);
+        CountDownLatch firstStarted = new CountDownLatch(1);
+        when(importer.write(anyList())).thenAnswer(invocation -> {
+            List<?> chunk = invocation.getArgument(0);
+            if (!chunk.isEmpty() && firstStarted.getCount() > 0) {
+                firstStarted.countDown();
+                release.await(10, TimeUnit.SECONDS);
+            }
+            return new RecipeImporter.Result(chunk.size(), List.of());
+        });
+        jobs = new RecipeImportJobs(importer, new ObjectMapper(), 4, 1, 1024);
+
+        RecipeImportJob running = submit(ONE_RECIPE);
+        assertTrue(firstStarted.await(10, TimeUnit.SECONDS));
+        RecipeImportJob queued = submit("[]");
+        RecipeImportJob newest = submit("[]");
+
+        // More jobs than retained, but none has finished
+        assertSame(running, jobs.find(running.getId()).orElseThrow());
+        assertSame(queued, jobs.find(queued.getId()).orElseThrow());
+        assertSame(newest, jobs.find(newest.getId()).orElseThrow());
+
+        release.countDown();
+        awaitFinished(newest);
+        assertTrue(jobs.find(running.getId()).isEmpty());
+        assertTrue(jobs.find(queued.getId()).isEmpty());
+        assertSame(newest, jobs.find(newest.getId()).orElseThrow());
+    }
+
+    @Test
+    @DisplayName("uploads beyond the running import and the queue are refused before they are read")
+    void queueFull() {
+        jobs = new RecipeImportJobs(mock(RecipeImporter.class), new ObjectMapper(), 1, 10, 1024);
+        RecipeImportJob first = jobs.reserve();
+        jobs.reserve();
+        assertThrows(RejectedExecutionException.class, jobs::reserve);
+
+        jobs.abandon(first, "gone");
+        assertNotNull(jobs.reserve());
+    }
+
+    @Test
+    @DisplayName("an upload larger than the limit fails its job")
+    void tooLarge() throws Exception {
+        RecipeImporter importer = mock(RecipeImporter.class);
+        when(importer.write(anyList())).thenAnswer(invocation ->
+                new RecipeImporter.Result(((List<?>) invocation.getArgument(0)).size(), List.of()));
+        jobs = new RecipeImportJobs(importer, new ObjectMapper(), 4, 10, 1024);
+
+        RecipeImportJob job = submit("[" + (ONE_RECIPE.substring(1, ONE_RECIPE.length() - 1) + ",").repeat(50) + "42]");
+        awaitFinished(job);
+        assertEquals(RecipeImportJob.State.FAILED, job.getState());
+        assertEquals("Upload is larger than 1024 bytes", job.status().message());
+    }
+}
@@ -0,0 +1,67 @@
+package com.mcon152.recipeshare.loader;
+
+import com.mcon152.recipeshare.domain.Recipe;
+import com.mcon152.recipeshare.repository.AppUserRepository;
+import com.mcon152.recipeshare.repository.RecipeRepository;
+import com.mcon152.recipeshare.repository.TagRepository;
+import com.mcon152.recipeshare.search.RecipeIndexer;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/** Indexing imported chunks, kept apart from the chunk's retries. */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("RecipeImporter")
+class RecipeImporterTest {
+
+    @Mock
+    private RecipeRepository recipeRepository;
+
+    @Mock
+    private AppUserRepository userRepository;
+
+    @Mock
+    private TagRepository tagRepository;
+
+    @Mock
+    private RecipeIndexer indexer;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    @DisplayName("a failure while indexing a committed chunk neither imports it again nor reports errors")
+    void indexFailureAfterCommit() {
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        AtomicLong ids = new AtomicLong();
+        when(recipeRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Recipe> recipes = invocation.getArgument(0);
+            recipes.forEach(recipe -> recipe.setId(ids.incrementAndGet()));
+            return recipes;
+        });
+        doThrow(new ArithmeticException("integer overflow")).when(indexer).onSaved(any());
+        RecipeImporter importer = new RecipeImporter(recipeRepository, userRepository, tagRepository, indexer,
+                transactionManager);
+
+        RecipeImporter.Result result = importer.write(List.of(
+                new RecipeImporter.Entry(0, new RecipeRecord("BASIC", "One", null, "i", "n", null, null, null)),
+                new RecipeImporter.Entry(1, new RecipeRecord("BASIC", "Two", null, "i", "n", null, null, null))));
+
+        verify(recipeRepository, times(1)).saveAll(anyList());
+        verify(indexer, times(2)).onSaved(any());
+        assertEquals(2, result.imported());
+        assertTrue(result.errors().isEmpty());
+    }
+}
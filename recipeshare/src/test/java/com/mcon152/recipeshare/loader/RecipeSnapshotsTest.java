@@ -0,0 +1,114 @@
+package com.mcon152.recipeshare.loader;
+
+import com.mcon152.recipeshare.domain.AppUser;
+import com.mcon152.recipeshare.domain.DessertRecipe;
+import com.mcon152.recipeshare.domain.Recipe;
+import com.mcon152.recipeshare.domain.Tag;
+import com.mcon152.recipeshare.repository.AppUserRepository;
+import com.mcon152.recipeshare.repository.RecipeRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Snapshots of the test database, exported by {@link SnapshotExporter} with batches small enough
+ * to need several, and loaded into an empty in-memory database with the same schema.
+ */
+@SpringBootTest(properties = "recipeshare.seed.snapshot-batch-size=7")
+@DisplayName("Recipe snapshots")
+class RecipeSnapshotsTest {
+
+    private static final String RECIPES = "select id, version, created_at, updated_at, recipe_type, title, description, " +
+            "ingredients, instructions, servings, author_id from recipes order by id";
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private RecipeSnapshots snapshots;
+
+    @Autowired
+    private SeedProgress seedProgress;
+
+    @Autowired
+    private RecipeRepository recipeRepository;
+
+    @Autowired
+    private AppUserRepository userRepository;
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    @DisplayName("an exported snapshot loads into an empty database as an exact copy")
+    void roundTrip() throws Exception {
+        String run = UUID.randomUUID().toString().substring(0, 8);
+        AppUser author = userRepository.save(new AppUser("snap-" + run, "pw", null));
+        Recipe recipe = new DessertRecipe(null, "Snapshot " + run + " ünïcode", null, "i", "n", null, author);
+        recipe.getTags().add(new Tag("snap-" + run));
+        recipeRepository.save(recipe);
+
+        Path file = directory.resolve("test.snapshot");
+        assertTrue(new SnapshotExporter(snapshots, seedProgress, file.toString()).export());
+        assertFalse(Files.exists(directory.resolve("test.snapshot.part")));
+
+        JdbcTemplate copy = emptyCopy();
+        RecipeSnapshots target = new RecipeSnapshots(copy, new DataSourceTransactionManager(copy.getDataSource()), 7);
+        assertTrue(target.isDatabaseEmpty());
+        RecipeSnapshots.Counts counts = target.load(file);
+
+        assertEquals(userRepository.count(), counts.users());
+        assertEquals(recipeRepository.count(), counts.recipes());
+        for (String sql : List.of(
+                "select id, version, created_at, updated_at, username, password, display_name from app_users order by id",
+                "select id, version, created_at, updated_at, name, name_lower, description from tags order by id",
+                RECIPES,
+                "select recipe_id, tag_id from recipe_tags order by recipe_id, tag_id",
+                "select id, seed, record_key, checksum, entity_id from seed_checksums order by id")) {
+            assertEquals(jdbc.queryForList(sql), copy.queryForList(sql), sql);
+        }
+        assertFalse(target.isDatabaseEmpty());
+        assertThrows(IllegalStateException.class, () -> target.load(file));
+    }
+
+    @Test
+    @DisplayName("a truncated or foreign file is rejected and nothing is loaded")
+    void malformed() throws Exception {
+        ByteArrayOutputStream exported = new ByteArrayOutputStream();
+        snapshots.export(exported);
+        byte[] bytes = exported.toByteArray();
+        Path truncated = Files.write(directory.resolve("truncated.snapshot"), Arrays.copyOf(bytes, bytes.length - 10));
+        Path foreign = Files.write(directory.resolve("foreign.snapshot"), "{\"not\":\"a snapshot\"}".getBytes());
+
+        JdbcTemplate copy = emptyCopy();
+        RecipeSnapshots target = new RecipeSnapshots(copy, new DataSourceTransactionManager(copy.getDataSource()), 7);
+        assertThrows(IllegalArgumentException.class, () -> target.load(truncated));
+        assertThrows(IllegalArgumentException.class, () -> target.load(foreign));
+        assertTrue(target.isDatabaseEmpty());
+    }
+
+    /** A new in-memory database with the schema, but none of the data, of the test database. */
+    private JdbcTemplate emptyCopy() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:snapshot-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate copy = new JdbcTemplate(dataSource);
+        for (String statement : jdbc.queryForList("script nodata", String.class)) {
+            if (!statement.startsWith("CREATE USER")) copy.execute(statement);
+        }
+        return copy;
+    }
+}
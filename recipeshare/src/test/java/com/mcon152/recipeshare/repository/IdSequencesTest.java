@@ -0,0 +1,68 @@
+package com.mcon152.recipeshare.repository;
+
+import com.mcon152.recipeshare.domain.BasicRecipe;
+import com.mcon152.recipeshare.domain.Recipe;
+import com.mcon152.recipeshare.domain.Tag;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Sequence-generated ids: catching up on databases from identity columns, and batched inserts. */
+@SpringBootTest
+@DisplayName("Id sequences")
+class IdSequencesTest {
+
+    @Autowired
+    private IdSequences idSequences;
+
+    @Autowired
+    private RecipeRepository recipeRepository;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    @DisplayName("a sequence behind the table's ids is moved past them")
+    void catchUp() {
+        long id = recipeRepository.save(new BasicRecipe(null, "Sequenced", "d", "i", "n", 1)).getId();
+        jdbc.execute("alter sequence recipes_seq restart with 1");
+
+        idSequences.catchUp();
+
+        long next = jdbc.queryForObject("select next value for recipes_seq", Long.class);
+        assertTrue(next - 50 >= id, "next block ends at " + next + ", existing id " + id);
+    }
+
+    @Test
+    @DisplayName("saving 100 recipes with tags is sent in a handful of JDBC batches")
+    void batchedInserts() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        String run = UUID.randomUUID().toString().substring(0, 8);
+        List<Recipe> recipes = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            Recipe recipe = new BasicRecipe(null, "Batched " + i, "d", "i", "n", 1);
+            recipe.addTag(new Tag("batch-" + run + "-" + i));
+            recipes.add(recipe);
+        }
+
+        statistics.clear();
+        recipeRepository.saveAll(recipes);
+        // Two sequence calls each for recipes and tags, then one batched insert per table
+        assertTrue(statistics.getPrepareStatementCount() <= 8, "statements: " + statistics.getPrepareStatementCount());
+        assertTrue(recipes.stream().allMatch(recipe -> recipe.getId() != null && recipe.getId() < Integer.MAX_VALUE));
+    }
+}
@@ -0,0 +1,132 @@
+package com.mcon152.recipeshare.search;
+
+import com.mcon152.recipeshare.domain.AppUser;
+import com.mcon152.recipeshare.domain.BasicRecipe;
+import com.mcon152.recipeshare.domain.DessertRecipe;
+import com.mcon152.recipeshare.domain.Recipe;
+import com.mcon152.recipeshare.domain.Tag;
+import com.mcon152.recipeshare.domain.VegetarianRecipe;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("FacetIndex")
+class FacetIndexTest {
+
+    private FacetIndex index;
+    private final AppUser alice = new AppUser(1L, "alice", "pw", "Alice");
+    private final AppUser bob = new AppUser(2L, "bob", "pw", "Bob");
+
+    private static Recipe withTags(Recipe recipe, String... tags) {
+        for (String tag : tags) {
+            recipe.addTag(new Tag(tag));
+        }
+        return recipe;
+    }
+
+    private static Map<String, Long> counts(FacetIndex.Result result, Facet facet) {
+        Map<String, Long> out = new java.util.TreeMap<>();
+        result.counts().get(facet).forEach(c -> out.put(c.value(), c.count()));
+        return out;
+    }
+
+    @BeforeEach
+    void setUp() {
+        index = new FacetIndex();
+        index.index(withTags(new BasicRecipe(1L, "Pasta", "d", "i", "n", 4, alice), "italian", "quick"));
+        index.index(withTags(new VegetarianRecipe(2L, "Salad", "d", "i", "n", 2, alice), "quick"));
+        index.index(withTags(new DessertRecipe(3L, "Cake", "d", "i", "n", 12, bob), "sweet"));
+        index.index(withTags(new VegetarianRecipe(4L, "Curry", "d", "i", "n", 6, bob), "spicy", "quick"));
+    }
+
+    @Nested
+    @DisplayName("Counts")
+    class Counts {
+
+        @Test
+        @DisplayName("without filters every recipe matches and every value is counted")
+        void unfiltered() {
+            FacetIndex.Result result = index.search(Map.of(), 10);
+
+            assertEquals(4, result.matches().getCardinality());
+            assertEquals(Map.of("BASIC", 1L, "DESSERT", 1L, "VEGETARIAN", 2L), counts(result, Facet.TYPE));
+            assertEquals(Map.of("1", 2L, "2", 2L), counts(result, Facet.AUTHOR));
+            assertEquals(Map.of("1-2", 1L, "3-4", 1L, "5-8", 1L, "9+", 1L), counts(result, Facet.SERVINGS));
+            assertEquals(3L, counts(result, Facet.TAG).get("quick"));
+        }
+
+        @Test
+        @DisplayName("a facet's own filter does not narrow its counts (disjunctive)")
+        void disjunctiveCounts() {
+            Map<Facet, List<String>> filters = new EnumMap<>(Facet.class);
+            filters.put(Facet.TYPE, List.of("vegetarian"));
+
+            FacetIndex.Result result = index.search(filters, 10);
+
+            assertArrayEquals(new int[]{2, 4}, result.matches().toArray());
+            assertEquals(Map.of("BASIC", 1L, "DESSERT", 1L, "VEGETARIAN", 2L), counts(result, Facet.TYPE));
+            assertEquals(Map.of("1", 1L, "2", 1L), counts(result, Facet.AUTHOR));
+            assertEquals(Map.of("quick", 2L, "spicy", 1L), counts(result, Facet.TAG));
+        }
+
+        @Test
+        @DisplayName("tags are AND-ed, other values OR-ed, facets AND-ed")
+        void combination() {
+            Map<Facet, List<String>> filters = new EnumMap<>(Facet.class);
+            filters.put(Facet.TAG, List.of("Quick", "italian"));
+            filters.put(Facet.AUTHOR, List.of("1", "2"));
+
+            assertArrayEquals(new int[]{1}, index.search(filters, 10).matches().toArray());
+        }
+
+        @Test
+        @DisplayName("facet values are limited to the top counts")
+        void limit() {
+            FacetIndex.Result result = index.search(Map.of(), 1);
+            assertEquals(List.of(new FacetIndex.Count("quick", 3)), result.counts().get(Facet.TAG));
+        }
+    }
+
+    @Nested
+    @DisplayName("Maintenance")
+    class Maintenance {
+
+        @Test
+        @DisplayName("re-indexing moves a recipe between values")
+        void reindex() {
+            index.index(new DessertRecipe(2L, "Salad", "d", "i", "n", 20, bob));
+
+            FacetIndex.Result result = index.search(Map.of(), 10);
+            assertEquals(Map.of("BASIC", 1L, "DESSERT", 2L, "VEGETARIAN", 1L), counts(result, Facet.TYPE));
+            assertEquals(Map.of("1", 1L, "2", 3L), counts(result, Facet.AUTHOR));
+            assertEquals(2L, counts(result, Facet.TAG).get("quick"));
+        }
+
+        @Test
+        @DisplayName("remove drops the recipe from every facet")
+        void remove() {
+            index.remove(3L);
+
+            FacetIndex.Result result = index.search(Map.of(), 10);
+            assertEquals(3, result.matches().getCardinality());
+            assertFalse(counts(result, Facet.TYPE).containsKey("DESSERT"));
+            assertFalse(counts(result, Facet.TAG).containsKey("sweet"));
+        }
+    }
+
+    @ParameterizedTest
+    @CsvSource({"1,1-2", "2,1-2", "3,3-4", "8,5-8", "9,9+", "0,unknown"})
+    @DisplayName("servings buckets")
+    void servingsBuckets(int servings, String bucket) {
+        assertEquals(bucket, Facet.servingsBucket(servings));
+    }
+}
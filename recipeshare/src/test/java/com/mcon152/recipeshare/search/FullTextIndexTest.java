@@ -0,0 +1,121 @@
+package com.mcon152.recipeshare.search;
+
+import com.mcon152.recipeshare.domain.BasicRecipe;
+import com.mcon152.recipeshare.domain.Recipe;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("FullTextIndex")
+class FullTextIndexTest {
+
+    private FullTextIndex index;
+
+    private static Recipe recipe(long id, String title, String description, String ingredients, String instructions) {
+        return new BasicRecipe(id, title, description, ingredients, instructions, 2);
+    }
+
+    private List<Long> ids(String query) {
+        return index.search(query, 10).stream().map(FullTextIndex.Hit::recipeId).toList();
+    }
+
+    @BeforeEach
+    void setUp() {
+        index = new FullTextIndex();
+        index.index(recipe(1, "Classic Spaghetti Carbonara", "Italian pasta with eggs",
+                "400g spaghetti, 200g pancetta, 4 eggs, pecorino", "Cook spaghetti. Fry pancetta."));
+        index.index(recipe(2, "Tomato Soup", "Warm and simple",
+                "tomatoes, water, salt, basil", "Boil and blend. Serve with pasta on the side."));
+        index.index(recipe(3, "Caprese Salad", "Fresh Italian salad",
+                "tomatoes, mozzarella, basil, olive oil", "Slice and layer."));
+    }
+
+    @Nested
+    @DisplayName("Ranking")
+    class Ranking {
+
+        @Test
+        @DisplayName("title matches outrank matches in instructions only")
+        void titleBoost() {
+            index.index(recipe(4, "Pasta Primavera", "Spring vegetables", "pasta, peas", "Toss."));
+            assertEquals(4L, ids("pasta").get(0));
+            assertTrue(ids("pasta").contains(2L));
+        }
+
+        @Test
+        @DisplayName("recipes matching more query terms rank first")
+        void moreTermsRankHigher() {
+            assertEquals(List.of(3L, 2L), ids("tomato mozzarella"));
+        }
+
+        @Test
+        @DisplayName("analysis folds case, plurals and diacritics")
+        void analysis() {
+            assertEquals(List.of(1L), ids("EGG"));
+            assertEquals(Set.of(1L, 3L), Set.copyOf(ids("itálian")));
+        }
+
+        @Test
+        @DisplayName("limit keeps only the best hits; stop words alone match nothing")
+        void limitAndStopWords() {
+            assertEquals(1, index.search("basil tomato", 1).size());
+            assertTrue(index.search("the and with", 10).isEmpty());
+        }
+    }
+
+    @Nested
+    @DisplayName("Incremental updates")
+    class Updates {
+
+        @Test
+        @DisplayName("re-indexing replaces the old text")
+        void reindex() {
+            index.index(recipe(2, "Lentil Soup", "Hearty", "lentils, carrots", "Simmer."));
+
+            assertEquals(List.of(2L), ids("lentil"));
+            assertFalse(ids("tomato").contains(2L));
+            assertEquals(3, index.size());
+        }
+
+        @Test
+        @DisplayName("removed recipes are no longer returned")
+        void remove() {
+            index.remove(3);
+
+            assertEquals(List.of(2L), ids("basil"));
+            assertEquals(2, index.size());
+        }
+
+        @Test
+        @DisplayName("compaction after heavy churn keeps results intact")
+        void compaction() {
+            for (int round = 0; round < 3; round++) {
+                for (long id = 100; id < 1200; id++) {
+                    index.index(recipe(id, "Bulk " + round, "", "flour", ""));
+                }
+            }
+            for (long id = 100; id < 1200; id++) {
+                index.remove(id);
+            }
+
+            assertEquals(3, index.size());
+            assertTrue(ids("flour").isEmpty());
+            assertEquals(List.of(1L), ids("carbonara"));
+        }
+    }
+
+    @ParameterizedTest
+    @CsvSource({"eggs,egg", "tomatoes,tomato", "cherries,cherry", "peaches,peach", "glass,glass", "couscous,couscous", "oats,oat"})
+    @DisplayName("plural stemming")
+    void stemming(String input, String expected) {
+        assertEquals(expected, TextAnalyzer.stem(input));
+    }
+}
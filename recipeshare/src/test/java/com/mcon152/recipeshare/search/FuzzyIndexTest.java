@@ -0,0 +1,180 @@
+package com.mcon152.recipeshare.search;
+
+import com.mcon152.recipeshare.domain.BasicRecipe;
+import com.mcon152.recipeshare.domain.Recipe;
+import com.mcon152.recipeshare.domain.Tag;
+import com.mcon152.recipeshare.repository.TagRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("FuzzyIndex")
+class FuzzyIndexTest {
+
+    private TagRepository tagRepository;
+    private FuzzyIndex index;
+
+    private static Recipe recipe(long id, String title, String... tags) {
+        Recipe recipe = new BasicRecipe(id, title, "d", "i", "n", 2);
+        long tagId = id * 10;
+        for (String tag : tags) {
+            recipe.addTag(new Tag(tagId++, tag, null));
+        }
+        return recipe;
+    }
+
+    private List<Long> ids(String query) {
+        return index.searchTitles(query, 10).stream().map(FuzzyIndex.TitleMatch::recipeId).toList();
+    }
+
+    @BeforeEach
+    void setUp() {
+        tagRepository = mock(TagRepository.class);
+        index = new FuzzyIndex(tagRepository);
+        index.index(recipe(1, "Spaghetti Carbonara", "italian", "pasta"));
+        index.index(recipe(2, "Quinoa Salad", "vegetarian"));
+        index.index(recipe(3, "Caesar Salad"));
+    }
+
+    @Nested
+    @DisplayName("Titles")
+    class Titles {
+
+        @Test
+        @DisplayName("finds titles despite typos in every query word")
+        void typos() {
+            assertEquals(List.of(1L), ids("carbonarra"));
+            assertEquals(List.of(1L), ids("spagetti carbonara"));
+            assertEquals(List.of(2L), ids("quinoa salid"));
+        }
+
+        @Test
+        @DisplayName("exact matches rank before fuzzy ones")
+        void closestFirst() {
+            index.index(recipe(4, "Kartoffel Salat"));
+            List<FuzzyIndex.TitleMatch> matches = index.searchTitles("salad", 10);
+            assertEquals(List.of(2L, 3L, 4L), matches.stream().map(FuzzyIndex.TitleMatch::recipeId).toList());
+            assertEquals(List.of(0, 0, 1), matches.stream().map(FuzzyIndex.TitleMatch::edits).toList());
+        }
+
+        @Test
+        @DisplayName("short words must match exactly; too many typos match nothing")
+        void editBudget() {
+            index.index(recipe(5, "Ox Stew"));
+            assertEquals(List.of(5L), ids("ox"));
+            assertTrue(ids("ax").isEmpty());
+            assertTrue(ids("carbxnxrrx").isEmpty());
+        }
+
+        @Test
+        @DisplayName("a typo in a three-letter word is found though no trigram is shared")
+        void shortTypo() {
+            index.index(recipe(6, "Apple Pie"));
+            assertEquals(List.of(6L), ids("pxe"));
+            assertEquals(List.of(6L), ids("apple pxe"));
+            assertTrue(ids("pxx").isEmpty());
+        }
+
+        @Test
+        @DisplayName("re-indexing and removal update the title dictionary")
+        void updates() {
+            index.index(recipe(1, "Lemon Tart"));
+            assertTrue(ids("carbonara").isEmpty());
+            assertEquals(List.of(1L), ids("lemmon"));
+
+            index.remove(2);
+            assertEquals(List.of(3L), ids("salad"));
+        }
+    }
+
+    @Nested
+    @DisplayName("Tags")
+    class Tags {
+
+        @Test
+        @DisplayName("recipe tags are matched by whole name")
+        void recipeTags() {
+            assertEquals(List.of(new FuzzyIndex.TagMatch("vegetarian", 1)), index.searchTags("vegitarian", 10));
+            assertEquals(List.of(new FuzzyIndex.TagMatch("pasta", 0)), index.searchTags("Pasta", 10));
+        }
+
+        @Test
+        @DisplayName("tags saved on their own are indexed, renamed and removed")
+        void standaloneTags() {
+            Tag tag = new Tag(99L, "Gluten-Free", null);
+            index.indexTag(tag);
+            assertEquals("gluten-free", index.searchTags("gluten-fre", 10).get(0).name());
+
+            tag.setName("dairy-free");
+            index.indexTag(tag);
+            assertTrue(index.searchTags("gluten-free", 10).isEmpty());
+
+            index.removeTag(tag);
+            assertTrue(index.searchTags("dairy-free", 10).isEmpty());
+        }
+
+        @Test
+        @DisplayName("the entity listener indexes a tag only once its transaction commits")
+        void listenerWaitsForCommit() {
+            TagIndexListener listener = new TagIndexListener(
+                    new StaticListableBeanFactory(Map.of("fuzzyIndex", index)).getBeanProvider(FuzzyIndex.class));
+            TransactionSynchronizationManager.initSynchronization();
+            try {
+                listener.onSaved(new Tag(99L, "gluten-free", null));
+                assertTrue(index.searchTags("gluten-free", 10).isEmpty());
+
+                TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+                assertEquals("gluten-free", index.searchTags("gluten-fre", 10).get(0).name());
+            } finally {
+                TransactionSynchronizationManager.clearSynchronization();
+            }
+        }
+
+        @Test
+        @DisplayName("loading tags replaces the vocabulary with the tag table")
+        void loadTags() {
+            when(tagRepository.findAll()).thenReturn(List.of(new Tag(1L, "breakfast", null)));
+            index.loadTags();
+            assertEquals("breakfast", index.searchTags("brekfast", 10).get(0).name());
+            assertTrue(index.searchTags("italian", 10).isEmpty());
+        }
+    }
+
+    @Test
+    @DisplayName("a short query verifies only the terms that share a deletion with it")
+    void shortQueryCandidates() {
+        TrigramDictionary dictionary = new TrigramDictionary();
+        Random random = new Random(152);
+        for (int i = 0; i < 2000; i++) {
+            StringBuilder word = new StringBuilder();
+            int length = 4 + random.nextInt(5);
+            for (int c = 0; c < length; c++) word.append((char) ('a' + random.nextInt(26)));
+            dictionary.add(word.toString());
+        }
+        for (String term : List.of("butter", "butters", "batter", "gutter", "garlic")) dictionary.add(term);
+
+        assertTrue(dictionary.candidates("butter", 2).getCardinality() < dictionary.size() / 20);
+        assertEquals(List.of("butter", "batter", "butters", "gutter"),
+                dictionary.lookup("butter", 2).stream().map(TrigramDictionary.Match::term).toList());
+    }
+
+    @ParameterizedTest
+    @CsvSource({"kitten, sitting, 3, 3", "kitten, sitting, 2, 3", "salad, salid, 1, 1", "abc, abc, 0, 0", "ab, abcd, 1, 2"})
+    @DisplayName("bounded distance is exact up to the bound and bound + 1 beyond it")
+    void boundedDistance(String a, String b, int max, int expected) {
+        assertEquals(expected, TrigramDictionary.boundedDistance(a, b, max));
+    }
+}
@@ -0,0 +1,122 @@
+package com.mcon152.recipeshare.search;
+
+import com.mcon152.recipeshare.domain.BasicRecipe;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("PantryIndex")
+class PantryIndexTest {
+
+    private PantryIndex index;
+
+    private List<Long> ids(int maxMissing, String... pantry) {
+        return index.search(List.of(pantry), maxMissing, 10).stream().map(PantryIndex.Match::recipeId).toList();
+    }
+
+    @BeforeEach
+    void setUp() {
+        index = new PantryIndex();
+        index.index(new BasicRecipe(1L, "Carbonara", "d",
+                "400g spaghetti, 200g pancetta, 4 eggs, 100g Pecorino Romano cheese, black pepper, salt", "n", 4));
+        index.index(new BasicRecipe(2L, "Garlic Chicken", "d",
+                "4 chicken breasts, 2 tbsp olive oil, 2 cloves garlic, salt, pepper", "n", 4));
+        index.index(new BasicRecipe(3L, "Fried Eggs", "d", "2 eggs, 1 tbsp butter, salt", "n", 1));
+    }
+
+    @Nested
+    @DisplayName("Parsing")
+    class Parsing {
+
+        @ParameterizedTest
+        @CsvSource(delimiter = '|', value = {
+                "400g spaghetti|spaghetti",
+                "2 1/4 cups flour|flour",
+                "1/2 cup melted butter|butter",
+                "2 cloves garlic|garlic",
+                "fresh basil leaves|basil",
+                "4 Eggs|egg",
+                "2 tomatoes|tomato",
+                "rice for serving|rice",
+                "1 (14 oz) can chickpeas|chickpea",
+                "Crème fraîche|creme fraiche",
+                "½ cup olives|olive",
+                "2 cups|''"})
+        @DisplayName("drops quantities, units and preparation words")
+        void normalize(String raw, String expected) {
+            assertEquals(expected, IngredientParser.normalize(raw));
+        }
+
+        @Test
+        @DisplayName("splits on commas and removes duplicates")
+        void parse() {
+            assertEquals(List.of("egg", "salt"), IngredientParser.parse("2 eggs, salt, 1 egg"));
+            assertTrue(IngredientParser.parse(null).isEmpty());
+        }
+    }
+
+    @Nested
+    @DisplayName("Matching")
+    class Matching {
+
+        @Test
+        @DisplayName("recipes missing at most N ingredients, fewest missing first")
+        void coverage() {
+            assertEquals(List.of(3L), ids(0, "eggs", "butter", "salt"));
+            assertEquals(List.of(3L, 1L), ids(3, "eggs", "butter", "salt", "spaghetti"));
+
+            PantryIndex.Match carbonara = index.search(List.of("spaghetti", "egg", "salt"), 3, 10).stream()
+                    .filter(match -> match.recipeId() == 1L).findFirst().orElseThrow();
+            assertEquals(3, carbonara.matched());
+            assertEquals(6, carbonara.total());
+            assertEquals(List.of("pancetta", "pecorino romano cheese", "black pepper"), carbonara.missing());
+        }
+
+        @Test
+        @DisplayName("a pantry item covers ingredients ending with it")
+        void suffixMatch() {
+            PantryIndex.Match chicken = index.search(List.of("chicken breast", "oil", "garlic", "salt", "pepper"), 0, 10).get(0);
+            assertEquals(2L, chicken.recipeId());
+            assertEquals(List.of(), chicken.missing());
+            assertEquals(List.of(1L, 2L), ids(5, "pepper").stream().sorted().toList());
+        }
+
+        @Test
+        @DisplayName("recipes sharing no ingredient are never returned")
+        void noOverlap() {
+            assertTrue(ids(10, "tofu").isEmpty());
+            assertTrue(ids(10, "2 cups").isEmpty());
+        }
+
+        @Test
+        @DisplayName("a short page is the head of the full ranking")
+        void limit() {
+            for (long id = 10; id < 200; id++) {
+                index.index(new BasicRecipe(id, "Salted " + id, "d", "salt, water, pepper", "n", 1));
+            }
+            List<PantryIndex.Match> all = index.search(List.of("salt", "water", "eggs", "butter"), 10, 1000);
+            List<PantryIndex.Match> page = index.search(List.of("salt", "water", "eggs", "butter"), 10, 5);
+
+            assertEquals(all.subList(0, 5), page);
+            assertEquals(3L, page.get(0).recipeId());
+        }
+
+        @Test
+        @DisplayName("re-indexing and removal update the postings")
+        void updates() {
+            index.index(new BasicRecipe(3L, "Toast", "d", "bread, butter", "n", 1));
+            assertEquals(List.of(3L), ids(0, "bread", "butter"));
+            assertFalse(ids(10, "eggs").contains(3L));
+
+            index.remove(3L);
+            assertTrue(ids(10, "bread").isEmpty());
+        }
+    }
+}
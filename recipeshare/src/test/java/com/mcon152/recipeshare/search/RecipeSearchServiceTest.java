@@ -0,0 +1,172 @@
+package com.mcon152.recipeshare.search;
+
+import com.mcon152.recipeshare.domain.AppUser;
+import com.mcon152.recipeshare.domain.BasicRecipe;
+import com.mcon152.recipeshare.domain.Recipe;
+import com.mcon152.recipeshare.domain.Tag;
+import com.mcon152.recipeshare.repository.AppUserRepository;
+import com.mcon152.recipeshare.repository.RecipeRepository;
+import com.mcon152.recipeshare.service.CursorPage;
+import com.mcon152.recipeshare.service.RecipeCursor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Uses real in-memory indexes and a mocked repository, checking that only the requested page
+ * is loaded from the database.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("RecipeSearchService")
+class RecipeSearchServiceTest {
+
+    @Mock
+    private RecipeRepository recipeRepository;
+
+    @Mock
+    private AppUserRepository userRepository;
+
+    private final TagBitmapIndex tagIndex = new TagBitmapIndex();
+    private final FacetIndex facetIndex = new FacetIndex();
+    private final FullTextIndex fullTextIndex = new FullTextIndex();
+    private final FuzzyIndex fuzzyIndex = new FuzzyIndex(null);
+    private final SuggestIndex suggestIndex = new SuggestIndex();
+    private final PantryIndex pantryIndex = new PantryIndex();
+    private final SimilarityIndex similarityIndex = new SimilarityIndex();
+    private RecipeSearchServiceImpl searchService;
+    private final List<Recipe> recipes = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        searchService = new RecipeSearchServiceImpl(recipeRepository, userRepository, tagIndex, facetIndex,
+                fullTextIndex, fuzzyIndex, suggestIndex, pantryIndex, similarityIndex);
+        AppUser chef = new AppUser(9L, "chef", "pw", "Chef John");
+        for (long id = 1; id <= 5; id++) {
+            Recipe recipe = new BasicRecipe(id, "R" + id, "d", id == 4 ? "saffron" : "rice", "n", 2, chef);
+            recipe.addTag(new Tag(id % 2 == 0 ? "even" : "odd"));
+            recipes.add(recipe);
+            tagIndex.index(recipe);
+            facetIndex.index(recipe);
+            fullTextIndex.index(recipe);
+            fuzzyIndex.index(recipe);
+            suggestIndex.index(recipe);
+            pantryIndex.index(recipe);
+            similarityIndex.index(recipe);
+        }
+        suggestIndex.refresh();
+    }
+
+    @Test
+    @DisplayName("tag query loads only the ids of the requested page, in id order")
+    void tagQuery_pagesIds() {
+        when(recipeRepository.findAllById(List.of(1L, 3L))).thenReturn(List.of(recipes.get(2), recipes.get(0)));
+
+        CursorPage<Recipe> page = searchService.findByTagQuery("odd", null, 2);
+
+        assertEquals(List.of(1L, 3L), page.items().stream().map(Recipe::getId).toList());
+        assertEquals(RecipeCursor.afterId(3L), RecipeCursor.decode(page.nextCursor()));
+        verify(recipeRepository).findAllById(List.of(1L, 3L));
+        verifyNoMoreInteractions(recipeRepository);
+    }
+
+    @Test
+    @DisplayName("tag query continues after the cursor and skips the database when empty")
+    void tagQuery_afterCursor() {
+        when(recipeRepository.findAllById(List.of(5L))).thenReturn(List.of(recipes.get(4)));
+
+        CursorPage<Recipe> last = searchService.findByTagQuery("odd", RecipeCursor.afterId(3L).encode(), 2);
+        CursorPage<Recipe> none = searchService.findByTagQuery("odd", RecipeCursor.afterId(5L).encode(), 2);
+
+        assertEquals(1, last.items().size());
+        assertNull(last.nextCursor());
+        assertTrue(none.items().isEmpty());
+        verify(recipeRepository).findAllById(List.of(5L));
+        verifyNoMoreInteractions(recipeRepository);
+    }
+
+    @Test
+    @DisplayName("faceted search returns total and resolves author labels in one lookup")
+    void facetedSearch_resolvesAuthorLabels() {
+        when(recipeRepository.findAllById(anyList())).thenReturn(List.of(recipes.get(1), recipes.get(3)));
+        when(userRepository.findAllById(List.of(9L))).thenReturn(List.of(new AppUser(9L, "chef", "pw", "Chef John")));
+
+        FacetedResult result = searchService.facetedSearch(Map.of(Facet.TAG, List.of("even")), null, 10);
+
+        assertEquals(2, result.total());
+        assertEquals(2, result.page().items().size());
+        assertEquals(List.of(new FacetedResult.FacetValue("9", "Chef John", 2)), result.facets().get("author"));
+        verify(userRepository).findAllById(List.of(9L));
+    }
+
+    @Test
+    @DisplayName("full-text search keeps rank order and skips ids deleted in the meantime")
+    void search_keepsRankOrder() {
+        when(recipeRepository.findAllById(List.of(4L))).thenReturn(List.of());
+
+        assertTrue(searchService.search("saffron", 5).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> searchService.search("the", 5));
+        verify(recipeRepository).findAllById(List.of(4L));
+    }
+
+    @Test
+    @DisplayName("fuzzy search scores by edit distance and loads the hits in one query")
+    void fuzzySearch_scoresByEdits() {
+        Recipe carbonara = new BasicRecipe(6L, "Spaghetti Carbonara", "d", "i", "n", 2);
+        fuzzyIndex.index(carbonara);
+        when(recipeRepository.findAllById(List.of(6L))).thenReturn(List.of(carbonara));
+
+        List<SearchHit> hits = searchService.fuzzySearch("carbonarra", 5);
+
+        assertEquals(1, hits.size());
+        assertSame(carbonara, hits.get(0).recipe());
+        assertEquals(0.5f, hits.get(0).score());
+        assertThrows(IllegalArgumentException.class, () -> searchService.fuzzySearch("  ", 5));
+    }
+
+    @Test
+    @DisplayName("suggest answers from memory and ignores blank prefixes")
+    void suggest_fromMemory() {
+        Suggestions suggestions = searchService.suggest("ev", null);
+
+        assertEquals(List.of(new Suggestions.Suggestion("even", 2)), suggestions.tags());
+        assertSame(Suggestions.NONE, searchService.suggest(" ", null));
+        verifyNoInteractions(recipeRepository);
+    }
+
+    @Test
+    @DisplayName("pantry search loads only the matches and validates its input")
+    void findByPantry_loadsMatches() {
+        when(recipeRepository.findAllById(List.of(4L))).thenReturn(List.of(recipes.get(3)));
+
+        List<PantryMatch> matches = searchService.findByPantry(List.of("saffron"), 0, 10);
+
+        assertEquals(1, matches.size());
+        assertSame(recipes.get(3), matches.get(0).recipe());
+        assertEquals(List.of(), matches.get(0).missing());
+        assertThrows(IllegalArgumentException.class, () -> searchService.findByPantry(List.of("rice"), -1, 10));
+        assertThrows(IllegalArgumentException.class, () -> searchService.findByPantry(List.of("2 cups"), 1, 10));
+    }
+
+    @Test
+    @DisplayName("similar recipes come from the index; unknown ids are looked up once")
+    void findSimilar() {
+        when(recipeRepository.findAllById(List.of(3L, 5L))).thenReturn(List.of(recipes.get(2), recipes.get(4)));
+        when(recipeRepository.existsById(99L)).thenReturn(false);
+
+        List<SearchHit> similar = searchService.findSimilar(1L, 2).orElseThrow();
+
+        assertEquals(List.of(3L, 5L), similar.stream().map(hit -> hit.recipe().getId()).toList());
+        assertEquals(1.0f, similar.get(0).score());
+        assertTrue(searchService.findSimilar(99L, 2).isEmpty());
+    }
+}
@@ -0,0 +1,100 @@
+package com.mcon152.recipeshare.search;
+
+import com.mcon152.recipeshare.domain.BasicRecipe;
+import com.mcon152.recipeshare.domain.Recipe;
+import com.mcon152.recipeshare.domain.Tag;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("SimilarityIndex")
+class SimilarityIndexTest {
+
+    private SimilarityIndex index;
+
+    private static Recipe recipe(long id, String ingredients, String... tags) {
+        Recipe recipe = new BasicRecipe(id, "R" + id, "d", ingredients, "n", 2);
+        for (String tag : tags) {
+            recipe.addTag(new Tag(tag));
+        }
+        return recipe;
+    }
+
+    private List<Long> similarIds(long id) {
+        return index.similarTo(id, 10).stream().map(SimilarityIndex.Match::recipeId).toList();
+    }
+
+    @BeforeEach
+    void setUp() {
+        index = new SimilarityIndex();
+        index.index(recipe(1, "spaghetti, pancetta, eggs, pecorino, black pepper", "pasta", "italian"));
+        index.index(recipe(2, "400g spaghetti, 4 eggs, pecorino, black pepper, guanciale", "pasta", "italian"));
+        index.index(recipe(3, "spaghetti, pancetta, eggs, pecorino, black pepper", "pasta", "italian"));
+        index.index(recipe(4, "flour, sugar, butter, chocolate chips", "dessert"));
+    }
+
+    @Test
+    @DisplayName("finds near-duplicates first and never the recipe itself or unrelated ones")
+    void similarity() {
+        List<SimilarityIndex.Match> matches = index.similarTo(1, 10);
+        assertEquals(3L, matches.get(0).recipeId());
+        assertEquals(1.0f, matches.get(0).similarity());
+        assertTrue(similarIds(1).contains(2L));
+        assertFalse(similarIds(1).contains(1L));
+        assertFalse(similarIds(1).contains(4L));
+        assertEquals(1, index.similarTo(1, 1).size());
+    }
+
+    @Test
+    @DisplayName("a crowd of identical recipes is scored only up to the candidate cap")
+    void candidateCap() {
+        for (long id = 100; id < 100 + 2 * SimilarityIndex.MAX_CANDIDATES; id++) {
+            index.index(recipe(id, "water, salt"));
+        }
+        List<SimilarityIndex.Match> matches = index.similarTo(100, 10_000);
+        assertFalse(matches.isEmpty());
+        assertTrue(matches.size() <= SimilarityIndex.MAX_CANDIDATES, "scored: " + matches.size());
+        assertTrue(matches.stream().allMatch(match -> match.similarity() == 1.0f && match.recipeId() != 100));
+    }
+
+    @Test
+    @DisplayName("updates and removals move recipes between buckets")
+    void updates() {
+        index.index(recipe(3, "flour, sugar, butter, chocolate chips", "dessert"));
+        assertFalse(similarIds(1).contains(3L));
+        assertEquals(List.of(3L), similarIds(4));
+
+        index.remove(3);
+        assertTrue(similarIds(4).isEmpty());
+        assertFalse(index.contains(3));
+    }
+
+    @Test
+    @DisplayName("recipes without ingredients or tags are not indexed")
+    void emptyFeatures() {
+        index.index(recipe(5, null));
+        assertFalse(index.contains(5));
+        assertTrue(index.similarTo(5, 10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("signature agreement estimates Jaccard similarity")
+    void estimateTracksJaccard() {
+        Set<String> a = IntStream.range(0, 60).mapToObj(i -> "i:item" + i).collect(Collectors.toSet());
+        Set<String> b = IntStream.range(30, 90).mapToObj(i -> "i:item" + i).collect(Collectors.toSet());
+        Set<String> union = new HashSet<>(a);
+        union.addAll(b);
+        double jaccard = 30.0 / union.size();
+
+        float estimate = SimilarityIndex.estimate(SimilarityIndex.signature(a), SimilarityIndex.signature(b));
+        assertEquals(jaccard, estimate, 0.12);
+    }
+}
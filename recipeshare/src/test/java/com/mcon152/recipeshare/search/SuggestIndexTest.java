@@ -0,0 +1,175 @@
+package com.mcon152.recipeshare.search;
+
+import com.mcon152.recipeshare.domain.BasicRecipe;
+import com.mcon152.recipeshare.domain.Recipe;
+import com.mcon152.recipeshare.domain.Tag;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("SuggestIndex")
+class SuggestIndexTest {
+
+    private SuggestIndex index;
+
+    private static Recipe recipe(long id, String title, String... tags) {
+        Recipe recipe = new BasicRecipe(id, title, "d", "i", "n", 2);
+        for (String tag : tags) {
+            recipe.addTag(new Tag(tag));
+        }
+        return recipe;
+    }
+
+    private List<String> titles(String prefix) {
+        return index.suggest(prefix, 10).titles().stream().map(Suggestions.Suggestion::text).toList();
+    }
+
+    private List<String> tags(String prefix) {
+        return index.suggest(prefix, 10).tags().stream().map(Suggestions.Suggestion::text).toList();
+    }
+
+    @BeforeEach
+    void setUp() {
+        index = new SuggestIndex();
+        index.index(recipe(1, "Spaghetti Carbonara", "pasta", "italian"));
+        index.index(recipe(2, "Pasta Primavera", "pasta", "vegetarian"));
+        index.index(recipe(3, "Pancakes", "breakfast"));
+        index.index(recipe(4, "pasta primavera", "pasta"));
+        index.refresh();
+    }
+
+    @Nested
+    @DisplayName("Lookups")
+    class Lookups {
+
+        @Test
+        @DisplayName("matches the start of any word, folding case and diacritics")
+        void wordPrefixes() {
+            assertEquals(List.of("Spaghetti Carbonara"), titles("carbo"));
+            assertEquals(List.of("Spaghetti Carbonara"), titles("SPAGH"));
+            assertEquals(List.of("Pasta Primavera"), titles("prímav"));
+            assertTrue(titles("arbonara").isEmpty());
+        }
+
+        @Test
+        @DisplayName("more popular entries come first; duplicates collapse into one weighted entry")
+        void popularityOrder() {
+            Suggestions suggestions = index.suggest("pa", 10);
+            assertEquals(List.of(new Suggestions.Suggestion("Pasta Primavera", 2),
+                    new Suggestions.Suggestion("Pancakes", 1)), suggestions.titles());
+            assertEquals(List.of(new Suggestions.Suggestion("pasta", 3)), suggestions.tags());
+            assertEquals(List.of("italian"), tags("it"));
+        }
+
+        @Test
+        @DisplayName("limit applies per group; blank prefixes suggest nothing")
+        void limits() {
+            assertEquals(1, index.suggest("p", 1).titles().size());
+            assertTrue(titles("  ").isEmpty());
+            assertTrue(tags(null).isEmpty());
+        }
+    }
+
+    @Nested
+    @DisplayName("Snapshots")
+    class Snapshots {
+
+        @Test
+        @DisplayName("writes become visible with the next rebuild")
+        void swapOnRefresh() {
+            index.index(recipe(5, "Lemon Tart", "dessert"));
+            index.remove(3);
+            assertTrue(titles("lemon").isEmpty());
+
+            index.refresh();
+            assertEquals(List.of("Lemon Tart"), titles("lemon"));
+            assertEquals(List.of("Pasta Primavera"), titles("pa"));
+        }
+
+        @Test
+        @DisplayName("writes schedule a background rebuild")
+        void backgroundRebuild() throws InterruptedException {
+            index.index(recipe(6, "Tiramisu"));
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (titles("tira").isEmpty() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+            assertEquals(List.of("Tiramisu"), titles("tira"));
+        }
+    }
+
+    @Test
+    @DisplayName("writes applied as deltas suggest what a fresh build of the final recipes would")
+    void deltasMatchFreshBuild() {
+        String[] titles = {"Pancakes", "Banana Pancakes", "Pasta Bake", "Lemon Tart", "Tomato Soup", "Pad Thai"};
+        String[] tagNames = {"pasta", "breakfast", "dessert", "soup", "thai", "quick"};
+        Map<Long, Recipe> current = new HashMap<>();
+        // Enough distinct titles to force a full build under the deltas that follow
+        for (long id = 100; id < 400; id++) {
+            Recipe recipe = recipe(id, "Dish " + id, "quick");
+            index.index(recipe);
+            current.put(id, recipe);
+        }
+        index.refresh();
+        for (int step = 0; step < 300; step++) {
+            long id = 10 + step * 7 % 40;
+            if (step % 5 == 4) {
+                index.remove(id);
+                current.remove(id);
+            } else {
+                Recipe recipe = recipe(id, titles[step * 13 % titles.length],
+                        tagNames[step % tagNames.length], tagNames[step * 3 % tagNames.length]);
+                index.index(recipe);
+                current.put(id, recipe);
+            }
+            if (step % 7 == 0) index.refresh();
+        }
+        index.refresh();
+        SuggestIndex fresh = new SuggestIndex();
+        List.of(recipe(1, "Spaghetti Carbonara", "pasta", "italian"), recipe(2, "Pasta Primavera", "pasta", "vegetarian"),
+                recipe(3, "Pancakes", "breakfast"), recipe(4, "pasta primavera", "pasta")).forEach(fresh::index);
+        current.values().forEach(fresh::index);
+        fresh.refresh();
+
+        for (String prefix : List.of("p", "pa", "pan", "t", "so", "b", "qu", "dish 1")) {
+            Suggestions expected = fresh.suggest(prefix, 50);
+            Suggestions actual = index.suggest(prefix, 50);
+            assertEquals(Set.copyOf(expected.titles()), Set.copyOf(actual.titles()), prefix);
+            assertEquals(Set.copyOf(expected.tags()), Set.copyOf(actual.tags()), prefix);
+            assertEquals(expected.titles().stream().map(Suggestions.Suggestion::weight).toList(),
+                    actual.titles().stream().map(Suggestions.Suggestion::weight).toList(), prefix);
+            assertEquals(expected.tags().stream().map(Suggestions.Suggestion::weight).toList(),
+                    actual.tags().stream().map(Suggestions.Suggestion::weight).toList(), prefix);
+        }
+    }
+
+    @Test
+    @DisplayName("top-k over the segment tree equals sorting the whole prefix range")
+    void matchesBruteForce() {
+        Map<String, Integer> weights = new HashMap<>();
+        for (int i = 0; i < 500; i++) {
+            weights.put("item " + Integer.toString(i * 7919 % 1000, 36), (i * 31) % 97);
+        }
+        PrefixSuggester suggester = new PrefixSuggester(weights);
+
+        for (String prefix : List.of("item", "item 1", "a", "1z")) {
+            List<PrefixSuggester.Entry> expected = weights.entrySet().stream()
+                    .filter(e -> PrefixSuggester.keys(e.getKey()).stream().anyMatch(k -> k.startsWith(prefix)))
+                    .map(e -> new PrefixSuggester.Entry(e.getKey(), e.getValue()))
+                    .sorted((a, b) -> Integer.compare(b.weight(), a.weight()))
+                    .limit(15)
+                    .toList();
+            List<PrefixSuggester.Entry> actual = suggester.suggest(prefix, 15);
+            assertEquals(expected.stream().map(PrefixSuggester.Entry::weight).toList(),
+                    actual.stream().map(PrefixSuggester.Entry::weight).toList(), prefix);
+        }
+    }
+}
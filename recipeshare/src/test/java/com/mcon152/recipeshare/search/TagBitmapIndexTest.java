@@ -0,0 +1,116 @@
+package com.mcon152.recipeshare.search;
+
+import com.mcon152.recipeshare.domain.BasicRecipe;
+import com.mcon152.recipeshare.domain.Recipe;
+import com.mcon152.recipeshare.domain.Tag;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("TagBitmapIndex / TagQuery")
+class TagBitmapIndexTest {
+
+    private TagBitmapIndex index;
+
+    private static Recipe recipe(long id, String... tags) {
+        Recipe recipe = new BasicRecipe(id, "Recipe " + id, "d", "i", "n", 2);
+        for (String tag : tags) {
+            recipe.addTag(new Tag(tag));
+        }
+        return recipe;
+    }
+
+    private int[] query(String expression) {
+        return index.query(TagQuery.parse(expression)).toArray();
+    }
+
+    @BeforeEach
+    void setUp() {
+        index = new TagBitmapIndex();
+        index.index(recipe(1, "vegetarian", "quick"));
+        index.index(recipe(2, "vegetarian", "quick", "dessert"));
+        index.index(recipe(3, "vegetarian"));
+        index.index(recipe(4, "Quick", "dinner"));
+        index.index(recipe(5));
+    }
+
+    @Nested
+    @DisplayName("Boolean queries")
+    class Queries {
+
+        @Test
+        @DisplayName("AND NOT intersects and subtracts")
+        void andNot() {
+            assertArrayEquals(new int[]{1}, query("vegetarian AND quick AND NOT dessert"));
+        }
+
+        @Test
+        @DisplayName("OR unions, case-insensitively")
+        void or() {
+            assertArrayEquals(new int[]{2, 4}, query("DESSERT or Dinner"));
+        }
+
+        @Test
+        @DisplayName("adjacent terms are implicitly AND-ed and parentheses group")
+        void implicitAndAndParens() {
+            assertArrayEquals(new int[]{1, 2, 4}, query("quick (vegetarian OR dinner)"));
+        }
+
+        @Test
+        @DisplayName("a lone NOT complements against every indexed recipe")
+        void loneNot() {
+            assertArrayEquals(new int[]{3, 4, 5}, query("NOT vegetarian OR NOT quick"));
+        }
+
+        @Test
+        @DisplayName("unknown tags match nothing")
+        void unknownTag() {
+            assertEquals(0, query("vegan AND quick").length);
+        }
+
+        @ParameterizedTest
+        @ValueSource(strings = {"", "AND quick", "quick OR", "(quick", "quick)", "\"quick"})
+        @DisplayName("malformed expressions are rejected")
+        void malformed(String expression) {
+            assertThrows(IllegalArgumentException.class, () -> TagQuery.parse(expression));
+        }
+    }
+
+    @Nested
+    @DisplayName("Maintenance")
+    class Maintenance {
+
+        @Test
+        @DisplayName("re-indexing a recipe retracts tags it no longer has")
+        void reindexRetractsStaleTags() {
+            index.index(recipe(2, "vegetarian"));
+
+            assertArrayEquals(new int[]{1, 4}, query("quick"));
+            assertEquals(0, query("dessert").length);
+        }
+
+        @Test
+        @DisplayName("remove drops the recipe from every posting list and from NOT")
+        void remove() {
+            index.remove(5);
+            index.remove(1);
+
+            assertArrayEquals(new int[]{2, 4}, query("quick"));
+            assertArrayEquals(new int[]{4}, query("NOT vegetarian"));
+        }
+
+        @Test
+        @DisplayName("query results are copies that cannot corrupt the index")
+        void resultsAreCopies() {
+            index.recipesWithTag("quick").clear();
+            index.query(TagQuery.parse("quick")).clear();
+
+            assertArrayEquals(new int[]{1, 2, 4}, query("quick"));
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.mcon152.recipeshare.service;
+
+import com.mcon152.recipeshare.domain.BasicRecipe;
+import com.mcon152.recipeshare.domain.Recipe;
+import com.mcon152.recipeshare.domain.Tag;
+import com.mcon152.recipeshare.repository.RecipeRepository;
+import com.mcon152.recipeshare.search.RecipeIndexer;
+import com.mcon152.recipeshare.service.RecipeBulkResult.Outcome;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/** Publishing committed bulk writes, kept apart from the chunk's retries. */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("RecipeBulkService")
+class RecipeBulkServiceTest {
+
+    @Mock
+    private RecipeRepository repo;
+
+    @Mock
+    private RecipeIndexer indexer;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private RecipeBulkService service;
+
+    @BeforeEach
+    void setup() {
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        service = new RecipeBulkService(repo, indexer, new RecipeChangeLog(100), transactionManager);
+    }
+
+    @Test
+    @DisplayName("a failure while indexing committed creates neither writes them again nor fails them")
+    void indexFailureAfterCommit() {
+        AtomicLong ids = new AtomicLong();
+        when(repo.save(any(Recipe.class))).thenAnswer(invocation -> {
+            Recipe recipe = invocation.getArgument(0);
+            recipe.setId(ids.incrementAndGet());
+            return recipe;
+        });
+        doThrow(new ArithmeticException("integer overflow")).when(indexer).onSaved(any());
+
+        List<RecipeBulkResult> results = service.apply(List.of(
+                RecipeBulkOperation.create(0, new BasicRecipe(null, "One", null, "i", "n", null)),
+                RecipeBulkOperation.create(1, new BasicRecipe(null, "Two", null, "i", "n", null))));
+
+        verify(repo, times(2)).save(any(Recipe.class));
+        verify(transactionManager, times(1)).commit(any());
+        verify(indexer, times(2)).onSaved(any());
+        assertEquals(List.of(0, 1), results.stream().map(RecipeBulkResult::index).toList());
+        assertTrue(results.stream().allMatch(result -> result.outcome() == Outcome.CREATED));
+        assertEquals(List.of(1L, 2L), results.stream().map(RecipeBulkResult::id).toList());
+    }
+
+    @Test
+    @DisplayName("an update replaces the recipe like PUT, tags included")
+    void updateReplacesTags() {
+        Recipe existing = new BasicRecipe(7L, "Old", "d", "i", "n", 2);
+        Tag tag = new Tag("quick");
+        existing.addTag(tag);
+        when(repo.findAllById(List.of(7L))).thenReturn(List.of(existing));
+
+        List<RecipeBulkResult> results = service.apply(List.of(
+                RecipeBulkOperation.update(0, 7L, new BasicRecipe(null, "New", null, "i2", "n2", 4))));
+
+        assertEquals(Outcome.UPDATED, results.get(0).outcome());
+        assertEquals("New", existing.getTitle());
+        assertEquals(4, existing.getServings());
+        assertTrue(existing.getTags().isEmpty());
+        assertTrue(tag.getRecipes().isEmpty());
+        assertNotNull(existing.getUpdatedAt());
+        verify(indexer).onSaved(existing);
+    }
+}
@@ -5,15 +5,23 @@ import com.mcon152.recipeshare.domain.DessertRecipe;
 import com.mcon152.recipeshare.domain.Recipe;
 import com.mcon152.recipeshare.domain.Tag;
 import com.mcon152.recipeshare.domain.VegetarianRecipe;
+import com.mcon152.recipeshare.repository.RecipeField;
 import com.mcon152.recipeshare.repository.RecipeRepository;
+import com.mcon152.recipeshare.repository.RecipeRow;
+import com.mcon152.recipeshare.repository.RecipeTagName;
+import com.mcon152.recipeshare.search.RecipeIndexer;
 import org.junit.jupiter.api.*;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
 
+import java.time.LocalDateTime;
 import java.util.*;
+import java.util.stream.LongStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -24,7 +32,7 @@ import static org.mockito.Mockito.*;
  *  - Stubbing: thenReturn / thenAnswer / thenThrow
  *  - Verifications: verify(...), times/never/atLeast..., verifyNoMoreInteractions
  *  - InOrder (where meaningful)
- *  - Void stubbing: doNothing / doThrow (use deleteById for this)
+ *  - Void stubbing: doNothing / doThrow
  *  - Matchers: any(), eq(), argThat()
  *  - ArgumentCaptor
  *  - (Optional) Spy demo if you introduce a small helper in tests
@@ -38,6 +46,12 @@ class RecipeServiceTest {
     @Mock
     private RecipeRepository recipeRepository;
 
+    @Mock
+    private RecipeIndexer recipeIndexer;
+
+    @Spy
+    private RecipeChangeLog changeLog = new RecipeChangeLog(100);
+
     @InjectMocks
     private RecipeServiceImpl recipeService; // CUT implements RecipeService
 
@@ -115,6 +129,20 @@ class RecipeServiceTest {
             assertThrows(IllegalStateException.class, () -> recipeService.addRecipe(newRecipeNoId()));
             verify(recipeRepository).save(any(Recipe.class));
             verifyNoMoreInteractions(recipeRepository);
+            verifyNoInteractions(recipeIndexer);
+        }
+
+        @Test
+        @DisplayName("indexes the saved entity after the repository save")
+        void indexesAfterSave() {
+            Recipe saved = savedRecipe(1L);
+            when(recipeRepository.save(any(Recipe.class))).thenReturn(saved);
+
+            recipeService.addRecipe(newRecipeNoId());
+
+            InOrder in = inOrder(recipeRepository, recipeIndexer);
+            in.verify(recipeRepository).save(any(Recipe.class));
+            in.verify(recipeIndexer).onSaved(saved);
         }
     }
 
@@ -139,6 +167,139 @@ class RecipeServiceTest {
         }
     }
 
+    // ------------------ getRecipePage ------------------
+
+    @Nested
+    @DisplayName("getRecipePage(order, cursor, size)")
+    class GetRecipePage {
+
+        @Test
+        @DisplayName("first page fetches size+1 rows and returns a cursor after the last item")
+        void firstPage_hasNextCursor() {
+            when(recipeRepository.findAllByOrderByIdAsc(Limit.of(3)))
+                    .thenReturn(List.of(savedRecipe(1L), savedRecipe(2L), savedRecipe(3L)));
+
+            CursorPage<Recipe> page = recipeService.getRecipePage(RecipeSortOrder.ID, null, 2);
+
+            assertEquals(2, page.items().size());
+            assertTrue(page.hasNext());
+            assertEquals(RecipeCursor.afterId(2L), RecipeCursor.decode(page.nextCursor()));
+            verify(recipeRepository).findAllByOrderByIdAsc(Limit.of(3));
+            verifyNoMoreInteractions(recipeRepository);
+        }
+
+        @Test
+        @DisplayName("follow-up page seeks past the cursor id and ends without a cursor")
+        void nextPage_seeksPastCursor() {
+            when(recipeRepository.findByIdGreaterThanOrderByIdAsc(eq(2L), any(Limit.class)))
+                    .thenReturn(List.of(savedRecipe(3L)));
+
+            CursorPage<Recipe> page = recipeService.getRecipePage(null, RecipeCursor.afterId(2L).encode(), 2);
+
+            assertEquals(1, page.items().size());
+            assertFalse(page.hasNext());
+            verify(recipeRepository).findByIdGreaterThanOrderByIdAsc(2L, Limit.of(3));
+            verifyNoMoreInteractions(recipeRepository);
+        }
+
+        @Test
+        @DisplayName("updatedAt cursor keeps its own order and clamps oversized pages")
+        void updatedAtCursor_clampsSize() {
+            LocalDateTime ts = LocalDateTime.of(2025, 1, 2, 3, 4, 5);
+            when(recipeRepository.findPageAfterUpdate(eq(ts), eq(7L), any(Limit.class))).thenReturn(List.of());
+
+            CursorPage<Recipe> page = recipeService.getRecipePage(
+                    RecipeSortOrder.ID, RecipeCursor.afterUpdate(ts, 7L).encode(), 10_000);
+
+            assertTrue(page.items().isEmpty());
+            verify(recipeRepository).findPageAfterUpdate(ts, 7L, Limit.of(101));
+            verifyNoMoreInteractions(recipeRepository);
+        }
+
+        @Test
+        @DisplayName("rejects a cursor it did not issue")
+        void rejectsGarbageCursor() {
+            assertThrows(IllegalArgumentException.class,
+                    () -> recipeService.getRecipePage(RecipeSortOrder.ID, "not-a-cursor", 5));
+            verifyNoInteractions(recipeRepository);
+        }
+    }
+
+    // ------------------ getRecipeFieldPage ------------------
+
+    @Nested
+    @DisplayName("getRecipeFieldPage(fields, order, cursor, size)")
+    class GetRecipeFieldPage {
+
+        private RecipeRow row(long id) {
+            Map<String, Object> fields = new LinkedHashMap<>();
+            fields.put("id", id);
+            fields.put("title", "R" + id);
+            return new RecipeRow(id, LocalDateTime.of(2025, 1, 1, 0, 0), fields);
+        }
+
+        @Test
+        @DisplayName("pages rows like entities and fills in tags with one query for the page")
+        void pagesRowsAndLoadsTagsOnce() {
+            Set<RecipeField> fields = RecipeField.parse("title,tags");
+            when(recipeRepository.findRowsAfterId(fields, 0L, Limit.of(3))).thenReturn(List.of(row(1L), row(2L), row(3L)));
+            when(recipeRepository.findTagNames(List.of(1L, 2L)))
+                    .thenReturn(List.of(new RecipeTagName(1L, "pasta"), new RecipeTagName(1L, "quick")));
+
+            CursorPage<Map<String, Object>> page = recipeService.getRecipeFieldPage(fields, RecipeSortOrder.ID, null, 2);
+
+            assertEquals(2, page.items().size());
+            assertEquals(RecipeCursor.afterId(2L), RecipeCursor.decode(page.nextCursor()));
+            assertEquals(List.of(Map.of("name", "pasta"), Map.of("name", "quick")), page.items().get(0).get("tags"));
+            assertEquals(List.of(), page.items().get(1).get("tags"));
+            verify(recipeRepository).findTagNames(List.of(1L, 2L));
+        }
+
+        @Test
+        @DisplayName("skips the tag query when tags are not requested")
+        void noTagQueryWithoutTags() {
+            Set<RecipeField> fields = RecipeField.parse("title");
+            when(recipeRepository.findRowsAfterUpdate(fields, null, 0L, Limit.of(6))).thenReturn(List.of(row(1L)));
+
+            CursorPage<Map<String, Object>> page = recipeService.getRecipeFieldPage(fields, RecipeSortOrder.UPDATED_AT, null, 5);
+
+            assertEquals(List.of(Map.of("id", 1L, "title", "R1")), page.items());
+            assertFalse(page.hasNext());
+            verify(recipeRepository).findRowsAfterUpdate(fields, null, 0L, Limit.of(6));
+            verifyNoMoreInteractions(recipeRepository);
+        }
+    }
+
+    // ------------------ getRecipesByIds ------------------
+
+    @Nested
+    @DisplayName("getRecipesByIds(ids)")
+    class GetRecipesByIds {
+
+        @Test
+        @DisplayName("loads all ids with one call, keeps request order and reports missing ids")
+        void keepsOrderAndReportsMissing() {
+            when(recipeRepository.findAllById(any())).thenReturn(List.of(savedRecipe(1L), savedRecipe(3L)));
+
+            RecipeBatch batch = recipeService.getRecipesByIds(List.of(3L, 2L, 1L, 3L));
+
+            assertEquals(List.of(3L, 1L), batch.items().stream().map(Recipe::getId).toList());
+            assertEquals(List.of(2L), batch.missing());
+            verify(recipeRepository).findAllById(new LinkedHashSet<>(List.of(3L, 2L, 1L)));
+            verifyNoMoreInteractions(recipeRepository);
+        }
+
+        @Test
+        @DisplayName("rejects empty and oversized id lists without querying")
+        void rejectsEmptyAndOversized() {
+            List<Long> tooMany = LongStream.rangeClosed(1, 501).boxed().toList();
+
+            assertThrows(IllegalArgumentException.class, () -> recipeService.getRecipesByIds(List.of()));
+            assertThrows(IllegalArgumentException.class, () -> recipeService.getRecipesByIds(tooMany));
+            verifyNoInteractions(recipeRepository);
+        }
+    }
+
     // ------------------ getRecipeById ------------------
 
     @Nested
@@ -177,44 +338,43 @@ class RecipeServiceTest {
         @DisplayName("returns true when entity existed")
         void returnsTrue_whenExists() {
             long id = 5L;
-            when(recipeRepository.existsById(id)).thenReturn(true);
-            doNothing().when(recipeRepository).deleteById(id);
+            when(recipeRepository.deleteRecipeById(id)).thenReturn(1);
 
             boolean out = recipeService.deleteRecipe(id);
             assertTrue(out);
 
-            InOrder in = inOrder(recipeRepository);
-            in.verify(recipeRepository).existsById(id);
-            in.verify(recipeRepository).deleteById(id);
+            InOrder in = inOrder(recipeRepository, recipeIndexer);
+            in.verify(recipeRepository).deleteRecipeById(id);
+            in.verify(recipeIndexer).onDeleted(id);
             verifyNoMoreInteractions(recipeRepository);
         }
 
         @Test
-        @DisplayName("returns false when missing (never deletes)")
+        @DisplayName("returns false when no row was deleted (no existence check)")
         void returnsFalse_whenMissing() {
             long id = 6L;
-            when(recipeRepository.existsById(id)).thenReturn(false);
+            when(recipeRepository.deleteRecipeById(id)).thenReturn(0);
 
             boolean out = recipeService.deleteRecipe(id);
             assertFalse(out);
 
-            verify(recipeRepository).existsById(id);
-            verify(recipeRepository, never()).deleteById(anyLong());
+            verify(recipeRepository).deleteRecipeById(id);
+            verify(recipeRepository, never()).existsById(anyLong());
             verifyNoMoreInteractions(recipeRepository);
+            verifyNoInteractions(recipeIndexer);
         }
 
         @Test
         @DisplayName("propagates delete error (doThrow)")
         void propagatesDeleteError() {
             long id = 7L;
-            when(recipeRepository.existsById(id)).thenReturn(true);
-            doThrow(new IllegalStateException("constraint")).when(recipeRepository).deleteById(id);
+            doThrow(new IllegalStateException("constraint")).when(recipeRepository).deleteRecipeById(id);
 
             assertThrows(IllegalStateException.class, () -> recipeService.deleteRecipe(id));
 
-            verify(recipeRepository).existsById(id);
-            verify(recipeRepository).deleteById(id);
+            verify(recipeRepository).deleteRecipeById(id);
             verifyNoMoreInteractions(recipeRepository);
+            verifyNoInteractions(recipeIndexer);
         }
     }
 
@@ -283,6 +443,88 @@ class RecipeServiceTest {
         }
     }
 
+    // ------------------ optimistic concurrency ------------------
+
+    @Nested
+    @DisplayName("updateRecipe / patchRecipe with expected version")
+    class ExpectedVersion {
+
+        private Recipe atVersion(long version) {
+            Recipe recipe = new BasicRecipe(7L, "Title", "Desc", "i", "n", 2);
+            recipe.setVersion(version);
+            return recipe;
+        }
+
+        @Test
+        @DisplayName("a full update of a newer version is rejected without saving")
+        void staleUpdateIsRejected() {
+            when(recipeRepository.findById(7L)).thenReturn(Optional.of(atVersion(4L)));
+
+            assertThrows(OptimisticLockingFailureException.class,
+                    () -> recipeService.updateRecipe(7L, new BasicRecipe(null, "X", "d", "i", "n", 1), 3L));
+            verify(recipeRepository, never()).save(any(Recipe.class));
+        }
+
+        @Test
+        @DisplayName("a patch of a stale version merges when newer versions changed other fields")
+        void disjointPatchIsMerged() {
+            changeLog.record(7L, 4L, EnumSet.of(RecipeField.DESCRIPTION));
+            Recipe existing = atVersion(4L);
+            when(recipeRepository.findById(7L)).thenReturn(Optional.of(existing));
+            when(recipeRepository.updateColumns(eq(existing), any(), eq(EnumSet.of(RecipeField.TITLE)), any())).thenReturn(1);
+
+            Recipe partial = new BasicRecipe();
+            partial.setTitle("New Title");
+            Optional<Recipe> out = recipeService.patchRecipe(7L, partial, 3L);
+
+            assertEquals("New Title", out.orElseThrow().getTitle());
+            assertEquals("Desc", out.get().getDescription());
+            assertEquals(5L, out.get().getVersion());
+        }
+
+        @Test
+        @DisplayName("a patch of a stale version conflicts when a newer version changed the same field or is unknown")
+        void overlappingOrUnknownPatchConflicts() {
+            changeLog.record(7L, 4L, EnumSet.of(RecipeField.TITLE));
+            when(recipeRepository.findById(7L)).thenReturn(Optional.of(atVersion(4L)));
+            Recipe partial = new BasicRecipe();
+            partial.setTitle("New Title");
+
+            assertThrows(OptimisticLockingFailureException.class, () -> recipeService.patchRecipe(7L, partial, 3L));
+            // version 3 itself was never logged, so changes since 2 are unknown
+            Recipe other = new BasicRecipe();
+            other.setServings(6);
+            assertThrows(OptimisticLockingFailureException.class, () -> recipeService.patchRecipe(7L, other, 2L));
+            verify(recipeRepository, never()).save(any(Recipe.class));
+            verify(recipeRepository, never()).updateColumns(any(), any(), any(), any());
+        }
+
+        @Test
+        @DisplayName("a patch conflicts when its guarded update finds the row at another version")
+        void concurrentPatchConflicts() {
+            when(recipeRepository.findById(7L)).thenReturn(Optional.of(atVersion(4L)));
+            when(recipeRepository.updateColumns(any(), any(), any(), any())).thenReturn(0);
+            Recipe partial = new BasicRecipe();
+            partial.setTitle("New Title");
+
+            assertThrows(OptimisticLockingFailureException.class, () -> recipeService.patchRecipe(7L, partial));
+            assertTrue(changeLog.changedSince(7L, 4L, 5L).isEmpty());
+        }
+
+        @Test
+        @DisplayName("successful writes log the fields they set under the new version")
+        void writesAreLogged() {
+            when(recipeRepository.findById(7L)).thenReturn(Optional.of(atVersion(5L)));
+            when(recipeRepository.updateColumns(any(), any(), any(), any())).thenReturn(1);
+
+            Recipe partial = new BasicRecipe();
+            partial.setServings(6);
+            recipeService.patchRecipe(7L, partial, 5L);
+
+            assertEquals(Optional.of(EnumSet.of(RecipeField.SERVINGS)), changeLog.changedSince(7L, 5L, 6L));
+        }
+    }
+
     // ------------------ patchRecipe ------------------
 
     @Nested
@@ -297,7 +539,7 @@ class RecipeServiceTest {
             Recipe partial = new BasicRecipe(null, "New Title", null, null, null, null);
 
             when(recipeRepository.findById(id)).thenReturn(Optional.of(existing));
-            when(recipeRepository.save(any(Recipe.class))).thenAnswer(inv -> inv.getArgument(0));
+            when(recipeRepository.updateColumns(eq(existing), eq(partial), any(), any())).thenReturn(1);
 
             Optional<Recipe> out = recipeService.patchRecipe(id, partial);
             assertTrue(out.isPresent());
@@ -305,9 +547,10 @@ class RecipeServiceTest {
             assertEquals("New Title", saved.getTitle());
             assertEquals("Desc", saved.getDescription());
 
-            // verify save received an object with changed title but unchanged description
-            verify(recipeRepository).save(argThat(r -> "New Title".equals(r.getTitle()) && "Desc".equals(r.getDescription())));
-            verifyNoMoreInteractions(recipeRepository);
+            // one guarded update of the title column only, no merge of the entity
+            verify(recipeRepository).updateColumns(eq(existing), eq(partial),
+                    argThat(fields -> fields.equals(EnumSet.of(RecipeField.TITLE))), any());
+            verify(recipeRepository, never()).save(any(Recipe.class));
         }
 
         @Test
@@ -332,7 +575,7 @@ class RecipeServiceTest {
             Recipe partial = new BasicRecipe(null, null, "PatchedDesc", null, null, null);
 
             when(recipeRepository.findById(id)).thenReturn(Optional.of(existing));
-            when(recipeRepository.save(any(Recipe.class))).thenAnswer(inv -> inv.getArgument(0));
+            when(recipeRepository.updateColumns(any(), any(), any(), any())).thenReturn(1);
 
             Optional<Recipe> out = recipeService.patchRecipe(id, partial);
             assertTrue(out.isPresent());
@@ -341,7 +584,7 @@ class RecipeServiceTest {
             assertEquals("PatchedDesc", saved.getDescription());
 
             verify(recipeRepository).findById(id);
-            verify(recipeRepository).save(any(Recipe.class));
+            verify(recipeRepository).updateColumns(eq(existing), eq(partial), any(), any());
             verifyNoMoreInteractions(recipeRepository);
         }
     }
@@ -353,9 +596,9 @@ class RecipeServiceTest {
     class Advanced {
 
         @Test
-        @DisplayName("consecutive stubs on existsById (true, false)")
-        void consecutiveStubs_existsById() {
-            when(recipeRepository.existsById(1L)).thenReturn(true, false);
+        @DisplayName("consecutive stubs on deleteRecipeById (1, 0)")
+        void consecutiveStubs_deleteRecipeById() {
+            when(recipeRepository.deleteRecipeById(1L)).thenReturn(1, 0);
 
             boolean first = recipeService.deleteRecipe(1L);
             boolean second = recipeService.deleteRecipe(1L);
@@ -363,9 +606,9 @@ class RecipeServiceTest {
             assertTrue(first);
             assertFalse(second);
 
-            verify(recipeRepository, times(2)).existsById(1L);
-            // deleteById should have been called only once (first call)
-            verify(recipeRepository, times(1)).deleteById(1L);
+            verify(recipeRepository, times(2)).deleteRecipeById(1L);
+            // the indexes should have been told only once (first call)
+            verify(recipeIndexer, times(1)).onDeleted(1L);
             verifyNoMoreInteractions(recipeRepository);
         }
     }
@@ -392,6 +635,7 @@ class RecipeServiceTest {
             assertTrue(result.get().getTags().contains(tag));
             verify(recipeRepository).findById(recipeId);
             verify(recipeRepository).save(recipe);
+            verify(recipeIndexer).onSaved(recipe);
             verifyNoMoreInteractions(recipeRepository);
         }
 
@@ -448,10 +692,9 @@ class RecipeServiceTest {
         }
 
         @Test
-        @DisplayName("findRecipesByTag finds recipes with matching tag name (case insensitive)")
+        @DisplayName("findRecipesByTag queries the join by lower-cased tag name (case insensitive)")
         void findRecipesByTag() {
             Tag italianTag = new Tag(1L, "italian", "Italian cuisine");
-            Tag quickTag = new Tag(2L, "quick", "Quick meals");
 
             BasicRecipe recipe1 = new BasicRecipe(1L, "Pasta", "d", "i", "n", 4);
             recipe1.addTag(italianTag);
@@ -459,39 +702,36 @@ class RecipeServiceTest {
             BasicRecipe recipe2 = new BasicRecipe(2L, "Pizza", "d", "i", "n", 8);
             recipe2.addTag(italianTag);
 
-            BasicRecipe recipe3 = new BasicRecipe(3L, "Salad", "d", "i", "n", 2);
-            recipe3.addTag(quickTag);
-
-            when(recipeRepository.findAll()).thenReturn(List.of(recipe1, recipe2, recipe3));
+            when(recipeRepository.findByTagNameAfterId("italian", 0L, Limit.unlimited()))
+                    .thenReturn(List.of(recipe1, recipe2));
 
             List<Recipe> result = recipeService.findRecipesByTag("ITALIAN");
 
             assertEquals(2, result.size());
             assertTrue(result.contains(recipe1));
             assertTrue(result.contains(recipe2));
-            assertFalse(result.contains(recipe3));
-            verify(recipeRepository).findAll();
+            verify(recipeRepository).findByTagNameAfterId("italian", 0L, Limit.unlimited());
             verifyNoMoreInteractions(recipeRepository);
         }
 
         @Test
         @DisplayName("findRecipesByTag returns empty list when no matches")
         void findRecipesByTag_noMatches() {
-            BasicRecipe recipe1 = new BasicRecipe(1L, "Pasta", "d", "i", "n", 4);
-            when(recipeRepository.findAll()).thenReturn(List.of(recipe1));
+            when(recipeRepository.findByTagNameAfterId(eq("nonexistent"), eq(0L), any(Limit.class)))
+                    .thenReturn(List.of());
 
             List<Recipe> result = recipeService.findRecipesByTag("nonexistent");
 
             assertTrue(result.isEmpty());
-            verify(recipeRepository).findAll();
+            verify(recipeRepository, never()).findAll();
+            verify(recipeRepository).findByTagNameAfterId(eq("nonexistent"), eq(0L), any(Limit.class));
             verifyNoMoreInteractions(recipeRepository);
         }
 
         @Test
-        @DisplayName("findRecipesByTagId finds recipes with matching tag ID")
+        @DisplayName("findRecipesByTagId queries the join by tag ID")
         void findRecipesByTagId() {
             Tag tag1 = new Tag(10L, "dessert", "Sweet treats");
-            Tag tag2 = new Tag(20L, "breakfast", "Morning meals");
 
             DessertRecipe recipe1 = new DessertRecipe(1L, "Cake", "d", "i", "n", 8);
             recipe1.addTag(tag1);
@@ -499,34 +739,52 @@ class RecipeServiceTest {
             DessertRecipe recipe2 = new DessertRecipe(2L, "Cookies", "d", "i", "n", 24);
             recipe2.addTag(tag1);
 
-            BasicRecipe recipe3 = new BasicRecipe(3L, "Pancakes", "d", "i", "n", 4);
-            recipe3.addTag(tag2);
-
-            when(recipeRepository.findAll()).thenReturn(List.of(recipe1, recipe2, recipe3));
+            when(recipeRepository.findByTagIdAfterId(10L, 0L, Limit.unlimited()))
+                    .thenReturn(List.of(recipe1, recipe2));
 
             List<Recipe> result = recipeService.findRecipesByTagId(10L);
 
             assertEquals(2, result.size());
             assertTrue(result.contains(recipe1));
             assertTrue(result.contains(recipe2));
-            assertFalse(result.contains(recipe3));
-            verify(recipeRepository).findAll();
+            verify(recipeRepository).findByTagIdAfterId(10L, 0L, Limit.unlimited());
             verifyNoMoreInteractions(recipeRepository);
         }
 
         @Test
         @DisplayName("findRecipesByTagId returns empty list when no matches")
         void findRecipesByTagId_noMatches() {
-            BasicRecipe recipe1 = new BasicRecipe(1L, "Pasta", "d", "i", "n", 4);
-            when(recipeRepository.findAll()).thenReturn(List.of(recipe1));
+            when(recipeRepository.findByTagIdAfterId(eq(999L), eq(0L), any(Limit.class))).thenReturn(List.of());
 
             List<Recipe> result = recipeService.findRecipesByTagId(999L);
 
             assertTrue(result.isEmpty());
-            verify(recipeRepository).findAll();
+            verify(recipeRepository).findByTagIdAfterId(eq(999L), eq(0L), any(Limit.class));
             verifyNoMoreInteractions(recipeRepository);
         }
 
+        @Test
+        @DisplayName("paged findRecipesByTag continues after the cursor id and returns the next cursor")
+        void findRecipesByTag_paged() {
+            when(recipeRepository.findByTagNameAfterId("quick", 5L, Limit.of(3)))
+                    .thenReturn(List.of(savedRecipe(6L), savedRecipe(7L), savedRecipe(9L)));
+
+            CursorPage<Recipe> page = recipeService.findRecipesByTag("Quick", RecipeCursor.afterId(5L).encode(), 2);
+
+            assertEquals(List.of(6L, 7L), page.items().stream().map(Recipe::getId).toList());
+            assertEquals(RecipeCursor.afterId(7L), RecipeCursor.decode(page.nextCursor()));
+            verify(recipeRepository).findByTagNameAfterId("quick", 5L, Limit.of(3));
+            verifyNoMoreInteractions(recipeRepository);
+        }
+
+        @Test
+        @DisplayName("paged findRecipesByTagId rejects an updatedAt cursor")
+        void findRecipesByTagId_rejectsForeignCursor() {
+            String cursor = RecipeCursor.afterUpdate(LocalDateTime.now(), 1L).encode();
+            assertThrows(IllegalArgumentException.class, () -> recipeService.findRecipesByTagId(3L, cursor, 10));
+            verifyNoInteractions(recipeRepository);
+        }
+
         @Test
         @DisplayName("updateRecipe replaces tags when provided")
         void updateRecipe_withTags() {
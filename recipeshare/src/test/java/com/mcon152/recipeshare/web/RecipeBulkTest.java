@@ -0,0 +1,95 @@
+package com.mcon152.recipeshare.web;
+
+import com.jayway.jsonpath.JsonPath;
+import com.mcon152.recipeshare.domain.BasicRecipe;
+import com.mcon152.recipeshare.repository.RecipeRepository;
+import com.mcon152.recipeshare.search.FullTextIndex;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * {@code POST /api/recipes/bulk} against the database, with chunks of two items so that a bad
+ * record shares its transaction with good ones.
+ */
+@SpringBootTest(properties = "recipeshare.bulk.chunk-size=2")
+@AutoConfigureMockMvc
+@DisplayName("Bulk writes")
+class RecipeBulkTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private RecipeRepository recipeRepository;
+
+    @Autowired
+    private FullTextIndex fullTextIndex;
+
+    @Test
+    @DisplayName("every item gets its own result and a bad record fails only itself")
+    void mixedBatch() throws Exception {
+        String word = "bulk" + UUID.randomUUID().toString().substring(0, 8).replaceAll("[^a-z]", "x");
+        long updated = recipeRepository.save(new BasicRecipe(null, "Old", "d", "i", "n", 1)).getId();
+        long deleted = recipeRepository.save(new BasicRecipe(null, "Gone", "d", "i", "n", 1)).getId();
+        String tooLong = "x".repeat(300);
+
+        String body = "[" +
+                "{\"op\":\"create\",\"recipe\":{\"type\":\"DESSERT\",\"title\":\"First " + word + "\",\"servings\":4}}," +
+                "{\"op\":\"create\",\"recipe\":{\"type\":\"BASIC\",\"title\":\"" + tooLong + "\"}}," +
+                "{\"op\":\"update\",\"id\":" + updated + ",\"recipe\":{\"type\":\"BASIC\",\"title\":\"New " + word + "\",\"servings\":3}}," +
+                "{\"op\":\"delete\",\"id\":" + deleted + "}," +
+                "{\"op\":\"delete\",\"id\":-1}," +
+                "{\"op\":\"rename\",\"id\":" + updated + "}," +
+                "{\"op\":\"update\",\"recipe\":{\"title\":\"No id\"}}" +
+                "]";
+
+        String response = mockMvc.perform(post("/api/recipes/bulk").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.succeeded").value(3))
+                .andExpect(jsonPath("$.failed").value(4))
+                .andExpect(jsonPath("$.results.length()").value(7))
+                .andExpect(jsonPath("$.results[0].outcome").value("CREATED"))
+                .andExpect(jsonPath("$.results[1].outcome").value("INVALID"))
+                .andExpect(jsonPath("$.results[2].outcome").value("UPDATED"))
+                .andExpect(jsonPath("$.results[2].id").value(updated))
+                .andExpect(jsonPath("$.results[3].outcome").value("DELETED"))
+                .andExpect(jsonPath("$.results[4].outcome").value("NOT_FOUND"))
+                .andExpect(jsonPath("$.results[5].outcome").value("INVALID"))
+                .andExpect(jsonPath("$.results[5].error").value("Unknown op: rename"))
+                .andExpect(jsonPath("$.results[6].outcome").value("INVALID"))
+                .andReturn().getResponse().getContentAsString();
+        long created = ((Number) JsonPath.read(response, "$.results[0].id")).longValue();
+
+        mockMvc.perform(get("/api/recipes/" + created))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.recipeType").value("DESSERT"));
+        mockMvc.perform(get("/api/recipes/" + updated))
+                .andExpect(jsonPath("$.title").value("New " + word))
+                .andExpect(jsonPath("$.servings").value(3));
+        mockMvc.perform(get("/api/recipes/" + deleted)).andExpect(status().isNotFound());
+
+        // Indexed once committed: the new and the renamed recipe, nothing of the rolled back attempt
+        assertEquals(2, fullTextIndex.search(word, 10).size());
+        assertTrue(fullTextIndex.search(tooLong, 10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("an empty list is rejected")
+    void emptyList() throws Exception {
+        mockMvc.perform(post("/api/recipes/bulk").contentType(MediaType.APPLICATION_JSON).content("[]"))
+                .andExpect(status().isBadRequest());
+    }
+}
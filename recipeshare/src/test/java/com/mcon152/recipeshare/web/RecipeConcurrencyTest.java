@@ -0,0 +1,149 @@
+package com.mcon152.recipeshare.web;
+
+import com.mcon152.recipeshare.domain.BasicRecipe;
+import com.mcon152.recipeshare.repository.RecipeRepository;
+import com.mcon152.recipeshare.search.FullTextIndex;
+import com.mcon152.recipeshare.service.RecipeService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * If-Match on PUT and PATCH against the real version column: two clients start from the same
+ * ETag and edit the recipe one after the other.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@DisplayName("Optimistic concurrency")
+class RecipeConcurrencyTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private RecipeRepository recipeRepository;
+
+    @Autowired
+    private RecipeService recipeService;
+
+    @Autowired
+    private FullTextIndex fullTextIndex;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private RecipeCollectionVersion collectionVersion;
+
+    private long id;
+    private String etag;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        id = recipeRepository.save(new BasicRecipe(null, "Soup", "Warm", "water", "boil", 2)).getId();
+        etag = mockMvc.perform(get("/api/recipes/" + id))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(etag);
+    }
+
+    private ResultActions patchWith(String ifMatch, String json) throws Exception {
+        return mockMvc.perform(patch("/api/recipes/" + id).header(HttpHeaders.IF_MATCH, ifMatch)
+                .contentType(MediaType.APPLICATION_JSON).content(json));
+    }
+
+    @Test
+    @DisplayName("the second writer of the same field gets 412 with the current ETag")
+    void sameFieldConflicts() throws Exception {
+        String next = patchWith(etag, "{\"type\":\"BASIC\",\"title\":\"Tomato Soup\"}")
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotEquals(etag, next);
+
+        patchWith(etag, "{\"type\":\"BASIC\",\"title\":\"Onion Soup\"}")
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(header().string(HttpHeaders.ETAG, next));
+        mockMvc.perform(put("/api/recipes/" + id).header(HttpHeaders.IF_MATCH, etag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"type\":\"BASIC\",\"title\":\"Onion Soup\",\"servings\":2}"))
+                .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(get("/api/recipes/" + id)).andExpect(jsonPath("$.title").value("Tomato Soup"));
+    }
+
+    @Test
+    @DisplayName("patches of different fields based on the same version are merged")
+    void disjointPatchesMerge() throws Exception {
+        patchWith(etag, "{\"type\":\"BASIC\",\"title\":\"Tomato Soup\"}").andExpect(status().isOk());
+        patchWith(etag, "{\"type\":\"BASIC\",\"servings\":6}").andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/recipes/" + id))
+                .andExpect(jsonPath("$.title").value("Tomato Soup"))
+                .andExpect(jsonPath("$.servings").value(6));
+    }
+
+    @Test
+    @DisplayName("an edit reaches the search index only once it has committed")
+    void rolledBackEditIsNotIndexed() {
+        TransactionTemplate transactions = new TransactionTemplate(transactionManager);
+        transactions.executeWithoutResult(status -> {
+            recipeService.patchRecipe(id, new BasicRecipe(null, "Zanzibar Soup", null, null, null, null));
+            assertTrue(fullTextIndex.search("zanzibar", 10).isEmpty(), "indexed before commit");
+            status.setRollbackOnly();
+        });
+        assertTrue(fullTextIndex.search("zanzibar", 10).isEmpty(), "indexed though rolled back");
+
+        transactions.executeWithoutResult(status ->
+                recipeService.patchRecipe(id, new BasicRecipe(null, "Zanzibar Soup", null, null, null, null)));
+        assertEquals(List.of(id), fullTextIndex.search("zanzibar", 10).stream().map(FullTextIndex.Hit::recipeId).toList());
+    }
+
+    @Test
+    @DisplayName("a list read during an edit keeps the old collection ETag until the edit commits")
+    void listReadDuringEdit() {
+        String before = collectionVersion.etag();
+        TransactionTemplate transactions = new TransactionTemplate(transactionManager);
+        transactions.executeWithoutResult(status -> {
+            recipeService.patchRecipe(id, new BasicRecipe(null, "Pending Soup", null, null, null, null));
+            assertEquals(before, listETagFromAnotherThread(), "bumped before commit");
+            status.setRollbackOnly();
+        });
+        assertEquals(before, listETagFromAnotherThread(), "bumped though rolled back");
+
+        transactions.executeWithoutResult(status -> {
+            recipeService.patchRecipe(id, new BasicRecipe(null, "Pending Soup", null, null, null, null));
+            assertEquals(before, listETagFromAnotherThread(), "bumped before commit");
+        });
+        assertNotEquals(before, listETagFromAnotherThread());
+    }
+
+    /** The collection ETag of a list read, made outside the test's transaction. */
+    private String listETagFromAnotherThread() {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return mockMvc.perform(get("/api/recipes").param("size", "1"))
+                        .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }).join();
+    }
+}
@@ -6,7 +6,16 @@ import com.mcon152.recipeshare.domain.BasicRecipe;
 import com.mcon152.recipeshare.domain.DessertRecipe;
 import com.mcon152.recipeshare.domain.Recipe;
 import com.mcon152.recipeshare.domain.VegetarianRecipe;
+import com.mcon152.recipeshare.repository.RecipeField;
+import com.mcon152.recipeshare.repository.RecipeVersion;
+import com.mcon152.recipeshare.service.CursorPage;
+import com.mcon152.recipeshare.service.RecipeBatch;
+import com.mcon152.recipeshare.service.RecipeBulkOperation;
+import com.mcon152.recipeshare.service.RecipeBulkResult;
+import com.mcon152.recipeshare.service.RecipeBulkService;
+import com.mcon152.recipeshare.service.RecipeCursor;
 import com.mcon152.recipeshare.service.RecipeService;
+import com.mcon152.recipeshare.service.RecipeSortOrder;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
@@ -16,13 +25,17 @@ import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
 import org.mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import java.time.LocalDateTime;
 import java.util.*;
 
 import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.not;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
@@ -41,6 +54,15 @@ class RecipeControllerTest {
     @Mock
     private RecipeService recipeService;
 
+    @Spy
+    private RecipeJsonCache recipeJson = new RecipeJsonCache(Jackson2ObjectMapperBuilder.json().build(), 1 << 20);
+
+    @Spy
+    private RecipeCollectionVersion collectionVersion = new RecipeCollectionVersion();
+
+    @Mock
+    private RecipeBulkService bulkService;
+
     @InjectMocks
     private RecipeController recipeController;
 
@@ -202,7 +224,8 @@ class RecipeControllerTest {
             }
 
             // Stub GET endpoints
-            lenient().when(recipeService.getAllRecipes()).thenReturn(Arrays.asList(r1, r2));
+            lenient().when(recipeService.getRecipePage(RecipeSortOrder.ID, null, null))
+                    .thenReturn(new CursorPage<>(Arrays.asList(r1, r2), null));
             lenient().when(recipeService.getRecipeById(1L)).thenReturn(Optional.of(r1));
             lenient().when(recipeService.getRecipeById(2L)).thenReturn(Optional.of(r2));
             Mockito.clearInvocations(recipeService);
@@ -212,11 +235,11 @@ class RecipeControllerTest {
         void testGetAllRecipes_andVerifyCallCount_atLeastOnce() throws Exception {
             mockMvc.perform(get("/api/recipes"))
                     .andExpect(status().isOk())
-                    .andExpect(jsonPath("$", hasSize(2)))
-                    .andExpect(jsonPath("$[0].title").value("Pie"))
-                    .andExpect(jsonPath("$[1].title").value("Soup"));
+                    .andExpect(jsonPath("$.items", hasSize(2)))
+                    .andExpect(jsonPath("$.items[0].title").value("Pie"))
+                    .andExpect(jsonPath("$.items[1].title").value("Soup"));
 
-            verify(recipeService, atLeastOnce()).getAllRecipes();
+            verify(recipeService, atLeastOnce()).getRecipePage(RecipeSortOrder.ID, null, null);
             verifyNoMoreInteractions(recipeService);
         }
 
@@ -271,17 +294,418 @@ class RecipeControllerTest {
             );
             List<Recipe> list2 = Collections.emptyList();
 
-            when(recipeService.getAllRecipes()).thenReturn(list1, list2);
+            when(recipeService.getRecipePage(RecipeSortOrder.ID, null, null))
+                    .thenReturn(new CursorPage<>(list1, null), new CursorPage<>(list2, null));
 
             mockMvc.perform(get("/api/recipes"))
                     .andExpect(status().isOk())
-                    .andExpect(jsonPath("$", hasSize(2)));
+                    .andExpect(jsonPath("$.items", hasSize(2)));
+
+            mockMvc.perform(get("/api/recipes"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.items", hasSize(0)));
+
+            verify(recipeService, times(2)).getRecipePage(RecipeSortOrder.ID, null, null);
+            verifyNoMoreInteractions(recipeService);
+        }
+    }
+
+    // ---------------------- Keyset Pagination ----------------------
+
+    @Nested
+    class PaginationTests {
+
+        @Test
+        void pagedRequest_returnsItemsCursorAndNextLink() throws Exception {
+            List<Recipe> items = List.of(
+                    new BasicRecipe(1L, "A", "d", "i", "n", 1),
+                    new BasicRecipe(2L, "B", "d", "i", "n", 2)
+            );
+            String cursor = RecipeCursor.afterId(2L).encode();
+            when(recipeService.getRecipePage(RecipeSortOrder.ID, null, 2))
+                    .thenReturn(new CursorPage<>(items, cursor));
+
+            mockMvc.perform(get("/api/recipes?size=2"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.items", hasSize(2)))
+                    .andExpect(jsonPath("$.nextCursor").value(cursor))
+                    .andExpect(jsonPath("$.next").value("http://localhost/api/recipes?size=2&cursor=" + cursor))
+                    .andExpect(header().string("Link", "<http://localhost/api/recipes?size=2&cursor=" + cursor + ">; rel=\"next\""));
+
+            verify(recipeService).getRecipePage(RecipeSortOrder.ID, null, 2);
+            verifyNoMoreInteractions(recipeService);
+        }
+
+        @Test
+        void unpagedRequest_returnsFirstDefaultPage() throws Exception {
+            String cursor = RecipeCursor.afterId(1L).encode();
+            when(recipeService.getRecipePage(RecipeSortOrder.ID, null, null))
+                    .thenReturn(new CursorPage<>(List.of(new BasicRecipe(1L, "A", "d", "i", "n", 1)), cursor));
 
             mockMvc.perform(get("/api/recipes"))
                     .andExpect(status().isOk())
-                    .andExpect(jsonPath("$", hasSize(0)));
+                    .andExpect(jsonPath("$.items", hasSize(1)))
+                    .andExpect(jsonPath("$.next").value("http://localhost/api/recipes?cursor=" + cursor))
+                    .andExpect(header().string("Link", "<http://localhost/api/recipes?cursor=" + cursor + ">; rel=\"next\""));
+
+            verify(recipeService).getRecipePage(RecipeSortOrder.ID, null, null);
+            verifyNoMoreInteractions(recipeService);
+        }
+
+        @Test
+        void lastPage_hasNoNextLink() throws Exception {
+            String cursor = RecipeCursor.afterId(2L).encode();
+            when(recipeService.getRecipePage(RecipeSortOrder.ID, cursor, null))
+                    .thenReturn(new CursorPage<>(List.of(), null));
+
+            mockMvc.perform(get("/api/recipes").param("cursor", cursor))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.items", hasSize(0)))
+                    .andExpect(jsonPath("$.next").doesNotExist())
+                    .andExpect(header().doesNotExist("Link"));
+        }
+
+        @Test
+        void invalidCursorOrSort_returns400() throws Exception {
+            when(recipeService.getRecipePage(any(), eq("bogus"), any()))
+                    .thenThrow(new IllegalArgumentException("Invalid cursor"));
+
+            mockMvc.perform(get("/api/recipes").param("cursor", "bogus"))
+                    .andExpect(status().isBadRequest());
+            mockMvc.perform(get("/api/recipes").param("size", "5").param("sort", "title"))
+                    .andExpect(status().isBadRequest());
+
+            verify(recipeService).getRecipePage(any(), eq("bogus"), any());
+            verifyNoMoreInteractions(recipeService);
+        }
+    }
+
+    // ---------------------- Sparse Fieldsets ----------------------
+
+    @Nested
+    class SparseFieldsetTests {
+
+        @Test
+        void fields_returnsOnlyRequestedProperties() throws Exception {
+            Set<RecipeField> fields = EnumSet.of(RecipeField.ID, RecipeField.TITLE, RecipeField.SERVINGS);
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("id", 1);
+            row.put("title", "Pancakes");
+            row.put("servings", 4);
+            when(recipeService.getRecipeFieldPage(fields, RecipeSortOrder.ID, null, null))
+                    .thenReturn(new CursorPage<>(List.of(row), null));
+
+            mockMvc.perform(get("/api/recipes").param("fields", "title, servings"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.items[0].title").value("Pancakes"))
+                    .andExpect(jsonPath("$.items[0].servings").value(4))
+                    .andExpect(jsonPath("$.items[0].ingredients").doesNotExist());
+
+            verify(recipeService).getRecipeFieldPage(fields, RecipeSortOrder.ID, null, null);
+            verifyNoMoreInteractions(recipeService);
+        }
+
+        @Test
+        void fieldsWithSize_returnsPage() throws Exception {
+            Set<RecipeField> fields = EnumSet.of(RecipeField.ID, RecipeField.TAGS);
+            when(recipeService.getRecipeFieldPage(fields, RecipeSortOrder.UPDATED_AT, null, 1))
+                    .thenReturn(new CursorPage<>(List.of(Map.of("id", 1, "tags", List.of())), null));
+
+            mockMvc.perform(get("/api/recipes?fields=tags&size=1&sort=updatedAt"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.items", hasSize(1)))
+                    .andExpect(jsonPath("$.next").doesNotExist());
+        }
+
+        @Test
+        void unknownField_returns400() throws Exception {
+            mockMvc.perform(get("/api/recipes").param("fields", "title,password"))
+                    .andExpect(status().isBadRequest());
+            mockMvc.perform(get("/api/recipes").param("fields", ""))
+                    .andExpect(status().isBadRequest());
+
+            verifyNoInteractions(recipeService);
+        }
+    }
+
+    // ---------------------- Conditional GET ----------------------
+
+    @Nested
+    class ConditionalGetTests {
+
+        private final LocalDateTime updatedAt = LocalDateTime.of(2025, 3, 4, 5, 6, 7);
+
+        private Recipe recipe() {
+            Recipe recipe = new BasicRecipe(5L, "A", "d", "i", "n", 1);
+            recipe.setUpdatedAt(updatedAt);
+            recipe.setVersion(3L);
+            return recipe;
+        }
+
+        @Test
+        void detail_carriesETagAndLastModified() throws Exception {
+            when(recipeService.getRecipeById(5L)).thenReturn(Optional.of(recipe()));
+
+            mockMvc.perform(get("/api/recipes/5"))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string("ETag", "\"r5-v3\""))
+                    .andExpect(header().dateValue("Last-Modified", RecipeETags.lastModified(updatedAt)));
+
+            verify(recipeService, never()).getRecipeVersion(anyLong());
+        }
+
+        @Test
+        void matchingIfNoneMatch_returns304WithoutLoading() throws Exception {
+            when(recipeService.getRecipeVersion(5L)).thenReturn(Optional.of(new RecipeVersion(3L, updatedAt)));
+
+            mockMvc.perform(get("/api/recipes/5").header("If-None-Match", "\"r5-v3\""))
+                    .andExpect(status().isNotModified())
+                    .andExpect(content().bytes(new byte[0]));
+
+            verify(recipeService).getRecipeVersion(5L);
+            verifyNoMoreInteractions(recipeService);
+        }
+
+        @Test
+        void staleIfNoneMatch_returnsFreshRecipe() throws Exception {
+            when(recipeService.getRecipeVersion(5L)).thenReturn(Optional.of(new RecipeVersion(3L, updatedAt)));
+            when(recipeService.getRecipeById(5L)).thenReturn(Optional.of(recipe()));
+
+            mockMvc.perform(get("/api/recipes/5").header("If-None-Match", "\"r5-v2\""))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string("ETag", "\"r5-v3\""))
+                    .andExpect(jsonPath("$.title").value("A"))
+                    .andExpect(jsonPath("$.version").doesNotExist());
+        }
+
+        @Test
+        void conditionalRequestForMissingRecipe_returns404() throws Exception {
+            when(recipeService.getRecipeVersion(6L)).thenReturn(Optional.empty());
+
+            mockMvc.perform(get("/api/recipes/6").header("If-None-Match", "\"r6-v1\""))
+                    .andExpect(status().isNotFound());
+            verify(recipeService, never()).getRecipeById(anyLong());
+        }
+
+        @Test
+        void list_isValidatedByCollectionVersion() throws Exception {
+            when(recipeService.getRecipePage(RecipeSortOrder.ID, null, null))
+                    .thenReturn(new CursorPage<>(List.of(), null));
+            String etag = mockMvc.perform(get("/api/recipes"))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getHeader("ETag");
+
+            mockMvc.perform(get("/api/recipes").header("If-None-Match", etag))
+                    .andExpect(status().isNotModified());
+            mockMvc.perform(get("/api/recipes/by-tag/x").header("If-None-Match", etag))
+                    .andExpect(status().isNotModified());
+            verify(recipeService, times(1)).getRecipePage(RecipeSortOrder.ID, null, null);
+
+            collectionVersion.remove(1L);
+            mockMvc.perform(get("/api/recipes").header("If-None-Match", etag))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string("ETag", not(etag)));
+        }
+    }
+
+    // ---------------------- If-Match ----------------------
+
+    @Nested
+    class IfMatchTests {
+
+        private final String body = "{\"type\":\"BASIC\",\"title\":\"T\"}";
+
+        private Recipe saved(long version) {
+            Recipe recipe = new BasicRecipe(5L, "T", "d", "i", "n", 1);
+            recipe.setVersion(version);
+            return recipe;
+        }
+
+        @Test
+        void matchingIfMatch_passesVersionAndReturnsNewETag() throws Exception {
+            when(recipeService.updateRecipe(eq(5L), any(Recipe.class), eq(3L))).thenReturn(Optional.of(saved(4L)));
+
+            mockMvc.perform(put("/api/recipes/5").header("If-Match", "\"r5-v3\"")
+                            .contentType(MediaType.APPLICATION_JSON).content(body))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string("ETag", "\"r5-v4\""));
+
+            verify(recipeService).updateRecipe(eq(5L), any(Recipe.class), eq(3L));
+            verifyNoMoreInteractions(recipeService);
+        }
+
+        @Test
+        void staleIfMatch_returns412WithCurrentETag() throws Exception {
+            when(recipeService.patchRecipe(eq(5L), any(Recipe.class), eq(2L)))
+                    .thenThrow(new OptimisticLockingFailureException("stale"));
+            when(recipeService.getRecipeVersion(5L)).thenReturn(Optional.of(new RecipeVersion(4L, null)));
+
+            mockMvc.perform(patch("/api/recipes/5").header("If-Match", "\"r5-v2\"")
+                            .contentType(MediaType.APPLICATION_JSON).content(body))
+                    .andExpect(status().isPreconditionFailed())
+                    .andExpect(header().string("ETag", "\"r5-v4\""));
+        }
+
+        @Test
+        void ifMatchOfAnotherRecipe_returns412WithoutUpdating() throws Exception {
+            mockMvc.perform(patch("/api/recipes/5").header("If-Match", "\"r6-v3\", W/\"r5-v3\"")
+                            .contentType(MediaType.APPLICATION_JSON).content(body))
+                    .andExpect(status().isPreconditionFailed());
+
+            verify(recipeService, never()).patchRecipe(anyLong(), any(Recipe.class), any());
+            verify(recipeService, never()).patchRecipe(anyLong(), any(Recipe.class));
+        }
+
+        @Test
+        void wildcardIfMatch_isUnconditional() throws Exception {
+            when(recipeService.patchRecipe(eq(5L), any(Recipe.class))).thenReturn(Optional.of(saved(1L)));
+
+            mockMvc.perform(patch("/api/recipes/5").header("If-Match", "*")
+                            .contentType(MediaType.APPLICATION_JSON).content(body))
+                    .andExpect(status().isOk());
+        }
+
+        @Test
+        void concurrentUpdateWithoutIfMatch_returns409() throws Exception {
+            when(recipeService.updateRecipe(eq(5L), any(Recipe.class)))
+                    .thenThrow(new OptimisticLockingFailureException("lost race"));
+
+            mockMvc.perform(put("/api/recipes/5").contentType(MediaType.APPLICATION_JSON).content(body))
+                    .andExpect(status().isConflict());
+        }
+    }
+
+    // ---------------------- Multi-get ----------------------
+
+    @Nested
+    class MultiGetTests {
+
+        @Test
+        void idsParam_returnsItemsInRequestOrderAndMissingIds() throws Exception {
+            when(recipeService.getRecipesByIds(List.of(2L, 9L, 1L))).thenReturn(new RecipeBatch(
+                    List.of(new BasicRecipe(2L, "B", "d", "i", "n", 2), new BasicRecipe(1L, "A", "d", "i", "n", 1)),
+                    List.of(9L)));
+
+            mockMvc.perform(get("/api/recipes").param("ids", "2,9,1"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.items[0].title").value("B"))
+                    .andExpect(jsonPath("$.items[1].title").value("A"))
+                    .andExpect(jsonPath("$.missing[0]").value(9));
+
+            verify(recipeService).getRecipesByIds(List.of(2L, 9L, 1L));
+            verifyNoMoreInteractions(recipeService);
+        }
+
+        @Test
+        void postBatch_acceptsIdsInBody() throws Exception {
+            when(recipeService.getRecipesByIds(List.of(5L, 4L))).thenReturn(new RecipeBatch(List.of(), List.of(5L, 4L)));
+
+            mockMvc.perform(post("/api/recipes/batch")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"ids\":[5,4]}"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.items", hasSize(0)))
+                    .andExpect(jsonPath("$.missing", hasSize(2)));
+        }
+
+        @Test
+        void invalidIdList_returns400() throws Exception {
+            when(recipeService.getRecipesByIds(List.of())).thenThrow(new IllegalArgumentException("No ids given"));
+
+            mockMvc.perform(post("/api/recipes/batch")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"ids\":[]}"))
+                    .andExpect(status().isBadRequest());
+            mockMvc.perform(get("/api/recipes").param("ids", "1,x"))
+                    .andExpect(status().isBadRequest());
+        }
+    }
+
+    // ---------------------- Bulk Writes ----------------------
+
+    @Nested
+    class BulkTests {
+
+        @Captor
+        private ArgumentCaptor<List<RecipeBulkOperation>> operationsCaptor;
+
+        @Test
+        void malformedItems_answeredWithoutService_resultsInRequestOrder() throws Exception {
+            when(bulkService.apply(anyList())).thenAnswer(invocation -> {
+                List<RecipeBulkOperation> operations = invocation.getArgument(0);
+                return operations.stream()
+                        .map(op -> RecipeBulkResult.of(op, op.id() != null ? op.id() : 100L,
+                                op.kind() == RecipeBulkOperation.Kind.DELETE
+                                        ? RecipeBulkResult.Outcome.DELETED : RecipeBulkResult.Outcome.CREATED))
+                        .toList();
+            });
+
+            mockMvc.perform(post("/api/recipes/bulk")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("[{\"op\":\"delete\"}," +
+                                    "{\"op\":\"create\",\"recipe\":{\"type\":\"VEGETARIAN\",\"title\":\"Salad\"}}," +
+                                    "null," +
+                                    "{\"op\":\"DELETE\",\"id\":7}]"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.succeeded").value(2))
+                    .andExpect(jsonPath("$.failed").value(2))
+                    .andExpect(jsonPath("$.results[0].outcome").value("INVALID"))
+                    .andExpect(jsonPath("$.results[0].error").value("delete needs an id"))
+                    .andExpect(jsonPath("$.results[1].id").value(100))
+                    .andExpect(jsonPath("$.results[2].error").value("Missing item"))
+                    .andExpect(jsonPath("$.results[3].outcome").value("DELETED"));
+
+            verify(bulkService).apply(operationsCaptor.capture());
+            List<RecipeBulkOperation> operations = operationsCaptor.getValue();
+            assertEquals(List.of(1, 3), operations.stream().map(RecipeBulkOperation::index).toList());
+            assertInstanceOf(VegetarianRecipe.class, operations.get(0).recipe());
+            assertEquals(7L, operations.get(1).id());
+        }
+
+        @Test
+        void emptyOrOversizedList_returns400() throws Exception {
+            mockMvc.perform(post("/api/recipes/bulk").contentType(MediaType.APPLICATION_JSON).content("[]"))
+                    .andExpect(status().isBadRequest());
+            String tooMany = "[" + String.join(",", Collections.nCopies(1001, "{\"op\":\"delete\",\"id\":1}")) + "]";
+            mockMvc.perform(post("/api/recipes/bulk").contentType(MediaType.APPLICATION_JSON).content(tooMany))
+                    .andExpect(status().isBadRequest());
+
+            verifyNoInteractions(bulkService);
+        }
+    }
+
+    // ---------------------- Tag Lookups ----------------------
+
+    @Nested
+    class TagLookupTests {
+
+        @Test
+        void byTag_withoutPaging_returnsList() throws Exception {
+            when(recipeService.findRecipesByTag("italian"))
+                    .thenReturn(List.of(new BasicRecipe(1L, "Pasta", "d", "i", "n", 4)));
+
+            mockMvc.perform(get("/api/recipes/by-tag/italian"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$", hasSize(1)))
+                    .andExpect(jsonPath("$[0].title").value("Pasta"));
+
+            verify(recipeService).findRecipesByTag("italian");
+            verifyNoMoreInteractions(recipeService);
+        }
+
+        @Test
+        void byTagId_paged_returnsPage() throws Exception {
+            String cursor = RecipeCursor.afterId(1L).encode();
+            when(recipeService.findRecipesByTagId(7L, null, 1))
+                    .thenReturn(new CursorPage<>(List.of(new BasicRecipe(1L, "Pasta", "d", "i", "n", 4)), cursor));
+
+            mockMvc.perform(get("/api/recipes/by-tag-id/7?size=1"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.items", hasSize(1)))
+                    .andExpect(jsonPath("$.nextCursor").value(cursor))
+                    .andExpect(header().exists("Link"));
 
-            verify(recipeService, times(2)).getAllRecipes();
+            verify(recipeService).findRecipesByTagId(7L, null, 1);
             verifyNoMoreInteractions(recipeService);
         }
     }
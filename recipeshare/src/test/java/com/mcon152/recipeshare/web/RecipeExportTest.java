@@ -0,0 +1,139 @@
+package com.mcon152.recipeshare.web;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mcon152.recipeshare.domain.AppUser;
+import com.mcon152.recipeshare.domain.BasicRecipe;
+import com.mcon152.recipeshare.domain.Recipe;
+import com.mcon152.recipeshare.domain.Tag;
+import com.mcon152.recipeshare.repository.AppUserRepository;
+import com.mcon152.recipeshare.repository.RecipeRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/** {@code GET /api/recipes/export} against the database, with a chunk size small enough to need several chunks. */
+@SpringBootTest(properties = "recipeshare.export.chunk-size=3")
+@AutoConfigureMockMvc
+@DisplayName("Streaming export")
+class RecipeExportTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private RecipeRepository recipeRepository;
+
+    @Autowired
+    private AppUserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private MvcResult export(MockHttpServletRequestBuilder request) throws Exception {
+        MvcResult started = mockMvc.perform(request).andExpect(request().asyncStarted()).andReturn();
+        return mockMvc.perform(asyncDispatch(started)).andExpect(status().isOk()).andReturn();
+    }
+
+    private List<JsonNode> lines(byte[] ndjson) throws IOException {
+        List<JsonNode> lines = new ArrayList<>();
+        String text = new String(ndjson, StandardCharsets.UTF_8);
+        assertTrue(text.endsWith("\n"));
+        for (String line : text.split("\n")) {
+            lines.add(objectMapper.readTree(line));
+        }
+        return lines;
+    }
+
+    @Test
+    @DisplayName("all recipes as gzip NDJSON in id order, tags looked up once per chunk")
+    void gzipNdjson() throws Exception {
+        String run = UUID.randomUUID().toString().substring(0, 8);
+        AppUser author = userRepository.save(new AppUser("export-" + run, "pw", "Exporter"));
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            Recipe recipe = new BasicRecipe(null, "Exported " + i, "d", "i", "n", i, author);
+            recipe.addTag(new Tag("export-" + run + "-" + i));
+            ids.add(recipeRepository.save(recipe).getId());
+        }
+        long total = recipeRepository.count();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        MvcResult result = export(get("/api/recipes/export").header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"));
+        assertEquals("gzip", result.getResponse().getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertEquals("application/x-ndjson", result.getResponse().getContentType());
+        List<JsonNode> lines = lines(new GZIPInputStream(
+                new ByteArrayInputStream(result.getResponse().getContentAsByteArray())).readAllBytes());
+
+        assertEquals(total, lines.size());
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals(1 + (total + 2) / 3, statistics.getPrepareStatementCount());
+        for (int i = 1; i < lines.size(); i++) {
+            assertTrue(lines.get(i - 1).get("id").asLong() < lines.get(i).get("id").asLong());
+        }
+        JsonNode last = lines.stream().filter(line -> line.get("id").asLong() == ids.get(6)).findFirst().orElseThrow();
+        assertEquals("Exported 6", last.get("title").asText());
+        assertEquals("Exporter", last.get("author").get("displayName").asText());
+        assertEquals("export-" + run + "-6", last.get("tags").get(0).get("name").asText());
+        assertEquals("BASIC", last.get("recipeType").asText());
+        assertTrue(last.has("updatedAt"));
+    }
+
+    @Test
+    @DisplayName("plain NDJSON for clients that refuse gzip, and sparse fieldsets")
+    void identityAndFields() throws Exception {
+        recipeRepository.save(new BasicRecipe(null, "Plain", "d", "i", "n", 1));
+
+        MvcResult result = export(get("/api/recipes/export?fields=title")
+                .header(HttpHeaders.ACCEPT_ENCODING, "identity, gzip;q=0"));
+        assertNull(result.getResponse().getHeader(HttpHeaders.CONTENT_ENCODING));
+        JsonNode first = lines(result.getResponse().getContentAsByteArray()).get(0);
+        assertTrue(first.has("id"));
+        assertTrue(first.has("title"));
+        assertFalse(first.has("ingredients"));
+
+        mockMvc.perform(get("/api/recipes/export?fields=calories"))
+                .andExpect(status().isBadRequest())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING));
+    }
+
+    @Test
+    @DisplayName("Accept-Encoding negotiation")
+    void acceptsGzip() {
+        assertTrue(RecipeExportController.acceptsGzip(null));
+        assertTrue(RecipeExportController.acceptsGzip("gzip"));
+        assertTrue(RecipeExportController.acceptsGzip("br, GZIP;q=0.5"));
+        assertTrue(RecipeExportController.acceptsGzip("*"));
+        assertFalse(RecipeExportController.acceptsGzip("identity"));
+        assertFalse(RecipeExportController.acceptsGzip("gzip;q=0"));
+        assertFalse(RecipeExportController.acceptsGzip("deflate, gzip; q=0.000"));
+    }
+}
@@ -0,0 +1,162 @@
+package com.mcon152.recipeshare.web;
+
+import com.jayway.jsonpath.JsonPath;
+import com.mcon152.recipeshare.domain.AppUser;
+import com.mcon152.recipeshare.domain.Recipe;
+import com.mcon152.recipeshare.domain.Tag;
+import com.mcon152.recipeshare.repository.AppUserRepository;
+import com.mcon152.recipeshare.repository.RecipeRepository;
+import com.mcon152.recipeshare.repository.TagRepository;
+import com.mcon152.recipeshare.search.FullTextIndex;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * {@code POST /api/recipes/import} against the database, with chunks of two records so that bad
+ * records share their transaction with good ones, and uploads of at most 4 KB.
+ */
+@SpringBootTest(properties = {"recipeshare.import.chunk-size=2", "recipeshare.import.max-bytes=4096"})
+@AutoConfigureMockMvc
+@DisplayName("Background imports")
+class RecipeImportTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private RecipeRepository recipeRepository;
+
+    @Autowired
+    private AppUserRepository userRepository;
+
+    @Autowired
+    private TagRepository tagRepository;
+
+    @Autowired
+    private FullTextIndex fullTextIndex;
+
+    private static String word() {
+        return "imp" + UUID.randomUUID().toString().substring(0, 8).replaceAll("[^a-z]", "x");
+    }
+
+    /** Uploads the body and polls the job until it has finished, returning its final status. */
+    private String importAndWait(String body, MediaType contentType) throws Exception {
+        MvcResult started = mockMvc.perform(post("/api/recipes/import").contentType(contentType).content(body))
+                .andExpect(status().isAccepted())
+                .andReturn();
+        String location = started.getResponse().getHeader(HttpHeaders.LOCATION);
+        assertNotNull(location);
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (true) {
+            String status = mockMvc.perform(get(location))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            String state = JsonPath.read(status, "$.state");
+            if (!state.equals("QUEUED") && !state.equals("RUNNING")) return status;
+            assertTrue(System.currentTimeMillis() < deadline, "import did not finish: " + status);
+            Thread.sleep(20);
+        }
+    }
+
+    private List<Recipe> imported(String word) {
+        List<Long> ids = fullTextIndex.search(word, 10).stream().map(FullTextIndex.Hit::recipeId).toList();
+        return recipeRepository.findAllById(ids).stream()
+                .sorted(Comparator.comparing(Recipe::getId))
+                .toList();
+    }
+
+    @Test
+    @DisplayName("a JSON array is imported and every bad record fails only itself")
+    void jsonArray() throws Exception {
+        String word = word();
+        AppUser author = userRepository.save(new AppUser(word, "pw", "Importer"));
+        tagRepository.save(new Tag(word + "-old"));
+        String tooLong = "x".repeat(300);
+
+        String body = "[" +
+                "{\"type\":\"DESSERT\",\"title\":\"First " + word + "\",\"ingredients\":\"i\",\"instructions\":\"n\"," +
+                "\"servings\":4,\"authorUsername\":\"" + word + "\",\"tags\":[\"" + word + "-new\",\"" + word + "-old\"]}," +
+                "{\"title\":\"No ingredients " + word + "\",\"instructions\":\"n\"}," +
+                "{\"title\":\"" + tooLong + "\",\"ingredients\":\"i\",\"instructions\":\"n\"}," +
+                "{\"title\":\"Second " + word + "\",\"ingredients\":\"i\",\"instructions\":\"n\"," +
+                "\"authorUsername\":\"nobody-" + word + "\",\"tags\":[\"" + word + "-new\"]}," +
+                "{\"title\":\"Servings " + word + "\",\"ingredients\":\"i\",\"instructions\":\"n\",\"servings\":\"lots\"}," +
+                "42" +
+                "]";
+
+        String status = importAndWait(body, MediaType.APPLICATION_JSON);
+        assertEquals("COMPLETED", JsonPath.read(status, "$.state"));
+        assertEquals(6, ((Number) JsonPath.read(status, "$.read")).intValue());
+        assertEquals(2, ((Number) JsonPath.read(status, "$.imported")).intValue());
+        assertEquals(4, ((Number) JsonPath.read(status, "$.failed")).intValue());
+        List<Integer> failedIndexes = JsonPath.read(status, "$.errors[*].index");
+        assertEquals(Set.of(1, 2, 4, 5), Set.copyOf(failedIndexes));
+        assertEquals(List.of("Missing ingredients"), JsonPath.read(status, "$.errors[?(@.index == 1)].error"));
+
+        List<Recipe> recipes = imported(word);
+        assertEquals(2, recipes.size());
+        Recipe first = recipes.get(0);
+        assertEquals("First " + word, first.getTitle());
+        assertEquals("DESSERT", first.getRecipeType());
+        assertEquals(4, first.getServings());
+        assertEquals("", first.getDescription());
+        assertEquals(author.getId(), first.getAuthor().getId());
+        assertEquals(Set.of(word + "-new", word + "-old"),
+                first.getTags().stream().map(Tag::getName).collect(Collectors.toSet()));
+        Recipe second = recipes.get(1);
+        assertEquals("BASIC", second.getRecipeType());
+        assertEquals(1, second.getServings());
+        assertNull(second.getAuthor());
+
+        // Tags are shared across records and with the ones already in the database
+        assertEquals(2, tagRepository.findByNameIn(List.of(word + "-new", word + "-old")).size());
+    }
+
+    @Test
+    @DisplayName("NDJSON is imported until malformed input ends the job")
+    void ndjsonWithSyntaxError() throws Exception {
+        String word = word();
+        String body = "{\"title\":\"One " + word + "\",\"ingredients\":\"i\",\"instructions\":\"n\"}\n" +
+                "{\"title\":\"Two " + word + "\",\"ingredients\":\"i\",\"instructions\":\"n\"}\n" +
+                "{\"title\":\"Three " + word + "\",\"ingredients\":\n";
+
+        String status = importAndWait(body, MediaType.parseMediaType("application/x-ndjson"));
+        assertEquals("FAILED", JsonPath.read(status, "$.state"));
+        assertEquals(2, ((Number) JsonPath.read(status, "$.imported")).intValue());
+        assertTrue(((String) JsonPath.read(status, "$.message")).startsWith("Malformed JSON"));
+        assertEquals(2, imported(word).size());
+    }
+
+    @Test
+    @DisplayName("an upload declared larger than the limit is refused before it is read")
+    void tooLarge() throws Exception {
+        mockMvc.perform(post("/api/recipes/import").contentType(MediaType.APPLICATION_JSON).content("[" + " ".repeat(4096) + "]"))
+                .andExpect(status().isPayloadTooLarge());
+    }
+
+    @Test
+    @DisplayName("an unknown job is not found")
+    void unknownJob() throws Exception {
+        mockMvc.perform(get("/api/recipes/import/" + UUID.randomUUID()))
+                .andExpect(status().isNotFound());
+    }
+}
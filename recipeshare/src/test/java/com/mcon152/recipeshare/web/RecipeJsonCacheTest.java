@@ -0,0 +1,119 @@
+package com.mcon152.recipeshare.web;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mcon152.recipeshare.domain.AppUser;
+import com.mcon152.recipeshare.domain.BasicRecipe;
+import com.mcon152.recipeshare.domain.Recipe;
+import com.mcon152.recipeshare.domain.Tag;
+import com.mcon152.recipeshare.service.CursorPage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("RecipeJsonCache")
+class RecipeJsonCacheTest {
+
+    private final ObjectMapper mapper = Jackson2ObjectMapperBuilder.json().build();
+    private RecipeJsonCache cache;
+
+    private static Recipe recipe(long id, String title, LocalDateTime updatedAt) {
+        Recipe recipe = new BasicRecipe(id, title, "d", "i", "n", 2);
+        recipe.setUpdatedAt(updatedAt);
+        return recipe;
+    }
+
+    @BeforeEach
+    void setUp() {
+        cache = new RecipeJsonCache(mapper, 1 << 20);
+    }
+
+    @Test
+    @DisplayName("encodes a version once and re-encodes when updatedAt changes")
+    void keyedByUpdatedAt() throws Exception {
+        LocalDateTime t1 = LocalDateTime.of(2025, 1, 1, 12, 0);
+        byte[] first = cache.json(recipe(1, "Soup", t1));
+        assertSame(first, cache.json(recipe(1, "Soup", t1)));
+        assertArrayEquals(mapper.writeValueAsBytes(recipe(1, "Soup", t1)), first);
+
+        byte[] second = cache.json(recipe(1, "Stew", t1.plusMinutes(1)));
+        assertEquals("Stew", mapper.readTree(second).get("title").asText());
+    }
+
+    @Test
+    @DisplayName("writes forwarded as index/remove/clear evict entries")
+    void evictedOnWrites() {
+        LocalDateTime t1 = LocalDateTime.of(2025, 1, 1, 12, 0);
+        byte[] first = cache.json(recipe(1, "Soup", t1));
+
+        cache.index(recipe(1, "Soup", t1));
+        byte[] second = cache.json(recipe(1, "Soup", t1));
+        assertNotSame(first, second);
+
+        cache.remove(1);
+        assertNotSame(second, cache.json(recipe(1, "Soup", t1)));
+    }
+
+    @Test
+    @DisplayName("renaming an author or tag evicts the recipes that embed it")
+    void evictedOnAuthorAndTagChanges() throws Exception {
+        LocalDateTime t1 = LocalDateTime.of(2025, 1, 1, 12, 0);
+        AppUser author = new AppUser(7L, "cook", "pw", "Old Name");
+        Recipe soup = new BasicRecipe(1L, "Soup", "d", "i", "n", 2, author);
+        soup.setUpdatedAt(t1);
+        Tag tag = new Tag(3L, "warm", null);
+        Recipe stew = recipe(2, "Stew", t1);
+        stew.addTag(tag);
+        byte[] soupJson = cache.json(soup);
+        byte[] stewJson = cache.json(stew);
+
+        author.setDisplayName("New Name");
+        cache.evictAuthor(8L);
+        cache.evictTag(4L);
+        assertSame(soupJson, cache.json(soup));
+        new RecipeJsonCacheListener(new StaticListableBeanFactory(Map.of("recipeJson", cache))
+                .getBeanProvider(RecipeJsonCache.class)).onChanged(author);
+        assertEquals("New Name", mapper.readTree(cache.json(soup)).get("author").get("displayName").asText());
+
+        tag.setName("hot");
+        assertSame(stewJson, cache.json(stew));
+        cache.evictTag(3L);
+        assertEquals("hot", mapper.readTree(cache.json(stew)).get("tags").get(0).get("name").asText());
+    }
+
+    @Test
+    @DisplayName("arrays and pages match what Jackson would have written")
+    void concatenation() throws Exception {
+        List<Recipe> recipes = List.of(recipe(1, "A", LocalDateTime.now()), recipe(2, "B \"quoted\"", null));
+        assertEquals(mapper.readTree(mapper.writeValueAsBytes(recipes)), mapper.readTree(cache.array(recipes)));
+        assertEquals("[]", new String(cache.array(List.of())));
+
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest("GET", "/api/recipes")));
+        try {
+            ResponseEntity<byte[]> page = cache.ok(new CursorPage<>(recipes, "abc"));
+            JsonNode body = mapper.readTree(page.getBody());
+            assertEquals(2, body.get("items").size());
+            assertEquals("abc", body.get("nextCursor").asText());
+            assertEquals("http://localhost/api/recipes?cursor=abc", body.get("next").asText());
+            assertEquals("<http://localhost/api/recipes?cursor=abc>; rel=\"next\"", page.getHeaders().getFirst(HttpHeaders.LINK));
+
+            JsonNode last = mapper.readTree(cache.ok(new CursorPage<>(recipes, null)).getBody());
+            assertTrue(last.get("next").isNull());
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+    }
+}
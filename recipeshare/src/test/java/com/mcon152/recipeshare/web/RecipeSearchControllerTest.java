@@ -0,0 +1,201 @@
+package com.mcon152.recipeshare.web;
+
+import com.mcon152.recipeshare.domain.BasicRecipe;
+import com.mcon152.recipeshare.search.Facet;
+import com.mcon152.recipeshare.search.FacetedResult;
+import com.mcon152.recipeshare.search.FuzzyIndex;
+import com.mcon152.recipeshare.search.PantryMatch;
+import com.mcon152.recipeshare.search.RecipeSearchService;
+import com.mcon152.recipeshare.search.SearchHit;
+import com.mcon152.recipeshare.service.CursorPage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@ExtendWith(MockitoExtension.class)
+class RecipeSearchControllerTest {
+
+    private MockMvc mockMvc;
+
+    @Mock
+    private RecipeSearchService searchService;
+
+    @InjectMocks
+    private RecipeSearchController searchController;
+
+    @BeforeEach
+    void setup() {
+        mockMvc = MockMvcBuilders.standaloneSetup(searchController).build();
+    }
+
+    @Nested
+    class FullTextTests {
+
+        @Test
+        void search_returnsRankedHits() throws Exception {
+            when(searchService.search("carbonara", 5)).thenReturn(List.of(
+                    new SearchHit(new BasicRecipe(1L, "Carbonara", "d", "i", "n", 4), 2.5f)));
+
+            mockMvc.perform(get("/api/recipes/search").param("q", "carbonara").param("size", "5"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$", hasSize(1)))
+                    .andExpect(jsonPath("$[0].recipe.title").value("Carbonara"))
+                    .andExpect(jsonPath("$[0].score").value(2.5));
+
+            verify(searchService).search("carbonara", 5);
+            verifyNoMoreInteractions(searchService);
+        }
+
+        @Test
+        void search_fuzzy_usesFuzzyTitleSearch() throws Exception {
+            when(searchService.fuzzySearch("carbonarra", null)).thenReturn(List.of(
+                    new SearchHit(new BasicRecipe(1L, "Carbonara", "d", "i", "n", 4), 0.5f)));
+
+            mockMvc.perform(get("/api/recipes/search").param("q", "carbonarra").param("fuzzy", "true"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$[0].recipe.title").value("Carbonara"))
+                    .andExpect(jsonPath("$[0].score").value(0.5));
+
+            verify(searchService).fuzzySearch("carbonarra", null);
+            verifyNoMoreInteractions(searchService);
+        }
+
+        @Test
+        void searchTags_returnsClosestNames() throws Exception {
+            when(searchService.fuzzyTags("vegitarian", null)).thenReturn(List.of(
+                    new FuzzyIndex.TagMatch("vegetarian", 1)));
+
+            mockMvc.perform(get("/api/recipes/search/tags").param("q", "vegitarian"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$[0].name").value("vegetarian"))
+                    .andExpect(jsonPath("$[0].distance").value(1));
+        }
+
+        @Test
+        void search_withoutTerms_returns400() throws Exception {
+            when(searchService.search("the", null)).thenThrow(new IllegalArgumentException("no terms"));
+
+            mockMvc.perform(get("/api/recipes/search").param("q", "the"))
+                    .andExpect(status().isBadRequest());
+        }
+    }
+
+    @Nested
+    class PantryTests {
+
+        @Test
+        void pantry_returnsMatchesWithMissingIngredients() throws Exception {
+            when(searchService.findByPantry(List.of("spaghetti", "eggs"), 1, null)).thenReturn(List.of(
+                    new PantryMatch(new BasicRecipe(1L, "Carbonara", "d", "spaghetti, eggs, pancetta", "n", 4),
+                            2, 3, List.of("pancetta"))));
+
+            mockMvc.perform(get("/api/recipes/pantry?have=spaghetti,eggs&maxMissing=1"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$[0].recipe.title").value("Carbonara"))
+                    .andExpect(jsonPath("$[0].matched").value(2))
+                    .andExpect(jsonPath("$[0].missing[0]").value("pancetta"));
+        }
+
+        @Test
+        void pantry_defaultsToTwoMissing_andRejectsBadInput() throws Exception {
+            when(searchService.findByPantry(List.of("salt"), 2, null)).thenThrow(new IllegalArgumentException("bad"));
+
+            mockMvc.perform(get("/api/recipes/pantry?have=salt"))
+                    .andExpect(status().isBadRequest());
+            verify(searchService).findByPantry(List.of("salt"), 2, null);
+        }
+    }
+
+    @Nested
+    class SimilarTests {
+
+        @Test
+        void similar_returnsScoredRecipes() throws Exception {
+            when(searchService.findSimilar(1L, 3)).thenReturn(Optional.of(List.of(
+                    new SearchHit(new BasicRecipe(2L, "Cacio e Pepe", "d", "i", "n", 2), 0.6f))));
+
+            mockMvc.perform(get("/api/recipes/1/similar").param("size", "3"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$[0].recipe.id").value(2))
+                    .andExpect(jsonPath("$[0].score").value(0.6));
+        }
+
+        @Test
+        void similar_unknownRecipe_returns404() throws Exception {
+            when(searchService.findSimilar(42L, null)).thenReturn(Optional.empty());
+
+            mockMvc.perform(get("/api/recipes/42/similar"))
+                    .andExpect(status().isNotFound());
+        }
+    }
+
+    @Nested
+    class TagQueryTests {
+
+        @Test
+        void tagQuery_returnsPage() throws Exception {
+            when(searchService.findByTagQuery("vegetarian AND NOT dessert", null, null))
+                    .thenReturn(new CursorPage<>(List.of(new BasicRecipe(3L, "Salad", "d", "i", "n", 2)), null));
+
+            mockMvc.perform(get("/api/recipes/tag-query").param("q", "vegetarian AND NOT dessert"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.items", hasSize(1)))
+                    .andExpect(jsonPath("$.items[0].title").value("Salad"))
+                    .andExpect(jsonPath("$.next").doesNotExist());
+
+            verify(searchService).findByTagQuery("vegetarian AND NOT dessert", null, null);
+            verifyNoMoreInteractions(searchService);
+        }
+
+        @Test
+        void malformedQuery_returns400() throws Exception {
+            when(searchService.findByTagQuery(eq("quick AND"), any(), any()))
+                    .thenThrow(new IllegalArgumentException("Unexpected end of tag query"));
+
+            mockMvc.perform(get("/api/recipes/tag-query").param("q", "quick AND"))
+                    .andExpect(status().isBadRequest());
+        }
+    }
+
+    @Nested
+    class FacetTests {
+
+        @Test
+        void facets_passesFiltersAndReturnsCounts() throws Exception {
+            FacetedResult result = new FacetedResult(
+                    new CursorPage<>(List.of(new BasicRecipe(1L, "Pasta", "d", "i", "n", 4)), null),
+                    1,
+                    Map.of("type", List.of(new FacetedResult.FacetValue("BASIC", "BASIC", 1)),
+                            "author", List.of(new FacetedResult.FacetValue("7", "Chef John", 1))));
+            when(searchService.facetedSearch(
+                    Map.of(Facet.TYPE, List.of("BASIC", "DAIRY"), Facet.SERVINGS, List.of("3-4")), null, null))
+                    .thenReturn(result);
+
+            mockMvc.perform(get("/api/recipes/facets?type=BASIC&type=DAIRY&servings=3-4"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.total").value(1))
+                    .andExpect(jsonPath("$.items", hasSize(1)))
+                    .andExpect(jsonPath("$.facets.type[0].count").value(1))
+                    .andExpect(jsonPath("$.facets.author[0].label").value("Chef John"));
+
+            verify(searchService).facetedSearch(anyMap(), isNull(), isNull());
+            verifyNoMoreInteractions(searchService);
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package com.mcon152.recipeshare.web;
+
+import com.mcon152.recipeshare.domain.AppUser;
+import com.mcon152.recipeshare.domain.BasicRecipe;
+import com.mcon152.recipeshare.domain.Recipe;
+import com.mcon152.recipeshare.domain.Tag;
+import com.mcon152.recipeshare.repository.AppUserRepository;
+import com.mcon152.recipeshare.repository.RecipeRepository;
+import com.mcon152.recipeshare.service.RecipeCursor;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Counts the SQL statements behind the read endpoints, with the second-level cache and the JSON
+ * cache emptied first, to catch N+1 loading of authors and tags.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@DisplayName("Statements per request")
+class RecipeStatementCountTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private RecipeRepository recipeRepository;
+
+    @Autowired
+    private AppUserRepository userRepository;
+
+    @Autowired
+    private RecipeJsonCache recipeJsonCache;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private String tagName;
+    private long firstId;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        String run = UUID.randomUUID().toString().substring(0, 8);
+        tagName = "count-" + run;
+        Tag shared = new Tag(tagName);
+        List<Recipe> recipes = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            AppUser author = userRepository.save(new AppUser("count-" + run + "-" + i, "pw", "Author " + i));
+            Recipe recipe = new BasicRecipe(null, "Counted " + i, "d", "i", "n", 2, author);
+            recipe.addTag(shared);
+            recipe.addTag(new Tag(tagName + "-" + i));
+            recipes.add(recipe);
+        }
+        firstId = recipeRepository.saveAll(recipes).get(0).getId();
+    }
+
+    private long statements(String url) throws Exception {
+        entityManagerFactory.getCache().unwrap(Cache.class).evictAllRegions();
+        recipeJsonCache.clear();
+        statistics.clear();
+        mockMvc.perform(get(url)).andExpect(status().isOk()).andExpect(jsonPath("$").exists());
+        return statistics.getPrepareStatementCount();
+    }
+
+    @Test
+    @DisplayName("a keyset page costs the same few statements for 5 or 25 recipes")
+    void pageIsConstant() throws Exception {
+        long small = statements("/api/recipes?size=5&cursor=" + cursorBefore(firstId));
+        long large = statements("/api/recipes?size=25&cursor=" + cursorBefore(firstId));
+        assertEquals(small, large);
+        assertTrue(large <= 2, "statements: " + large);
+    }
+
+    @Test
+    @DisplayName("tag pages, the full list and the detail view do not load per recipe")
+    void otherReadPaths() throws Exception {
+        assertEquals(statements("/api/recipes/by-tag/" + tagName + "?size=5"),
+                statements("/api/recipes/by-tag/" + tagName + "?size=25"));
+        assertTrue(statements("/api/recipes") <= 2);
+        assertEquals(1, statements("/api/recipes/" + firstId));
+    }
+
+    @Test
+    @DisplayName("a multi-get of 25 ids is a single statement")
+    void multiGet() throws Exception {
+        StringBuilder ids = new StringBuilder(String.valueOf(firstId + 24));
+        for (long id = firstId; id < firstId + 24; id++) {
+            ids.append(',').append(id);
+        }
+        assertEquals(1, statements("/api/recipes?ids=" + ids + ",-1"));
+
+        mockMvc.perform(get("/api/recipes?ids=" + ids + ",-1"))
+                .andExpect(jsonPath("$.items.length()").value(25))
+                .andExpect(jsonPath("$.items[0].id").value(firstId + 24))
+                .andExpect(jsonPath("$.items[0].tags.length()").value(2))
+                .andExpect(jsonPath("$.missing[0]").value(-1));
+    }
+
+    @Test
+    @DisplayName("a sparse fieldset page reads its columns and tag names without loading entities")
+    void sparseFieldset() throws Exception {
+        String url = "/api/recipes?fields=title,tags&size=25&cursor=" + cursorBefore(firstId);
+        assertEquals(2, statements(url));
+        assertEquals(0, statistics.getEntityLoadCount());
+
+        mockMvc.perform(get(url))
+                .andExpect(jsonPath("$.items[0].id").value(firstId))
+                .andExpect(jsonPath("$.items[0].title").value("Counted 0"))
+                .andExpect(jsonPath("$.items[0].tags.length()").value(2))
+                .andExpect(jsonPath("$.items[0].ingredients").doesNotExist());
+    }
+
+    @Test
+    @DisplayName("a conditional GET is answered with 304 from a version lookup or the collection counter")
+    void conditionalGet() throws Exception {
+        mockMvc.perform(patch("/api/recipes/" + firstId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"type\":\"BASIC\",\"title\":\"Renamed\"}"))
+                .andExpect(status().isOk());
+        MvcResult detail = mockMvc.perform(get("/api/recipes/" + firstId)).andReturn();
+        MvcResult list = mockMvc.perform(get("/api/recipes?size=5")).andReturn();
+        String detailETag = detail.getResponse().getHeader(HttpHeaders.ETAG);
+        String listETag = list.getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(detail.getResponse().getHeader(HttpHeaders.LAST_MODIFIED));
+
+        statistics.clear();
+        mockMvc.perform(get("/api/recipes/" + firstId).header(HttpHeaders.IF_NONE_MATCH, detailETag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, detailETag));
+        mockMvc.perform(get("/api/recipes?size=5").header(HttpHeaders.IF_NONE_MATCH, listETag))
+                .andExpect(status().isNotModified());
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+
+        mockMvc.perform(delete("/api/recipes/" + (firstId + 1))).andExpect(status().isNoContent());
+        mockMvc.perform(get("/api/recipes?size=5").header(HttpHeaders.IF_NONE_MATCH, listETag))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @DisplayName("a delete is two statements without loading the recipe, a missing id the same two")
+    void deleteByRowCount() throws Exception {
+        mockMvc.perform(get("/api/recipes/" + firstId)).andExpect(status().isOk());
+
+        statistics.clear();
+        mockMvc.perform(delete("/api/recipes/" + firstId)).andExpect(status().isNoContent());
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertTrue(recipeRepository.findTagNames(List.of(firstId)).isEmpty());
+
+        statistics.clear();
+        mockMvc.perform(delete("/api/recipes/" + firstId)).andExpect(status().isNotFound());
+        assertEquals(2, statistics.getPrepareStatementCount());
+        mockMvc.perform(get("/api/recipes/" + firstId)).andExpect(status().isNotFound());
+    }
+
+    @Test
+    @DisplayName("a patch of a cached recipe is one version-guarded update, and the next read sees it")
+    void patchIsOneUpdate() throws Exception {
+        mockMvc.perform(get("/api/recipes/" + firstId)).andExpect(status().isOk());
+        long version = recipeRepository.findVersionById(firstId).orElseThrow().version();
+
+        statistics.clear();
+        mockMvc.perform(patch("/api/recipes/" + firstId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"type\":\"BASIC\",\"servings\":7}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.servings").value(7))
+                .andExpect(jsonPath("$.title").value("Counted 0"))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"r" + firstId + "-v" + (version + 1) + "\""));
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityUpdateCount());
+
+        mockMvc.perform(get("/api/recipes/" + firstId))
+                .andExpect(jsonPath("$.servings").value(7))
+                .andExpect(jsonPath("$.tags.length()").value(2));
+        assertEquals(version + 1, recipeRepository.findVersionById(firstId).orElseThrow().version());
+    }
+
+    private static String cursorBefore(long id) {
+        return RecipeCursor.afterId(id - 1).encode();
+    }
+}
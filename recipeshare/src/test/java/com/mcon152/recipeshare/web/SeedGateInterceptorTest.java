@@ -0,0 +1,82 @@
+package com.mcon152.recipeshare.web;
+
+import com.mcon152.recipeshare.loader.SeedProgress;
+import com.mcon152.recipeshare.search.RecipeSearchService;
+import com.mcon152.recipeshare.search.Suggestions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.Instant;
+
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@ExtendWith(MockitoExtension.class)
+class SeedGateInterceptorTest {
+
+    private MockMvc mockMvc;
+
+    @Mock
+    private RecipeSearchService searchService;
+
+    @Mock
+    private SeedProgress seedProgress;
+
+    @InjectMocks
+    private SuggestController suggestController;
+
+    @BeforeEach
+    void setup() {
+        mockMvc = MockMvcBuilders.standaloneSetup(suggestController, new SeedController(seedProgress))
+                .addMappedInterceptors(new String[]{"/api/suggest"}, new SeedGateInterceptor(seedProgress))
+                .build();
+    }
+
+    @Test
+    void whileLoading_gatedEndpointAnswers503() throws Exception {
+        when(seedProgress.isDone()).thenReturn(false);
+
+        mockMvc.perform(get("/api/suggest").param("q", "pa"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, SeedGateInterceptor.RETRY_AFTER_SECONDS));
+
+        verifyNoInteractions(searchService);
+    }
+
+    @Test
+    void whileLoading_statusIsServed() throws Exception {
+        when(seedProgress.status()).thenReturn(new SeedProgress.Status(SeedProgress.State.LOADING, "recipes",
+                3, 1200, Instant.now(), null, 40, null));
+
+        mockMvc.perform(get("/api/seed"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.state").value("LOADING"))
+                .andExpect(jsonPath("$.phase").value("recipes"))
+                .andExpect(jsonPath("$.recipesLoaded").value(1200));
+    }
+
+    @Test
+    void snapshotIsNotServed() throws Exception {
+        mockMvc.perform(get("/api/seed/snapshot"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void whenDone_requestsPassThrough() throws Exception {
+        when(seedProgress.isDone()).thenReturn(true);
+        when(searchService.suggest("pa", null)).thenReturn(Suggestions.NONE);
+
+        mockMvc.perform(get("/api/suggest").param("q", "pa"))
+                .andExpect(status().isOk());
+
+        verify(searchService).suggest("pa", null);
+    }
+}
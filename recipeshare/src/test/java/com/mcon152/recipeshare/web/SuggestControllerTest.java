@@ -0,0 +1,60 @@
+package com.mcon152.recipeshare.web;
+
+import com.mcon152.recipeshare.search.RecipeSearchService;
+import com.mcon152.recipeshare.search.Suggestions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.List;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@ExtendWith(MockitoExtension.class)
+class SuggestControllerTest {
+
+    private MockMvc mockMvc;
+
+    @Mock
+    private RecipeSearchService searchService;
+
+    @InjectMocks
+    private SuggestController suggestController;
+
+    @BeforeEach
+    void setup() {
+        mockMvc = MockMvcBuilders.standaloneSetup(suggestController).build();
+    }
+
+    @Test
+    void suggest_returnsTitlesAndTags() throws Exception {
+        when(searchService.suggest("pa", 5)).thenReturn(new Suggestions(
+                List.of(new Suggestions.Suggestion("Pasta Primavera", 2)),
+                List.of(new Suggestions.Suggestion("pasta", 3))));
+
+        mockMvc.perform(get("/api/suggest").param("q", "pa").param("size", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.titles", hasSize(1)))
+                .andExpect(jsonPath("$.titles[0].text").value("Pasta Primavera"))
+                .andExpect(jsonPath("$.tags[0].weight").value(3));
+
+        verify(searchService).suggest("pa", 5);
+    }
+
+    @Test
+    void suggest_withoutPrefix_passesEmptyString() throws Exception {
+        when(searchService.suggest("", null)).thenReturn(Suggestions.NONE);
+
+        mockMvc.perform(get("/api/suggest"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.titles", hasSize(0)));
+    }
+}